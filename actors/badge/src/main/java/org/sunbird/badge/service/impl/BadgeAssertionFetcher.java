@@ -0,0 +1,201 @@
+package org.sunbird.badge.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sunbird.badge.util.BadgingUtil;
+import org.sunbird.badge.util.BadgrHttpClient;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.response.HttpUtilResponse;
+import org.sunbird.common.models.util.BadgingJsonKey;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.responsecode.ResponseCode;
+
+/**
+ * Reads badge assertions from Badgr concurrently on a bounded pool.
+ *
+ * <p>An assertion does not change once issued, except by being revoked, so assertions read are
+ * kept until revoked through this instance. The cache entries also expire after a TTL, which bounds
+ * how long an assertion revoked on another instance is still served. An assertion which cannot be
+ * read is reported as a failure instead of failing the whole list.
+ */
+final class BadgeAssertionFetcher {
+
+  static final String FAILED_ASSERTIONS = "failedAssertions";
+  private static final long METRICS_LOG_INTERVAL = 100;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final ExecutorService executor;
+  private final long callTimeout;
+  private final Cache<String, Map<String, Object>> cache;
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong callCount = new AtomicLong();
+  private final AtomicLong callTime = new AtomicLong();
+  private final AtomicLong maxCallTime = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong listCount = new AtomicLong();
+
+  /**
+   * @param executor Pool calling Badgr
+   * @param callTimeout Time in milliseconds within which all calls of a list must complete
+   * @param cacheTtl Time in seconds an assertion is kept
+   * @param cacheSize Maximum number of assertions kept
+   */
+  BadgeAssertionFetcher(ExecutorService executor, long callTimeout, long cacheTtl, long cacheSize) {
+    this.executor = executor;
+    this.callTimeout = callTimeout;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Math.max(cacheTtl, 0), TimeUnit.SECONDS)
+            .maximumSize(Math.max(cacheSize, 0))
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Get assertions, reading from Badgr only the assertions not cached.
+   *
+   * @param assertionIds Assertion IDs
+   * @return Assertions found, in the order of the IDs, under {@code BadgingJsonKey.ASSERTIONS} and
+   *     the assertion ID and error of each assertion not read under {@link #FAILED_ASSERTIONS}
+   */
+  Map<String, Object> getAssertions(List<String> assertionIds) {
+    Map<String, Map<String, Object>> assertions = new HashMap<>();
+    Map<String, Future<Map<String, Object>>> futures = new LinkedHashMap<>();
+    for (String assertionId : new LinkedHashSet<>(assertionIds)) {
+      Map<String, Object> assertion = cache.getIfPresent(assertionId);
+      if (assertion != null) {
+        assertions.put(assertionId, assertion);
+      } else {
+        futures.put(assertionId, executor.submit(() -> readAssertion(assertionId)));
+      }
+    }
+
+    List<Map<String, Object>> failures = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + callTimeout;
+    try {
+      for (Map.Entry<String, Future<Map<String, Object>>> entry : futures.entrySet()) {
+        try {
+          long timeout = Math.max(deadline - System.currentTimeMillis(), 0);
+          assertions.put(entry.getKey(), entry.getValue().get(timeout, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+          failures.add(getFailure(entry.getKey(), e.getCause()));
+        } catch (TimeoutException e) {
+          failures.add(getFailure(entry.getKey(), e));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ProjectLogger.log("BadgeAssertionFetcher:getAssertions: Interrupted", e);
+      throw new ProjectCommonException(
+          ResponseCode.SERVER_ERROR.getErrorCode(),
+          ResponseCode.SERVER_ERROR.getErrorMessage(),
+          ResponseCode.SERVER_ERROR.getResponseCode());
+    } finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+
+    List<Map<String, Object>> assertionList = new ArrayList<>();
+    for (String assertionId : assertionIds) {
+      Map<String, Object> assertion = assertions.get(assertionId);
+      if (assertion != null) {
+        assertionList.add(new HashMap<>(assertion));
+      }
+    }
+    Map<String, Object> result = new HashMap<>();
+    result.put(BadgingJsonKey.ASSERTIONS, assertionList);
+    result.put(FAILED_ASSERTIONS, failures);
+    if (listCount.incrementAndGet() % METRICS_LOG_INTERVAL == 0) {
+      ProjectLogger.log(
+          "BadgeAssertionFetcher:getAssertions: metrics = " + getMetrics(), LoggerEnum.INFO.name());
+    }
+    return result;
+  }
+
+  /**
+   * Remove a revoked assertion.
+   *
+   * @param assertionId Assertion ID
+   */
+  void invalidate(String assertionId) {
+    if (assertionId != null) {
+      generation.incrementAndGet();
+      cache.invalidate(assertionId);
+    }
+  }
+
+  /** @return Badgr call count, failures and latency, and hits and misses of the cache */
+  Map<String, Object> getMetrics() {
+    CacheStats stats = cache.stats();
+    long calls = callCount.get();
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("cacheSize", cache.size());
+    metrics.put("cacheHits", stats.hitCount());
+    metrics.put("cacheMisses", stats.missCount());
+    metrics.put("cacheHitRate", stats.hitRate());
+    metrics.put("badgrCalls", calls);
+    metrics.put("badgrFailures", failureCount.get());
+    metrics.put("badgrAverageTime", calls == 0 ? 0 : callTime.get() / calls);
+    metrics.put("badgrMaxTime", maxCallTime.get());
+    return metrics;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> readAssertion(String assertionId) throws IOException {
+    Map<String, Object> map = new HashMap<>();
+    map.put(BadgingJsonKey.ASSERTION_ID, assertionId);
+    String url = BadgingUtil.createBadgerUrl(map, BadgingUtil.SUNBIRD_BADGER_GETASSERTION_URL, 3);
+    long readGeneration = generation.get();
+    long startTime = System.currentTimeMillis();
+    HttpUtilResponse httpResponse;
+    try {
+      httpResponse = BadgrHttpClient.doGetRequest(url, BadgingUtil.getBadgrHeaders());
+    } finally {
+      long elapsedTime = System.currentTimeMillis() - startTime;
+      callCount.incrementAndGet();
+      callTime.addAndGet(elapsedTime);
+      maxCallTime.accumulateAndGet(elapsedTime, Math::max);
+    }
+    if (httpResponse.getStatusCode() != 200) {
+      throw new IOException("Badgr responded with status " + httpResponse.getStatusCode());
+    }
+    Map<String, Object> res = mapper.readValue(httpResponse.getBody(), HashMap.class);
+    // calling to create response as per sunbird
+    res = BadgingUtil.prepareAssertionResponse(res, new HashMap<String, Object>());
+    // an assertion read while an assertion was revoked may already be revoked
+    if (readGeneration == generation.get()) {
+      cache.put(assertionId, res);
+    }
+    return res;
+  }
+
+  private Map<String, Object> getFailure(String assertionId, Throwable e) {
+    failureCount.incrementAndGet();
+    ProjectLogger.log(
+        "BadgeAssertionFetcher:getAssertions: Failed to read assertion "
+            + assertionId
+            + " error = "
+            + e,
+        LoggerEnum.WARN.name());
+    Map<String, Object> failure = new HashMap<>();
+    failure.put(BadgingJsonKey.ASSERTION_ID, assertionId);
+    failure.put(JsonKey.ERROR_MSG, e instanceof TimeoutException ? "Timed out" : e.getMessage());
+    return failure;
+  }
+}
@@ -2,12 +2,18 @@ package org.sunbird.badge.service.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONException;
@@ -16,6 +22,7 @@ import org.sunbird.badge.model.BadgeClassExtension;
 import org.sunbird.badge.service.BadgeClassExtensionService;
 import org.sunbird.badge.service.BadgingService;
 import org.sunbird.badge.util.BadgingUtil;
+import org.sunbird.badge.util.BadgrHttpClient;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.HttpUtilResponse;
@@ -30,7 +37,9 @@ import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.CourseBatchSchedulerUtil;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
@@ -40,6 +49,21 @@ public class BadgrServiceImpl implements BadgingService {
   private ObjectMapper mapper = new ObjectMapper();
   private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   public static Map<String, String> headerMap = new HashMap<>();
+  private static final String BADGE_CLASS_CACHE_TTL = "sunbird_badge_class_cache_ttl_seconds";
+  private static final String ASSERTION_CACHE_TTL = "sunbird_badge_assertion_cache_ttl_seconds";
+  private static final String ASSERTION_EXECUTOR_NAME = "badgr_assertion";
+  private static final long DEFAULT_ASSERTION_CACHE_TTL = 3600;
+  private static final long ASSERTION_CACHE_SIZE = 10000;
+  private static final String BADGR_EXECUTOR_NAME = "badgr_issuer";
+  private static final long DEFAULT_BADGE_CLASS_CACHE_TTL = 300;
+  private static final long BADGE_CLASS_CACHE_SIZE = 1000;
+  private static final int BADGR_POOL_SIZE = 8;
+  private static final int BADGR_QUEUE_SIZE = 100;
+  // badge classes of each issuer as listed by Badgr, with the recipient count of each badge class
+  private final Cache<String, List<Map<String, Object>>> badgeClassCache;
+  private final AtomicLong badgeClassCacheGeneration = new AtomicLong();
+  private final long badgrCallTimeout;
+  private final BadgeAssertionFetcher assertionFetcher;
 
   static {
     String header = System.getenv(JsonKey.EKSTEP_AUTHORIZATION);
@@ -53,11 +77,27 @@ public class BadgrServiceImpl implements BadgingService {
   }
 
   public BadgrServiceImpl() {
-    this.badgeClassExtensionService = new BadgeClassExtensionServiceImpl();
+    this(new BadgeClassExtensionServiceImpl());
   }
 
   public BadgrServiceImpl(BadgeClassExtensionService badgeClassExtensionService) {
     this.badgeClassExtensionService = badgeClassExtensionService;
+    this.badgeClassCache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(
+                ConfigUtil.getLong(BADGE_CLASS_CACHE_TTL, DEFAULT_BADGE_CLASS_CACHE_TTL),
+                TimeUnit.SECONDS)
+            .maximumSize(BADGE_CLASS_CACHE_SIZE)
+            .build();
+    this.badgrCallTimeout =
+        ConfigUtil.getLong(BadgrHttpClient.CALL_TIMEOUT, BadgrHttpClient.DEFAULT_CALL_TIMEOUT);
+    this.assertionFetcher =
+        new BadgeAssertionFetcher(
+            ExecutorManager.getExecutor(
+                ASSERTION_EXECUTOR_NAME, BADGR_POOL_SIZE, BADGR_QUEUE_SIZE, true),
+            badgrCallTimeout,
+            ConfigUtil.getLong(ASSERTION_CACHE_TTL, DEFAULT_ASSERTION_CACHE_TTL),
+            ASSERTION_CACHE_SIZE);
   }
 
   @Override
@@ -110,7 +150,8 @@ public class BadgrServiceImpl implements BadgingService {
     Map<String, Object> req = request.getRequest();
     String slug = (String) req.get(JsonKey.SLUG);
     HttpUtilResponse httpResponse =
-        HttpUtil.doGetRequest(BadgingUtil.getBadgeIssuerUrl(slug), BadgingUtil.getBadgrHeaders());
+        BadgrHttpClient.doGetRequest(
+            BadgingUtil.getBadgeIssuerUrl(slug), BadgingUtil.getBadgrHeaders());
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
     Response response = new Response();
@@ -121,7 +162,8 @@ public class BadgrServiceImpl implements BadgingService {
   @Override
   public Response getIssuerList(Request request) throws IOException {
     HttpUtilResponse httpResponse =
-        HttpUtil.doGetRequest(BadgingUtil.getBadgeIssuerUrl(), BadgingUtil.getBadgrHeaders());
+        BadgrHttpClient.doGetRequest(
+            BadgingUtil.getBadgeIssuerUrl(), BadgingUtil.getBadgrHeaders());
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
     Response response = new Response();
@@ -206,6 +248,7 @@ public class BadgrServiceImpl implements BadgingService {
       BadgeClassExtension badgeClassExt =
           new BadgeClassExtension(badgeId, issuerId, rootOrgId, type, subtype, rolesList);
       badgeClassExtensionService.save(badgeClassExt);
+      invalidateBadgeClassCache(issuerId, null);
 
       BadgingUtil.prepareBadgeClassResponse(badgrResponseStr, badgeClassExt, response.getResult());
       targetObject =
@@ -237,7 +280,7 @@ public class BadgrServiceImpl implements BadgingService {
       Map<String, String> headers = BadgingUtil.getBadgrHeaders();
       String badgrUrl = BadgingUtil.getBadgeClassUrl(BadgingJsonKey.ISSUER_ID, badgeId);
 
-      HttpUtilResponse httpUtilResponse = HttpUtil.doGetRequest(badgrUrl, headers);
+      HttpUtilResponse httpUtilResponse = BadgrHttpClient.doGetRequest(badgrUrl, headers);
       String badgrResponseStr = httpUtilResponse.getBody();
 
       BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
@@ -286,11 +329,15 @@ public class BadgrServiceImpl implements BadgingService {
             .map(badge -> badge.getIssuerId())
             .distinct()
             .collect(Collectors.toList());
+    Map<String, BadgeClassExtension> badgeClassExtBySlug = new HashMap<>();
+    for (BadgeClassExtension badgeClassExt : badgeClassExtList) {
+      badgeClassExtBySlug.putIfAbsent(badgeClassExt.getBadgeId(), badgeClassExt);
+    }
 
     List<Object> badges = new ArrayList<>();
 
-    for (String issuerSlug : filteredIssuerList) {
-      badges.addAll(listBadgeClassForIssuer(issuerSlug, badgeClassExtList));
+    for (List<Map<String, Object>> issuerBadges : listBadgeClassForIssuers(filteredIssuerList)) {
+      badges.addAll(filterBadgeClass(issuerBadges, badgeClassExtBySlug));
     }
 
     response.put(BadgingJsonKey.BADGES, badges);
@@ -298,30 +345,68 @@ public class BadgrServiceImpl implements BadgingService {
     return response;
   }
 
-  private List<Object> listBadgeClassForIssuer(
-      String issuerSlug, List<BadgeClassExtension> badgeClassExtensionList)
+  /**
+   * Get the badge classes of the issuers, calling Badgr concurrently for the issuers whose badge
+   * classes are not cached. Each call must complete within {@code sunbird_badgr_call_timeout_ms}.
+   *
+   * @param issuerSlugs Issuer IDs
+   * @return Badge classes of each issuer, in the order of the issuers
+   */
+  private List<List<Map<String, Object>>> listBadgeClassForIssuers(List<String> issuerSlugs)
       throws ProjectCommonException {
-    List<Object> filteredBadges = new ArrayList<>();
+    if (issuerSlugs.size() <= 1) {
+      return issuerSlugs.stream().map(this::listBadgeClassForIssuer).collect(Collectors.toList());
+    }
+    ExecutorService executor =
+        ExecutorManager.getExecutor(BADGR_EXECUTOR_NAME, BADGR_POOL_SIZE, BADGR_QUEUE_SIZE, true);
+    List<Callable<List<Map<String, Object>>>> tasks = new ArrayList<>();
+    for (String issuerSlug : issuerSlugs) {
+      tasks.add(() -> listBadgeClassForIssuer(issuerSlug));
+    }
+    return ExecutorManager.invokeAll(executor, tasks, badgrCallTimeout);
+  }
+
+  private List<Map<String, Object>> listBadgeClassForIssuer(String issuerSlug)
+      throws ProjectCommonException {
+    List<Map<String, Object>> badges = badgeClassCache.getIfPresent(issuerSlug);
+    if (badges != null) {
+      return badges;
+    }
+    long generation = badgeClassCacheGeneration.get();
 
     try {
       Map<String, String> headers = BadgingUtil.getBadgrHeaders();
       String badgrUrl = BadgingUtil.getBadgeClassUrl(issuerSlug);
 
-      HttpUtilResponse httpUtilResponse = HttpUtil.doGetRequest(badgrUrl, headers);
+      HttpUtilResponse httpUtilResponse = BadgrHttpClient.doGetRequest(badgrUrl, headers);
       String badgrResponseStr = httpUtilResponse.getBody();
 
       BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
           httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
 
-      List<Map<String, Object>> badges = mapper.readValue(badgrResponseStr, ArrayList.class);
+      badges =
+          Collections.unmodifiableList(mapper.readValue(badgrResponseStr, ArrayList.class));
+      // a listing read while badge classes were created or removed may already be stale
+      if (generation == badgeClassCacheGeneration.get()) {
+        badgeClassCache.put(issuerSlug, badges);
+      }
+    } catch (IOException e) {
+      BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
+          ResponseCode.SERVER_ERROR.getResponseCode(), e.getMessage(), BadgingJsonKey.BADGE_CLASS);
+    }
 
+    return badges;
+  }
+
+  private List<Object> filterBadgeClass(
+      List<Map<String, Object>> badges, Map<String, BadgeClassExtension> badgeClassExtBySlug)
+      throws ProjectCommonException {
+    List<Object> filteredBadges = new ArrayList<>();
+
+    try {
       for (Map<String, Object> badge : badges) {
         BadgeClassExtension matchedBadgeClassExt =
-            badgeClassExtensionList
-                .stream()
-                .filter(x -> x.getBadgeId().equals(badge.get(BadgingJsonKey.SLUG)))
-                .findFirst()
-                .orElse(null);
+            badgeClassExtBySlug.get(badge.get(BadgingJsonKey.SLUG));
 
         if (matchedBadgeClassExt != null) {
           Map<String, Object> mappedBadge = new HashMap<>();
@@ -337,6 +422,23 @@ public class BadgrServiceImpl implements BadgingService {
     return filteredBadges;
   }
 
+  private void invalidateBadgeClassCache(String issuerSlug, String badgeSlug) {
+    badgeClassCacheGeneration.incrementAndGet();
+    if (issuerSlug != null) {
+      badgeClassCache.invalidate(issuerSlug);
+    }
+    if (badgeSlug != null) {
+      badgeClassCache
+          .asMap()
+          .values()
+          .removeIf(
+              badges ->
+                  badges
+                      .stream()
+                      .anyMatch(badge -> badgeSlug.equals(badge.get(BadgingJsonKey.SLUG))));
+    }
+  }
+
   @Override
   public Response removeBadgeClass(Request requestMsg) throws ProjectCommonException {
     Response response = new Response();
@@ -359,6 +461,7 @@ public class BadgrServiceImpl implements BadgingService {
           httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
 
       badgeClassExtensionService.delete(badgeId);
+      invalidateBadgeClassCache(null, badgeId);
       response.put(JsonKey.MESSAGE, badgrResponseStr.replaceAll("^\"|\"$", ""));
       targetObject =
           TelemetryUtil.generateTargetObject(
@@ -405,6 +508,9 @@ public class BadgrServiceImpl implements BadgingService {
         "AssertionDataResponse==" + httpResponse.getStatusCode(), LoggerEnum.INFO.name());
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.BADGE_ASSERTION);
+    invalidateBadgeClassCache(
+        (String) requestedData.get(BadgingJsonKey.ISSUER_ID),
+        (String) requestedData.get(BadgingJsonKey.BADGE_ID));
     Map<String, Object> res = mapper.readValue(httpResponse.getBody(), HashMap.class);
     // calling to create response as per sunbird
     res = BadgingUtil.prepareAssertionResponse(res, new HashMap<String, Object>());
@@ -441,7 +547,8 @@ public class BadgrServiceImpl implements BadgingService {
     String url =
         BadgingUtil.createBadgerUrl(
             request.getRequest(), BadgingUtil.SUNBIRD_BADGER_GETASSERTION_URL, 3);
-    HttpUtilResponse httpResponse = HttpUtil.doGetRequest(url, BadgingUtil.getBadgrHeaders());
+    HttpUtilResponse httpResponse =
+        BadgrHttpClient.doGetRequest(url, BadgingUtil.getBadgrHeaders());
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.BADGE_ASSERTION);
     Map<String, Object> res = mapper.readValue(httpResponse.getBody(), HashMap.class);
@@ -457,21 +564,8 @@ public class BadgrServiceImpl implements BadgingService {
   public Response getAssertionList(Request request) throws IOException {
     Map<String, Object> filterMap = (Map<String, Object>) request.getRequest().get(JsonKey.FILTERS);
     List<String> requestData = (List) filterMap.get(BadgingJsonKey.ASSERTIONS);
-    List<Map<String, Object>> responseList = new ArrayList<>();
-    for (String assertionId : requestData) {
-      WeakHashMap<String, Object> map = new WeakHashMap<>();
-      map.put(BadgingJsonKey.ASSERTION_ID, assertionId);
-      String url = BadgingUtil.createBadgerUrl(map, BadgingUtil.SUNBIRD_BADGER_GETASSERTION_URL, 3);
-      HttpUtilResponse httpResponse = HttpUtil.doGetRequest(url, BadgingUtil.getBadgrHeaders());
-      if (httpResponse.getStatusCode() == 200) {
-        Map<String, Object> res = mapper.readValue(httpResponse.getBody(), HashMap.class);
-        // calling to create response as per sunbird
-        res = BadgingUtil.prepareAssertionResponse(res, new HashMap<String, Object>());
-        responseList.add(res);
-      }
-    }
     Response response = new Response();
-    response.getResult().put(BadgingJsonKey.ASSERTIONS, responseList);
+    response.getResult().putAll(assertionFetcher.getAssertions(requestData));
     return response;
   }
 
@@ -495,6 +589,10 @@ public class BadgrServiceImpl implements BadgingService {
     String badgrResponseStr = httpResponse.getBody();
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_ASSERTION);
+    assertionFetcher.invalidate((String) requestedData.get(BadgingJsonKey.ASSERTION_ID));
+    invalidateBadgeClassCache(
+        (String) requestedData.get(BadgingJsonKey.ISSUER_ID),
+        (String) requestedData.get(BadgingJsonKey.BADGE_ID));
     Response response = new Response();
     response.getResult().put(JsonKey.STATUS, JsonKey.SUCCESS);
     targetObject =
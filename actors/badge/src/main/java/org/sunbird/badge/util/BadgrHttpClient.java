@@ -0,0 +1,71 @@
+package org.sunbird.badge.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.sunbird.common.models.response.HttpUtilResponse;
+import org.sunbird.learner.util.ConfigUtil;
+
+/**
+ * Reads from Badgr with connect and read timeouts. The read timeout is the Badgr call timeout
+ * {@code sunbird_badgr_call_timeout_ms}, the deadline callers wait for concurrent Badgr calls, so a
+ * call given up by its caller does not keep a pool thread blocked on the connection.
+ */
+public final class BadgrHttpClient {
+
+  public static final String CALL_TIMEOUT = "sunbird_badgr_call_timeout_ms";
+  public static final int DEFAULT_CALL_TIMEOUT = 10000;
+  private static final String CONNECT_TIMEOUT = "sunbird_badgr_connect_timeout_ms";
+  private static final int DEFAULT_CONNECT_TIMEOUT = 2000;
+  private static final int CALL_TIMEOUT_MS = ConfigUtil.getInt(CALL_TIMEOUT, DEFAULT_CALL_TIMEOUT);
+  private static final int CONNECT_TIMEOUT_MS =
+      Math.min(CALL_TIMEOUT_MS, ConfigUtil.getInt(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+
+  private BadgrHttpClient() {}
+
+  /**
+   * Send a GET request.
+   *
+   * @param requestURL URL
+   * @param headers Request headers
+   * @return Status code and body of the response
+   * @throws IOException if the request fails or times out
+   */
+  public static HttpUtilResponse doGetRequest(String requestURL, Map<String, String> headers)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(requestURL).openConnection();
+    try {
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(CALL_TIMEOUT_MS);
+      connection.setRequestMethod("GET");
+      if (headers != null) {
+        headers.forEach(connection::setRequestProperty);
+      }
+      int statusCode = connection.getResponseCode();
+      InputStream stream =
+          statusCode < 400 ? connection.getInputStream() : connection.getErrorStream();
+      return new HttpUtilResponse(read(stream), statusCode);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private static String read(InputStream stream) throws IOException {
+    if (stream == null) {
+      return "";
+    }
+    try (InputStream in = stream) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length;
+      while ((length = in.read(buffer)) != -1) {
+        out.write(buffer, 0, length);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package org.sunbird.badge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.badge.util.BadgrHttpClient;
+import org.sunbird.common.models.response.HttpUtilResponse;
+import org.sunbird.common.models.util.BadgingJsonKey;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({BadgrHttpClient.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class BadgeAssertionFetcherTest {
+
+  private static final String VALUE_ASSERTION_ID = "2093cf30-f82e-4975-88f8-35230832db14";
+  private static final String INVALID_ASSERTION_ID = "invalid";
+  private static final String ASSERTION_RESPONSE =
+      "{\"slug\":\"" + VALUE_ASSERTION_ID + "\",\"created_at\":\"2018-03-05T09:35:33.722993Z\"}";
+
+  private BadgeAssertionFetcher fetcher;
+
+  @Before
+  public void setUp() throws Exception {
+    PowerMockito.mockStatic(BadgrHttpClient.class);
+    PowerMockito.when(
+            BadgrHttpClient.doGetRequest(Mockito.contains(VALUE_ASSERTION_ID), Mockito.anyMap()))
+        .thenReturn(new HttpUtilResponse(ASSERTION_RESPONSE, 200));
+    PowerMockito.when(
+            BadgrHttpClient.doGetRequest(Mockito.contains(INVALID_ASSERTION_ID), Mockito.anyMap()))
+        .thenReturn(new HttpUtilResponse("", 404));
+    fetcher = new BadgeAssertionFetcher(Executors.newFixedThreadPool(2), 10000, 3600, 100);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGetAssertionsReportsFailedAssertion() {
+    Map<String, Object> result =
+        fetcher.getAssertions(Arrays.asList(VALUE_ASSERTION_ID, INVALID_ASSERTION_ID));
+
+    List<Map<String, Object>> assertions =
+        (List<Map<String, Object>>) result.get(BadgingJsonKey.ASSERTIONS);
+    List<Map<String, Object>> failures =
+        (List<Map<String, Object>>) result.get(BadgeAssertionFetcher.FAILED_ASSERTIONS);
+    assertEquals(1, assertions.size());
+    assertEquals(1, failures.size());
+    assertEquals(INVALID_ASSERTION_ID, failures.get(0).get(BadgingJsonKey.ASSERTION_ID));
+  }
+
+  @Test
+  public void testGetAssertionsReadsCachedAssertionOnce() throws IOException {
+    fetcher.getAssertions(Arrays.asList(VALUE_ASSERTION_ID));
+    fetcher.getAssertions(Arrays.asList(VALUE_ASSERTION_ID));
+
+    PowerMockito.verifyStatic(Mockito.times(1));
+    BadgrHttpClient.doGetRequest(Mockito.contains(VALUE_ASSERTION_ID), Mockito.anyMap());
+    assertEquals(1L, fetcher.getMetrics().get("cacheHits"));
+  }
+
+  @Test
+  public void testGetAssertionsReadsRevokedAssertionAgain() throws IOException {
+    fetcher.getAssertions(Arrays.asList(VALUE_ASSERTION_ID));
+    fetcher.invalidate(VALUE_ASSERTION_ID);
+    fetcher.getAssertions(Arrays.asList(VALUE_ASSERTION_ID));
+
+    PowerMockito.verifyStatic(Mockito.times(2));
+    BadgrHttpClient.doGetRequest(Mockito.contains(VALUE_ASSERTION_ID), Mockito.anyMap());
+  }
+}
@@ -17,6 +17,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.sunbird.badge.model.BadgeClassExtension;
 import org.sunbird.badge.service.BadgeClassExtensionService;
 import org.sunbird.badge.service.BadgingService;
+import org.sunbird.badge.util.BadgrHttpClient;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.HttpUtilResponse;
 import org.sunbird.common.models.response.Response;
@@ -29,7 +30,7 @@ import org.sunbird.learner.util.DataCacheHandler;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({HttpUtil.class, TelemetryUtil.class})
+@PrepareForTest({HttpUtil.class, BadgrHttpClient.class, TelemetryUtil.class})
 @PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
 public class BadgrServiceImplBadgeClassTest {
   private BadgingService badgrServiceImpl;
@@ -76,6 +77,7 @@ public class BadgrServiceImplBadgeClassTest {
   @Before
   public void setUp() throws Exception {
     PowerMockito.mockStatic(HttpUtil.class);
+    PowerMockito.mockStatic(BadgrHttpClient.class);
 
     PowerMockito.mockStatic(TelemetryUtil.class);
     PowerMockito.doNothing()
@@ -200,7 +202,7 @@ public class BadgrServiceImplBadgeClassTest {
 
   @Test
   public void testGetBadgeClassSuccess() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(new HttpUtilResponse(BADGE_CLASS_COMMON_RESPONSE_SUCCESS, 200));
     PowerMockito.when(mockBadgeClassExtensionService.get(VALUE_BADGE_ID))
         .thenReturn(
@@ -222,7 +224,7 @@ public class BadgrServiceImplBadgeClassTest {
 
   @Test
   public void testGetBadgeClassFailureInvalidBadgeId() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(
             new HttpUtilResponse(
                 BADGE_CLASS_GET_RESPONSE_FAILURE_BADGE_NOT_FOUND,
@@ -254,7 +256,7 @@ public class BadgrServiceImplBadgeClassTest {
 
   @Test
   public void testGetBadgeClassFailureException() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenThrow(new IOException());
     PowerMockito.when(mockBadgeClassExtensionService.get(VALUE_BADGE_ID))
         .thenReturn(
@@ -283,7 +285,7 @@ public class BadgrServiceImplBadgeClassTest {
 
   @Test
   public void testSearchBadgeClassSuccessNonEmpty() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(new HttpUtilResponse(BADGE_CLASS_SEARCH_RESPONSE_SUCCESS, 200));
     PowerMockito.when(
             mockBadgeClassExtensionService.search(
@@ -323,9 +325,49 @@ public class BadgrServiceImplBadgeClassTest {
     validateSuccessResponse(response.getResponseCode(), badges.get(0));
   }
 
+  @Test
+  public void testSearchBadgeClassSuccessCachedBadgeClasses() throws IOException {
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
+        .thenReturn(new HttpUtilResponse(BADGE_CLASS_SEARCH_RESPONSE_SUCCESS, 200));
+    PowerMockito.when(
+            mockBadgeClassExtensionService.search(
+                Mockito.anyList(),
+                Mockito.anyList(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.any(),
+                Mockito.anyList()))
+        .thenReturn(
+            new ArrayList<>(
+                Arrays.asList(
+                    new BadgeClassExtension(
+                        VALUE_BADGE_ID,
+                        VALUE_ISSUER_ID,
+                        VALUE_ROOT_ORG_ID,
+                        VALUE_TYPE,
+                        VALUE_SUBTYPE,
+                        VALUE_ROLES_LIST))));
+
+    Map<String, Object> filtersMap = new HashMap<>();
+
+    filtersMap.put(JsonKey.ROOT_ORG_ID, VALUE_ROOT_ORG_ID);
+    filtersMap.put(BadgingJsonKey.ISSUER_LIST, new ArrayList<String>());
+
+    request.put(JsonKey.FILTERS, filtersMap);
+
+    badgrServiceImpl.searchBadgeClass(request);
+    Response response = badgrServiceImpl.searchBadgeClass(request);
+
+    List<Map<String, Object>> badges =
+        (List<Map<String, Object>>) response.getResult().get(BadgingJsonKey.BADGES);
+    assertEquals(1, badges.size());
+    PowerMockito.verifyStatic(Mockito.times(1));
+    BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any());
+  }
+
   @Test
   public void testSearchBadgeClassSuccessEmpty() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(new HttpUtilResponse(BADGE_CLASS_SEARCH_RESPONSE_SUCCESS, 200));
     PowerMockito.when(
             mockBadgeClassExtensionService.search(
@@ -356,7 +398,7 @@ public class BadgrServiceImplBadgeClassTest {
 
   @Test
   public void testListBadgeClassFailureException() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenThrow(new IOException());
     PowerMockito.when(
             mockBadgeClassExtensionService.search(
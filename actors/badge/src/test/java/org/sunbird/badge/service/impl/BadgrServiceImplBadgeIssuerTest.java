@@ -15,6 +15,7 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.sunbird.badge.service.BadgingService;
+import org.sunbird.badge.util.BadgrHttpClient;
 import org.sunbird.common.models.response.HttpUtilResponse;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.BadgingJsonKey;
@@ -24,7 +25,7 @@ import org.sunbird.common.request.Request;
 
 /** Created by arvind on 15/3/18. */
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({HttpUtil.class})
+@PrepareForTest({HttpUtil.class, BadgrHttpClient.class})
 @PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
 public class BadgrServiceImplBadgeIssuerTest {
 
@@ -38,6 +39,7 @@ public class BadgrServiceImplBadgeIssuerTest {
   @Before
   public void setUp() {
     PowerMockito.mockStatic(HttpUtil.class);
+    PowerMockito.mockStatic(BadgrHttpClient.class);
     badgrServiceImpl = new BadgrServiceImpl();
     request = new Request();
   }
@@ -62,7 +64,7 @@ public class BadgrServiceImplBadgeIssuerTest {
 
   @Test
   public void testGetBadgeIssuerSuccess() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(new HttpUtilResponse(BADGE_ISSUER_CREATE_SUCCESS_RESPONSE, 200));
 
     Map<String, Object> formParams = new HashMap<>();
@@ -74,7 +76,7 @@ public class BadgrServiceImplBadgeIssuerTest {
 
   @Test
   public void testGetBadgeIssuersListSuccess() throws IOException {
-    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+    PowerMockito.when(BadgrHttpClient.doGetRequest(Mockito.any(), Mockito.any()))
         .thenReturn(new HttpUtilResponse(BADGE_ISSUER_LIST_SUCCESS_RESPONSE, 200));
 
     Map<String, Object> formParams = new HashMap<>();
@@ -0,0 +1,62 @@
+package org.sunbird.badge.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.common.models.response.HttpUtilResponse;
+
+public class BadgrHttpClientTest {
+
+  private HttpServer server;
+  private String baseUrl;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          boolean found = exchange.getRequestURI().getPath().equals("/issuers");
+          String auth = exchange.getRequestHeaders().getFirst("Authorization");
+          byte[] body = (found ? "[" + auth + "]" : "not found").getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(found ? 200 : 404, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testGetReturnsBodyAndSendsHeaders() throws IOException {
+    HttpUtilResponse response =
+        BadgrHttpClient.doGetRequest(
+            baseUrl + "/issuers", Collections.singletonMap("Authorization", "Token abc"));
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("[Token abc]", response.getBody());
+  }
+
+  @Test
+  public void testGetReturnsErrorBody() throws IOException {
+    HttpUtilResponse response =
+        BadgrHttpClient.doGetRequest(baseUrl + "/missing", Collections.emptyMap());
+
+    assertEquals(404, response.getStatusCode());
+    assertEquals("not found", response.getBody());
+  }
+}
@@ -4,6 +4,7 @@ package org.sunbird.common.quartz.scheduler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.JobBuilder;
@@ -18,18 +19,23 @@ import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
 
 /**
  * This class will manage all the Quartz scheduler. We need to call the schedule method at one time.
- * we are calling this method from Util.java class.
+ * The middleware service starts it once Cassandra is connected, other users of Util.java get it
+ * started after a delay through {@link #scheduleStart()}.
  *
  * @author Manzarul
  */
 public final class SchedulerManager {
 
   private static final String FILE = "quartz.properties";
+  private static final String START_DELAY = "sunbird_quartz_start_delay_ms";
+  private static final long DEFAULT_START_DELAY = 240000;
   private static Scheduler scheduler = null;
-  private static SchedulerManager schedulerManager = null;
+  private static volatile SchedulerManager schedulerManager = null;
 
   private SchedulerManager() {
     schedule();
@@ -42,7 +48,6 @@ public final class SchedulerManager {
         LoggerEnum.INFO.name());
 
     try {
-      Thread.sleep(240000);
       boolean isEmbedded = false;
       Properties configProp = null;
       String embeddVal = System.getenv(JsonKey.SUNBIRD_QUARTZ_MODE);
@@ -324,14 +329,34 @@ public final class SchedulerManager {
   }
 
   public static SchedulerManager getInstance() {
-    if (schedulerManager != null) {
-      return schedulerManager;
-    } else {
-      schedulerManager = new SchedulerManager();
+    if (schedulerManager == null) {
+      synchronized (SchedulerManager.class) {
+        if (schedulerManager == null) {
+          schedulerManager = new SchedulerManager();
+        }
+      }
     }
     return schedulerManager;
   }
 
+  /**
+   * Start the scheduler after {@code sunbird_quartz_start_delay_ms} on the shared scheduled pool,
+   * unless it is started earlier through {@link #getInstance()}.
+   */
+  public static void scheduleStart() {
+    ExecutorManager.getExecutorService()
+        .schedule(
+            () -> {
+              try {
+                getInstance();
+              } catch (Exception e) {
+                ProjectLogger.log("SchedulerManager:scheduleStart: Failed to start scheduler", e);
+              }
+            },
+            ConfigUtil.getLong(START_DELAY, DEFAULT_START_DELAY),
+            TimeUnit.MILLISECONDS);
+  }
+
   /**
    * This class will be called by registerShutDownHook to register the call inside jvm , when jvm
    * terminate it will call the run method to clean up the resource.
@@ -1,37 +1,53 @@
 /** */
 package org.sunbird.common.quartz.scheduler;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
-import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
-import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.bulkupload.BulkUploadJobClaims;
+import org.sunbird.learner.actors.bulkupload.dao.BulkUploadProcessDao;
+import org.sunbird.learner.actors.bulkupload.dao.impl.BulkUploadProcessDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryEvents;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
 /**
- * This class will lookup into bulk process table. if process type is new or in progress (more than
- * x hours) then take the process id and do the re-process of job.
+ * This class will lookup into bulk process table. if process status is new or in progress and no
+ * node holds the lease of the process then take the process id and do the re-process of job. A
+ * process in progress without a lease was left by a node which stopped.
+ *
+ * <p>Processes are looked up by hour of creation in the bulk_upload_pending table instead of by
+ * status, and each process is sent in its own message. Processes older than the lookup window are
+ * found by a scan of the status index, run at most every {@code
+ * sunbird_bulk_upload_full_scan_hours} by each node.
  *
  * @author Manzarul
  */
 public class UploadLookUpScheduler extends BaseJob {
-  private SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSSZ");
+  private static final int READ_BATCH_SIZE = 100;
+  private static final List<String> STATUS_FIELDS = Arrays.asList(JsonKey.ID, JsonKey.STATUS);
+  private static final String FULL_SCAN_HOURS = "sunbird_bulk_upload_full_scan_hours";
+  private static final int DEFAULT_FULL_SCAN_HOURS = 168;
+  private static final AtomicLong lastFullScan = new AtomicLong();
+
+  private BulkUploadProcessDao bulkUploadProcessDao = new BulkUploadProcessDaoImpl();
 
   public void execute(JobExecutionContext ctx) throws JobExecutionException {
     ProjectLogger.log(
@@ -44,63 +60,60 @@ public class UploadLookUpScheduler extends BaseJob {
         JsonKey.SYSTEM, ctx.getFireInstanceId(), JsonKey.SCHEDULER_JOB);
     Map<String, Object> logInfo =
         genarateLogInfo(JsonKey.SYSTEM, ctx.getJobDetail().getDescription());
-    Util.DbInfo bulkDb = Util.dbInfoMap.get(JsonKey.BULK_OP_DB);
-    CassandraOperation cassandraOperation = ServiceFactory.getInstance();
-    List<Map<String, Object>> result = null;
-    // get List of process with status as New
-    Response res =
-        cassandraOperation.getRecordsByProperty(
-            bulkDb.getKeySpace(),
-            bulkDb.getTableName(),
-            JsonKey.STATUS,
-            ProjectUtil.BulkProcessStatus.NEW.getValue());
-    result = ((List<Map<String, Object>>) res.get(JsonKey.RESPONSE));
+    Set<String> pendingIds = new LinkedHashSet<>(bulkUploadProcessDao.readPendingIds());
+    pendingIds.addAll(readUnfinishedIds());
+    List<String> processIds = new ArrayList<>();
+    for (Map<String, Object> map : readByIds(new ArrayList<>(pendingIds), STATUS_FIELDS)) {
+      Integer status = (Integer) map.get(JsonKey.STATUS);
+      if (null != status
+          && (ProjectUtil.BulkProcessStatus.NEW.getValue() == status
+              || ProjectUtil.BulkProcessStatus.IN_PROGRESS.getValue() == status)) {
+        processIds.add((String) map.get(JsonKey.ID));
+      }
+    }
+    Set<String> leasedIds = BulkUploadJobClaims.getInstance().getLeasedIds(processIds);
+    processIds.removeAll(leasedIds);
     ProjectLogger.log(
-        "Total No. of record in Bulk_upload_process table with status as NEW are : :"
-            + result.size(),
+        "UploadLookUpScheduler:execute: Pending processes = "
+            + pendingIds.size()
+            + ", running = "
+            + leasedIds.size()
+            + ", to process = "
+            + processIds.size(),
         LoggerEnum.INFO.name());
-    if (!result.isEmpty()) {
-      process(result);
+    for (Map<String, Object> map : readByIds(processIds, null)) {
+      process(Collections.singletonList(map));
     }
-    // get List of Process with status as InProgress
-    res =
-        cassandraOperation.getRecordsByProperty(
-            bulkDb.getKeySpace(),
-            bulkDb.getTableName(),
-            JsonKey.STATUS,
-            ProjectUtil.BulkProcessStatus.IN_PROGRESS.getValue());
-    result = ((List<Map<String, Object>>) res.get(JsonKey.RESPONSE));
+    TelemetryUtil.telemetryProcessingCall(logInfo, null, null, TelemetryEvents.LOG.getName());
+  }
+
+  private List<String> readUnfinishedIds() {
+    long now = System.currentTimeMillis();
+    long interval =
+        TimeUnit.HOURS.toMillis(ConfigUtil.getInt(FULL_SCAN_HOURS, DEFAULT_FULL_SCAN_HOURS));
+    long lastScan = lastFullScan.get();
+    if (now - lastScan < interval || !lastFullScan.compareAndSet(lastScan, now)) {
+      return Collections.emptyList();
+    }
+    List<String> ids =
+        new ArrayList<>(
+            bulkUploadProcessDao.readIdsByStatus(ProjectUtil.BulkProcessStatus.NEW.getValue()));
+    ids.addAll(
+        bulkUploadProcessDao.readIdsByStatus(ProjectUtil.BulkProcessStatus.IN_PROGRESS.getValue()));
     ProjectLogger.log(
-        "Total No. of record in Bulk_upload_process table with status as IN_PROGRESS are : :"
-            + result.size(),
+        "UploadLookUpScheduler:readUnfinishedIds: New or in progress processes = " + ids.size(),
         LoggerEnum.INFO.name());
-    if (null != result) {
-      Iterator<Map<String, Object>> itr = result.iterator();
-      while (itr.hasNext()) {
-        Map<String, Object> map = itr.next();
-        try {
-          Date startTime = format.parse((String) map.get(JsonKey.PROCESS_START_TIME));
-          Date currentTime = format.parse(format.format(new Date()));
-          long difference = currentTime.getTime() - startTime.getTime();
-          int hourDiff = (int) (difference / (1000 * 3600));
-          // if diff is more than 5Hr then only process it.
-          if (hourDiff < 5) {
-            itr.remove();
-          }
-        } catch (ParseException ex) {
-          ProjectLogger.log(ex.getMessage(), ex);
-        }
-      }
-      if (!result.isEmpty()) {
-        ProjectLogger.log(
-            "Total No. of record in Bulk_upload_process table with status as IN_PROGRESS "
-                + "with diff bw start time and current time greater than 5Hr are : :"
-                + result.size(),
-            LoggerEnum.INFO.name());
-        process(result);
-      }
+    return ids;
+  }
+
+  private List<Map<String, Object>> readByIds(List<String> ids, List<String> fields) {
+    List<Map<String, Object>> result = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += READ_BATCH_SIZE) {
+      result.addAll(
+          bulkUploadProcessDao.readByIds(
+              ids.subList(from, Math.min(from + READ_BATCH_SIZE, ids.size())), fields));
     }
-    TelemetryUtil.telemetryProcessingCall(logInfo, null, null, TelemetryEvents.LOG.getName());
+    return result;
   }
 
   private void process(List<Map<String, Object>> result) {
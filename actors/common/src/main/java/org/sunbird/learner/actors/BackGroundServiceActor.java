@@ -17,6 +17,7 @@ import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.UserCountAggregator;
 import org.sunbird.learner.util.Util;
 
 @ActorConfig(
@@ -60,13 +61,7 @@ public class BackGroundServiceActor extends BaseActor {
             && !StringUtils.isBlank(operation)
             && operation.equalsIgnoreCase("UpdateUserCountScheduler")) {
           ProjectLogger.log("Processing start for LocationId for Scheduler " + locationId);
-          int count = getUserCount(locationId);
-          Map<String, Object> reqMap = new HashMap<>();
-          reqMap.put(JsonKey.ID, locationId);
-          reqMap.put(JsonKey.USER_COUNT, count);
-          reqMap.put(JsonKey.USER_COUNT_TTL, String.valueOf(System.currentTimeMillis()));
-          cassandraOperation.updateRecord(
-              locDbInfo.getKeySpace(), locDbInfo.getTableName(), reqMap);
+          reconcileUserCount(locDbInfo, locationId, getUserCount(locationId));
         } else if (!StringUtils.isBlank(operation)
             && operation.equalsIgnoreCase("GeoLocationManagementActor")) {
           ProjectLogger.log(
@@ -87,13 +82,7 @@ public class BackGroundServiceActor extends BaseActor {
           int hours = (int) (diff / (1000 * 60 * 60));
           if (hours >= 24) {
             ProjectLogger.log("Updating user count for LocnId " + locationId);
-            int usrCount = getUserCount(locationId);
-            Map<String, Object> reqMap = new HashMap<>();
-            reqMap.put(JsonKey.ID, locationId);
-            reqMap.put(JsonKey.USER_COUNT, usrCount);
-            reqMap.put(JsonKey.USER_COUNT_TTL, String.valueOf(System.currentTimeMillis()));
-            cassandraOperation.updateRecord(
-                locDbInfo.getKeySpace(), locDbInfo.getTableName(), reqMap);
+            reconcileUserCount(locDbInfo, locationId, getUserCount(locationId));
           }
         }
       }
@@ -101,6 +90,12 @@ public class BackGroundServiceActor extends BaseActor {
     }
   }
 
+  private void reconcileUserCount(Util.DbInfo locDbInfo, String locationId, int userCount) {
+    Map<String, Object> fields = new HashMap<>();
+    fields.put(JsonKey.USER_COUNT_TTL, String.valueOf(System.currentTimeMillis()));
+    UserCountAggregator.getInstance(locDbInfo).reconcile(locationId, userCount, fields);
+  }
+
   private static int getUserCount(String locationId) {
     ProjectLogger.log("fetching user count start ");
     SearchDTO searchDto = new SearchDTO();
@@ -3,6 +3,7 @@ package org.sunbird.learner.actors;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.*;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONException;
@@ -24,6 +25,8 @@ import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.util.CourseBatchSchedulerUtil;
+import org.sunbird.learner.util.UserCountAggregator;
+import org.sunbird.learner.util.UserProfileAssembler;
 import org.sunbird.learner.util.Util;
 import org.sunbird.learner.util.Util.DbInfo;
 
@@ -375,6 +378,7 @@ public class BackgroundJobManager extends BaseActor {
     return false;
   }
 
+  @SuppressWarnings("unchecked")
   private void updateUserInfoToEs(Request actorMessage) {
     String userId = (String) actorMessage.getRequest().get(JsonKey.ID);
     Map<String, Object> userDetails =
@@ -383,42 +387,42 @@ public class BackgroundJobManager extends BaseActor {
         "BackGroundJobManager:updateUserInfoToEs userRootOrgId "
             + userDetails.get(JsonKey.ROOT_ORG_ID),
         LoggerEnum.INFO.name());
-    insertDataToElastic(
+    List<String> degradedFields =
+        (List<String>) userDetails.remove(UserProfileAssembler.DEGRADED_FIELDS);
+    if (CollectionUtils.isEmpty(degradedFields)) {
+      insertDataToElastic(
+          ProjectUtil.EsIndex.sunbird.getIndexName(),
+          ProjectUtil.EsType.user.getTypeName(),
+          userId,
+          userDetails);
+      return;
+    }
+    // keep the stored value of the fields not read, and the completeness computed from them
+    degradedFields.forEach(userDetails::remove);
+    userDetails.remove(JsonKey.COMPLETENESS);
+    userDetails.remove(JsonKey.MISSING_FIELDS);
+    ProjectLogger.log(
+        "BackGroundJobManager:updateUserInfoToEs: Fields "
+            + degradedFields
+            + " not read for userId "
+            + userId
+            + ", updating other fields only",
+        LoggerEnum.WARN.name());
+    ElasticSearchUtil.upsertData(
         ProjectUtil.EsIndex.sunbird.getIndexName(),
         ProjectUtil.EsType.user.getTypeName(),
         userId,
         userDetails);
   }
 
-  /** Method to update the user count . */
-  @SuppressWarnings("unchecked")
+  /**
+   * Method to update the user count of a course. No actor sends this operation at present and it is
+   * not among the tasks of this actor, so it is only reached by a request sent to this actor
+   * directly; course user counts are otherwise left as they are stored.
+   */
   private void updateUserCount(Request actorMessage) {
     String courseId = (String) actorMessage.get(JsonKey.COURSE_ID);
-    Map<String, Object> updateRequestMap = actorMessage.getRequest();
-
-    Response result =
-        cassandraOperation.getPropertiesValueById(
-            dbInfo.getKeySpace(), dbInfo.getTableName(), courseId, JsonKey.USER_COUNT);
-    Map<String, Object> responseMap = null;
-    if (null != (result.get(JsonKey.RESPONSE))
-        && (!((List<Map<String, Object>>) result.get(JsonKey.RESPONSE)).isEmpty())) {
-      responseMap = ((List<Map<String, Object>>) result.get(JsonKey.RESPONSE)).get(0);
-    }
-    int userCount =
-        (int)
-            (responseMap.get(JsonKey.USER_COUNT) != null ? responseMap.get(JsonKey.USER_COUNT) : 0);
-    updateRequestMap.put(JsonKey.USER_COUNT, userCount + 1);
-    updateRequestMap.put(JsonKey.ID, courseId);
-    updateRequestMap.remove(JsonKey.OPERATION);
-    updateRequestMap.remove(JsonKey.COURSE_ID);
-    Response resposne =
-        cassandraOperation.updateRecord(
-            dbInfo.getKeySpace(), dbInfo.getTableName(), updateRequestMap);
-    if (resposne.get(JsonKey.RESPONSE).equals(JsonKey.SUCCESS)) {
-      ProjectLogger.log("USER COUNT UPDATED SUCCESSFULLY IN COURSE MGMT TABLE");
-    } else {
-      ProjectLogger.log("USER COUNT NOT UPDATED SUCCESSFULLY IN COURSE MGMT TABLE");
-    }
+    UserCountAggregator.getInstance(dbInfo).increment(courseId);
   }
 
   /**
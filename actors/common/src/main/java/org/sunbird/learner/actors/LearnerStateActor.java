@@ -5,7 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +30,8 @@ import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.coursebatch.dao.ContentConsumptionDao;
+import org.sunbird.learner.actors.coursebatch.dao.impl.ContentConsumptionDaoImpl;
 import org.sunbird.learner.actors.coursebatch.service.UserCoursesService;
 import org.sunbird.learner.util.ContentSearchUtil;
 import org.sunbird.learner.util.Util;
@@ -48,6 +50,7 @@ public class LearnerStateActor extends BaseActor {
 
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private UserCoursesService userCoursesService = new UserCoursesService();
+  private ContentConsumptionDao contentConsumptionDao = ContentConsumptionDaoImpl.getInstance();
 
   /**
    * Receives the actor message and perform the operation like get course , get content etc.
@@ -323,22 +326,11 @@ public class LearnerStateActor extends BaseActor {
   private List<Map<String, Object>> filterForMatchingContentIds(
       List<Map<String, Object>> contentList, Map<String, Object> requestMap) {
 
-    List<String> contentIds =
-        new ArrayList<String>((List<String>) requestMap.get(JsonKey.CONTENT_IDS));
-    List<Map<String, Object>> matchedContentList = new ArrayList<>();
-
-    if (CollectionUtils.isNotEmpty(contentIds)) {
-      for (Map<String, Object> content : contentList) {
-        for (int i = 0; i < contentIds.size(); i++) {
-          String contentId = contentIds.get(i);
-          if (contentId.equals((String) content.get(JsonKey.CONTENT_ID))) {
-            matchedContentList.add(content);
-            break;
-          }
-        }
-      }
-    }
-    return matchedContentList;
+    Set<String> contentIds = new HashSet<>((List<String>) requestMap.get(JsonKey.CONTENT_IDS));
+    return contentList
+        .stream()
+        .filter(content -> contentIds.contains((String) content.get(JsonKey.CONTENT_ID)))
+        .collect(Collectors.toList());
   }
 
   private List<Map<String, Object>> getContentByBatch(String userId, String batchId) {
@@ -370,45 +362,15 @@ public class LearnerStateActor extends BaseActor {
   @SuppressWarnings("unchecked")
   private List<Map<String, Object>> getContentByCourses(
       String userId, Map<String, Object> request) {
-
-    Response response = new Response();
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-    List<String> courseIds = new ArrayList<String>((List<String>) request.get(JsonKey.COURSE_IDS));
-    List<Map<String, Object>> contentList = new ArrayList<Map<String, Object>>();
-    Map<String, Object> queryMap = new HashMap<String, Object>();
-    queryMap.put(JsonKey.USER_ID, userId);
-
-    for (String courseId : courseIds) {
-      queryMap.put(JsonKey.COURSE_ID, courseId);
-      response =
-          cassandraOperation.getRecordsByProperties(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), queryMap);
-      contentList.addAll((List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE));
-    }
-    return contentList;
+    return contentConsumptionDao.readByUserId(
+        userId, JsonKey.COURSE_ID, (List<String>) request.get(JsonKey.COURSE_IDS));
   }
 
   @SuppressWarnings("unchecked")
   private List<Map<String, Object>> getContentByContentIds(
       String userId, Map<String, Object> request) {
-    Response response = null;
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-    List<String> contentIds =
-        new ArrayList<String>((List<String>) request.get(JsonKey.CONTENT_IDS));
-
-    LinkedHashMap<String, Object> queryMap = new LinkedHashMap<String, Object>();
-    queryMap.put(JsonKey.USER_ID, userId);
-
-    List<Map<String, Object>> contentList = new ArrayList<Map<String, Object>>();
-
-    for (String contentId : contentIds) {
-      queryMap.put(JsonKey.CONTENT_ID, contentId);
-      response =
-          cassandraOperation.getRecordsByProperties(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), queryMap);
-      contentList.addAll((List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE));
-    }
-    return contentList;
+    return contentConsumptionDao.readByUserId(
+        userId, JsonKey.CONTENT_ID, (List<String>) request.get(JsonKey.CONTENT_IDS));
   }
 
   @SuppressWarnings("unchecked")
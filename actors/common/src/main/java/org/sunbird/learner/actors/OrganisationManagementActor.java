@@ -152,10 +152,9 @@ public class OrganisationManagementActor extends BaseActor {
         @Override
         public void run() {
           if (((String) response.get(JsonKey.RESPONSE)).equalsIgnoreCase(JsonKey.SUCCESS)) {
-            DataCacheHandler.getOrgTypeMap()
-                .put(
-                    ((String) request.get(JsonKey.NAME)).toLowerCase(),
-                    (String) request.get(JsonKey.ID));
+            DataCacheHandler.updateOrgTypeMap(
+                ((String) request.get(JsonKey.NAME)).toLowerCase(),
+                (String) request.get(JsonKey.ID));
           }
         }
       }.start();
@@ -211,10 +210,9 @@ public class OrganisationManagementActor extends BaseActor {
         @Override
         public void run() {
           if (((String) response.get(JsonKey.RESPONSE)).equalsIgnoreCase(JsonKey.SUCCESS)) {
-            DataCacheHandler.getOrgTypeMap()
-                .put(
-                    ((String) request.get(JsonKey.NAME)).toLowerCase(),
-                    (String) request.get(JsonKey.ID));
+            DataCacheHandler.updateOrgTypeMap(
+                ((String) request.get(JsonKey.NAME)).toLowerCase(),
+                (String) request.get(JsonKey.ID));
           }
         }
       }.start();
@@ -551,8 +549,8 @@ public class OrganisationManagementActor extends BaseActor {
           if ((((String) map.get(JsonKey.NAME)).toLowerCase())
               .equalsIgnoreCase(orgType.toLowerCase())) {
             orgTypeId = (String) map.get(JsonKey.ID);
-            DataCacheHandler.getOrgTypeMap()
-                .put(((String) map.get(JsonKey.NAME)).toLowerCase(), (String) map.get(JsonKey.ID));
+            DataCacheHandler.updateOrgTypeMap(
+                ((String) map.get(JsonKey.NAME)).toLowerCase(), (String) map.get(JsonKey.ID));
           }
         }
       }
@@ -30,6 +30,7 @@ import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.util.ContentSearchUtil;
 import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.SectionSearchCache;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryUtil;
 import scala.concurrent.Future;
@@ -223,8 +224,7 @@ public class PageManagementActor extends BaseActor {
     new Thread(
             () -> {
               if ((JsonKey.SUCCESS).equalsIgnoreCase((String) response.get(JsonKey.RESPONSE))) {
-                DataCacheHandler.getSectionMap()
-                    .put((String) sectionMap.get(JsonKey.ID), sectionMap);
+                DataCacheHandler.updateSectionMap((String) sectionMap.get(JsonKey.ID), sectionMap);
               }
             })
         .start();
@@ -513,8 +513,8 @@ public class PageManagementActor extends BaseActor {
                 if (pageMap.containsKey(JsonKey.ORGANISATION_ID)) {
                   orgId = (String) pageMap.get(JsonKey.ORGANISATION_ID);
                 }
-                DataCacheHandler.getPageMap()
-                    .put(orgId + ":" + (String) pageMap.get(JsonKey.PAGE_NAME), pageMap);
+                DataCacheHandler.updatePageMap(
+                    orgId + ":" + (String) pageMap.get(JsonKey.PAGE_NAME), pageMap);
               }
             })
         .start();
@@ -559,7 +559,14 @@ public class PageManagementActor extends BaseActor {
     section.put(JsonKey.GROUP, group);
     section.put(JsonKey.INDEX, index);
     if (StringUtils.isEmpty(dataSource) || JsonKey.CONTENT.equalsIgnoreCase(dataSource)) {
-      result = ContentSearchUtil.searchContent(urlQueryString, queryRequestBody, headers);
+      final String searchBody = queryRequestBody;
+      result =
+          SectionSearchCache.getInstance()
+              .get(
+                  urlQueryString,
+                  map,
+                  headers,
+                  () -> ContentSearchUtil.searchContent(urlQueryString, searchBody, headers));
       return result.map(
           new Mapper<Map<String, Object>, Map<String, Object>>() {
             @Override
@@ -1,22 +1,17 @@
 package org.sunbird.learner.actors.bulkupload;
 
+import akka.actor.ActorRef;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.opencsv.CSVWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import org.apache.commons.collections.MapUtils;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.sunbird.actor.service.SunbirdMWService;
 import org.sunbird.common.Constants;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.util.BulkUploadJsonKey;
@@ -71,6 +66,21 @@ public abstract class BaseBulkUploadBackgroundJobActor extends BaseBulkUploadAct
 
     ProjectLogger.log(logMessagePrefix + "called", LoggerEnum.INFO);
 
+    BulkUploadJobClaims claims = BulkUploadJobClaims.getInstance();
+    if (!claims.claim(
+        processId, () -> SunbirdMWService.tellToBGRouter(request, ActorRef.noSender()))) {
+      ProjectLogger.log(logMessagePrefix + "Process not claimed by this node.", LoggerEnum.INFO);
+      return;
+    }
+    try {
+      runBulkUploadBackground(claims, processId, logMessagePrefix, function);
+    } finally {
+      claims.release(processId);
+    }
+  }
+
+  private void runBulkUploadBackground(
+      BulkUploadJobClaims claims, String processId, String logMessagePrefix, Function function) {
     BulkUploadProcess bulkUploadProcess = bulkUploadDao.read(processId);
     if (null == bulkUploadProcess) {
       ProjectLogger.log(logMessagePrefix + "Invalid process ID.", LoggerEnum.ERROR);
@@ -83,6 +93,10 @@ public abstract class BaseBulkUploadBackgroundJobActor extends BaseBulkUploadAct
       try {
         function.apply(bulkUploadProcess);
       } catch (Exception e) {
+        if (!claims.isClaimed(processId)) {
+          // the process is left to the node holding the lease
+          return;
+        }
         bulkUploadProcess.setStatus(ProjectUtil.BulkProcessStatus.FAILED.getValue());
         bulkUploadProcess.setFailureResult(e.getMessage());
         bulkUploadDao.update(bulkUploadProcess);
@@ -107,77 +121,88 @@ public abstract class BaseBulkUploadBackgroundJobActor extends BaseBulkUploadAct
             "BaseBulkUploadBackGroundJobActor:processBulkUpload:{0}: ", bulkUploadProcess.getId());
     Integer sequence = 0;
     Integer taskCount = bulkUploadProcess.getTaskCount();
-    List<Map<String, Object>> successList = new LinkedList<>();
-    List<Map<String, Object>> failureList = new LinkedList<>();
-    while (sequence < taskCount) {
-      Integer nextSequence = sequence + CASSANDRA_BATCH_SIZE;
-      Map<String, Object> queryMap = new HashMap<>();
-      queryMap.put(JsonKey.PROCESS_ID, bulkUploadProcess.getId());
-      Map<String, Object> sequenceRange = new HashMap<>();
-      sequenceRange.put(Constants.GT, sequence);
-      sequenceRange.put(Constants.LTE, nextSequence);
-      queryMap.put(BulkUploadJsonKey.SEQUENCE_ID, sequenceRange);
-      List<BulkUploadProcessTask> tasks = bulkUploadProcessTaskDao.readByPrimaryKeys(queryMap);
-      if (tasks == null) {
-        ProjectLogger.log(
-            logMessagePrefix
-                + "No bulkUploadProcessTask found for process id: "
-                + bulkUploadProcess.getId()
-                + " and range "
-                + sequence
-                + ":"
-                + nextSequence,
-            LoggerEnum.INFO);
-        sequence = nextSequence;
-        continue;
-      }
-      function.apply(tasks);
-
-      try {
-        for (BulkUploadProcessTask task : tasks) {
-
-          if (task.getStatus().equals(ProjectUtil.BulkProcessStatus.FAILED.getValue())) {
-            failureList.add(
-                mapper.readValue(
-                    task.getFailureResult(), new TypeReference<Map<String, Object>>() {}));
-          } else if (task.getStatus().equals(ProjectUtil.BulkProcessStatus.COMPLETED.getValue())) {
-            successList.add(
-                mapper.readValue(
-                    task.getSuccessResult(), new TypeReference<Map<String, Object>>() {}));
-          }
+    BulkUploadTaskExecutor taskExecutor =
+        new BulkUploadTaskExecutor(bulkUploadProcess.getObjectType());
+    try (BulkUploadReportWriter reportWriter =
+        new BulkUploadReportWriter(
+            bulkUploadProcess.getObjectType(),
+            outputColumnMap,
+            outputColumnsOrder,
+            this::preProcessResult,
+            mapper)) {
+      while (sequence < taskCount) {
+        Integer nextSequence = sequence + CASSANDRA_BATCH_SIZE;
+        Map<String, Object> queryMap = new HashMap<>();
+        queryMap.put(JsonKey.PROCESS_ID, bulkUploadProcess.getId());
+        Map<String, Object> sequenceRange = new HashMap<>();
+        sequenceRange.put(Constants.GT, sequence);
+        sequenceRange.put(Constants.LTE, nextSequence);
+        queryMap.put(BulkUploadJsonKey.SEQUENCE_ID, sequenceRange);
+        List<BulkUploadProcessTask> tasks = bulkUploadProcessTaskDao.readByPrimaryKeys(queryMap);
+        if (tasks == null) {
+          ProjectLogger.log(
+              logMessagePrefix
+                  + "No bulkUploadProcessTask found for process id: "
+                  + bulkUploadProcess.getId()
+                  + " and range "
+                  + sequence
+                  + ":"
+                  + nextSequence,
+              LoggerEnum.INFO);
+          sequence = nextSequence;
+          continue;
         }
+        BulkUploadJobClaims.getInstance().checkClaimed(bulkUploadProcess.getId());
+        taskExecutor.execute(tasks, function);
+
+        try {
+          for (BulkUploadProcessTask task : tasks) {
+
+            if (task.getStatus().equals(ProjectUtil.BulkProcessStatus.FAILED.getValue())) {
+              reportWriter.addFailure(
+                  mapper.readValue(
+                      task.getFailureResult(), new TypeReference<Map<String, Object>>() {}));
+            } else if (task.getStatus()
+                .equals(ProjectUtil.BulkProcessStatus.COMPLETED.getValue())) {
+              reportWriter.addSuccess(
+                  mapper.readValue(
+                      task.getSuccessResult(), new TypeReference<Map<String, Object>>() {}));
+            }
+          }
 
-      } catch (IOException e) {
-        ProjectLogger.log(
-            logMessagePrefix + "Exception occurred with error message = " + e.getMessage(),
-            LoggerEnum.INFO,
-            e);
+        } catch (IOException e) {
+          ProjectLogger.log(
+              logMessagePrefix + "Exception occurred with error message = " + e.getMessage(),
+              LoggerEnum.INFO,
+              e);
+        }
+        performBatchUpdate(tasks);
+        sequence = nextSequence;
       }
-      performBatchUpdate(tasks);
-      sequence = nextSequence;
+      setCompletionStatus(bulkUploadProcess, reportWriter);
+    } catch (IOException e) {
+      ProjectLogger.log(
+          logMessagePrefix + "Exception occurred with error message = " + e.getMessage(),
+          LoggerEnum.INFO,
+          e);
+      ProjectCommonException.throwServerErrorException(ResponseCode.SERVER_ERROR);
     }
-    setCompletionStatus(
-        bulkUploadProcess, successList, failureList, outputColumnMap, outputColumnsOrder);
   }
 
   private void setCompletionStatus(
-      BulkUploadProcess bulkUploadProcess,
-      List successList,
-      List failureList,
-      Map<String, String> outputColumnsMap,
-      String[] outputColumnsOrder) {
+      BulkUploadProcess bulkUploadProcess, BulkUploadReportWriter reportWriter) {
     String logMessagePrefix =
         MessageFormat.format(
             "BaseBulkUploadBackGroundJobActor:processBulkUpload:{0}: ", bulkUploadProcess.getId());
     try {
 
-      ProjectLogger.log(logMessagePrefix + "completed", LoggerEnum.INFO);
-      bulkUploadProcess.setSuccessResult(ProjectUtil.convertMapToJsonString(successList));
-      bulkUploadProcess.setFailureResult(ProjectUtil.convertMapToJsonString(failureList));
+      File reportFile = reportWriter.finish();
+      ProjectLogger.log(
+          logMessagePrefix + "completed with " + reportWriter.getMetrics(), LoggerEnum.INFO);
+      bulkUploadProcess.setSuccessResult(reportWriter.getSuccessResult());
+      bulkUploadProcess.setFailureResult(reportWriter.getFailureResult());
       bulkUploadProcess.setStatus(ProjectUtil.BulkProcessStatus.COMPLETED.getValue());
-      StorageDetails storageDetails =
-          uploadResultToCloud(
-              bulkUploadProcess, successList, failureList, outputColumnsMap, outputColumnsOrder);
+      StorageDetails storageDetails = uploadResultToCloud(bulkUploadProcess, reportFile);
       bulkUploadProcess.setEncryptedStorageDetails(storageDetails);
 
     } catch (Exception e) {
@@ -209,44 +234,12 @@ public abstract class BaseBulkUploadBackgroundJobActor extends BaseBulkUploadAct
     }
   }
 
-  private StorageDetails uploadResultToCloud(
-      BulkUploadProcess bulkUploadProcess,
-      List<Map<String, Object>> successList,
-      List<Map<String, Object>> failureList,
-      Map<String, String> outputColumnsMap,
-      String[] outputColumnsOrder)
-      throws IOException {
-
+  private StorageDetails uploadResultToCloud(BulkUploadProcess bulkUploadProcess, File file) {
     String objKey = generateObjectKey(bulkUploadProcess);
-    File file = null;
-    try {
-      file = getFileHandle(bulkUploadProcess.getObjectType(), bulkUploadProcess.getId());
-      writeResultsToFile(file, successList, failureList, outputColumnsMap, outputColumnsOrder);
-      CloudStorageUtil.upload(
-          CloudStorageType.AZURE,
-          bulkUploadProcess.getObjectType(),
-          objKey,
-          file.getAbsolutePath());
-      return new StorageDetails(
-          CloudStorageType.AZURE.getType(), bulkUploadProcess.getObjectType(), objKey);
-    } finally {
-      FileUtils.deleteQuietly(file);
-    }
-  }
-
-  private File getFileHandle(String objType, String processId) {
-    String logMessagePrefix =
-        MessageFormat.format("BaseBulkUploadBackGroundJobActor:getFileHandle:{0}: ", processId);
-    File file = null;
-    try {
-      file = File.createTempFile(objType, "upload");
-    } catch (IOException e) {
-      ProjectLogger.log(
-          logMessagePrefix + "Exception occurred with error message = " + e.getMessage(),
-          LoggerEnum.INFO,
-          e);
-    }
-    return file;
+    CloudStorageUtil.upload(
+        CloudStorageType.AZURE, bulkUploadProcess.getObjectType(), objKey, file.getAbsolutePath());
+    return new StorageDetails(
+        CloudStorageType.AZURE.getType(), bulkUploadProcess.getObjectType(), objKey);
   }
 
   private String generateObjectKey(BulkUploadProcess bulkUploadProcess) {
@@ -255,62 +248,5 @@ public abstract class BaseBulkUploadBackgroundJobActor extends BaseBulkUploadAct
     return "bulk_upload_" + objType + "_" + processId + ".csv";
   }
 
-  private void writeResultsToFile(
-      File file,
-      List<Map<String, Object>> successList,
-      List<Map<String, Object>> failureList,
-      Map<String, String> outputColumnsMap,
-      String[] outputColumnsOrder)
-      throws IOException {
-    try (CSVWriter csvWriter = new CSVWriter(new FileWriter(file)); ) {
-      List<String> headerRowWithInternalNames = new ArrayList<>(Arrays.asList(outputColumnsOrder));
-
-      headerRowWithInternalNames.add(JsonKey.BULK_UPLOAD_STATUS);
-      headerRowWithInternalNames.add(JsonKey.BULK_UPLOAD_ERROR);
-
-      if (MapUtils.isNotEmpty(outputColumnsMap)) {
-        List<String> headerRowWithDisplayNames = new ArrayList<>();
-        headerRowWithInternalNames.forEach(
-            s -> {
-              if (outputColumnsMap.containsKey(s)) {
-                headerRowWithDisplayNames.add(outputColumnsMap.get(s));
-              } else {
-                headerRowWithDisplayNames.add(s);
-              }
-            });
-        csvWriter.writeNext(headerRowWithDisplayNames.toArray(new String[0]));
-      } else {
-        csvWriter.writeNext(headerRowWithInternalNames.toArray(new String[0]));
-      }
-
-      addResults(successList, headerRowWithInternalNames, csvWriter);
-      addResults(failureList, headerRowWithInternalNames, csvWriter);
-      csvWriter.flush();
-    }
-  }
-
-  private void addResults(
-      List<Map<String, Object>> resultList, List<String> headerRows, CSVWriter csvWriter) {
-    resultList
-        .stream()
-        .forEach(
-            map -> {
-              preProcessResult(map);
-              String[] nextLine = new String[headerRows.size()];
-              String errMsg = (String) map.get(JsonKey.ERROR_MSG);
-              int i = 0;
-              for (String field : headerRows) {
-                if (JsonKey.BULK_UPLOAD_STATUS.equals(field)) {
-                  nextLine[i++] = errMsg == null ? JsonKey.SUCCESS : JsonKey.FAILED;
-                } else if (JsonKey.BULK_UPLOAD_ERROR.equals(field)) {
-                  nextLine[i++] = errMsg == null ? "" : errMsg;
-                } else {
-                  nextLine[i++] = String.valueOf(map.get(field));
-                }
-              }
-              csvWriter.writeNext(nextLine);
-            });
-  }
-
   public abstract void preProcessResult(Map<String, Object> result);
 }
@@ -0,0 +1,276 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.ActorOperations;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.datasecurity.OneWayHashing;
+import org.sunbird.common.request.Request;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+import org.sunbird.telemetry.util.TelemetryUtil;
+
+/**
+ * Enrolls the users of one batch of a bulk upload in chunks. For each chunk the organisations of
+ * the users are read and the user courses are inserted concurrently, and the inserted user courses
+ * are indexed with one bulk request. User courses of a chunk whose bulk request fails are indexed
+ * one by one in the background.
+ */
+final class BulkBatchEnrollment {
+
+  private static final String POOL_NAME = "bulk_batch_enrollment";
+  private static final int POOL_SIZE = 8;
+
+  private final CassandraOperation cassandraOperation;
+  private final Consumer<Request> backgroundSender;
+  private final int chunkSize;
+
+  /**
+   * @param cassandraOperation Cassandra operation
+   * @param backgroundSender Sends a request to the background actors
+   * @param chunkSize Number of users enrolled together
+   */
+  BulkBatchEnrollment(
+      CassandraOperation cassandraOperation, Consumer<Request> backgroundSender, int chunkSize) {
+    this.cassandraOperation = cassandraOperation;
+    this.backgroundSender = backgroundSender;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /**
+   * Enroll the users in the batch. Users already participating are reported as passed, users not
+   * associated to an organisation the course is created for as failed.
+   *
+   * @param courseBatchObject Course batch, its participants are updated
+   * @param batchId ID of the batch
+   * @param courseEnrollable true if user courses are to be created for the new participants
+   * @param userIds IDs of the users to enroll
+   * @param failedUserList Receives the results of the users that could not be enrolled
+   * @param passedUserList Receives the results of the users enrolled
+   * @param beforeChunk Run before each chunk
+   * @param afterChunk Run after the results of each chunk are added
+   */
+  @SuppressWarnings("unchecked")
+  void enroll(
+      Map<String, Object> courseBatchObject,
+      String batchId,
+      boolean courseEnrollable,
+      List<String> userIds,
+      List<Map<String, Object>> failedUserList,
+      List<Map<String, Object>> passedUserList,
+      Runnable beforeChunk,
+      Runnable afterChunk) {
+    List<String> createdFor = (List<String>) courseBatchObject.get(JsonKey.COURSE_CREATED_FOR);
+    String courseId = (String) courseBatchObject.get(JsonKey.COURSE_ID);
+    Map<String, String> additionalCourseInfo =
+        (Map<String, String>) (courseBatchObject.get(JsonKey.COURSE_ADDITIONAL_INFO));
+    Map<String, Boolean> participants =
+        courseBatchObject.get(JsonKey.PARTICIPANT) == null
+            ? new HashMap<>()
+            : (Map<String, Boolean>) courseBatchObject.get(JsonKey.PARTICIPANT);
+    for (int from = 0; from < userIds.size(); from += chunkSize) {
+      beforeChunk.run();
+      List<String> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+      List<String> newUserIds =
+          chunk
+              .stream()
+              .filter(id -> !participants.containsKey(id))
+              .distinct()
+              .collect(Collectors.toList());
+      List<List<Map<String, Object>>> userOrgs = mapConcurrently(newUserIds, this::getUserOrgs);
+      Set<String> associatedUserIds = new HashSet<>();
+      List<Map<String, Object>> userCoursesList = new ArrayList<>();
+      for (int i = 0; i < newUserIds.size(); i++) {
+        String userId = newUserIds.get(i);
+        List<Map<String, Object>> userOrgResult = userOrgs.get(i);
+        if (CollectionUtils.isNotEmpty(userOrgResult)
+            && userOrgResult
+                .stream()
+                .anyMatch(userOrg -> createdFor.contains(userOrg.get(JsonKey.ORGANISATION_ID)))) {
+          associatedUserIds.add(userId);
+          if (courseEnrollable) {
+            userCoursesList.add(createUserCourses(batchId, courseId, userId, additionalCourseInfo));
+          }
+        }
+      }
+      Set<String> enrolledUserIds = addUserCourses(batchId, userCoursesList);
+      // check whether can update user or not
+      for (String userId : chunk) {
+        Map<String, Object> map = new HashMap<>();
+        if (participants.containsKey(userId)) {
+          map.put(userId, JsonKey.SUCCESS);
+          passedUserList.add(map);
+        } else if (associatedUserIds.contains(userId)) {
+          participants.put(userId, enrolledUserIds.contains(userId));
+          map.put(userId, JsonKey.SUCCESS);
+          passedUserList.add(map);
+        } else {
+          map.put(userId, ResponseCode.userNotAssociatedToOrg.getErrorMessage());
+          failedUserList.add(map);
+        }
+      }
+      afterChunk.run();
+    }
+    courseBatchObject.put(JsonKey.PARTICIPANT, participants);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> getUserOrgs(String userId) {
+    Util.DbInfo userOrgdbInfo = Util.dbInfoMap.get(JsonKey.USR_ORG_DB);
+    Response dbResponse =
+        cassandraOperation.getRecordsByProperty(
+            userOrgdbInfo.getKeySpace(), userOrgdbInfo.getTableName(), JsonKey.USER_ID, userId);
+    return (List<Map<String, Object>>) dbResponse.get(JsonKey.RESPONSE);
+  }
+
+  private Map<String, Object> createUserCourses(
+      String batchId, String courseId, String userId, Map<String, String> additionalCourseInfo) {
+    Timestamp ts = new Timestamp(new Date().getTime());
+    Map<String, Object> userCourses = new HashMap<>();
+    userCourses.put(JsonKey.USER_ID, userId);
+    userCourses.put(JsonKey.BATCH_ID, batchId);
+    userCourses.put(JsonKey.COURSE_ID, courseId);
+    userCourses.put(JsonKey.ID, generatePrimaryKey(userCourses));
+    userCourses.put(JsonKey.CONTENT_ID, courseId);
+    userCourses.put(JsonKey.COURSE_ENROLL_DATE, ProjectUtil.getFormattedDate());
+    userCourses.put(JsonKey.ACTIVE, ProjectUtil.ActiveStatus.ACTIVE.getValue());
+    userCourses.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
+    userCourses.put(JsonKey.DATE_TIME, ts);
+    userCourses.put(JsonKey.COURSE_PROGRESS, 0);
+    userCourses.put(JsonKey.COURSE_LOGO_URL, additionalCourseInfo.get(JsonKey.COURSE_LOGO_URL));
+    userCourses.put(JsonKey.COURSE_NAME, additionalCourseInfo.get(JsonKey.COURSE_NAME));
+    userCourses.put(JsonKey.DESCRIPTION, additionalCourseInfo.get(JsonKey.DESCRIPTION));
+    if (!StringUtils.isBlank(additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT))) {
+      userCourses.put(
+          JsonKey.LEAF_NODE_COUNT,
+          Integer.parseInt("" + additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT)));
+    }
+    userCourses.put(JsonKey.TOC_URL, additionalCourseInfo.get(JsonKey.TOC_URL));
+    return userCourses;
+  }
+
+  /**
+   * Insert the user courses of a chunk and index the inserted ones with one bulk request. Every
+   * user course is a partition of its own, so the rows are written concurrently instead of in a
+   * multi partition batch.
+   *
+   * @return IDs of the users whose user course was inserted
+   */
+  private Set<String> addUserCourses(String batchId, List<Map<String, Object>> userCoursesList) {
+    Util.DbInfo courseEnrollmentdbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
+    List<Boolean> insertResults =
+        mapConcurrently(
+            userCoursesList,
+            userCourses -> {
+              try {
+                cassandraOperation.insertRecord(
+                    courseEnrollmentdbInfo.getKeySpace(),
+                    courseEnrollmentdbInfo.getTableName(),
+                    userCourses);
+                return true;
+              } catch (Exception ex) {
+                ProjectLogger.log("INSERT RECORD TO USER COURSES EXCEPTION ", ex);
+                return false;
+              }
+            });
+    Set<String> enrolledUserIds = new HashSet<>();
+    List<Map<String, Object>> enrolledUserCourses = new ArrayList<>();
+    for (int i = 0; i < userCoursesList.size(); i++) {
+      if (insertResults.get(i)) {
+        Map<String, Object> userCourses = userCoursesList.get(i);
+        // TODO: for some reason, ES indexing is failing with Timestamp value. need to check and
+        // correct it.
+        Timestamp ts = (Timestamp) userCourses.get(JsonKey.DATE_TIME);
+        userCourses.put(JsonKey.DATE_TIME, ProjectUtil.formatDate(ts));
+        enrolledUserCourses.add(userCourses);
+        enrolledUserIds.add((String) userCourses.get(JsonKey.USER_ID));
+      }
+    }
+    if (enrolledUserCourses.isEmpty()) {
+      return enrolledUserIds;
+    }
+    indexUserCourses(batchId, enrolledUserCourses);
+    for (Map<String, Object> userCourses : enrolledUserCourses) {
+      Map<String, Object> targetObject =
+          TelemetryUtil.generateTargetObject(
+              (String) userCourses.get(JsonKey.USER_ID), JsonKey.USER, JsonKey.UPDATE, null);
+      List<Map<String, Object>> correlatedObject = new ArrayList<>();
+      TelemetryUtil.generateCorrelatedObject(batchId, JsonKey.BATCH, null, correlatedObject);
+      TelemetryUtil.telemetryProcessingCall(userCourses, targetObject, correlatedObject);
+    }
+    return enrolledUserIds;
+  }
+
+  private void indexUserCourses(String batchId, List<Map<String, Object>> userCoursesList) {
+    boolean indexed;
+    try {
+      indexed =
+          ElasticSearchUtil.bulkInsertData(
+              ProjectUtil.EsIndex.sunbird.getIndexName(),
+              ProjectUtil.EsType.usercourses.getTypeName(),
+              userCoursesList);
+    } catch (Exception ex) {
+      ProjectLogger.log("Exception Occurred during saving user courses to Es : ", ex);
+      indexed = false;
+    }
+    if (indexed) {
+      return;
+    }
+    ProjectLogger.log(
+        "BulkBatchEnrollment:indexUserCourses: Bulk indexing of "
+            + userCoursesList.size()
+            + " user courses of batchId "
+            + batchId
+            + " failed, indexing them one by one",
+        LoggerEnum.WARN.name());
+    for (Map<String, Object> userCourses : userCoursesList) {
+      Request request = new Request();
+      request.setOperation(ActorOperations.INSERT_USR_COURSES_INFO_ELASTIC.getValue());
+      request.getRequest().put(JsonKey.USER_COURSES, userCourses);
+      backgroundSender.accept(request);
+    }
+  }
+
+  /** Apply the function to each item on the enrollment pool and return the results in order. */
+  private static <T, R> List<R> mapConcurrently(List<T> items, Function<T, R> function) {
+    ExecutorService executor =
+        ExecutorManager.getExecutor(POOL_NAME, POOL_SIZE, POOL_SIZE * 4, true);
+    List<Callable<R>> tasks = new ArrayList<>();
+    for (T item : items) {
+      tasks.add(() -> function.apply(item));
+    }
+    return ExecutorManager.invokeAll(executor, tasks);
+  }
+
+  private static String generatePrimaryKey(Map<String, Object> req) {
+    String userId = (String) req.get(JsonKey.USER_ID);
+    String courseId = (String) req.get(JsonKey.COURSE_ID);
+    String batchId = (String) req.get(JsonKey.BATCH_ID);
+    return OneWayHashing.encryptVal(
+        userId
+            + JsonKey.PRIMARY_KEY_DELIMETER
+            + courseId
+            + JsonKey.PRIMARY_KEY_DELIMETER
+            + batchId);
+  }
+}
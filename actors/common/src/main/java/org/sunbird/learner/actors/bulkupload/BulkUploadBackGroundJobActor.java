@@ -3,43 +3,39 @@ package org.sunbird.learner.actors.bulkupload;
 import static org.sunbird.learner.util.Util.isNotNull;
 import static org.sunbird.learner.util.Util.isNull;
 
+import akka.actor.ActorRef;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
-import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
+import org.sunbird.actor.service.SunbirdMWService;
 import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.*;
 import org.sunbird.common.models.util.ProjectUtil.BulkProcessStatus;
-import org.sunbird.common.models.util.ProjectUtil.EsIndex;
-import org.sunbird.common.models.util.ProjectUtil.EsType;
 import org.sunbird.common.models.util.ProjectUtil.Status;
 import org.sunbird.common.models.util.datasecurity.DecryptionService;
 import org.sunbird.common.models.util.datasecurity.EncryptionService;
-import org.sunbird.common.models.util.datasecurity.OneWayHashing;
 import org.sunbird.common.request.ExecutionContext;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.request.UserRequestValidator;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.common.responsecode.ResponseMessage;
-import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
-import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.UserUtility;
 import org.sunbird.learner.util.Util;
 import org.sunbird.models.organisation.Organisation;
@@ -69,11 +65,15 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
       org.sunbird.common.models.util.datasecurity.impl.ServiceFactory.getDecryptionServiceInstance(
           null);
   private final PropertiesCache propertiesCache = PropertiesCache.getInstance();
-  private final List<String> locnIdList = new ArrayList<>();
   private final CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private final SSOManager ssoManager = SSOServiceFactory.getInstance();
   private ObjectMapper mapper = new ObjectMapper();
   private static final LocationRequestValidator validator = new LocationRequestValidator();
+  private static final String ENROLLMENT_CHUNK_SIZE = "sunbird_bulk_enrollment_chunk_size";
+  private static final int DEFAULT_ENROLLMENT_CHUNK_SIZE = 200;
+  private static final String ENROLLMENT_PROGRESS_INTERVAL =
+      "sunbird_bulk_enrollment_progress_interval_ms";
+  private static final long DEFAULT_ENROLLMENT_PROGRESS_INTERVAL = 30000;
 
   @Override
   public void onReceive(Request request) throws Throwable {
@@ -87,7 +87,29 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
   }
 
   private void process(Request actorMessage) {
-    processId = (String) actorMessage.get(JsonKey.PROCESS_ID);
+    String id = (String) actorMessage.get(JsonKey.PROCESS_ID);
+    BulkUploadJobClaims claims = BulkUploadJobClaims.getInstance();
+    if (!claims.claim(
+        id, () -> SunbirdMWService.tellToBGRouter(actorMessage, ActorRef.noSender()))) {
+      ProjectLogger.log(
+          "BulkUploadBackGroundJobActor:process: Process " + id + " not claimed by this node",
+          LoggerEnum.INFO.name());
+      return;
+    }
+    try {
+      processClaimed(id);
+    } catch (ProjectCommonException e) {
+      if (claims.isClaimed(id)) {
+        throw e;
+      }
+      // the process is left to the node holding the lease
+    } finally {
+      claims.release(id);
+    }
+  }
+
+  private void processClaimed(String id) {
+    processId = id;
     Map<String, Object> dataMap = getBulkData(processId);
     int status = (int) dataMap.get(JsonKey.STATUS);
     if (!(status == (ProjectUtil.BulkProcessStatus.COMPLETED.getValue())
@@ -131,15 +153,19 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
     List<Map<String, Object>> successResultList = new ArrayList<>();
     List<Map<String, Object>> failureResultList = new ArrayList<>();
+    long progressInterval =
+        ConfigUtil.getLong(ENROLLMENT_PROGRESS_INTERVAL, DEFAULT_ENROLLMENT_PROGRESS_INTERVAL);
+    AtomicLong progressSavedAt = new AtomicLong(System.currentTimeMillis());
+    Runnable progressListener =
+        () -> {
+          long now = System.currentTimeMillis();
+          if (now - progressSavedAt.get() >= progressInterval) {
+            progressSavedAt.set(now);
+            updateEnrollmentProgress(processId, successResultList, failureResultList);
+          }
+        };
 
-    Map<String, Object> successListMap = null;
-    Map<String, Object> failureListMap = null;
     for (Map<String, Object> batchMap : jsonList) {
-      successListMap = new HashMap<>();
-      failureListMap = new HashMap<>();
-      Map<String, Object> tempFailList = new HashMap<>();
-      Map<String, Object> tempSuccessList = new HashMap<>();
-
       String batchId = (String) batchMap.get(JsonKey.BATCH_ID);
       Response courseBatchResult =
           cassandraOperation.getRecordById(dbInfo.getKeySpace(), dbInfo.getTableName(), batchId);
@@ -149,20 +175,25 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
             (List<Map<String, Object>>) courseBatchResult.get(JsonKey.RESPONSE);
         List<String> userList =
             new ArrayList<>(Arrays.asList((((String) batchMap.get(JsonKey.USER_IDs)).split(","))));
+        List<Map<String, Object>> passedUserList = new ArrayList<>();
+        List<Map<String, Object>> failedUserList = new ArrayList<>();
+        Map<String, Object> successListMap = new HashMap<>();
+        Map<String, Object> failureListMap = new HashMap<>();
+        successListMap.put(batchId, passedUserList);
+        failureListMap.put(batchId, failedUserList);
+        successResultList.add(successListMap);
+        failureResultList.add(failureListMap);
         validateBatchUserListAndAdd(
-            courseList.get(0), batchId, userList, tempFailList, tempSuccessList);
-        failureListMap.put(batchId, tempFailList.get(JsonKey.FAILURE_RESULT));
-        successListMap.put(batchId, tempSuccessList.get(JsonKey.SUCCESS_RESULT));
+            courseList.get(0),
+            batchId,
+            userList,
+            failedUserList,
+            passedUserList,
+            progressListener);
       } else {
         batchMap.put(JsonKey.ERROR_MSG, msg);
         failureResultList.add(batchMap);
       }
-      if (!successListMap.isEmpty()) {
-        successResultList.add(successListMap);
-      }
-      if (!failureListMap.isEmpty()) {
-        failureResultList.add(failureListMap);
-      }
     }
 
     // Insert record to BulkDb table
@@ -181,74 +212,68 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     }
   }
 
+  /**
+   * Save the results of the users processed so far, so that a long enrollment can be followed and
+   * the results of the completed chunks are not lost if the process stops. The results are saved at
+   * most once per {@code sunbird_bulk_enrollment_progress_interval_ms}, as every save rewrites them
+   * all.
+   */
+  private void updateEnrollmentProgress(
+      String processId,
+      List<Map<String, Object>> successResultList,
+      List<Map<String, Object>> failureResultList) {
+    Map<String, Object> map = new HashMap<>();
+    map.put(JsonKey.ID, processId);
+    map.put(JsonKey.SUCCESS_RESULT, ProjectUtil.convertMapToJsonString(successResultList));
+    map.put(JsonKey.FAILURE_RESULT, ProjectUtil.convertMapToJsonString(failureResultList));
+    try {
+      cassandraOperation.updateRecord(bulkDb.getKeySpace(), bulkDb.getTableName(), map);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "BulkUploadBackGroundJobActor:updateEnrollmentProgress: Exception occurred for processId "
+              + processId,
+          e);
+    }
+  }
+
+  /**
+   * Enroll the users of a batch in chunks of {@code sunbird_bulk_enrollment_chunk_size} and report
+   * the progress after each chunk.
+   */
   @SuppressWarnings("unchecked")
   private void validateBatchUserListAndAdd(
       Map<String, Object> courseBatchObject,
       String batchId,
       List<String> userIds,
-      Map<String, Object> failList,
-      Map<String, Object> successList) {
+      List<Map<String, Object>> failedUserList,
+      List<Map<String, Object>> passedUserList,
+      Runnable progressListener) {
     Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
-    Util.DbInfo userOrgdbInfo = Util.dbInfoMap.get(JsonKey.USR_ORG_DB);
-    List<Map<String, Object>> failedUserList = new ArrayList<>();
-    List<Map<String, Object>> passedUserList = new ArrayList<>();
-
-    Map<String, Object> map = null;
-    List<String> createdFor = (List<String>) courseBatchObject.get(JsonKey.COURSE_CREATED_FOR);
-    Map<String, Boolean> participants =
-        (Map<String, Boolean>) courseBatchObject.get(JsonKey.PARTICIPANT);
-    if (participants == null) {
-      participants = new HashMap<>();
-    }
-    // check whether can update user or not
-    for (String userId : userIds) {
-      if (!(participants.containsKey(userId))) {
-        Response dbResponse =
-            cassandraOperation.getRecordsByProperty(
-                userOrgdbInfo.getKeySpace(), userOrgdbInfo.getTableName(), JsonKey.USER_ID, userId);
-        List<Map<String, Object>> userOrgResult =
-            (List<Map<String, Object>>) dbResponse.get(JsonKey.RESPONSE);
-
-        if (userOrgResult.isEmpty()) {
-          map = new HashMap<>();
-          map.put(userId, ResponseCode.userNotAssociatedToOrg.getErrorMessage());
-          failedUserList.add(map);
-          continue;
-        }
-        boolean flag = false;
-        for (int i = 0; i < userOrgResult.size() && !flag; i++) {
-          Map<String, Object> usrOrgDetail = userOrgResult.get(i);
-          if (createdFor.contains(usrOrgDetail.get(JsonKey.ORGANISATION_ID))) {
-            participants.put(
-                userId,
-                addUserCourses(
-                    batchId,
-                    (String) courseBatchObject.get(JsonKey.COURSE_ID),
-                    userId,
-                    (Map<String, String>) (courseBatchObject.get(JsonKey.COURSE_ADDITIONAL_INFO))));
-            flag = true;
-          }
-        }
-        if (flag) {
-          map = new HashMap<>();
-          map.put(userId, JsonKey.SUCCESS);
-          passedUserList.add(map);
-        } else {
-          map = new HashMap<>();
-          map.put(userId, ResponseCode.userNotAssociatedToOrg.getErrorMessage());
-          failedUserList.add(map);
-        }
-
-      } else {
-        map = new HashMap<>();
-        map.put(userId, JsonKey.SUCCESS);
-        passedUserList.add(map);
-      }
-    }
-    courseBatchObject.put(JsonKey.PARTICIPANT, participants);
+    String courseId = (String) courseBatchObject.get(JsonKey.COURSE_ID);
+    Map<String, String> additionalCourseInfo =
+        (Map<String, String>) (courseBatchObject.get(JsonKey.COURSE_ADDITIONAL_INFO));
+    boolean courseEnrollable = isCourseEnrollable(courseId, additionalCourseInfo);
+    BulkBatchEnrollment enrollment =
+        new BulkBatchEnrollment(
+            cassandraOperation,
+            request -> {
+              try {
+                tellToAnother(request);
+              } catch (Exception ex) {
+                ProjectLogger.log("Exception Occurred during saving user courses to Es : ", ex);
+              }
+            },
+            ConfigUtil.getInt(ENROLLMENT_CHUNK_SIZE, DEFAULT_ENROLLMENT_CHUNK_SIZE));
+    enrollment.enroll(
+        courseBatchObject,
+        batchId,
+        courseEnrollable,
+        userIds,
+        failedUserList,
+        passedUserList,
+        () -> BulkUploadJobClaims.getInstance().checkClaimed(processId),
+        progressListener);
     cassandraOperation.updateRecord(dbInfo.getKeySpace(), dbInfo.getTableName(), courseBatchObject);
-    successList.put(JsonKey.SUCCESS_RESULT, passedUserList);
-    failList.put(JsonKey.FAILURE_RESULT, failedUserList);
     // process Audit Log
     ProjectLogger.log("method call going to satrt for ES--.....");
     Request request = new Request();
@@ -263,81 +288,24 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     }
   }
 
-  private Boolean addUserCourses(
-      String batchId, String courseId, String userId, Map<String, String> additionalCourseInfo) {
-
-    Util.DbInfo courseEnrollmentdbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
+  @SuppressWarnings("unchecked")
+  private boolean isCourseEnrollable(String courseId, Map<String, String> additionalCourseInfo) {
+    if (ProjectUtil.CourseMgmtStatus.LIVE
+        .getValue()
+        .equalsIgnoreCase(additionalCourseInfo.get(JsonKey.STATUS))) {
+      return true;
+    }
     Util.DbInfo coursePublishdbInfo = Util.dbInfoMap.get(JsonKey.COURSE_PUBLISHED_STATUS);
     Response response =
         cassandraOperation.getRecordById(
             coursePublishdbInfo.getKeySpace(), coursePublishdbInfo.getTableName(), courseId);
     List<Map<String, Object>> resultList =
         (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    if (!ProjectUtil.CourseMgmtStatus.LIVE
-        .getValue()
-        .equalsIgnoreCase(additionalCourseInfo.get(JsonKey.STATUS))) {
-      if (resultList.isEmpty()) {
-        return false;
-      }
-      Map<String, Object> publishStatus = resultList.get(0);
-
-      if (Status.ACTIVE.getValue() != (Integer) publishStatus.get(JsonKey.STATUS)) {
-        return false;
-      }
-    }
-    Boolean flag = false;
-    Timestamp ts = new Timestamp(new Date().getTime());
-    Map<String, Object> userCourses = new HashMap<>();
-    userCourses.put(JsonKey.USER_ID, userId);
-    userCourses.put(JsonKey.BATCH_ID, batchId);
-    userCourses.put(JsonKey.COURSE_ID, courseId);
-    userCourses.put(JsonKey.ID, generatePrimaryKey(userCourses));
-    userCourses.put(JsonKey.CONTENT_ID, courseId);
-    userCourses.put(JsonKey.COURSE_ENROLL_DATE, ProjectUtil.getFormattedDate());
-    userCourses.put(JsonKey.ACTIVE, ProjectUtil.ActiveStatus.ACTIVE.getValue());
-    userCourses.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
-    userCourses.put(JsonKey.DATE_TIME, ts);
-    userCourses.put(JsonKey.COURSE_PROGRESS, 0);
-    userCourses.put(JsonKey.COURSE_LOGO_URL, additionalCourseInfo.get(JsonKey.COURSE_LOGO_URL));
-    userCourses.put(JsonKey.COURSE_NAME, additionalCourseInfo.get(JsonKey.COURSE_NAME));
-    userCourses.put(JsonKey.DESCRIPTION, additionalCourseInfo.get(JsonKey.DESCRIPTION));
-    if (!StringUtils.isBlank(additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT))) {
-      userCourses.put(
-          JsonKey.LEAF_NODE_COUNT,
-          Integer.parseInt("" + additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT)));
-    }
-    userCourses.put(JsonKey.TOC_URL, additionalCourseInfo.get(JsonKey.TOC_URL));
-    try {
-      cassandraOperation.insertRecord(
-          courseEnrollmentdbInfo.getKeySpace(), courseEnrollmentdbInfo.getTableName(), userCourses);
-      // TODO: for some reason, ES indexing is failing with TimestelemetryProcessingCalltamp value.
-      // need to
-      // check and
-      // correct it.
-      userCourses.put(JsonKey.DATE_TIME, ProjectUtil.formatDate(ts));
-      insertUserCoursesToES(userCourses);
-      flag = true;
-      Map<String, Object> targetObject =
-          TelemetryUtil.generateTargetObject(userId, JsonKey.USER, JsonKey.UPDATE, null);
-      List<Map<String, Object>> correlatedObject = new ArrayList<>();
-      TelemetryUtil.generateCorrelatedObject(batchId, JsonKey.BATCH, null, correlatedObject);
-      TelemetryUtil.telemetryProcessingCall(userCourses, targetObject, correlatedObject);
-    } catch (Exception ex) {
-      ProjectLogger.log("INSERT RECORD TO USER COURSES EXCEPTION ", ex);
-      flag = false;
-    }
-    return flag;
-  }
-
-  private void insertUserCoursesToES(Map<String, Object> courseMap) {
-    Request request = new Request();
-    request.setOperation(ActorOperations.INSERT_USR_COURSES_INFO_ELASTIC.getValue());
-    request.getRequest().put(JsonKey.USER_COURSES, courseMap);
-    try {
-      tellToAnother(request);
-    } catch (Exception ex) {
-      ProjectLogger.log("Exception Occurred during saving user count to Es : ", ex);
+    if (resultList.isEmpty()) {
+      return false;
     }
+    Map<String, Object> publishStatus = resultList.get(0);
+    return Status.ACTIVE.getValue() == (Integer) publishStatus.get(JsonKey.STATUS);
   }
 
   @SuppressWarnings("unchecked")
@@ -365,7 +333,9 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
   private void processOrgInfo(
       CopyOnWriteArrayList<Map<String, Object>> jsonList, Map<String, Object> dataMap) {
 
-    Map<String, String> channelToRootOrgCache = new HashMap<>();
+    BulkUploadValidationContext validationContext =
+        new BulkUploadValidationContext(cassandraOperation);
+    validationContext.preloadOrgs(jsonList);
     List<Map<String, Object>> successList = new ArrayList<>();
     List<Map<String, Object>> failureList = new ArrayList<>();
     // Iteration for rootorg
@@ -374,7 +344,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
         if (map.containsKey(JsonKey.IS_ROOT_ORG) && isNotNull(map.get(JsonKey.IS_ROOT_ORG))) {
           Boolean isRootOrg = Boolean.valueOf((String) map.get(JsonKey.IS_ROOT_ORG));
           if (isRootOrg) {
-            processOrg(map, dataMap, successList, failureList, channelToRootOrgCache);
+            processOrg(map, dataMap, successList, failureList, validationContext);
             jsonList.remove(map);
           }
         }
@@ -388,7 +358,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     // Iteration for non root org
     for (Map<String, Object> map : jsonList) {
       try {
-        processOrg(map, dataMap, successList, failureList, channelToRootOrgCache);
+        processOrg(map, dataMap, successList, failureList, validationContext);
       } catch (Exception ex) {
         ProjectLogger.log("Exception occurs  ", ex);
         map.put(JsonKey.ERROR_MSG, ex.getMessage());
@@ -409,7 +379,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
       Map<String, Object> dataMap,
       List<Map<String, Object>> successList,
       List<Map<String, Object>> failureList,
-      Map<String, String> channelToRootOrgCache) {
+      BulkUploadValidationContext validationContext) {
 
     Map<String, Object> concurrentHashMap = map;
     Util.DbInfo orgDbInfo = Util.dbInfoMap.get(JsonKey.ORG_DB);
@@ -437,7 +407,8 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
 
     if (concurrentHashMap.containsKey(JsonKey.ORG_TYPE)
         && !ProjectUtil.isStringNullOREmpty((String) concurrentHashMap.get(JsonKey.ORG_TYPE))) {
-      String orgTypeId = validateOrgType((String) concurrentHashMap.get(JsonKey.ORG_TYPE));
+      String orgTypeId =
+          validateOrgType((String) concurrentHashMap.get(JsonKey.ORG_TYPE), validationContext);
       if (null == orgTypeId) {
         concurrentHashMap.put(JsonKey.ERROR_MSG, "Invalid OrgType.");
         failureList.add(concurrentHashMap);
@@ -449,7 +420,8 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
 
     if (concurrentHashMap.containsKey(JsonKey.LOC_ID)
         && !ProjectUtil.isStringNullOREmpty((String) concurrentHashMap.get(JsonKey.LOC_ID))) {
-      String locId = validateLocationId((String) concurrentHashMap.get(JsonKey.LOC_ID));
+      String locId =
+          validateLocationId((String) concurrentHashMap.get(JsonKey.LOC_ID), validationContext);
       if (null == locId) {
         concurrentHashMap.put(JsonKey.ERROR_MSG, "Invalid Location Id.");
         failureList.add(concurrentHashMap);
@@ -504,16 +476,11 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
         return;
       }
 
-      Map<String, Object> dbMap = new HashMap<>();
-      dbMap.put(JsonKey.PROVIDER, concurrentHashMap.get(JsonKey.PROVIDER));
-      dbMap.put(JsonKey.EXTERNAL_ID, concurrentHashMap.get(JsonKey.EXTERNAL_ID));
-      Response result =
-          cassandraOperation.getRecordsByProperties(
-              orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), dbMap);
-      List<Map<String, Object>> list = (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
-      if (!(list.isEmpty())) {
-
-        Map<String, Object> orgResult = list.get(0);
+      Map<String, Object> orgResult =
+          validationContext.getOrgByExternalId(
+              (String) concurrentHashMap.get(JsonKey.PROVIDER),
+              (String) concurrentHashMap.get(JsonKey.EXTERNAL_ID));
+      if (null != orgResult) {
 
         boolean dbRootOrg = (boolean) orgResult.get(JsonKey.IS_ROOT_ORG);
         if (isRootOrg != dbRootOrg) {
@@ -540,14 +507,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
           String requestedHashTagId = (String) concurrentHashMap.get(JsonKey.HASHTAGID);
           // if both are not equal ...
           if (!requestedHashTagId.equals(orgResult.get(JsonKey.HASHTAGID))) {
-            Map<String, Object> dbMap1 = new HashMap<>();
-            dbMap1.put(JsonKey.HASHTAGID, concurrentHashMap.get(JsonKey.HASHTAGID));
-            Response result1 =
-                cassandraOperation.getRecordsByProperties(
-                    orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), dbMap1);
-            List<Map<String, Object>> list1 =
-                (List<Map<String, Object>>) result1.get(JsonKey.RESPONSE);
-            if (!list1.isEmpty()) {
+            if (validationContext.isHashTagIdUsed(requestedHashTagId)) {
               ProjectLogger.log("Can not update hashtag value , since it is already exist ");
               concurrentHashMap.put(
                   JsonKey.ERROR_MSG, "Hash Tag ID already exist for another org ");
@@ -564,6 +524,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
           concurrentHashMap = mapper.convertValue(org, Map.class);
           cassandraOperation.upsertRecord(
               orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), concurrentHashMap);
+          validationContext.addOrg(concurrentHashMap);
           Response orgResponse = new Response();
 
           // sending the org contact as List if it is null simply remove from map
@@ -601,12 +562,11 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
         return;
       }
       // check for unique root org for channel -----
-      List<Map<String, Object>> rootOrgListRes =
-          searchOrgByChannel((String) concurrentHashMap.get(JsonKey.CHANNEL), orgDbInfo);
+      Map<String, Object> rootOrgInfo =
+          validationContext.getRootOrgByChannel((String) concurrentHashMap.get(JsonKey.CHANNEL));
       // if for root org true for this channel means simply update the existing record
       // ...
-      if (CollectionUtils.isNotEmpty(rootOrgListRes)) {
-        Map<String, Object> rootOrgInfo = rootOrgListRes.get(0);
+      if (null != rootOrgInfo) {
         concurrentHashMap.put(JsonKey.ID, rootOrgInfo.get(JsonKey.ID));
         concurrentHashMap.put(JsonKey.UPDATED_BY, dataMap.get(JsonKey.UPLOADED_BY));
         concurrentHashMap.put(JsonKey.UPDATED_DATE, ProjectUtil.getFormattedDate());
@@ -633,14 +593,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
           String requestedHashTagId = (String) concurrentHashMap.get(JsonKey.HASHTAGID);
           // if both are not equal ...
           if (!requestedHashTagId.equalsIgnoreCase((String) rootOrgInfo.get(JsonKey.HASHTAGID))) {
-            Map<String, Object> dbMap1 = new HashMap<>();
-            dbMap1.put(JsonKey.HASHTAGID, concurrentHashMap.get(JsonKey.HASHTAGID));
-            Response result1 =
-                cassandraOperation.getRecordsByProperties(
-                    orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), dbMap1);
-            List<Map<String, Object>> list1 =
-                (List<Map<String, Object>>) result1.get(JsonKey.RESPONSE);
-            if (!list1.isEmpty()) {
+            if (validationContext.isHashTagIdUsed(requestedHashTagId)) {
               ProjectLogger.log("Can not update hashtag value , since it is already exist ");
               concurrentHashMap.put(
                   JsonKey.ERROR_MSG, "Hash Tag ID already exist for another org ");
@@ -656,6 +609,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
           concurrentHashMap = mapper.convertValue(org, Map.class);
           cassandraOperation.upsertRecord(
               orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), concurrentHashMap);
+          validationContext.addOrg(concurrentHashMap);
           Response orgResponse = new Response();
 
           // sending the org contact as List if it is null simply remove from map
@@ -690,29 +644,18 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
       if (concurrentHashMap.containsKey(JsonKey.CHANNEL)
           && !(ProjectUtil.isStringNullOREmpty((String) concurrentHashMap.get(JsonKey.CHANNEL)))) {
         String channel = (String) concurrentHashMap.get(JsonKey.CHANNEL);
-        if (channelToRootOrgCache.containsKey(channel)) {
-          concurrentHashMap.put(JsonKey.ROOT_ORG_ID, channelToRootOrgCache.get(channel));
-        } else {
-          // check for unique root org for channel -----
-          List<Map<String, Object>> rootOrgListRes =
-              searchOrgByChannel((String) concurrentHashMap.get(JsonKey.CHANNEL), orgDbInfo);
+        // check for unique root org for channel -----
+        Map<String, Object> rootOrgResult = validationContext.getRootOrgByChannel(channel);
 
-          if (CollectionUtils.isNotEmpty(rootOrgListRes)) {
-
-            Map<String, Object> rootOrgResult = rootOrgListRes.get(0);
-            concurrentHashMap.put(JsonKey.ROOT_ORG_ID, rootOrgResult.get(JsonKey.ID));
-            channelToRootOrgCache.put(
-                (String) concurrentHashMap.get(JsonKey.CHANNEL),
-                (String) rootOrgResult.get(JsonKey.ID));
-
-          } else {
-            concurrentHashMap.put(
-                JsonKey.ERROR_MSG,
-                "This is not root org and No Root Org id exist for channel  "
-                    + concurrentHashMap.get(JsonKey.CHANNEL));
-            failureList.add(concurrentHashMap);
-            return;
-          }
+        if (null != rootOrgResult) {
+          concurrentHashMap.put(JsonKey.ROOT_ORG_ID, rootOrgResult.get(JsonKey.ID));
+        } else {
+          concurrentHashMap.put(
+              JsonKey.ERROR_MSG,
+              "This is not root org and No Root Org id exist for channel  "
+                  + concurrentHashMap.get(JsonKey.CHANNEL));
+          failureList.add(concurrentHashMap);
+          return;
         }
       } else if (concurrentHashMap.containsKey(JsonKey.PROVIDER)
           && !(StringUtils.isBlank(JsonKey.PROVIDER))) {
@@ -735,13 +678,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     // ...
     if (!StringUtils.isBlank((String) concurrentHashMap.get(JsonKey.HASHTAGID))) {
 
-      Map<String, Object> dbMap1 = new HashMap<>();
-      dbMap1.put(JsonKey.HASHTAGID, concurrentHashMap.get(JsonKey.HASHTAGID));
-      Response result1 =
-          cassandraOperation.getRecordsByProperties(
-              orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), dbMap1);
-      List<Map<String, Object>> list1 = (List<Map<String, Object>>) result1.get(JsonKey.RESPONSE);
-      if (!list1.isEmpty()) {
+      if (validationContext.isHashTagIdUsed((String) concurrentHashMap.get(JsonKey.HASHTAGID))) {
         ProjectLogger.log("Can not update hashtag value , since it is already exist ");
         concurrentHashMap.put(JsonKey.ERROR_MSG, "Hash Tag ID already exist for another org ");
         failureList.add(concurrentHashMap);
@@ -781,7 +718,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
         String slug =
             Slug.makeSlug((String) concurrentHashMap.getOrDefault(JsonKey.CHANNEL, ""), true);
         if (null != isRootOrgFlag && isRootOrgFlag) {
-          boolean bool = isSlugUnique(slug);
+          boolean bool = validationContext.isSlugUnique(slug);
           if (bool) {
             concurrentHashMap.put(JsonKey.SLUG, slug);
           } else {
@@ -819,6 +756,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
       concurrentHashMap = mapper.convertValue(org, Map.class);
       cassandraOperation.upsertRecord(
           orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), concurrentHashMap);
+      validationContext.addOrg(concurrentHashMap);
       Response orgResponse = new Response();
 
       // sending the org contact as List if it is null simply remove from map
@@ -843,19 +781,6 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     generateTelemetryForOrganisation(map, uniqueId, isOrgUpdated);
   }
 
-  private List<Map<String, Object>> searchOrgByChannel(String channel, Util.DbInfo orgDbInfo) {
-    Map<String, Object> filters = new HashMap<>();
-    filters.put(JsonKey.CHANNEL, channel);
-    filters.put(JsonKey.IS_ROOT_ORG, true);
-
-    Response orgResponse =
-        cassandraOperation.getRecordsByProperties(
-            orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), filters);
-    List<Map<String, Object>> rootOrgListRes =
-        (List<Map<String, Object>>) orgResponse.get(JsonKey.RESPONSE);
-    return rootOrgListRes;
-  }
-
   private void generateTelemetryForOrganisation(
       Map<String, Object> map, String id, boolean isOrgUpdated) {
 
@@ -870,68 +795,25 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     TelemetryUtil.telemetryProcessingCall(map, targetObject, correlatedObject);
   }
 
-  private String validateLocationId(String locId) {
-    String locnId = null;
+  private String validateLocationId(
+      String locId, BulkUploadValidationContext validationContext) {
     try {
-      if (locnIdList.isEmpty()) {
-        Util.DbInfo geoLocDbInfo = Util.dbInfoMap.get(JsonKey.GEO_LOCATION_DB);
-        Response response =
-            cassandraOperation.getAllRecords(
-                geoLocDbInfo.getKeySpace(), geoLocDbInfo.getTableName());
-        List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-        if (!list.isEmpty()) {
-          for (Map<String, Object> map : list) {
-            locnIdList.add(((String) map.get(JsonKey.ID)));
-          }
-        }
-      }
-      if (locnIdList.contains(locId)) {
+      if (validationContext.isValidLocationId(locId)) {
         return locId;
-      } else {
-        return null;
       }
     } catch (Exception ex) {
       ProjectLogger.log("Exception occurred while validating location id ", ex);
     }
-    return locnId;
+    return null;
   }
 
-  private String validateOrgType(String orgType) {
-    String orgTypeId = null;
+  private String validateOrgType(String orgType, BulkUploadValidationContext validationContext) {
     try {
-      if (!StringUtils.isBlank(DataCacheHandler.getOrgTypeMap().get(orgType.toLowerCase()))) {
-        orgTypeId = DataCacheHandler.getOrgTypeMap().get(orgType.toLowerCase());
-      } else {
-        Util.DbInfo orgTypeDbInfo = Util.dbInfoMap.get(JsonKey.ORG_TYPE_DB);
-        Response response =
-            cassandraOperation.getAllRecords(
-                orgTypeDbInfo.getKeySpace(), orgTypeDbInfo.getTableName());
-        List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-        if (!list.isEmpty()) {
-          for (Map<String, Object> map : list) {
-            if ((((String) map.get(JsonKey.NAME)).toLowerCase())
-                .equalsIgnoreCase(orgType.toLowerCase())) {
-              orgTypeId = (String) map.get(JsonKey.ID);
-              DataCacheHandler.getOrgTypeMap()
-                  .put(
-                      ((String) map.get(JsonKey.NAME)).toLowerCase(), (String) map.get(JsonKey.ID));
-            }
-          }
-        }
-      }
+      return validationContext.getOrgTypeId(orgType);
     } catch (Exception ex) {
       ProjectLogger.log("Exception occurred while getting orgTypeId from OrgType", ex);
     }
-    return orgTypeId;
-  }
-
-  private Map<String, Object> elasticSearchComplexSearch(
-      Map<String, Object> filters, String index, String type) {
-
-    SearchDTO searchDTO = new SearchDTO();
-    searchDTO.getAdditionalProperties().put(JsonKey.FILTERS, filters);
-
-    return ElasticSearchUtil.complexSearch(searchDTO, index, type);
+    return null;
   }
 
   private void processUserInfo(
@@ -942,6 +824,9 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     List<Map<String, Object>> failureUserReq = new ArrayList<>();
     List<Map<String, Object>> successUserReq = new ArrayList<>();
     Map<String, Object> userMap = null;
+    BulkUploadValidationContext validationContext =
+        new BulkUploadValidationContext(cassandraOperation);
+    validationContext.preloadUsers(dataMapList);
     /*
      * To store hashTagId inside user_org table, first we need to get hashTagId from
      * provided organisation ID. Currently in bulk user upload, we are passing only
@@ -961,7 +846,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
 
           // convert userName,provide,loginId,externalId.. value to lowercase
           updateMapSomeValueTOLowerCase(userMap);
-          Map<String, Object> foundUserMap = findUser(userMap);
+          Map<String, Object> foundUserMap = findUser(userMap, validationContext);
           foundUserMap = insertRecordToKeyCloak(userMap, foundUserMap, updatedBy);
           Map<String, Object> tempMap = new HashMap<>();
           tempMap.putAll(userMap);
@@ -1022,6 +907,11 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
                 ssoManager.removeUser(userMap);
               }
             }
+            validationContext.addUser(
+                (String) userMap.get(JsonKey.EXTERNAL_ID),
+                (String) userMap.get(JsonKey.EXTERNAL_ID_PROVIDER),
+                (String) userMap.get(JsonKey.EXTERNAL_ID_TYPE),
+                tempMap);
             sendEmailAndSms(userMap, welcomeMailTemplateMap);
             // object of telemetry event...
             Map<String, Object> targetObject = null;
@@ -1294,7 +1184,8 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     }
   }
 
-  private Map<String, Object> findUser(Map<String, Object> requestedUserMap) {
+  private Map<String, Object> findUser(
+      Map<String, Object> requestedUserMap, BulkUploadValidationContext validationContext) {
     Map<String, Object> foundUserMap = null;
     String extId = (String) requestedUserMap.get(JsonKey.EXTERNAL_ID);
     String provider = (String) requestedUserMap.get(JsonKey.EXTERNAL_ID_PROVIDER);
@@ -1304,7 +1195,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
         && StringUtils.isNotBlank(provider)
         && StringUtils.isNotBlank(idType)
         && StringUtils.isBlank(userName)) {
-      foundUserMap = Util.getUserFromExternalId(requestedUserMap);
+      foundUserMap = validationContext.getUserByExternalId(requestedUserMap);
       if (MapUtils.isEmpty(foundUserMap)) {
         throw new ProjectCommonException(
             ResponseCode.externalIdNotFound.getErrorCode(),
@@ -1534,18 +1425,6 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     return JsonKey.SUCCESS;
   }
 
-  private String generatePrimaryKey(Map<String, Object> req) {
-    String userId = (String) req.get(JsonKey.USER_ID);
-    String courseId = (String) req.get(JsonKey.COURSE_ID);
-    String batchId = (String) req.get(JsonKey.BATCH_ID);
-    return OneWayHashing.encryptVal(
-        userId
-            + JsonKey.PRIMARY_KEY_DELIMETER
-            + courseId
-            + JsonKey.PRIMARY_KEY_DELIMETER
-            + batchId);
-  }
-
   /**
    * This method will make some requested key value as lower case.
    *
@@ -1621,21 +1500,4 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     userMap.remove(JsonKey.ROLES);
     userMap.remove(JsonKey.CHANNEL);
   }
-
-  private boolean isSlugUnique(String slug) {
-    if (!StringUtils.isBlank(slug)) {
-      Map<String, Object> filters = new HashMap<>();
-      filters.put(JsonKey.SLUG, slug);
-      filters.put(JsonKey.IS_ROOT_ORG, true);
-      Map<String, Object> esResult =
-          elasticSearchComplexSearch(
-              filters, EsIndex.sunbird.getIndexName(), EsType.organisation.getTypeName());
-      if (isNotNull(esResult)
-          && esResult.containsKey(JsonKey.CONTENT)
-          && isNotNull(esResult.get(JsonKey.CONTENT))) {
-        return (((List) esResult.get(JsonKey.CONTENT)).isEmpty());
-      }
-    }
-    return false;
-  }
 }
@@ -0,0 +1,212 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.actors.bulkupload.dao.BulkUploadLeaseDao;
+import org.sunbird.learner.actors.bulkupload.dao.impl.BulkUploadLeaseDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Claims of bulk upload processes by this node.
+ *
+ * <p>A process is only run by the node holding its lease. The lease is taken with a lightweight
+ * transaction when processing starts and given up when it ends. While the process runs the lease
+ * is renewed every third of {@code sunbird_bulk_upload_lease_ttl_seconds}, so the lease of a node
+ * which stops expires and the process is taken up again by the lookup scheduler. A node losing the
+ * lease of a running process, e.g. after a long pause, stops the process at the next window of
+ * tasks, see {@link #checkClaimed(String)}. A node runs at most {@code
+ * sunbird_bulk_upload_max_jobs_per_node} processes at a time, the processes it cannot take yet are
+ * queued and retried in turn as its processes end.
+ */
+public class BulkUploadJobClaims {
+
+  private static final String LEASE_TTL = "sunbird_bulk_upload_lease_ttl_seconds";
+  private static final String MAX_JOBS = "sunbird_bulk_upload_max_jobs_per_node";
+  private static final int DEFAULT_LEASE_TTL = 300;
+  private static final int DEFAULT_MAX_JOBS = 2;
+  private static final String HEARTBEAT_EXECUTOR = "bulk_upload_lease";
+
+  private static volatile BulkUploadJobClaims instance;
+
+  private final BulkUploadLeaseDao leaseDao;
+  private final String owner;
+  private final int leaseTtl;
+  private final int maxJobs;
+  private final Set<String> claimedIds = ConcurrentHashMap.newKeySet();
+  // processes refused at the node limit, with the task retrying each of them
+  private final Map<String, Runnable> waiting = new LinkedHashMap<>();
+
+  /**
+   * @param leaseDao DAO of the leases
+   * @param owner ID of this node
+   * @param leaseTtl Time in seconds after which a lease not renewed expires
+   * @param maxJobs Maximum number of processes run by this node at a time
+   * @param heartbeat true to renew the leases on a schedule
+   */
+  BulkUploadJobClaims(
+      BulkUploadLeaseDao leaseDao, String owner, int leaseTtl, int maxJobs, boolean heartbeat) {
+    this.leaseDao = leaseDao;
+    this.owner = owner;
+    this.leaseTtl = Math.max(leaseTtl, 3);
+    this.maxJobs = Math.max(maxJobs, 1);
+    if (heartbeat) {
+      long interval = this.leaseTtl / 3;
+      ExecutorManager.getScheduledExecutor(HEARTBEAT_EXECUTOR, 1)
+          .scheduleWithFixedDelay(this::heartbeatQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+  }
+
+  public static BulkUploadJobClaims getInstance() {
+    if (instance == null) {
+      synchronized (BulkUploadJobClaims.class) {
+        if (instance == null) {
+          instance =
+              new BulkUploadJobClaims(
+                  BulkUploadLeaseDaoImpl.getInstance(),
+                  ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID(),
+                  ConfigUtil.getInt(LEASE_TTL, DEFAULT_LEASE_TTL),
+                  ConfigUtil.getInt(MAX_JOBS, DEFAULT_MAX_JOBS),
+                  true);
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Take the lease of a process before running it.
+   *
+   * @param processId Bulk upload process ID
+   * @param retry Run once a process of this node has ended if the process is refused because this
+   *     node runs its maximum number of processes
+   * @return false if the process is run by another node or this node runs its maximum number of
+   *     processes
+   */
+  public synchronized boolean claim(String processId, Runnable retry) {
+    if (claimedIds.contains(processId)) {
+      return false;
+    }
+    if (claimedIds.size() >= maxJobs) {
+      waiting.put(processId, retry);
+      ProjectLogger.log(
+          "BulkUploadJobClaims:claim: Node runs "
+              + claimedIds.size()
+              + " processes, process "
+              + processId
+              + " is queued, queued processes = "
+              + waiting.size(),
+          LoggerEnum.INFO.name());
+      return false;
+    }
+    waiting.remove(processId);
+    if (!leaseDao.acquire(processId, owner, leaseTtl)) {
+      ProjectLogger.log(
+          "BulkUploadJobClaims:claim: Process " + processId + " is run by another node",
+          LoggerEnum.INFO.name());
+      return false;
+    }
+    claimedIds.add(processId);
+    return true;
+  }
+
+  /**
+   * Give up the lease of a process which has ended.
+   *
+   * @param processId Bulk upload process ID
+   */
+  public void release(String processId) {
+    if (claimedIds.remove(processId)) {
+      try {
+        leaseDao.release(processId, owner);
+      } catch (Exception e) {
+        // the lease expires by itself
+        ProjectLogger.log(
+            "BulkUploadJobClaims:release: Failed to release lease of " + processId, e);
+      }
+    }
+    retryWaiting();
+  }
+
+  private void retryWaiting() {
+    Runnable retry = null;
+    synchronized (this) {
+      Iterator<Runnable> iterator = waiting.values().iterator();
+      if (claimedIds.size() < maxJobs && iterator.hasNext()) {
+        retry = iterator.next();
+        iterator.remove();
+      }
+    }
+    if (null != retry) {
+      try {
+        retry.run();
+      } catch (Exception e) {
+        // the process is found again by the lookup scheduler
+        ProjectLogger.log("BulkUploadJobClaims:retryWaiting: Failed to retry process", e);
+      }
+    }
+  }
+
+  /**
+   * Check that this node still holds the lease of a running process, before it runs the next tasks
+   * of the process.
+   *
+   * @param processId Bulk upload process ID
+   * @throws ProjectCommonException if the lease is lost, the process may be run by another node
+   */
+  public void checkClaimed(String processId) {
+    if (!isClaimed(processId)) {
+      ProjectLogger.log(
+          "BulkUploadJobClaims:checkClaimed: Lease of process " + processId + " is lost, stopping",
+          LoggerEnum.WARN.name());
+      ProjectCommonException.throwServerErrorException(ResponseCode.SERVER_ERROR);
+    }
+  }
+
+  /**
+   * @param processId Bulk upload process ID
+   * @return true while this node holds the lease of the process
+   */
+  public boolean isClaimed(String processId) {
+    return claimedIds.contains(processId);
+  }
+
+  /**
+   * @param processIds Bulk upload process IDs
+   * @return IDs of the processes run by any node
+   */
+  public Set<String> getLeasedIds(List<String> processIds) {
+    return leaseDao.readLeased(processIds);
+  }
+
+  /** Renew the leases of the processes running on this node. */
+  void heartbeat() {
+    for (String id : new ArrayList<>(claimedIds)) {
+      if (!leaseDao.renew(id, owner, leaseTtl) && claimedIds.remove(id)) {
+        ProjectLogger.log(
+            "BulkUploadJobClaims:heartbeat: Lease of process " + id + " is lost",
+            LoggerEnum.WARN.name());
+      }
+    }
+  }
+
+  private void heartbeatQuietly() {
+    try {
+      heartbeat();
+    } catch (Exception e) {
+      ProjectLogger.log("BulkUploadJobClaims:heartbeatQuietly: Heartbeat failed", e);
+    }
+  }
+}
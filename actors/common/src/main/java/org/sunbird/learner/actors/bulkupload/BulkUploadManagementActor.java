@@ -498,10 +498,10 @@ public class BulkUploadManagementActor extends BaseBulkUploadActor {
           ResponseCode.CLIENT_ERROR.getResponseCode());
     }
     // convert userMapList to json string
-    Map<String, Object> map = new HashMap<>();
+    BulkUploadProcess bulkUploadProcess = new BulkUploadProcess();
 
     try {
-      map.put(JsonKey.DATA, mapper.writeValueAsString(dataMapList));
+      bulkUploadProcess.setData(mapper.writeValueAsString(dataMapList));
     } catch (IOException e) {
       ProjectLogger.log(
           "BulkUploadManagementActor:uploadCsvToDB: Exception while converting map to string: "
@@ -513,14 +513,14 @@ public class BulkUploadManagementActor extends BaseBulkUploadActor {
           ResponseCode.SERVER_ERROR.getResponseCode());
     }
 
-    map.put(JsonKey.ID, processId);
-    map.put(JsonKey.OBJECT_TYPE, objectType);
-    map.put(JsonKey.UPLOADED_BY, requestedBy);
-    map.put(JsonKey.UPLOADED_DATE, ProjectUtil.getFormattedDate());
-    map.put(JsonKey.PROCESS_START_TIME, ProjectUtil.getFormattedDate());
-    map.put(JsonKey.STATUS, ProjectUtil.BulkProcessStatus.NEW.getValue());
-    Response res =
-        cassandraOperation.insertRecord(bulkDb.getKeySpace(), bulkDb.getTableName(), map);
+    bulkUploadProcess.setId(processId);
+    bulkUploadProcess.setObjectType(objectType);
+    bulkUploadProcess.setUploadedBy(requestedBy);
+    bulkUploadProcess.setUploadedDate(ProjectUtil.getFormattedDate());
+    bulkUploadProcess.setProcessStartTime(ProjectUtil.getFormattedDate());
+    bulkUploadProcess.setStatus(ProjectUtil.BulkProcessStatus.NEW.getValue());
+    // the DAO also records the process as pending for the upload lookup scheduler
+    Response res = bulkUploadDao.create(bulkUploadProcess);
     res.put(JsonKey.PROCESS_ID, processId);
     ProjectLogger.log(
         "BulkUploadManagementActor: uploadCsvToDB returned response for processId: " + processId,
@@ -0,0 +1,251 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.sunbird.common.models.util.JsonKey;
+
+/**
+ * Writes the result of a bulk upload as it is produced, one row at a time, so that memory use does
+ * not grow with the size of the upload.
+ *
+ * <p>Success rows go straight to the CSV report. Failure rows are listed after all success rows in
+ * the report, so they are spooled to a compressed temporary file and appended when the report is
+ * finished. The success and failure rows are also spooled as compressed JSON arrays for the result
+ * columns of the bulk upload process.
+ */
+final class BulkUploadReportWriter implements Closeable {
+
+  private final ObjectMapper mapper;
+  private final List<String> headerRow;
+  private final Consumer<Map<String, Object>> rowProcessor;
+  private final File reportFile;
+  private final File failureCsvFile;
+  private final File successJsonFile;
+  private final File failureJsonFile;
+  private final CountingOutputStream reportStream;
+  private final Writer reportWriter;
+  private final CSVWriter reportCsvWriter;
+  private final CountingOutputStream failureCsvStream;
+  private final CSVWriter failureCsvWriter;
+  private final CountingOutputStream successJsonStream;
+  private final JsonGenerator successJsonGenerator;
+  private final CountingOutputStream failureJsonStream;
+  private final JsonGenerator failureJsonGenerator;
+  private long successCount;
+  private long failureCount;
+  private boolean finished;
+
+  /**
+   * @param objectType Object type of the bulk upload, used as temporary file prefix
+   * @param outputColumnsMap Display name of the columns, may be null
+   * @param outputColumnsOrder Columns of the report
+   * @param rowProcessor Changes applied to a row before it is added to the report
+   * @param mapper Object mapper writing the JSON result
+   */
+  BulkUploadReportWriter(
+      String objectType,
+      Map<String, String> outputColumnsMap,
+      String[] outputColumnsOrder,
+      Consumer<Map<String, Object>> rowProcessor,
+      ObjectMapper mapper)
+      throws IOException {
+    this.mapper = mapper;
+    this.rowProcessor = rowProcessor;
+    headerRow = new ArrayList<>(Arrays.asList(outputColumnsOrder));
+    headerRow.add(JsonKey.BULK_UPLOAD_STATUS);
+    headerRow.add(JsonKey.BULK_UPLOAD_ERROR);
+
+    reportFile = File.createTempFile(objectType, "upload");
+    failureCsvFile = File.createTempFile(objectType, "failure.csv.gz");
+    successJsonFile = File.createTempFile(objectType, "success.json.gz");
+    failureJsonFile = File.createTempFile(objectType, "failure.json.gz");
+
+    reportStream = new CountingOutputStream(new FileOutputStream(reportFile));
+    reportWriter = new OutputStreamWriter(new BufferedOutputStream(reportStream));
+    reportCsvWriter = new CSVWriter(reportWriter);
+    failureCsvStream = new CountingOutputStream(new FileOutputStream(failureCsvFile));
+    failureCsvWriter =
+        new CSVWriter(
+            new OutputStreamWriter(
+                new GZIPOutputStream(failureCsvStream), StandardCharsets.UTF_8));
+    successJsonStream = new CountingOutputStream(new FileOutputStream(successJsonFile));
+    successJsonGenerator = createArrayGenerator(successJsonStream);
+    failureJsonStream = new CountingOutputStream(new FileOutputStream(failureJsonFile));
+    failureJsonGenerator = createArrayGenerator(failureJsonStream);
+
+    reportCsvWriter.writeNext(getDisplayHeaderRow(outputColumnsMap));
+  }
+
+  /**
+   * Add a successfully processed row.
+   *
+   * @param row Success result of the task
+   */
+  void addSuccess(Map<String, Object> row) throws IOException {
+    mapper.writeValue(successJsonGenerator, row);
+    reportCsvWriter.writeNext(toCsvLine(row));
+    successCount++;
+  }
+
+  /**
+   * Add a failed row.
+   *
+   * @param row Failure result of the task
+   */
+  void addFailure(Map<String, Object> row) throws IOException {
+    mapper.writeValue(failureJsonGenerator, row);
+    failureCsvWriter.writeNext(toCsvLine(row));
+    failureCount++;
+  }
+
+  /**
+   * Append the failure rows to the report and close all files for writing.
+   *
+   * @return CSV report
+   */
+  File finish() throws IOException {
+    if (!finished) {
+      finished = true;
+      successJsonGenerator.writeEndArray();
+      successJsonGenerator.close();
+      failureJsonGenerator.writeEndArray();
+      failureJsonGenerator.close();
+      failureCsvWriter.close();
+      reportCsvWriter.flush();
+      try (Reader reader = gzipReader(failureCsvFile)) {
+        IOUtils.copy(reader, reportWriter);
+      }
+      reportCsvWriter.close();
+    }
+    return reportFile;
+  }
+
+  /** @return JSON array of the success rows, available after {@link #finish()} */
+  String getSuccessResult() throws IOException {
+    return readGzipFile(successJsonFile);
+  }
+
+  /** @return JSON array of the failure rows, available after {@link #finish()} */
+  String getFailureResult() throws IOException {
+    return readGzipFile(failureJsonFile);
+  }
+
+  /** @return Row and byte counts written so far */
+  Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("successRows", successCount);
+    metrics.put("failureRows", failureCount);
+    metrics.put("reportBytes", reportStream.getCount());
+    metrics.put(
+        "spoolBytes",
+        failureCsvStream.getCount() + successJsonStream.getCount() + failureJsonStream.getCount());
+    return metrics;
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(successJsonGenerator);
+    IOUtils.closeQuietly(failureJsonGenerator);
+    IOUtils.closeQuietly(failureCsvWriter);
+    IOUtils.closeQuietly(reportCsvWriter);
+    FileUtils.deleteQuietly(reportFile);
+    FileUtils.deleteQuietly(failureCsvFile);
+    FileUtils.deleteQuietly(successJsonFile);
+    FileUtils.deleteQuietly(failureJsonFile);
+  }
+
+  private String[] getDisplayHeaderRow(Map<String, String> outputColumnsMap) {
+    if (MapUtils.isEmpty(outputColumnsMap)) {
+      return headerRow.toArray(new String[0]);
+    }
+    List<String> headerRowWithDisplayNames = new ArrayList<>();
+    headerRow.forEach(s -> headerRowWithDisplayNames.add(outputColumnsMap.getOrDefault(s, s)));
+    return headerRowWithDisplayNames.toArray(new String[0]);
+  }
+
+  private String[] toCsvLine(Map<String, Object> row) {
+    rowProcessor.accept(row);
+    String[] nextLine = new String[headerRow.size()];
+    String errMsg = (String) row.get(JsonKey.ERROR_MSG);
+    int i = 0;
+    for (String field : headerRow) {
+      if (JsonKey.BULK_UPLOAD_STATUS.equals(field)) {
+        nextLine[i++] = errMsg == null ? JsonKey.SUCCESS : JsonKey.FAILED;
+      } else if (JsonKey.BULK_UPLOAD_ERROR.equals(field)) {
+        nextLine[i++] = errMsg == null ? "" : errMsg;
+      } else {
+        nextLine[i++] = String.valueOf(row.get(field));
+      }
+    }
+    return nextLine;
+  }
+
+  private JsonGenerator createArrayGenerator(OutputStream outputStream) throws IOException {
+    JsonGenerator generator =
+        mapper.getFactory().createGenerator(new GZIPOutputStream(outputStream));
+    generator.writeStartArray();
+    return generator;
+  }
+
+  private static Reader gzipReader(File file) throws IOException {
+    return new InputStreamReader(
+        new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8);
+  }
+
+  private static String readGzipFile(File file) throws IOException {
+    try (InputStream inputStream = new GZIPInputStream(new FileInputStream(file))) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+  }
+
+  /** Output stream counting the bytes written to the underlying stream. */
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    CountingOutputStream(OutputStream outputStream) {
+      super(outputStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+    long getCount() {
+      return count;
+    }
+  }
+}
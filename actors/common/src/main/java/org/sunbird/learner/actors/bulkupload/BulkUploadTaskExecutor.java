@@ -0,0 +1,115 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcessTask;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Runs the tasks of one bulk upload window on a pool per object type.
+ *
+ * <p>Rows of an upload may depend on rows before them: a location refers to a parent created by an
+ * earlier row, and users are checked for duplicate email, phone and external ID against the users
+ * created so far. The tasks of a window are therefore processed in sequence unless {@code
+ * sunbird_bulk_upload_<objectType>_parallelism} is set above 1 for an object type whose rows are
+ * independent, in which case the window is split into that many chunks processed in parallel.
+ *
+ * <p>The number of chunks per window adapts to the time the tasks take. Task time is spent almost
+ * entirely in calls to Cassandra, Elastic Search and Keycloak, so when the average time per task of
+ * a window rises above {@code sunbird_bulk_upload_slowdown_factor} times the best average seen so
+ * far, the parallelism is halved, and otherwise it grows by one up to the configured parallelism.
+ */
+final class BulkUploadTaskExecutor {
+
+  private static final String PARALLELISM_PREFIX = "sunbird_bulk_upload_";
+  private static final String PARALLELISM_SUFFIX = "_parallelism";
+  private static final String SLOWDOWN_FACTOR = "sunbird_bulk_upload_slowdown_factor";
+  private static final int DEFAULT_PARALLELISM = 1;
+  private static final int DEFAULT_SLOWDOWN_FACTOR = 3;
+  private static final int MIN_CHUNK_SIZE = 10;
+
+  private final String objectType;
+  private final ExecutorService executor;
+  private final int maxParallelism;
+  private final int slowdownFactor;
+  private int parallelism;
+  private double bestTaskTime = Double.MAX_VALUE;
+
+  BulkUploadTaskExecutor(String objectType) {
+    this(
+        objectType,
+        ConfigUtil.getInt(
+            PARALLELISM_PREFIX + objectType + PARALLELISM_SUFFIX, DEFAULT_PARALLELISM));
+  }
+
+  /**
+   * @param objectType Object type of the upload
+   * @param maxParallelism Maximum number of chunks processed in parallel
+   */
+  BulkUploadTaskExecutor(String objectType, int maxParallelism) {
+    this.objectType = objectType;
+    this.maxParallelism = Math.max(1, maxParallelism);
+    this.slowdownFactor = Math.max(2, ConfigUtil.getInt(SLOWDOWN_FACTOR, DEFAULT_SLOWDOWN_FACTOR));
+    this.parallelism = this.maxParallelism;
+    this.executor =
+        ExecutorManager.getExecutor(
+            "bulk_upload_" + objectType, this.maxParallelism, this.maxParallelism * 2, true);
+  }
+
+  /**
+   * Process the tasks of a window and wait for them. Each chunk is handed to the function as a
+   * sub list of the window, so the tasks keep their sequence order in the window. Chunks run with
+   * the request context of the calling thread.
+   *
+   * @param tasks Tasks of the window in sequence order
+   * @param function Function processing a list of tasks
+   */
+  void execute(List<BulkUploadProcessTask> tasks, Function function) {
+    long startTime = System.currentTimeMillis();
+    int chunkCount = Math.min(parallelism, (tasks.size() + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE);
+    if (chunkCount <= 1) {
+      function.apply(tasks);
+    } else {
+      int chunkSize = (tasks.size() + chunkCount - 1) / chunkCount;
+      List<Callable<Object>> chunks = new ArrayList<>();
+      for (int from = 0; from < tasks.size(); from += chunkSize) {
+        List<BulkUploadProcessTask> chunk =
+            tasks.subList(from, Math.min(from + chunkSize, tasks.size()));
+        chunks.add(() -> function.apply(chunk));
+      }
+      ExecutorManager.invokeAll(executor, chunks);
+    }
+    if (!tasks.isEmpty()) {
+      long elapsedTime = System.currentTimeMillis() - startTime;
+      adjustParallelism((double) elapsedTime * Math.max(1, chunkCount) / tasks.size());
+    }
+  }
+
+  /** @return Number of chunks the next window is split into */
+  int getParallelism() {
+    return parallelism;
+  }
+
+  void adjustParallelism(double taskTime) {
+    bestTaskTime = Math.min(bestTaskTime, taskTime);
+    if (taskTime > bestTaskTime * slowdownFactor) {
+      parallelism = Math.max(1, parallelism / 2);
+      ProjectLogger.log(
+          "BulkUploadTaskExecutor:adjustParallelism: "
+              + objectType
+              + " task time "
+              + (long) taskTime
+              + " ms, reducing parallelism to "
+              + parallelism,
+          LoggerEnum.INFO.name());
+    } else if (parallelism < maxParallelism) {
+      parallelism++;
+    }
+  }
+}
@@ -0,0 +1,391 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil.EsIndex;
+import org.sunbird.common.models.util.ProjectUtil.EsType;
+import org.sunbird.common.models.util.Slug;
+import org.sunbird.dto.SearchDTO;
+import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Lookups used to validate the rows of one bulk upload job. The distinct channels, external IDs,
+ * hash tag IDs and slugs of all rows are looked up once when the job starts, in parallel, instead
+ * of once per row, and location IDs and organisation types are read once per job. Organisations
+ * and users created by the job are added so that later rows see them.
+ *
+ * <p>A value that could not be preloaded is read when it is first needed.
+ */
+final class BulkUploadValidationContext {
+
+  private static final String POOL_NAME = "bulk_upload_validation";
+  private static final int POOL_SIZE = 8;
+  private static final int QUEUE_SIZE = 200;
+  private static final Map<String, Object> NOT_FOUND = Collections.emptyMap();
+
+  private final CassandraOperation cassandraOperation;
+  private final Function<Map<String, Object>, Map<String, Object>> userReader;
+  private final Util.DbInfo orgDbInfo = Util.dbInfoMap.get(JsonKey.ORG_DB);
+  private final Map<String, Map<String, Object>> rootOrgByChannel = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Object>> orgByExternalId = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> hashTagIdExists = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Object>> userByExternalId = new ConcurrentHashMap<>();
+  private final Set<String> usedSlugs = new HashSet<>();
+  private final Set<String> checkedSlugs = new HashSet<>();
+  private Set<String> locationIds;
+  private Map<String, String> orgTypeIds;
+
+  BulkUploadValidationContext(CassandraOperation cassandraOperation) {
+    this(cassandraOperation, Util::getUserFromExternalId);
+  }
+
+  BulkUploadValidationContext(
+      CassandraOperation cassandraOperation,
+      Function<Map<String, Object>, Map<String, Object>> userReader) {
+    this.cassandraOperation = cassandraOperation;
+    this.userReader = userReader;
+  }
+
+  /**
+   * Look up root organisations, organisations, hash tag IDs and slugs referenced by the rows.
+   *
+   * @param orgs Organisation rows of the job
+   */
+  void preloadOrgs(List<Map<String, Object>> orgs) {
+    Set<String> channels = new HashSet<>();
+    Set<String> externalIds = new HashSet<>();
+    Set<String> hashTagIds = new HashSet<>();
+    Set<String> slugs = new HashSet<>();
+    for (Map<String, Object> org : orgs) {
+      String channel = (String) org.get(JsonKey.CHANNEL);
+      String provider = (String) org.get(JsonKey.PROVIDER);
+      String externalId = (String) org.get(JsonKey.EXTERNAL_ID);
+      if (StringUtils.isNotBlank(channel)) {
+        channels.add(channel);
+        slugs.add(Slug.makeSlug(channel, true));
+      }
+      if (StringUtils.isNotBlank(provider) && StringUtils.isNotBlank(externalId)) {
+        externalIds.add(getExternalIdKey(provider, externalId));
+      }
+      if (StringUtils.isNotBlank((String) org.get(JsonKey.HASHTAGID))) {
+        hashTagIds.add((String) org.get(JsonKey.HASHTAGID));
+      }
+    }
+    preload(channels, this::readRootOrgByChannel, rootOrgByChannel);
+    preload(externalIds, this::readOrgByExternalId, orgByExternalId);
+    preload(hashTagIds, this::readHashTagIdExists, hashTagIdExists);
+    preloadSlugs(slugs);
+  }
+
+  /**
+   * Look up users referenced by the external ID of the rows.
+   *
+   * @param users User rows of the job
+   */
+  void preloadUsers(List<Map<String, Object>> users) {
+    Map<String, Map<String, Object>> externalIds = new HashMap<>();
+    for (Map<String, Object> user : users) {
+      String key = getUserExternalIdKey(user);
+      if (null != key) {
+        externalIds.put(key, user);
+      }
+    }
+    preload(externalIds.keySet(), key -> readUser(externalIds.get(key)), userByExternalId);
+  }
+
+  /**
+   * @param locationId Location ID
+   * @return true if the location exists in the geo location table
+   */
+  boolean isValidLocationId(String locationId) {
+    if (null == locationIds) {
+      locationIds = new HashSet<>();
+      Util.DbInfo geoLocDbInfo = Util.dbInfoMap.get(JsonKey.GEO_LOCATION_DB);
+      for (Map<String, Object> location :
+          getRecords(
+              cassandraOperation.getAllRecords(
+                  geoLocDbInfo.getKeySpace(), geoLocDbInfo.getTableName()))) {
+        locationIds.add((String) location.get(JsonKey.ID));
+      }
+    }
+    return locationIds.contains(locationId);
+  }
+
+  /**
+   * @param orgType Organisation type name
+   * @return ID of the organisation type, null if it does not exist
+   */
+  String getOrgTypeId(String orgType) {
+    String orgTypeId = DataCacheHandler.getOrgTypeMap().get(orgType.toLowerCase());
+    if (StringUtils.isNotBlank(orgTypeId)) {
+      return orgTypeId;
+    }
+    if (null == orgTypeIds) {
+      orgTypeIds = new HashMap<>();
+      Util.DbInfo orgTypeDbInfo = Util.dbInfoMap.get(JsonKey.ORG_TYPE_DB);
+      for (Map<String, Object> type :
+          getRecords(
+              cassandraOperation.getAllRecords(
+                  orgTypeDbInfo.getKeySpace(), orgTypeDbInfo.getTableName()))) {
+        String name = ((String) type.get(JsonKey.NAME)).toLowerCase();
+        orgTypeIds.put(name, (String) type.get(JsonKey.ID));
+        DataCacheHandler.updateOrgTypeMap(name, (String) type.get(JsonKey.ID));
+      }
+    }
+    return orgTypeIds.get(orgType.toLowerCase());
+  }
+
+  /**
+   * @param channel Channel
+   * @return Root organisation of the channel, null if none exists
+   */
+  Map<String, Object> getRootOrgByChannel(String channel) {
+    return getOrNull(rootOrgByChannel.computeIfAbsent(channel, this::readRootOrgByChannel));
+  }
+
+  /**
+   * @param provider Provider of the organisation
+   * @param externalId External ID of the organisation
+   * @return Organisation with given provider and external ID, null if none exists
+   */
+  Map<String, Object> getOrgByExternalId(String provider, String externalId) {
+    return getOrNull(
+        orgByExternalId.computeIfAbsent(
+            getExternalIdKey(provider, externalId), this::readOrgByExternalId));
+  }
+
+  /**
+   * @param hashTagId Hash tag ID
+   * @return true if an organisation with given hash tag ID exists
+   */
+  boolean isHashTagIdUsed(String hashTagId) {
+    return hashTagIdExists.computeIfAbsent(hashTagId, this::readHashTagIdExists);
+  }
+
+  /**
+   * @param slug Slug of a root organisation
+   * @return true if no root organisation has given slug
+   */
+  boolean isSlugUnique(String slug) {
+    if (StringUtils.isBlank(slug)) {
+      return false;
+    }
+    if (!checkedSlugs.contains(slug)) {
+      Boolean unique = searchSlugs(Collections.singleton(slug));
+      if (null == unique) {
+        return false;
+      }
+    }
+    return !usedSlugs.contains(slug);
+  }
+
+  /**
+   * Find the user with the external ID given in the row. Users not found are remembered too, users
+   * created by earlier rows of the job are added through {@link #addUser}.
+   *
+   * @param userMap User row with external ID, provider and ID type
+   * @return User, null if not found
+   */
+  Map<String, Object> getUserByExternalId(Map<String, Object> userMap) {
+    String key = getUserExternalIdKey(userMap);
+    if (null == key) {
+      return userReader.apply(userMap);
+    }
+    return getOrNull(userByExternalId.computeIfAbsent(key, k -> readUser(userMap)));
+  }
+
+  /**
+   * Record a user created by the job.
+   *
+   * @param externalId External ID of the user
+   * @param provider Provider of the external ID
+   * @param idType Type of the external ID
+   * @param user User details as saved
+   */
+  void addUser(String externalId, String provider, String idType, Map<String, Object> user) {
+    if (StringUtils.isNotBlank(externalId)
+        && StringUtils.isNotBlank(provider)
+        && StringUtils.isNotBlank(idType)) {
+      userByExternalId.put(getUserExternalIdKey(provider, idType, externalId), user);
+    }
+  }
+
+  /**
+   * Record an organisation created or updated by the job.
+   *
+   * @param org Organisation details as saved
+   */
+  void addOrg(Map<String, Object> org) {
+    String provider = (String) org.get(JsonKey.PROVIDER);
+    String externalId = (String) org.get(JsonKey.EXTERNAL_ID);
+    if (StringUtils.isNotBlank(provider) && StringUtils.isNotBlank(externalId)) {
+      orgByExternalId.put(getExternalIdKey(provider, externalId), org);
+    }
+    if (StringUtils.isNotBlank((String) org.get(JsonKey.HASHTAGID))) {
+      hashTagIdExists.put((String) org.get(JsonKey.HASHTAGID), true);
+    }
+    if (Boolean.TRUE.equals(org.get(JsonKey.IS_ROOT_ORG))) {
+      if (StringUtils.isNotBlank((String) org.get(JsonKey.CHANNEL))) {
+        rootOrgByChannel.put((String) org.get(JsonKey.CHANNEL), org);
+      }
+      if (StringUtils.isNotBlank((String) org.get(JsonKey.SLUG))) {
+        checkedSlugs.add((String) org.get(JsonKey.SLUG));
+        usedSlugs.add((String) org.get(JsonKey.SLUG));
+      }
+    }
+  }
+
+  private <V> void preload(
+      Collection<String> keys, Function<String, V> loader, Map<String, V> map) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = ExecutorManager.getExecutor(POOL_NAME, POOL_SIZE, QUEUE_SIZE, true);
+    Map<String, Future<V>> futures = new HashMap<>();
+    try {
+      for (String key : keys) {
+        futures.put(key, executor.submit(() -> loader.apply(key)));
+      }
+      for (Map.Entry<String, Future<V>> entry : futures.entrySet()) {
+        try {
+          map.put(entry.getKey(), entry.getValue().get());
+        } catch (ExecutionException e) {
+          ProjectLogger.log(
+              "BulkUploadValidationContext:preload: Failed to read " + entry.getKey(),
+              e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+  }
+
+  private void preloadSlugs(Set<String> slugs) {
+    slugs.remove("");
+    if (!slugs.isEmpty() && null == searchSlugs(slugs)) {
+      ProjectLogger.log(
+          "BulkUploadValidationContext:preloadSlugs: Failed to search slugs",
+          LoggerEnum.WARN.name());
+    }
+  }
+
+  /**
+   * Search root organisations with given slugs and remember the slugs in use.
+   *
+   * @return true if the search succeeded, null otherwise
+   */
+  private Boolean searchSlugs(Set<String> slugs) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.SLUG, new ArrayList<>(slugs));
+    filters.put(JsonKey.IS_ROOT_ORG, true);
+    SearchDTO searchDTO = new SearchDTO();
+    searchDTO.getAdditionalProperties().put(JsonKey.FILTERS, filters);
+    searchDTO.setFields(Collections.singletonList(JsonKey.SLUG));
+    searchDTO.setLimit(slugs.size());
+    Map<String, Object> esResult =
+        ElasticSearchUtil.complexSearch(
+            searchDTO, EsIndex.sunbird.getIndexName(), EsType.organisation.getTypeName());
+    if (MapUtils.isEmpty(esResult) || null == esResult.get(JsonKey.CONTENT)) {
+      return null;
+    }
+    for (Map<String, Object> org : (List<Map<String, Object>>) esResult.get(JsonKey.CONTENT)) {
+      usedSlugs.add((String) org.get(JsonKey.SLUG));
+    }
+    checkedSlugs.addAll(slugs);
+    return true;
+  }
+
+  private Map<String, Object> readRootOrgByChannel(String channel) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.CHANNEL, channel);
+    filters.put(JsonKey.IS_ROOT_ORG, true);
+    return getFirst(
+        cassandraOperation.getRecordsByProperties(
+            orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), filters));
+  }
+
+  private Map<String, Object> readOrgByExternalId(String key) {
+    String[] providerAndExternalId = key.split("\n", 2);
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.PROVIDER, providerAndExternalId[0]);
+    filters.put(JsonKey.EXTERNAL_ID, providerAndExternalId[1]);
+    return getFirst(
+        cassandraOperation.getRecordsByProperties(
+            orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), filters));
+  }
+
+  private Boolean readHashTagIdExists(String hashTagId) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.HASHTAGID, hashTagId);
+    return CollectionUtils.isNotEmpty(
+        getRecords(
+            cassandraOperation.getRecordsByProperties(
+                orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), filters)));
+  }
+
+  private Map<String, Object> readUser(Map<String, Object> userMap) {
+    Map<String, Object> user = userReader.apply(userMap);
+    return null == user ? NOT_FOUND : user;
+  }
+
+  private static Map<String, Object> getFirst(Response response) {
+    List<Map<String, Object>> records = getRecords(response);
+    return records.isEmpty() ? NOT_FOUND : records.get(0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> getRecords(Response response) {
+    List<Map<String, Object>> records =
+        null == response ? null : (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    return null == records ? Collections.emptyList() : records;
+  }
+
+  private static Map<String, Object> getOrNull(Map<String, Object> map) {
+    return MapUtils.isEmpty(map) ? null : map;
+  }
+
+  private static String getExternalIdKey(String provider, String externalId) {
+    return provider + "\n" + externalId;
+  }
+
+  private static String getUserExternalIdKey(Map<String, Object> userMap) {
+    String externalId = (String) userMap.get(JsonKey.EXTERNAL_ID);
+    String provider = (String) userMap.get(JsonKey.EXTERNAL_ID_PROVIDER);
+    String idType = (String) userMap.get(JsonKey.EXTERNAL_ID_TYPE);
+    if (StringUtils.isBlank(externalId)
+        || StringUtils.isBlank(provider)
+        || StringUtils.isBlank(idType)
+        || StringUtils.isNotBlank((String) userMap.get(JsonKey.USERNAME))) {
+      return null;
+    }
+    return getUserExternalIdKey(provider, idType, externalId);
+  }
+
+  private static String getUserExternalIdKey(String provider, String idType, String externalId) {
+    return (provider + "\n" + idType + "\n" + externalId).toLowerCase();
+  }
+}
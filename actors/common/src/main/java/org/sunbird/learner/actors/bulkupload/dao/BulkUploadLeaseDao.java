@@ -0,0 +1,45 @@
+package org.sunbird.learner.actors.bulkupload.dao;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Data access operations for the bulk_upload_lease table. A lease gives one node the right to
+ * process a bulk upload process, it expires unless renewed by its owner.
+ */
+public interface BulkUploadLeaseDao {
+
+  /**
+   * Take the lease of a process if no other node holds it.
+   *
+   * @param processId Bulk upload process ID
+   * @param owner Node taking the lease
+   * @param ttl Time in seconds after which the lease expires
+   * @return true if the lease is taken
+   */
+  boolean acquire(String processId, String owner, int ttl);
+
+  /**
+   * Extend the lease of a process held by the owner.
+   *
+   * @param processId Bulk upload process ID
+   * @param owner Node holding the lease
+   * @param ttl Time in seconds after which the lease expires
+   * @return false if the owner no longer holds the lease
+   */
+  boolean renew(String processId, String owner, int ttl);
+
+  /**
+   * Give up the lease of a process held by the owner.
+   *
+   * @param processId Bulk upload process ID
+   * @param owner Node holding the lease
+   */
+  void release(String processId, String owner);
+
+  /**
+   * @param processIds Bulk upload process IDs
+   * @return IDs of the processes with a lease held by any node
+   */
+  Set<String> readLeased(Collection<String> processIds);
+}
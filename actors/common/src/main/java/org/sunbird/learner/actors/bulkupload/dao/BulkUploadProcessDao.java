@@ -1,5 +1,7 @@
 package org.sunbird.learner.actors.bulkupload.dao;
 
+import java.util.List;
+import java.util.Map;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcess;
 
@@ -23,4 +25,25 @@ public interface BulkUploadProcessDao {
    * @return response Response
    */
   BulkUploadProcess read(String id);
+
+  /**
+   * @return IDs of the processes created within the pending lookup window, a process is recorded
+   *     as pending by {@link #create(BulkUploadProcess)}
+   */
+  List<String> readPendingIds();
+
+  /**
+   * Read the processes with given status through the status index, which reads all partitions.
+   *
+   * @param status Process status
+   * @return IDs of the processes
+   */
+  List<String> readIdsByStatus(int status);
+
+  /**
+   * @param ids Process IDs
+   * @param fields Fields read, all fields if null
+   * @return Processes found
+   */
+  List<Map<String, Object>> readByIds(List<String> ids, List<String> fields);
 }
@@ -0,0 +1,96 @@
+package org.sunbird.learner.actors.bulkupload.dao.impl;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Update;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.learner.actors.bulkupload.dao.BulkUploadLeaseDao;
+
+/**
+ * Leases are taken, renewed and released with lightweight transactions, which the generic
+ * Cassandra operations do not expose, so statements are run on the session.
+ */
+public class BulkUploadLeaseDaoImpl implements BulkUploadLeaseDao {
+
+  private static final String KEYSPACE_NAME = "sunbird";
+  private static final String TABLE_NAME = "bulk_upload_lease";
+  private static final String OWNER = "owner";
+  private static final String HEARTBEAT = "heartbeat";
+
+  private static volatile BulkUploadLeaseDao bulkUploadLeaseDao;
+
+  public static BulkUploadLeaseDao getInstance() {
+    if (bulkUploadLeaseDao == null) {
+      synchronized (BulkUploadLeaseDaoImpl.class) {
+        if (bulkUploadLeaseDao == null) {
+          bulkUploadLeaseDao = new BulkUploadLeaseDaoImpl();
+        }
+      }
+    }
+    return bulkUploadLeaseDao;
+  }
+
+  @Override
+  public boolean acquire(String processId, String owner, int ttl) {
+    Statement insert =
+        QueryBuilder.insertInto(KEYSPACE_NAME, TABLE_NAME)
+            .value(JsonKey.ID, processId)
+            .value(OWNER, owner)
+            .value(HEARTBEAT, new Date())
+            .ifNotExists()
+            .using(QueryBuilder.ttl(ttl));
+    return getSession().execute(insert).wasApplied();
+  }
+
+  @Override
+  public boolean renew(String processId, String owner, int ttl) {
+    Update update = QueryBuilder.update(KEYSPACE_NAME, TABLE_NAME);
+    // both columns are written so that the whole row takes the new TTL
+    update.with(QueryBuilder.set(OWNER, owner)).and(QueryBuilder.set(HEARTBEAT, new Date()));
+    update.where(QueryBuilder.eq(JsonKey.ID, processId));
+    update.onlyIf(QueryBuilder.eq(OWNER, owner));
+    update.using(QueryBuilder.ttl(ttl));
+    return getSession().execute(update).wasApplied();
+  }
+
+  @Override
+  public void release(String processId, String owner) {
+    Delete delete = QueryBuilder.delete().from(KEYSPACE_NAME, TABLE_NAME);
+    delete.where(QueryBuilder.eq(JsonKey.ID, processId));
+    delete.onlyIf(QueryBuilder.eq(OWNER, owner));
+    getSession().execute(delete);
+  }
+
+  @Override
+  public Set<String> readLeased(Collection<String> processIds) {
+    Set<String> leasedIds = new HashSet<>();
+    if (CollectionUtils.isEmpty(processIds)) {
+      return leasedIds;
+    }
+    Statement select =
+        QueryBuilder.select(JsonKey.ID)
+            .from(KEYSPACE_NAME, TABLE_NAME)
+            .where(QueryBuilder.in(JsonKey.ID, new ArrayList<Object>(processIds)));
+    for (Row row : getSession().execute(select)) {
+      leasedIds.add(row.getString(JsonKey.ID));
+    }
+    return leasedIds;
+  }
+
+  private Session getSession() {
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(KEYSPACE_NAME);
+  }
+}
@@ -3,7 +3,12 @@ package org.sunbird.learner.actors.bulkupload.dao.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.collections.CollectionUtils;
@@ -14,6 +19,7 @@ import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.actors.bulkupload.dao.BulkUploadProcessDao;
 import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcess;
+import org.sunbird.learner.util.ConfigUtil;
 
 /** Created by arvind on 24/4/18. */
 public class BulkUploadProcessDaoImpl implements BulkUploadProcessDao {
@@ -22,12 +28,22 @@ public class BulkUploadProcessDaoImpl implements BulkUploadProcessDao {
   private ObjectMapper mapper = new ObjectMapper();
   private static final String KEYSPACE_NAME = "sunbird";
   private static final String TABLE_NAME = "bulk_upload_process";
+  // pending processes by hour of creation, so that the lookup reads a few partitions by key
+  private static final String PENDING_TABLE_NAME = "bulk_upload_pending";
+  private static final String BUCKET = "bucket";
+  private static final String PENDING_HOURS = "sunbird_bulk_upload_pending_hours";
+  private static final int DEFAULT_PENDING_HOURS = 48;
+  private static final DateTimeFormatter BUCKET_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
 
   @Override
   public Response create(BulkUploadProcess bulkUploadProcess) {
     Map<String, Object> map = mapper.convertValue(bulkUploadProcess, Map.class);
     map.put(JsonKey.CREATED_ON, new Timestamp(Calendar.getInstance().getTimeInMillis()));
     Response response = cassandraOperation.insertRecord(KEYSPACE_NAME, TABLE_NAME, map);
+    if (JsonKey.SUCCESS.equals(response.get(JsonKey.RESPONSE))) {
+      markPending((String) map.get(JsonKey.ID));
+    }
     // need to send ID along with success msg
     response.put(JsonKey.ID, map.get(JsonKey.ID));
     return response;
@@ -58,4 +74,59 @@ public class BulkUploadProcessDaoImpl implements BulkUploadProcessDao {
     }
     return null;
   }
+
+  private void markPending(String id) {
+    int pendingHours = ConfigUtil.getInt(PENDING_HOURS, DEFAULT_PENDING_HOURS);
+    Map<String, Object> map = new HashMap<>();
+    map.put(BUCKET, BUCKET_FORMAT.format(ZonedDateTime.now(ZoneOffset.UTC)));
+    map.put(JsonKey.ID, id);
+    // one hour more than the lookup window, the current bucket is partly elapsed
+    cassandraOperation.insertRecordWithTTL(
+        KEYSPACE_NAME, PENDING_TABLE_NAME, map, (pendingHours + 1) * 3600);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> readPendingIds() {
+    int pendingHours = ConfigUtil.getInt(PENDING_HOURS, DEFAULT_PENDING_HOURS);
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+    List<Object> buckets = new ArrayList<>();
+    for (int hour = 0; hour <= pendingHours; hour++) {
+      buckets.add(BUCKET_FORMAT.format(now.minusHours(hour)));
+    }
+    Response response =
+        cassandraOperation.getRecordsByProperty(KEYSPACE_NAME, PENDING_TABLE_NAME, BUCKET, buckets);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    List<String> ids = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(list)) {
+      list.forEach(map -> ids.add((String) map.get(JsonKey.ID)));
+    }
+    return ids;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> readIdsByStatus(int status) {
+    Response response =
+        cassandraOperation.getRecordsByProperty(KEYSPACE_NAME, TABLE_NAME, JsonKey.STATUS, status);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    List<String> ids = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(list)) {
+      list.forEach(map -> ids.add((String) map.get(JsonKey.ID)));
+    }
+    return ids;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Map<String, Object>> readByIds(List<String> ids, List<String> fields) {
+    if (CollectionUtils.isEmpty(ids)) {
+      return new ArrayList<>();
+    }
+    Response response =
+        cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            KEYSPACE_NAME, TABLE_NAME, fields, ids);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    return list == null ? new ArrayList<>() : list;
+  }
 }
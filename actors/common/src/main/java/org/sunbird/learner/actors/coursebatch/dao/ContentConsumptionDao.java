@@ -0,0 +1,37 @@
+package org.sunbird.learner.actors.coursebatch.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ContentConsumptionDao {
+
+  /**
+   * Get content consumption information of given identifiers with one query.
+   *
+   * @param ids Identifiers generated using userId, contentId, courseId and batchId
+   * @return Map of identifier to content consumption information, for identifiers having an entry
+   */
+  Map<String, Map<String, Object>> readByIds(List<String> ids);
+
+  /**
+   * Get content consumption information of a user for each of given values of an indexed property,
+   * such as course IDs or content IDs. The queries run concurrently on a bounded pool.
+   *
+   * @param userId User ID
+   * @param property Name of the indexed property
+   * @param values Values of the property
+   * @return Content consumption information matching any of the values
+   */
+  List<Map<String, Object>> readByUserId(String userId, String property, Collection<String> values);
+
+  /**
+   * Create or update content consumption information of all given contents. The writes are issued
+   * together and awaited together.
+   *
+   * @param contents Content consumption information, one entry per identifier
+   * @return Identifiers of the entries which could not be written
+   */
+  Set<String> upsert(Collection<Map<String, Object>> contents);
+}
@@ -0,0 +1,149 @@
+package org.sunbird.learner.actors.coursebatch.dao.impl;
+
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.coursebatch.dao.ContentConsumptionDao;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+
+public class ContentConsumptionDaoImpl implements ContentConsumptionDao {
+
+  private static final String READ_EXECUTOR = "content_consumption_read";
+  private static final int DEFAULT_READ_PARALLELISM = 8;
+  private static final int DEFAULT_READ_QUEUE_SIZE = 200;
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static volatile ContentConsumptionDao contentConsumptionDao;
+  private static final String KEYSPACE_NAME =
+      Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB).getKeySpace();
+  private static final String TABLE_NAME =
+      Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB).getTableName();
+
+  public static ContentConsumptionDao getInstance() {
+    if (contentConsumptionDao == null) {
+      synchronized (ContentConsumptionDaoImpl.class) {
+        if (contentConsumptionDao == null) {
+          contentConsumptionDao = new ContentConsumptionDaoImpl();
+        }
+      }
+    }
+    return contentConsumptionDao;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Map<String, Object>> readByIds(List<String> ids) {
+    Map<String, Map<String, Object>> contents = new HashMap<>();
+    if (CollectionUtils.isEmpty(ids)) {
+      return contents;
+    }
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            KEYSPACE_NAME, TABLE_NAME, JsonKey.ID, new ArrayList<Object>(ids));
+    List<Map<String, Object>> contentList =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isNotEmpty(contentList)) {
+      for (Map<String, Object> content : contentList) {
+        contents.put((String) content.get(JsonKey.ID), content);
+      }
+    }
+    return contents;
+  }
+
+  /**
+   * The property and user ID columns have secondary indexes, which cannot be restricted with IN, so
+   * one query per value is issued on the bounded content_consumption_read pool and all of them are
+   * awaited together.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Map<String, Object>> readByUserId(
+      String userId, String property, Collection<String> values) {
+    List<Map<String, Object>> contents = new ArrayList<>();
+    if (CollectionUtils.isEmpty(values)) {
+      return contents;
+    }
+    ExecutorService executor =
+        ExecutorManager.getExecutor(
+            READ_EXECUTOR, DEFAULT_READ_PARALLELISM, DEFAULT_READ_QUEUE_SIZE, true);
+    List<Callable<Response>> tasks = new ArrayList<>();
+    for (String value : new LinkedHashSet<>(values)) {
+      Map<String, Object> queryMap = new HashMap<>();
+      queryMap.put(JsonKey.USER_ID, userId);
+      queryMap.put(property, value);
+      tasks.add(
+          () -> cassandraOperation.getRecordsByProperties(KEYSPACE_NAME, TABLE_NAME, queryMap));
+    }
+    for (Response response : ExecutorManager.invokeAll(executor, tasks)) {
+      List<Map<String, Object>> contentList =
+          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (CollectionUtils.isNotEmpty(contentList)) {
+        contents.addAll(contentList);
+      }
+    }
+    return contents;
+  }
+
+  /**
+   * Each entry is its own partition, so a batch would only move the fan-out to the coordinator.
+   * The single partition writes are instead sent asynchronously, which costs one round trip for
+   * the whole list.
+   */
+  @Override
+  public Set<String> upsert(Collection<Map<String, Object>> contents) {
+    Set<String> failedIds = new HashSet<>();
+    if (CollectionUtils.isEmpty(contents)) {
+      return failedIds;
+    }
+    Session session = getSession();
+    Map<String, ResultSetFuture> futures = new LinkedHashMap<>();
+    for (Map<String, Object> content : contents) {
+      String id = (String) content.get(JsonKey.ID);
+      try {
+        Insert insert = QueryBuilder.insertInto(KEYSPACE_NAME, TABLE_NAME);
+        content.forEach(insert::value);
+        futures.put(id, session.executeAsync(insert));
+      } catch (Exception e) {
+        ProjectLogger.log("ContentConsumptionDaoImpl:upsert: Failed to write id " + id, e);
+        failedIds.add(id);
+      }
+    }
+    for (Map.Entry<String, ResultSetFuture> entry : futures.entrySet()) {
+      try {
+        entry.getValue().getUninterruptibly();
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "ContentConsumptionDaoImpl:upsert: Failed to write id " + entry.getKey(), e);
+        failedIds.add(entry.getKey());
+      }
+    }
+    return failedIds;
+  }
+
+  private Session getSession() {
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(KEYSPACE_NAME);
+  }
+}
@@ -0,0 +1,240 @@
+package org.sunbird.learner.actors.coursebatch.service;
+
+import static org.sunbird.common.models.util.ProjectUtil.isNotNull;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.datasecurity.OneWayHashing;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.actors.coursebatch.dao.ContentConsumptionDao;
+import org.sunbird.learner.actors.coursebatch.dao.impl.ContentConsumptionDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
+
+public class ContentConsumptionService {
+  private static final String READ_CHUNK_SIZE = "sunbird_learner_state_read_chunk_size";
+  private static final int DEFAULT_READ_CHUNK_SIZE = 100;
+
+  private ContentConsumptionDao contentConsumptionDao = ContentConsumptionDaoImpl.getInstance();
+
+  /**
+   * Merge the requested state of contents with their stored state, read with one IN query per
+   * {@code sunbird_learner_state_read_chunk_size} contents, and write them together.
+   *
+   * @param contentList Requested state of contents, with ID and user ID set
+   * @param contentStatusHolder Filled with the requested status of each content ID
+   * @return IDs of the contents which could not be written
+   * @throws ProjectCommonException with code {@code invalidDateFormat} if a requested or stored
+   *     date cannot be parsed
+   */
+  public Set<String> update(
+      List<Map<String, Object>> contentList, Map<String, Integer> contentStatusHolder) {
+    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+    simpleDateFormat.setLenient(false);
+    List<String> ids =
+        contentList
+            .stream()
+            .map(content -> (String) content.get(JsonKey.ID))
+            .distinct()
+            .collect(Collectors.toList());
+    int chunkSize = Math.max(1, ConfigUtil.getInt(READ_CHUNK_SIZE, DEFAULT_READ_CHUNK_SIZE));
+    Map<String, Map<String, Object>> existingContents = new HashMap<>();
+    for (int from = 0; from < ids.size(); from += chunkSize) {
+      List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+      existingContents.putAll(contentConsumptionDao.readByIds(chunk));
+    }
+    Map<String, Map<String, Object>> updatedContents = new LinkedHashMap<>();
+    for (Map<String, Object> map : contentList) {
+      String id = (String) map.get(JsonKey.ID);
+      preOperation(map, existingContents.get(id), contentStatusHolder, simpleDateFormat);
+      map.put(JsonKey.DATE_TIME, new Timestamp(new Date().getTime()));
+      // a repeated content in the same request is merged with this state, as if it was stored
+      existingContents.put(id, new HashMap<>(map));
+      updatedContents.put(id, map);
+    }
+    return contentConsumptionDao.upsert(updatedContents.values());
+  }
+
+  /**
+   * Generate the content consumption ID.
+   *
+   * @param req Content having content ID, course ID and batch ID
+   * @param userId User ID
+   * @return One way hash of userId#contentId#courseId#batchId
+   */
+  public static String getPrimaryKey(Map<String, Object> req, String userId) {
+    String contentId = (String) req.get(JsonKey.CONTENT_ID);
+    String courseId = (String) req.get(JsonKey.COURSE_ID);
+    String batchId = (String) req.get(JsonKey.BATCH_ID);
+    String key =
+        userId
+            + JsonKey.PRIMARY_KEY_DELIMETER
+            + contentId
+            + JsonKey.PRIMARY_KEY_DELIMETER
+            + courseId
+            + JsonKey.PRIMARY_KEY_DELIMETER
+            + batchId;
+    return OneWayHashing.encryptVal(key);
+  }
+
+  /**
+   * Method te perform the per operation on contents like setting the status , last completed and
+   * access time etc.
+   *
+   * @param req Requested state of the content, with its ID set
+   * @param result Stored state of the content, null if it is new
+   */
+  private void preOperation(
+      Map<String, Object> req,
+      Map<String, Object> result,
+      Map<String, Integer> contentStateHolder,
+      SimpleDateFormat simpleDateFormat) {
+
+    contentStateHolder.put(
+        (String) req.get(JsonKey.ID), ((BigInteger) req.get(JsonKey.STATUS)).intValue());
+
+    if (null != result) {
+      int currentStatus = (int) result.get(JsonKey.STATUS);
+      int requestedStatus = ((BigInteger) req.get(JsonKey.STATUS)).intValue();
+
+      Integer currentProgressStatus = 0;
+      if (isNotNull(result.get(JsonKey.CONTENT_PROGRESS))) {
+        currentProgressStatus = (Integer) result.get(JsonKey.CONTENT_PROGRESS);
+      }
+      if (isNotNull(req.get(JsonKey.CONTENT_PROGRESS))) {
+        Integer requestedProgressStatus =
+            ((BigInteger) req.get(JsonKey.CONTENT_PROGRESS)).intValue();
+        if (requestedProgressStatus > currentProgressStatus) {
+          req.put(JsonKey.CONTENT_PROGRESS, requestedProgressStatus);
+        } else {
+          req.put(JsonKey.CONTENT_PROGRESS, currentProgressStatus);
+        }
+      } else {
+        req.put(JsonKey.CONTENT_PROGRESS, currentProgressStatus);
+      }
+
+      Date accessTime = parseDate(result.get(JsonKey.LAST_ACCESS_TIME), simpleDateFormat);
+      Date requestAccessTime = parseDate(req.get(JsonKey.LAST_ACCESS_TIME), simpleDateFormat);
+
+      Date completedDate = parseDate(result.get(JsonKey.LAST_COMPLETED_TIME), simpleDateFormat);
+      Date requestCompletedTime = parseDate(req.get(JsonKey.LAST_COMPLETED_TIME), simpleDateFormat);
+
+      int completedCount;
+      if (!(isNullCheck(result.get(JsonKey.COMPLETED_COUNT)))) {
+        completedCount = (int) result.get(JsonKey.COMPLETED_COUNT);
+      } else {
+        completedCount = 0;
+      }
+      int viewCount;
+      if (!(isNullCheck(result.get(JsonKey.VIEW_COUNT)))) {
+        viewCount = (int) result.get(JsonKey.VIEW_COUNT);
+      } else {
+        viewCount = 0;
+      }
+
+      if (requestedStatus >= currentStatus) {
+        req.put(JsonKey.STATUS, requestedStatus);
+        if (requestedStatus == 2) {
+          req.put(JsonKey.COMPLETED_COUNT, completedCount + 1);
+          req.put(JsonKey.LAST_COMPLETED_TIME, compareTime(completedDate, requestCompletedTime));
+        } else {
+          req.put(JsonKey.COMPLETED_COUNT, completedCount);
+        }
+        req.put(JsonKey.VIEW_COUNT, viewCount + 1);
+        req.put(JsonKey.LAST_ACCESS_TIME, compareTime(accessTime, requestAccessTime));
+        req.put(JsonKey.LAST_UPDATED_TIME, ProjectUtil.getFormattedDate());
+
+      } else {
+        req.put(JsonKey.STATUS, currentStatus);
+        req.put(JsonKey.VIEW_COUNT, viewCount + 1);
+        req.put(JsonKey.LAST_ACCESS_TIME, compareTime(accessTime, requestAccessTime));
+        req.put(JsonKey.LAST_UPDATED_TIME, ProjectUtil.getFormattedDate());
+        req.put(JsonKey.COMPLETED_COUNT, completedCount);
+      }
+
+    } else {
+      // IT IS NEW CONTENT SIMPLY ADD IT
+      Date requestCompletedTime = parseDate(req.get(JsonKey.LAST_COMPLETED_TIME), simpleDateFormat);
+      if (null != req.get(JsonKey.STATUS)) {
+        int requestedStatus = ((BigInteger) req.get(JsonKey.STATUS)).intValue();
+        req.put(JsonKey.STATUS, requestedStatus);
+        if (requestedStatus == 2) {
+          req.put(JsonKey.COMPLETED_COUNT, 1);
+          req.put(JsonKey.LAST_COMPLETED_TIME, compareTime(null, requestCompletedTime));
+          req.put(JsonKey.COMPLETED_COUNT, 1);
+        } else {
+          req.put(JsonKey.COMPLETED_COUNT, 0);
+        }
+
+      } else {
+        req.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
+        req.put(JsonKey.COMPLETED_COUNT, 0);
+      }
+
+      int progressStatus = 0;
+      if (isNotNull(req.get(JsonKey.CONTENT_PROGRESS))) {
+        progressStatus = ((BigInteger) req.get(JsonKey.CONTENT_PROGRESS)).intValue();
+      }
+      req.put(JsonKey.CONTENT_PROGRESS, progressStatus);
+
+      req.put(JsonKey.VIEW_COUNT, 1);
+      Date requestAccessTime = parseDate(req.get(JsonKey.LAST_ACCESS_TIME), simpleDateFormat);
+
+      req.put(JsonKey.LAST_UPDATED_TIME, ProjectUtil.getFormattedDate());
+
+      if (requestAccessTime != null) {
+        req.put(JsonKey.LAST_ACCESS_TIME, (String) req.get(JsonKey.LAST_ACCESS_TIME));
+      } else {
+        req.put(JsonKey.LAST_ACCESS_TIME, ProjectUtil.getFormattedDate());
+      }
+    }
+  }
+
+  static Date parseDate(Object obj, SimpleDateFormat formatter) {
+    if (null == obj || ((String) obj).equalsIgnoreCase(JsonKey.NULL)) {
+      return null;
+    }
+    Date date;
+    try {
+      date = formatter.parse((String) obj);
+    } catch (ParseException ex) {
+      ProjectLogger.log(ex.getMessage(), ex);
+      throw new ProjectCommonException(
+          ResponseCode.invalidDateFormat.getErrorCode(),
+          ResponseCode.invalidDateFormat.getErrorMessage(),
+          ResponseCode.CLIENT_ERROR.getResponseCode());
+    }
+    return date;
+  }
+
+  private String compareTime(Date currentValue, Date requestedValue) {
+    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+    simpleDateFormat.setLenient(false);
+    if (currentValue == null && requestedValue == null) {
+      return ProjectUtil.getFormattedDate();
+    } else if (currentValue == null) {
+      return simpleDateFormat.format(requestedValue);
+    } else if (null == requestedValue) {
+      return simpleDateFormat.format(currentValue);
+    }
+    return (requestedValue.after(currentValue)
+        ? simpleDateFormat.format(requestedValue)
+        : simpleDateFormat.format(currentValue));
+  }
+
+  private boolean isNullCheck(Object obj) {
+    return null == obj;
+  }
+}
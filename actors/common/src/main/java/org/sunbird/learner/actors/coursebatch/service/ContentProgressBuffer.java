@@ -0,0 +1,467 @@
+package org.sunbird.learner.actors.coursebatch.service;
+
+import akka.actor.ActorRef;
+import java.math.BigInteger;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.sunbird.actor.service.SunbirdMWService;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.ActorOperations;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.request.Request;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.ShutdownManager;
+
+/**
+ * Write-behind buffer of content progress updates, enabled with {@code
+ * sunbird_learner_state_write_behind_enabled}. Clients resend the same progress many times a
+ * minute, so updates are kept in memory per content consumption ID (a hash of
+ * userId#contentId#courseId#batchId) and merged: the highest status and progress and the latest
+ * access and completion times are kept, other fields take the latest value. The buffer is flushed
+ * every {@code sunbird_learner_state_flush_interval_ms} or when it holds {@code
+ * sunbird_learner_state_flush_size} contents. A flush writes each content once, merged with its
+ * stored state as a single update, so a burst of resends counts as one view, and then triggers one
+ * course progress update per user. A content failing to be written is retried in the next flushes,
+ * and dropped with an error log after {@code sunbird_learner_state_max_write_attempts} failed
+ * writes. Pending updates are flushed when the service stops, through {@link ShutdownManager}, and
+ * the buffer then takes no more updates so that they are written directly.
+ */
+public class ContentProgressBuffer {
+
+  private static final String WRITE_BEHIND_ENABLED = "sunbird_learner_state_write_behind_enabled";
+  private static final String FLUSH_INTERVAL = "sunbird_learner_state_flush_interval_ms";
+  private static final String FLUSH_SIZE = "sunbird_learner_state_flush_size";
+  private static final long DEFAULT_FLUSH_INTERVAL = 10000;
+  private static final int DEFAULT_FLUSH_SIZE = 500;
+  private static final String MAX_WRITE_ATTEMPTS = "sunbird_learner_state_max_write_attempts";
+  private static final int DEFAULT_MAX_WRITE_ATTEMPTS = 5;
+  // pending contents beyond which updates are written directly, e.g. while writes are failing
+  private static final int MAX_PENDING_FACTOR = 10;
+  private static final String CONTENT_STATE_INFO = "contentStateInfo";
+  private static final String FLUSH_EXECUTOR = "content_progress_flush";
+
+  private static volatile ContentProgressBuffer instance;
+
+  private final Map<String, PendingContent> pending = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  // held for reading while an update is added and for writing while the buffer is closed
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed;
+  private final int flushSize;
+  private final int maxWriteAttempts;
+  private final Function<List<Map<String, Object>>, Set<String>> writer;
+  private final AtomicLong bufferedCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  private final AtomicLong flushedContentCount = new AtomicLong();
+  private final AtomicLong failedContentCount = new AtomicLong();
+  private final AtomicLong droppedContentCount = new AtomicLong();
+  private final AtomicLong lastFlushLag = new AtomicLong();
+  private final AtomicLong maxFlushLag = new AtomicLong();
+  private final AtomicLong lastFlushDuration = new AtomicLong();
+
+  /**
+   * @param flushInterval Interval in milliseconds between timed flushes, no timed flush if not
+   *     positive
+   * @param flushSize Number of pending contents triggering a flush
+   * @param maxWriteAttempts Number of failed writes after which a content is dropped
+   * @param writer Writes merged contents and returns the IDs of the ones not written
+   */
+  ContentProgressBuffer(
+      long flushInterval,
+      int flushSize,
+      int maxWriteAttempts,
+      Function<List<Map<String, Object>>, Set<String>> writer) {
+    this.flushSize = Math.max(1, flushSize);
+    this.maxWriteAttempts = Math.max(1, maxWriteAttempts);
+    this.writer = writer;
+    if (flushInterval > 0) {
+      ExecutorManager.getScheduledExecutor(FLUSH_EXECUTOR, 1)
+          .scheduleWithFixedDelay(
+              this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** @return true if progress updates are to be buffered */
+  public static boolean isEnabled() {
+    return Boolean.parseBoolean(ProjectUtil.getConfigValue(WRITE_BEHIND_ENABLED));
+  }
+
+  public static ContentProgressBuffer getInstance() {
+    if (instance == null) {
+      synchronized (ContentProgressBuffer.class) {
+        if (instance == null) {
+          ContentConsumptionService service = new ContentConsumptionService();
+          ContentProgressBuffer buffer =
+              new ContentProgressBuffer(
+                  ConfigUtil.getLong(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL),
+                  ConfigUtil.getInt(FLUSH_SIZE, DEFAULT_FLUSH_SIZE),
+                  ConfigUtil.getInt(MAX_WRITE_ATTEMPTS, DEFAULT_MAX_WRITE_ATTEMPTS),
+                  contents -> write(service, contents));
+          ShutdownManager.register("ContentProgressBuffer", buffer::shutdown);
+          instance = buffer;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Buffer requested state of a content, merging it with a pending update of the same content.
+   *
+   * @param content Requested state of the content, with ID and user ID set
+   * @return false if the buffer is full or closed and the content has to be written directly
+   * @throws ProjectCommonException if a date of the content cannot be parsed
+   */
+  public boolean add(Map<String, Object> content) {
+    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+    simpleDateFormat.setLenient(false);
+    // reject invalid dates now, the client does not see the result of the flush
+    ContentConsumptionService.parseDate(content.get(JsonKey.LAST_ACCESS_TIME), simpleDateFormat);
+    ContentConsumptionService.parseDate(
+        content.get(JsonKey.LAST_COMPLETED_TIME), simpleDateFormat);
+    String id = (String) content.get(JsonKey.ID);
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        return false;
+      }
+      if (pending.size() >= flushSize * MAX_PENDING_FACTOR && !pending.containsKey(id)) {
+        rejectedCount.incrementAndGet();
+        requestFlush();
+        return false;
+      }
+      add(id, new PendingContent(content), simpleDateFormat);
+    } finally {
+      closeLock.readLock().unlock();
+    }
+    bufferedCount.incrementAndGet();
+    if (pending.size() >= flushSize) {
+      requestFlush();
+    }
+    return true;
+  }
+
+  private void add(String id, PendingContent content, SimpleDateFormat simpleDateFormat) {
+    pending.merge(
+        id,
+        content,
+        (current, requested) -> {
+          coalescedCount.incrementAndGet();
+          return merge(current, requested, simpleDateFormat);
+        });
+  }
+
+  private PendingContent merge(
+      PendingContent current, PendingContent requested, SimpleDateFormat simpleDateFormat) {
+    Map<String, Object> merged = new HashMap<>(current.content);
+    merged.putAll(requested.content);
+    merged.put(
+        JsonKey.STATUS,
+        max(current.content.get(JsonKey.STATUS), requested.content.get(JsonKey.STATUS)));
+    merged.put(
+        JsonKey.CONTENT_PROGRESS,
+        max(
+            current.content.get(JsonKey.CONTENT_PROGRESS),
+            requested.content.get(JsonKey.CONTENT_PROGRESS)));
+    merged.put(
+        JsonKey.LAST_ACCESS_TIME,
+        latest(
+            current.content.get(JsonKey.LAST_ACCESS_TIME),
+            requested.content.get(JsonKey.LAST_ACCESS_TIME),
+            simpleDateFormat));
+    merged.put(
+        JsonKey.LAST_COMPLETED_TIME,
+        latest(
+            current.content.get(JsonKey.LAST_COMPLETED_TIME),
+            requested.content.get(JsonKey.LAST_COMPLETED_TIME),
+            simpleDateFormat));
+    return new PendingContent(merged, current.bufferedAt, current.attempts);
+  }
+
+  private Object max(Object current, Object requested) {
+    if (!(current instanceof BigInteger)) {
+      return requested;
+    }
+    if (!(requested instanceof BigInteger)) {
+      return current;
+    }
+    return ((BigInteger) current).max((BigInteger) requested);
+  }
+
+  // dates are validated when an update is added, so both dates can be parsed
+  private Object latest(Object current, Object requested, SimpleDateFormat simpleDateFormat) {
+    Date currentDate = ContentConsumptionService.parseDate(current, simpleDateFormat);
+    Date requestedDate = ContentConsumptionService.parseDate(requested, simpleDateFormat);
+    if (null == currentDate) {
+      return requested;
+    }
+    if (null == requestedDate) {
+      return current;
+    }
+    return requestedDate.after(currentDate) ? requested : current;
+  }
+
+  private void requestFlush() {
+    if (flushRequested.compareAndSet(false, true)) {
+      ExecutorManager.getScheduledExecutor(FLUSH_EXECUTOR, 1).execute(this::flushQuietly);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (Exception e) {
+      ProjectLogger.log("ContentProgressBuffer:flushQuietly: Flush failed", e);
+    }
+  }
+
+  /**
+   * Write all pending contents. If the write of all contents fails, each content is written on its
+   * own so that one failing content does not hold back the others. Contents which could not be
+   * written are buffered again, merged with a newer update of the same content arrived meanwhile,
+   * until they failed {@code maxWriteAttempts} times.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      flushRequested.set(false);
+      if (pending.isEmpty()) {
+        return;
+      }
+      long startTime = System.currentTimeMillis();
+      Map<String, PendingContent> drained = new HashMap<>();
+      for (String id : new ArrayList<>(pending.keySet())) {
+        PendingContent content = pending.remove(id);
+        if (null != content) {
+          drained.put(id, content);
+        }
+      }
+      long oldest = startTime;
+      List<Map<String, Object>> contents = new ArrayList<>();
+      for (PendingContent content : drained.values()) {
+        oldest = Math.min(oldest, content.bufferedAt);
+        contents.add(new HashMap<>(content.content));
+      }
+      Set<String> failedIds = write(contents);
+      SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+      simpleDateFormat.setLenient(false);
+      for (String id : failedIds) {
+        retry(id, drained.get(id), simpleDateFormat);
+      }
+      long flushLag = startTime - oldest;
+      flushCount.incrementAndGet();
+      flushedContentCount.addAndGet(drained.size() - failedIds.size());
+      failedContentCount.addAndGet(failedIds.size());
+      lastFlushLag.set(flushLag);
+      maxFlushLag.accumulateAndGet(flushLag, Math::max);
+      lastFlushDuration.set(System.currentTimeMillis() - startTime);
+      ProjectLogger.log(
+          "ContentProgressBuffer:flush: Flushed "
+              + drained.size()
+              + " contents, metrics = "
+              + getMetrics(),
+          LoggerEnum.INFO.name());
+    }
+  }
+
+  private Set<String> write(List<Map<String, Object>> contents) {
+    try {
+      return writer.apply(contents);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "ContentProgressBuffer:write: Failed to write "
+              + contents.size()
+              + " contents, writing them one by one",
+          e);
+    }
+    Set<String> failedIds = new HashSet<>();
+    for (Map<String, Object> content : contents) {
+      try {
+        failedIds.addAll(writer.apply(Collections.singletonList(content)));
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "ContentProgressBuffer:write: Failed to write content " + content.get(JsonKey.ID), e);
+        failedIds.add((String) content.get(JsonKey.ID));
+      }
+    }
+    return failedIds;
+  }
+
+  private void retry(String id, PendingContent failed, SimpleDateFormat simpleDateFormat) {
+    PendingContent content =
+        new PendingContent(failed.content, failed.bufferedAt, failed.attempts + 1);
+    if (content.attempts >= maxWriteAttempts) {
+      droppedContentCount.incrementAndGet();
+      ProjectLogger.log(
+          "ContentProgressBuffer:retry: Dropping content update after "
+              + content.attempts
+              + " failed writes, content = "
+              + content.content,
+          LoggerEnum.ERROR.name());
+      return;
+    }
+    // a newer update of the content arrived meanwhile, its fields take precedence
+    pending.merge(id, content, (newer, older) -> merge(older, newer, simpleDateFormat));
+  }
+
+  /**
+   * Close the buffer and flush pending contents before the process exits. Updates added after the
+   * buffer is closed are refused, so that the caller writes them directly.
+   */
+  public void shutdown() {
+    closeLock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+    flush();
+    if (!pending.isEmpty()) {
+      ProjectLogger.log(
+          "ContentProgressBuffer:shutdown: "
+              + pending.size()
+              + " content updates could not be written",
+          LoggerEnum.ERROR.name());
+    }
+  }
+
+  /** @return buffer size, coalescing and flush lag metrics */
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    long oldest = System.currentTimeMillis();
+    for (PendingContent content : pending.values()) {
+      oldest = Math.min(oldest, content.bufferedAt);
+    }
+    metrics.put("pending", pending.size());
+    metrics.put("oldestPendingAgeMs", System.currentTimeMillis() - oldest);
+    metrics.put("buffered", bufferedCount.get());
+    metrics.put("coalesced", coalescedCount.get());
+    metrics.put("rejected", rejectedCount.get());
+    metrics.put("flushes", flushCount.get());
+    metrics.put("flushedContents", flushedContentCount.get());
+    metrics.put("failedContents", failedContentCount.get());
+    metrics.put("droppedContents", droppedContentCount.get());
+    metrics.put("lastFlushLagMs", lastFlushLag.get());
+    metrics.put("maxFlushLagMs", maxFlushLag.get());
+    metrics.put("lastFlushDurationMs", lastFlushDuration.get());
+    return metrics;
+  }
+
+  /**
+   * Write merged contents with their stored state and trigger the course progress update of each
+   * user, as the synchronous path does for one request.
+   */
+  private static Set<String> write(
+      ContentConsumptionService service, List<Map<String, Object>> contents) {
+    Map<String, Integer> contentStatusHolder = new HashMap<>();
+    List<Map<String, Object>> written = copy(contents);
+    Set<String> failedIds;
+    try {
+      failedIds = service.update(written, contentStatusHolder);
+    } catch (ProjectCommonException e) {
+      if (!isInvalidDate(e)) {
+        throw e;
+      }
+      ProjectLogger.log(
+          "ContentProgressBuffer:write: Invalid date in "
+              + contents.size()
+              + " contents, writing them one by one",
+          e);
+      written = new ArrayList<>();
+      failedIds = new HashSet<>();
+      for (Map<String, Object> content : copy(contents)) {
+        try {
+          failedIds.addAll(service.update(Collections.singletonList(content), contentStatusHolder));
+          written.add(content);
+        } catch (ProjectCommonException ex) {
+          if (!isInvalidDate(ex)) {
+            failedIds.add((String) content.get(JsonKey.ID));
+            continue;
+          }
+          // the stored date is invalid, retrying would fail the same way
+          ProjectLogger.log(
+              "ContentProgressBuffer:write: Dropping update of content "
+                  + content.get(JsonKey.ID)
+                  + " of userId "
+                  + content.get(JsonKey.USER_ID)
+                  + " with invalid date",
+              ex);
+        }
+      }
+    }
+    Map<String, List<Map<String, Object>>> userContents = new HashMap<>();
+    for (Map<String, Object> content : written) {
+      if (!failedIds.contains(content.get(JsonKey.ID))) {
+        userContents
+            .computeIfAbsent((String) content.get(JsonKey.USER_ID), key -> new ArrayList<>())
+            .add(content);
+      }
+    }
+    for (Map.Entry<String, List<Map<String, Object>>> entry : userContents.entrySet()) {
+      Request request = new Request();
+      request.setOperation(ActorOperations.UPDATE_LEARNER_STATE.getValue());
+      request.getRequest().put(JsonKey.USER_ID, entry.getKey());
+      request.getRequest().put(JsonKey.CONTENTS, entry.getValue());
+      request.getRequest().put(CONTENT_STATE_INFO, contentStatusHolder);
+      try {
+        SunbirdMWService.tellToBGRouter(request, ActorRef.noSender());
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "ContentProgressBuffer:write: Failed to update course progress of userId "
+                + entry.getKey(),
+            e);
+      }
+    }
+    return failedIds;
+  }
+
+  private static boolean isInvalidDate(ProjectCommonException e) {
+    return ResponseCode.invalidDateFormat.getErrorCode().equals(e.getCode());
+  }
+
+  private static List<Map<String, Object>> copy(List<Map<String, Object>> contents) {
+    List<Map<String, Object>> copies = new ArrayList<>(contents.size());
+    for (Map<String, Object> content : contents) {
+      copies.add(new HashMap<>(content));
+    }
+    return copies;
+  }
+
+  private static class PendingContent {
+    private final Map<String, Object> content;
+    private final long bufferedAt;
+    // failed writes of the content
+    private final int attempts;
+
+    PendingContent(Map<String, Object> content) {
+      this(new HashMap<>(content), System.currentTimeMillis(), 0);
+    }
+
+    PendingContent(Map<String, Object> content, long bufferedAt, int attempts) {
+      this.content = content;
+      this.bufferedAt = bufferedAt;
+      this.attempts = attempts;
+    }
+  }
+}
@@ -1,6 +1,12 @@
 package org.sunbird.learner.actors.coursebatch.service;
 
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
@@ -13,9 +19,16 @@ import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.learner.actors.coursebatch.dao.UserCoursesDao;
 import org.sunbird.learner.actors.coursebatch.dao.impl.UserCoursesDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.models.user.courses.UserCourses;
 
 public class UserCoursesService {
+  private static final String PARTICIPANTS_EXECUTOR_NAME = "batch_participants";
+  private static final String PARTICIPANTS_LIMIT = "sunbird_batch_participants_limit";
+  private static final int PARTICIPANTS_POOL_SIZE = 8;
+  private static final int PARTICIPANTS_QUEUE_SIZE = 100;
+
   private UserCoursesDao userCourseDao = UserCoursesDaoImpl.getInstance();
 
   protected Integer CASSANDRA_BATCH_SIZE = getBatchSize(JsonKey.CASSANDRA_WRITE_BATCH_SIZE);
@@ -253,6 +266,54 @@ public class UserCoursesService {
     return userCourseDao.getAllActiveUserOfBatch(id);
   }
 
+  /**
+   * Read the active participants of many batches concurrently on a bounded pool. The participants
+   * of each batch are handed to the consumer, on the calling thread, as soon as they are read. At
+   * most {@code sunbird_batch_participants_limit} participants are given per batch when it is set.
+   *
+   * @param batchIds Batch IDs
+   * @param consumer Receives batch ID and participants, null if the batch has none
+   */
+  public void getEnrolledUsersFromBatches(
+      Collection<String> batchIds, BiConsumer<String, List<String>> consumer) {
+    int limit = ConfigUtil.getInt(PARTICIPANTS_LIMIT, 0);
+    ExecutorService executor =
+        ExecutorManager.getExecutor(
+            PARTICIPANTS_EXECUTOR_NAME, PARTICIPANTS_POOL_SIZE, PARTICIPANTS_QUEUE_SIZE, true);
+    CompletionService<Map.Entry<String, List<String>>> completionService =
+        new ExecutorCompletionService<>(executor);
+    List<Future<Map.Entry<String, List<String>>>> futures = new ArrayList<>();
+    for (String batchId : new LinkedHashSet<>(batchIds)) {
+      futures.add(
+          completionService.submit(
+              () ->
+                  new AbstractMap.SimpleEntry<>(
+                      batchId, userCourseDao.getAllActiveUserOfBatch(batchId))));
+    }
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        Map.Entry<String, List<String>> participants = completionService.take().get();
+        List<String> users = participants.getValue();
+        if (limit > 0 && null != users && users.size() > limit) {
+          users = new ArrayList<>(users.subList(0, limit));
+        }
+        consumer.accept(participants.getKey(), users);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ProjectCommonException.throwServerErrorException(ResponseCode.SERVER_ERROR);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      ProjectLogger.log(
+          "UserCoursesService:getEnrolledUsersFromBatches: Reading participants failed", e);
+      ProjectCommonException.throwServerErrorException(ResponseCode.SERVER_ERROR);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
   public Integer getBatchSize(String key) {
     Integer batchSize = ProjectUtil.DEFAULT_BATCH_SIZE;
     try {
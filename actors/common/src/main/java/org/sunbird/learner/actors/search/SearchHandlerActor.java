@@ -11,8 +11,6 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
-import org.sunbird.actorutil.org.OrganisationClient;
-import org.sunbird.actorutil.org.impl.OrganisationClientImpl;
 import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.*;
@@ -40,7 +38,8 @@ public class SearchHandlerActor extends BaseActor {
 
   private List<String> supportedFields = Arrays.asList(JsonKey.ID, JsonKey.ORG_NAME);
   private String topn = PropertiesCache.getInstance().getProperty(JsonKey.SEARCH_TOP_N);
-  private OrganisationClient orgClient = new OrganisationClientImpl();
+  private UserSearchResultProcessor resultProcessor = UserSearchResultProcessor.getInstance();
+  private UserCoursesService userCoursesService = new UserCoursesService();
 
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
@@ -82,11 +81,7 @@ public class SearchHandlerActor extends BaseActor {
       if (EsType.user.getTypeName().equalsIgnoreCase(filterObjectType)) {
         List<Map<String, Object>> userMapList =
             (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
-        for (Map<String, Object> userMap : userMapList) {
-          UserUtility.decryptUserDataFrmES(userMap);
-          userMap.remove(JsonKey.ENC_EMAIL);
-          userMap.remove(JsonKey.ENC_PHONE);
-        }
+        resultProcessor.decryptUsers(userMapList);
         updateUserDetailsWithOrgName(requestedFields, userMapList);
       }
       if (EsType.course.getTypeName().equalsIgnoreCase(filterObjectType)) {
@@ -94,10 +89,7 @@ public class SearchHandlerActor extends BaseActor {
             (String) request.getContext().get(JsonKey.PARTICIPANTS))) {
           List<Map<String, Object>> courseBatchList =
               (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
-          for (Map<String, Object> courseBatch : courseBatchList) {
-            courseBatch.put(
-                JsonKey.PARTICIPANTS, getParticipantList((String) courseBatch.get(JsonKey.ID)));
-          }
+          addParticipants(courseBatchList);
         }
       }
       Response response = new Response();
@@ -115,9 +107,19 @@ public class SearchHandlerActor extends BaseActor {
     }
   }
 
-  private List<String> getParticipantList(String id) {
-    UserCoursesService userCourseService = new UserCoursesService();
-    return userCourseService.getEnrolledUserFromBatch(id);
+  private void addParticipants(List<Map<String, Object>> courseBatchList) {
+    Map<String, List<Map<String, Object>>> courseBatchesById = new HashMap<>();
+    for (Map<String, Object> courseBatch : courseBatchList) {
+      courseBatchesById
+          .computeIfAbsent((String) courseBatch.get(JsonKey.ID), id -> new ArrayList<>())
+          .add(courseBatch);
+    }
+    userCoursesService.getEnrolledUsersFromBatches(
+        courseBatchesById.keySet(),
+        (batchId, participants) ->
+            courseBatchesById
+                .get(batchId)
+                .forEach(courseBatch -> courseBatch.put(JsonKey.PARTICIPANTS, participants)));
   }
 
   @SuppressWarnings("unchecked")
@@ -142,10 +144,7 @@ public class SearchHandlerActor extends BaseActor {
         if (filteredRequestedFields.isEmpty()) {
           return;
         }
-        if (!filteredRequestedFields.contains(JsonKey.ID)) {
-          filteredRequestedFields.add(JsonKey.ID);
-        }
-        orgMap = fetchOrgDetails(userMapList, filteredRequestedFields);
+        orgMap = fetchOrgDetails(userMapList);
         if (fields.contains(JsonKey.ORG_NAME.toLowerCase())) {
           Map<String, Organisation> filteredOrg = new HashMap<>(orgMap);
           userMapList
@@ -187,8 +186,7 @@ public class SearchHandlerActor extends BaseActor {
   }
 
   @SuppressWarnings("unchecked")
-  private Map<String, Organisation> fetchOrgDetails(
-      List<Map<String, Object>> userMapList, List<String> filteredRequestedFileds) {
+  private Map<String, Organisation> fetchOrgDetails(List<Map<String, Object>> userMapList) {
     Set<String> orgIdList = new HashSet<>();
     userMapList
         .stream()
@@ -213,17 +211,7 @@ public class SearchHandlerActor extends BaseActor {
               }
             });
 
-    List<String> orgIds = new ArrayList<>(orgIdList);
-
-    List<Organisation> organisations = orgClient.esSearchOrgByIds(orgIds, filteredRequestedFileds);
-    Map<String, Organisation> orgMap = new HashMap<>();
-    organisations
-        .stream()
-        .forEach(
-            org -> {
-              orgMap.put(org.getId(), org);
-            });
-    return orgMap;
+    return resultProcessor.getOrgs(orgIdList);
   }
 
   private void generateSearchTelemetryEvent(
@@ -0,0 +1,149 @@
+package org.sunbird.learner.actors.search;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.actorutil.org.OrganisationClient;
+import org.sunbird.actorutil.org.impl.OrganisationClientImpl;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.datasecurity.DecryptionService;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.UserUtility;
+import org.sunbird.models.organisation.Organisation;
+
+/**
+ * Post processing of user search results: decryption of the user fields and lookup of the
+ * organisation names.
+ *
+ * <p>Users are decrypted in parallel chunks on a bounded pool. Plain values are not cached, as
+ * they include personal details such as email and phone. Organisations are cached by ID for {@code
+ * sunbird_org_name_cache_ttl_seconds} and only the organisations missing from the cache are
+ * searched in Elastic Search.
+ */
+public class UserSearchResultProcessor {
+
+  private static final String EXECUTOR_NAME = "user_search_decryption";
+  private static final String ORG_CACHE_TTL = "sunbird_org_name_cache_ttl_seconds";
+  private static final String ORG_CACHE_SIZE = "sunbird_org_name_cache_size";
+  private static final int DEFAULT_POOL_SIZE = 8;
+  private static final int DEFAULT_QUEUE_SIZE = 100;
+  private static final long DEFAULT_ORG_CACHE_TTL = 300;
+  private static final long DEFAULT_ORG_CACHE_SIZE = 10000;
+  private static final int MIN_CHUNK_SIZE = 50;
+  private static final List<String> ORG_FIELDS = Arrays.asList(JsonKey.ID, JsonKey.ORG_NAME);
+
+  private static volatile UserSearchResultProcessor instance;
+
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final DecryptionService decryptionService;
+  private final OrganisationClient orgClient;
+  private final Cache<String, Organisation> orgCache;
+
+  public UserSearchResultProcessor(
+      ExecutorService executor,
+      int parallelism,
+      DecryptionService decryptionService,
+      OrganisationClient orgClient,
+      long orgCacheTtl,
+      long orgCacheSize) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+    this.decryptionService = decryptionService;
+    this.orgClient = orgClient;
+    this.orgCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(Math.max(orgCacheSize, 0))
+            .expireAfterWrite(Math.max(orgCacheTtl, 0), TimeUnit.SECONDS)
+            .build();
+  }
+
+  public static UserSearchResultProcessor getInstance() {
+    if (instance == null) {
+      synchronized (UserSearchResultProcessor.class) {
+        if (instance == null) {
+          instance =
+              new UserSearchResultProcessor(
+                  ExecutorManager.getExecutor(
+                      EXECUTOR_NAME, DEFAULT_POOL_SIZE, DEFAULT_QUEUE_SIZE, true),
+                  DEFAULT_POOL_SIZE,
+                  org.sunbird.common.models.util.datasecurity.impl.ServiceFactory
+                      .getDecryptionServiceInstance(null),
+                  new OrganisationClientImpl(),
+                  ConfigUtil.getLong(ORG_CACHE_TTL, DEFAULT_ORG_CACHE_TTL),
+                  ConfigUtil.getLong(ORG_CACHE_SIZE, DEFAULT_ORG_CACHE_SIZE));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Decrypt the users of a search result and remove their encrypted email and phone.
+   *
+   * @param users Users returned by the search
+   */
+  public void decryptUsers(List<Map<String, Object>> users) {
+    if (CollectionUtils.isEmpty(users)) {
+      return;
+    }
+    int chunkCount = Math.min(parallelism, (users.size() + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE);
+    if (chunkCount <= 1) {
+      decryptChunk(users);
+      return;
+    }
+    int chunkSize = (users.size() + chunkCount - 1) / chunkCount;
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int from = 0; from < users.size(); from += chunkSize) {
+      List<Map<String, Object>> chunk =
+          users.subList(from, Math.min(from + chunkSize, users.size()));
+      tasks.add(
+          () -> {
+            decryptChunk(chunk);
+            return null;
+          });
+    }
+    ExecutorManager.invokeAll(executor, tasks);
+  }
+
+  /**
+   * Get the ID and name of organisations, searching only the organisations not cached.
+   *
+   * @param orgIds Organisation IDs
+   * @return Organisations by ID, organisations not found are left out
+   */
+  public Map<String, Organisation> getOrgs(Collection<String> orgIds) {
+    Map<String, Organisation> orgs = new HashMap<>(orgCache.getAllPresent(orgIds));
+    List<String> missingOrgIds =
+        orgIds.stream().filter(id -> !orgs.containsKey(id)).collect(Collectors.toList());
+    if (!missingOrgIds.isEmpty()) {
+      List<Organisation> organisations = orgClient.esSearchOrgByIds(missingOrgIds, ORG_FIELDS);
+      if (null != organisations) {
+        for (Organisation org : organisations) {
+          orgs.put(org.getId(), org);
+          orgCache.put(org.getId(), org);
+        }
+      }
+    }
+    return orgs;
+  }
+
+  private void decryptChunk(List<Map<String, Object>> users) {
+    for (Map<String, Object> userMap : users) {
+      UserUtility.decryptUserDataFrmES(userMap, decryptionService::decryptData);
+      userMap.remove(JsonKey.ENC_EMAIL);
+      userMap.remove(JsonKey.ENC_PHONE);
+    }
+  }
+}
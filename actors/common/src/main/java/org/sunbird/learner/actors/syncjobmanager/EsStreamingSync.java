@@ -0,0 +1,238 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.helper.CassandraConnectionManager;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.EsSyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.EsSyncCheckpointDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Streams a full Cassandra table into Elastic Search. Rows are read one page at a time using the
+ * driver paging state and each page is written with one bulk request, keeping at most a fixed
+ * number of bulk requests in flight. The paging state of the last page written is saved as a
+ * checkpoint so that an interrupted sync resumes from where it stopped.
+ */
+public class EsStreamingSync {
+
+  private static final String ES_SYNC_PAGE_SIZE = "sunbird_es_sync_page_size";
+  private static final String ES_SYNC_MAX_INFLIGHT_BULK = "sunbird_es_sync_max_inflight_bulk";
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int DEFAULT_MAX_INFLIGHT_BULK = 4;
+  private static final String EXECUTOR_NAME = "es_sync_bulk";
+
+  private final EsSyncCheckpointDao checkpointDao;
+  private final CassandraConnectionManager connectionManager;
+
+  public EsStreamingSync() {
+    this(
+        EsSyncCheckpointDaoImpl.getInstance(),
+        CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE)));
+  }
+
+  EsStreamingSync(
+      EsSyncCheckpointDao checkpointDao, CassandraConnectionManager connectionManager) {
+    this.checkpointDao = checkpointDao;
+    this.connectionManager = connectionManager;
+  }
+
+  /**
+   * Sync all rows of given table to Elastic Search.
+   *
+   * @param objectType Object type being synced, used as checkpoint key
+   * @param dbInfo Keyspace and table to be read
+   * @param esType Elastic Search type to write into
+   * @param transformer Converts a table row into the document to be indexed
+   * @return Number of rows synced by this invocation
+   */
+  public int sync(
+      String objectType,
+      Util.DbInfo dbInfo,
+      String esType,
+      Function<Map<String, Object>, Map<String, Object>> transformer) {
+    int pageSize = ConfigUtil.getInt(ES_SYNC_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+    int maxInFlight = ConfigUtil.getInt(ES_SYNC_MAX_INFLIGHT_BULK, DEFAULT_MAX_INFLIGHT_BULK);
+    String pagingState = null;
+    int count = 0;
+    Map<String, Object> checkpoint = checkpointDao.read(objectType);
+    if (null != checkpoint && StringUtils.isNotBlank((String) checkpoint.get(JsonKey.DATA))) {
+      pagingState = (String) checkpoint.get(JsonKey.DATA);
+      count = null == checkpoint.get(JsonKey.COUNT) ? 0 : (int) checkpoint.get(JsonKey.COUNT);
+      ProjectLogger.log(
+          "EsStreamingSync:sync: Resuming sync for type = "
+              + objectType
+              + " after "
+              + count
+              + " rows",
+          LoggerEnum.INFO);
+    }
+
+    Session session = connectionManager.getSession(dbInfo.getKeySpace());
+    ExecutorService bulkExecutor =
+        ExecutorManager.getExecutor(EXECUTOR_NAME, maxInFlight, maxInFlight, true);
+    Deque<PendingBulk> pendingBulks = new ArrayDeque<>();
+    int synced = 0;
+    try {
+      do {
+        Page rows = readPage(session, dbInfo, pagingState, pageSize);
+        List<Map<String, Object>> page = new ArrayList<>(rows.rows.size());
+        for (Map<String, Object> row : rows.rows) {
+          page.add(transformer.apply(row));
+        }
+        pagingState = rows.nextPagingState;
+
+        if (page.isEmpty()) {
+          continue;
+        }
+        if (pendingBulks.size() >= maxInFlight) {
+          count = complete(objectType, pendingBulks.poll(), count);
+        }
+        pendingBulks.add(
+            new PendingBulk(
+                bulkExecutor.submit(
+                    () ->
+                        ElasticSearchUtil.bulkInsertData(
+                            ProjectUtil.EsIndex.sunbird.getIndexName(), esType, page)),
+                pagingState,
+                page.size()));
+        synced += page.size();
+      } while (null != pagingState);
+
+      while (!pendingBulks.isEmpty()) {
+        count = complete(objectType, pendingBulks.poll(), count);
+      }
+      checkpointDao.delete(objectType);
+      ProjectLogger.log(
+          "EsStreamingSync:sync: Completed sync for type = "
+              + objectType
+              + " total rows = "
+              + count,
+          LoggerEnum.INFO);
+    } finally {
+      for (PendingBulk pendingBulk : pendingBulks) {
+        pendingBulk.future.cancel(true);
+      }
+    }
+    return synced;
+  }
+
+  /**
+   * Read one page of a table.
+   *
+   * @param session Session of the table keyspace
+   * @param dbInfo Keyspace and table to be read
+   * @param pagingState Paging state of the page to read, null for the first page
+   * @param pageSize Number of rows in a page
+   * @return Rows of the page and the paging state of the next page
+   */
+  Page readPage(Session session, Util.DbInfo dbInfo, String pagingState, int pageSize) {
+    Statement statement =
+        QueryBuilder.select().all().from(dbInfo.getKeySpace(), dbInfo.getTableName());
+    statement.setFetchSize(pageSize);
+    if (null != pagingState) {
+      statement.setPagingState(PagingState.fromString(pagingState));
+    }
+    ResultSet resultSet = session.execute(statement);
+    int available = resultSet.getAvailableWithoutFetching();
+    List<Map<String, Object>> rows = new ArrayList<>(available);
+    for (int i = 0; i < available; i++) {
+      rows.add(toMap(resultSet.one()));
+    }
+    PagingState nextPagingState = resultSet.getExecutionInfo().getPagingState();
+    return new Page(rows, null == nextPagingState ? null : nextPagingState.toString());
+  }
+
+  private int complete(String objectType, PendingBulk pendingBulk, int count) {
+    boolean inserted;
+    try {
+      inserted = pendingBulk.future.get();
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "EsStreamingSync:complete: Bulk insert failed for type = "
+              + objectType
+              + ", sync can be resumed from last checkpoint",
+          e);
+      throw bulkInsertFailed();
+    }
+    if (!inserted) {
+      // the checkpoint is not moved past a page which was not written
+      ProjectLogger.log(
+          "EsStreamingSync:complete: Bulk insert not done for type = "
+              + objectType
+              + ", sync can be resumed from last checkpoint",
+          LoggerEnum.ERROR.name());
+      throw bulkInsertFailed();
+    }
+    count += pendingBulk.size;
+    if (null != pendingBulk.nextPagingState) {
+      checkpointDao.save(objectType, pendingBulk.nextPagingState, count);
+    }
+    return count;
+  }
+
+  private static ProjectCommonException bulkInsertFailed() {
+    return new ProjectCommonException(
+        ResponseCode.SERVER_ERROR.getErrorCode(),
+        ResponseCode.SERVER_ERROR.getErrorMessage(),
+        ResponseCode.SERVER_ERROR.getResponseCode());
+  }
+
+  static Map<String, Object> toMap(Row row) {
+    Map<String, Object> map = new HashMap<>();
+    ColumnDefinitions columnDefinitions = row.getColumnDefinitions();
+    PropertiesCache propertiesCache = PropertiesCache.getInstance();
+    for (int i = 0; i < columnDefinitions.size(); i++) {
+      map.put(propertiesCache.getProperty(columnDefinitions.getName(i)), row.getObject(i));
+    }
+    return map;
+  }
+
+  static class Page {
+    private final List<Map<String, Object>> rows;
+    private final String nextPagingState;
+
+    Page(List<Map<String, Object>> rows, String nextPagingState) {
+      this.rows = rows;
+      this.nextPagingState = nextPagingState;
+    }
+  }
+
+  private static class PendingBulk {
+    private final Future<Boolean> future;
+    private final String nextPagingState;
+    private final int size;
+
+    private PendingBulk(Future<Boolean> future, String nextPagingState, int size) {
+      this.future = future;
+      this.nextPagingState = nextPagingState;
+      this.size = size;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.sunbird.learner.actors.syncjobmanager;
 
+import akka.actor.ActorRef;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -25,6 +26,7 @@ import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.Util;
 import org.sunbird.learner.util.Util.DbInfo;
 
@@ -35,7 +37,12 @@ import org.sunbird.learner.util.Util.DbInfo;
 )
 public class EsSyncBackgroundActor extends BaseActor {
 
+  private static final String ES_SYNC_USER_CHUNK_SIZE = "sunbird_es_sync_user_chunk_size";
+  private static final int DEFAULT_USER_CHUNK_SIZE = 100;
+
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private EsStreamingSync esStreamingSync = new EsStreamingSync();
+  private UserDocumentBuilder userDocumentBuilder = new UserDocumentBuilder();
 
   @Override
   public void onReceive(Request request) throws Throwable {
@@ -114,32 +121,28 @@ public class EsSyncBackgroundActor extends BaseActor {
               + " as no IDs provided",
           LoggerEnum.INFO);
 
-      Response response =
-          cassandraOperation.getAllRecords(dbInfo.getKeySpace(), dbInfo.getTableName());
-      reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-
-      ProjectLogger.log(
-          "EsSyncBackgroundActor:sync: Fetching all data for type = " + objectType + " completed",
-          LoggerEnum.INFO);
-
+      int count =
+          esStreamingSync.sync(
+              objectType,
+              dbInfo,
+              getType(objectType),
+              objectType.equals(JsonKey.ORGANISATION) ? this::getOrgDetails : row -> row);
       ProjectLogger.log(
-          "EsSyncBackgroundActor:sync: Number of entries to sync for type = "
+          "EsSyncBackgroundActor:sync: Total time taken to sync "
+              + count
+              + " entries for type = "
               + objectType
               + " is "
-              + reponseList.size(),
+              + (System.currentTimeMillis() - startTime)
+              + " ms",
           LoggerEnum.INFO);
-
-      if (null != reponseList) {
-        for (Map<String, Object> map : reponseList) {
-          responseMap.put((String) map.get(JsonKey.ID), map);
-        }
-      }
+      return;
     }
 
     Iterator<Entry<String, Object>> itr = responseMap.entrySet().iterator();
     while (itr.hasNext()) {
       if (objectType.equals(JsonKey.ORGANISATION)) {
-        result.add(getOrgDetails(itr.next()));
+        result.add(getOrgDetails((Map<String, Object>) itr.next().getValue()));
       } else if (objectType.equals(JsonKey.BATCH) || objectType.equals(JsonKey.USER_COURSE)) {
         result.add((Map<String, Object>) (itr.next().getValue()));
       }
@@ -172,16 +175,40 @@ public class EsSyncBackgroundActor extends BaseActor {
   }
 
   private void invokeUserSync(List<Object> objectIds) {
-    if (CollectionUtils.isNotEmpty(objectIds)) {
-      for (Object userId : objectIds) {
-        Request userRequest = new Request();
-        userRequest.setOperation(ActorOperations.UPDATE_USER_INFO_ELASTIC.getValue());
-        userRequest.getRequest().put(JsonKey.ID, userId);
+    if (CollectionUtils.isEmpty(objectIds)) {
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    int chunkSize =
+        Math.max(1, ConfigUtil.getInt(ES_SYNC_USER_CHUNK_SIZE, DEFAULT_USER_CHUNK_SIZE));
+    ActorRef systemSettingActor = getActorRef(ActorOperations.GET_SYSTEM_SETTING.getValue());
+    int synced = 0;
+    for (int from = 0; from < objectIds.size(); from += chunkSize) {
+      List<Object> chunk = objectIds.subList(from, Math.min(from + chunkSize, objectIds.size()));
+      try {
+        Map<String, List<Map<String, Object>>> documents =
+            userDocumentBuilder.build(chunk, systemSettingActor);
+        if (userDocumentBuilder.save(documents)) {
+          synced += documents.get(JsonKey.USER).size();
+        }
+      } catch (Exception e) {
         ProjectLogger.log(
-            "EsSyncBackgroundActor:invokeUserSync: Trigger sync of user details to ES");
-        tellToAnother(userRequest);
+            "EsSyncBackgroundActor:invokeUserSync: Failed to sync users from index "
+                + from
+                + " to "
+                + (from + chunk.size()),
+            e);
       }
     }
+    ProjectLogger.log(
+        "EsSyncBackgroundActor:invokeUserSync: Total time taken to sync "
+            + synced
+            + " of "
+            + objectIds.size()
+            + " users is "
+            + (System.currentTimeMillis() - startTime)
+            + " ms",
+        LoggerEnum.INFO);
   }
 
   private String getType(String objectType) {
@@ -198,9 +225,8 @@ public class EsSyncBackgroundActor extends BaseActor {
     return type;
   }
 
-  private Map<String, Object> getOrgDetails(Entry<String, Object> entry) {
+  private Map<String, Object> getOrgDetails(Map<String, Object> orgMap) {
     ProjectLogger.log("EsSyncBackgroundActor: getOrgDetails called", LoggerEnum.INFO);
-    Map<String, Object> orgMap = (Map<String, Object>) entry.getValue();
     orgMap.remove(JsonKey.ORG_TYPE);
     if (orgMap.containsKey(JsonKey.ADDRESS_ID)
         && !StringUtils.isBlank((String) orgMap.get(JsonKey.ADDRESS_ID))) {
@@ -0,0 +1,369 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import akka.actor.ActorRef;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.typesafe.config.Config;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.ProjectUtil.EsType;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionManager;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.Util;
+import org.sunbird.learner.util.Util.DbInfo;
+
+/**
+ * Builds the Elastic Search user documents for a chunk of users at once. Each related table is read
+ * once per chunk instead of once per user, and the documents are assembled in memory so that the
+ * whole chunk can be written with one bulk request. A user whose related rows could not be read
+ * is left out of the chunk, so that the indexed document is not overwritten with empty fields.
+ */
+public class UserDocumentBuilder {
+
+  private static final String MAX_INFLIGHT_READS = "sunbird_es_sync_user_max_inflight_reads";
+  private static final int DEFAULT_MAX_INFLIGHT_READS = 64;
+  // shared by all builders, caps the per user queries outstanding on the Cassandra session
+  private static final Semaphore inFlightReads =
+      new Semaphore(ConfigUtil.getInt(MAX_INFLIGHT_READS, DEFAULT_MAX_INFLIGHT_READS));
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private CassandraConnectionManager connectionManager =
+      CassandraConnectionMngrFactory.getObject(
+          PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE));
+
+  /**
+   * Build user documents for given user IDs. Private profile fields are removed from the user
+   * documents and returned separately as profile visibility documents.
+   *
+   * @param userIds Chunk of user IDs
+   * @param actorRef Actor reference used to read the user profile configuration
+   * @return Map with user documents under {@code JsonKey.USER} and profile visibility documents
+   *     under {@code JsonKey.PROFILE_VISIBILITY}
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, List<Map<String, Object>>> build(List<Object> userIds, ActorRef actorRef) {
+    Map<String, List<Map<String, Object>>> documents = new HashMap<>();
+    List<Map<String, Object>> userDocuments = new ArrayList<>();
+    List<Map<String, Object>> visibilityDocuments = new ArrayList<>();
+    documents.put(JsonKey.USER, userDocuments);
+    documents.put(JsonKey.PROFILE_VISIBILITY, visibilityDocuments);
+
+    DbInfo userDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            userDbInfo.getKeySpace(), userDbInfo.getTableName(), JsonKey.ID, userIds);
+    List<Map<String, Object>> users = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isEmpty(users)) {
+      return documents;
+    }
+    List<String> ids =
+        users.stream().map(user -> (String) user.get(JsonKey.ID)).collect(Collectors.toList());
+
+    // address table stores encrypted user ID
+    Map<String, String> encryptedIds = new HashMap<>();
+    for (String id : ids) {
+      encryptedIds.put(id, Util.encryptData(id));
+    }
+    // user IDs, or encrypted user IDs for the address table, whose rows could not be read
+    Set<String> failedIds = new HashSet<>();
+    Map<String, List<Map<String, Object>>> addresses =
+        getRecordsByUserId(
+            Util.dbInfoMap.get(JsonKey.ADDRESS_DB),
+            new ArrayList<>(encryptedIds.values()),
+            failedIds);
+    Map<String, List<Map<String, Object>>> educations =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.EDUCATION_DB), ids, failedIds);
+    Map<String, List<Map<String, Object>>> jobProfiles =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.JOB_PROFILE_DB), ids, failedIds);
+    Map<String, List<Map<String, Object>>> userOrgs =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.USER_ORG_DB), ids, failedIds);
+    Map<String, List<Map<String, Object>>> badges =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.USER_BADGE_ASSERTION_DB), ids, failedIds);
+    Map<String, List<Map<String, Object>>> skills =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.USER_SKILL_DB), ids, failedIds);
+    Map<String, List<Map<String, Object>>> userCourses =
+        getRecordsByUserId(Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB), ids, failedIds);
+
+    List<Map<String, Object>> recordsWithAddress = new ArrayList<>();
+    educations.values().forEach(recordsWithAddress::addAll);
+    jobProfiles.values().forEach(recordsWithAddress::addAll);
+    addAddressDetails(recordsWithAddress);
+    addOrgDetails(userOrgs);
+    Map<String, Map<String, Object>> rootOrgs = getRootOrgs(users);
+    Config userProfileConfig = Util.getUserProfileConfig(actorRef);
+
+    for (Map<String, Object> user : users) {
+      String userId = (String) user.get(JsonKey.ID);
+      if (failedIds.contains(userId) || failedIds.contains(encryptedIds.get(userId))) {
+        ProjectLogger.log(
+            "UserDocumentBuilder:build: Skipped userId " + userId + " as its data was not read",
+            LoggerEnum.WARN.name());
+        continue;
+      }
+      try {
+        String username = (String) user.get(JsonKey.USERNAME);
+        user.put(JsonKey.ADDRESS, getOrEmpty(addresses, encryptedIds.get(userId)));
+        user.put(JsonKey.EDUCATION, getOrEmpty(educations, userId));
+        user.put(JsonKey.JOB_PROFILE, getOrEmpty(jobProfiles, userId));
+        user.put(
+            JsonKey.ORGANISATIONS,
+            getOrEmpty(userOrgs, userId)
+                .stream()
+                .filter(userOrg -> Boolean.FALSE.equals(userOrg.get(JsonKey.IS_DELETED)))
+                .collect(Collectors.toList()));
+        user.put(JsonKey.BADGE_ASSERTIONS, getOrEmpty(badges, userId));
+        user.put(JsonKey.SKILLS, getOrEmpty(skills, userId));
+        user.put(
+            JsonKey.BATCHES,
+            getOrEmpty(userCourses, userId)
+                .stream()
+                .map(Util::getUserCourseBatchSummary)
+                .collect(Collectors.toList()));
+        Map<String, Object> rootOrg = rootOrgs.get(user.get(JsonKey.ROOT_ORG_ID));
+        user.put(
+            JsonKey.ROOT_ORG_NAME,
+            MapUtils.isNotEmpty(rootOrg) ? rootOrg.get(JsonKey.ORG_NAME) : "");
+
+        Util.addMaskEmailAndPhone(user);
+        Util.checkProfileCompleteness(user);
+        visibilityDocuments.add(removePrivateFields(user, userProfileConfig));
+        user.remove(JsonKey.PASSWORD);
+        Util.addEmailAndPhone(user);
+        Map<String, Object> userDocument = Util.getUserDetailsFromRegistry(user);
+        userDocument.put(JsonKey.USERNAME, username);
+        userDocuments.add(userDocument);
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "UserDocumentBuilder:build: Failed to build document for userId " + userId, e);
+      }
+    }
+    visibilityDocuments.removeIf(MapUtils::isEmpty);
+    return documents;
+  }
+
+  /**
+   * Read rows of a table having a secondary index on user ID. Cassandra does not allow an IN
+   * restriction on an indexed column, so one indexed query per user is issued asynchronously, with
+   * at most {@code sunbird_es_sync_user_max_inflight_reads} queries outstanding, and all of them are
+   * awaited together. User IDs whose query failed are added to given failed IDs.
+   */
+  private Map<String, List<Map<String, Object>>> getRecordsByUserId(
+      DbInfo dbInfo, List<String> userIds, Set<String> failedIds) {
+    Session session = connectionManager.getSession(dbInfo.getKeySpace());
+    Map<String, ResultSetFuture> futures = new LinkedHashMap<>();
+    for (String userId : userIds) {
+      inFlightReads.acquireUninterruptibly();
+      ResultSetFuture future;
+      try {
+        future =
+            session.executeAsync(
+                QueryBuilder.select()
+                    .all()
+                    .from(dbInfo.getKeySpace(), dbInfo.getTableName())
+                    .where(QueryBuilder.eq(JsonKey.USER_ID, userId)));
+      } catch (RuntimeException e) {
+        inFlightReads.release();
+        throw e;
+      }
+      future.addListener(inFlightReads::release, MoreExecutors.directExecutor());
+      futures.put(userId, future);
+    }
+    Map<String, List<Map<String, Object>>> records = new HashMap<>();
+    for (Map.Entry<String, ResultSetFuture> entry : futures.entrySet()) {
+      try {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Row row : entry.getValue().getUninterruptibly()) {
+          rows.add(EsStreamingSync.toMap(row));
+        }
+        records.put(entry.getKey(), rows);
+      } catch (Exception e) {
+        failedIds.add(entry.getKey());
+        ProjectLogger.log(
+            "UserDocumentBuilder:getRecordsByUserId: Failed to read "
+                + dbInfo.getTableName()
+                + " for userId "
+                + entry.getKey(),
+            e);
+      }
+    }
+    return records;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addAddressDetails(List<Map<String, Object>> records) {
+    Set<Object> addressIds = new HashSet<>();
+    for (Map<String, Object> record : records) {
+      if (StringUtils.isNotBlank((String) record.get(JsonKey.ADDRESS_ID))) {
+        addressIds.add(record.get(JsonKey.ADDRESS_ID));
+      }
+    }
+    if (addressIds.isEmpty()) {
+      return;
+    }
+    DbInfo addrDbInfo = Util.dbInfoMap.get(JsonKey.ADDRESS_DB);
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            addrDbInfo.getKeySpace(),
+            addrDbInfo.getTableName(),
+            JsonKey.ID,
+            new ArrayList<>(addressIds));
+    Map<Object, Map<String, Object>> addressMap = new HashMap<>();
+    for (Map<String, Object> address : (List<Map<String, Object>>) response.get(JsonKey.RESPONSE)) {
+      addressMap.put(address.get(JsonKey.ID), address);
+    }
+    for (Map<String, Object> record : records) {
+      Map<String, Object> address = addressMap.get(record.get(JsonKey.ADDRESS_ID));
+      if (null != address) {
+        record.put(JsonKey.ADDRESS, address);
+      }
+    }
+  }
+
+  private void addOrgDetails(Map<String, List<Map<String, Object>>> userOrgs) {
+    List<String> organisationIds =
+        userOrgs
+            .values()
+            .stream()
+            .flatMap(List::stream)
+            .map(userOrg -> (String) userOrg.get(JsonKey.ORGANISATION_ID))
+            .filter(StringUtils::isNotBlank)
+            .distinct()
+            .collect(Collectors.toList());
+    if (organisationIds.isEmpty()) {
+      return;
+    }
+    Map<String, Map<String, Object>> orgInfoMap =
+        ElasticSearchUtil.getEsResultByListOfIds(
+            organisationIds,
+            Arrays.asList(JsonKey.ORG_NAME, JsonKey.PARENT_ORG_ID, JsonKey.ID),
+            EsType.organisation);
+    for (List<Map<String, Object>> list : userOrgs.values()) {
+      for (Map<String, Object> userOrg : list) {
+        Map<String, Object> esOrgMap = orgInfoMap.get(userOrg.get(JsonKey.ORGANISATION_ID));
+        if (MapUtils.isNotEmpty(esOrgMap)) {
+          Map<String, Object> orgDetails = new HashMap<>(esOrgMap);
+          orgDetails.remove(JsonKey.ID);
+          userOrg.putAll(orgDetails);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Map<String, Object>> getRootOrgs(List<Map<String, Object>> users) {
+    List<Object> rootOrgIds =
+        users
+            .stream()
+            .map(user -> user.get(JsonKey.ROOT_ORG_ID))
+            .filter(rootOrgId -> StringUtils.isNotBlank((String) rootOrgId))
+            .distinct()
+            .collect(Collectors.toList());
+    Map<String, Map<String, Object>> rootOrgs = new HashMap<>();
+    if (rootOrgIds.isEmpty()) {
+      return rootOrgs;
+    }
+    DbInfo orgDbInfo = Util.dbInfoMap.get(JsonKey.ORG_DB);
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), JsonKey.ID, rootOrgIds);
+    for (Map<String, Object> org : (List<Map<String, Object>>) response.get(JsonKey.RESPONSE)) {
+      rootOrgs.put((String) org.get(JsonKey.ID), org);
+    }
+    return rootOrgs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> removePrivateFields(
+      Map<String, Object> user, Config userProfileConfig) {
+    Map<String, String> userProfileVisibilityMap =
+        (Map<String, String>) user.get(JsonKey.PROFILE_VISIBILITY);
+    Map<String, String> completeProfileVisibilityMap =
+        Util.getCompleteProfileVisibilityMap(
+            null == userProfileVisibilityMap ? new HashMap<>() : userProfileVisibilityMap,
+            userProfileConfig);
+    Map<String, Object> privateFieldsMap = new HashMap<>();
+    if (MapUtils.isNotEmpty(completeProfileVisibilityMap)) {
+      for (String field : completeProfileVisibilityMap.keySet()) {
+        if (JsonKey.PRIVATE.equalsIgnoreCase(completeProfileVisibilityMap.get(field))) {
+          privateFieldsMap.put(field, user.remove(field));
+        }
+      }
+      if (!privateFieldsMap.isEmpty()) {
+        privateFieldsMap.put(JsonKey.ID, user.get(JsonKey.ID));
+      }
+    } else {
+      user.put(JsonKey.PROFILE_VISIBILITY, new HashMap<String, String>());
+    }
+    return privateFieldsMap;
+  }
+
+  private List<Map<String, Object>> getOrEmpty(
+      Map<String, List<Map<String, Object>>> records, String key) {
+    List<Map<String, Object>> list = records.get(key);
+    return null == list ? Collections.emptyList() : list;
+  }
+
+  /**
+   * Write a chunk of built documents to Elastic Search, one bulk request per document type. The user
+   * documents are not written when the profile visibility documents holding their private fields
+   * could not be written.
+   *
+   * @param documents Documents returned by {@link #build(List, ActorRef)}
+   * @return true if all documents were written, false otherwise
+   */
+  public boolean save(Map<String, List<Map<String, Object>>> documents) {
+    List<Map<String, Object>> visibilityDocuments = documents.get(JsonKey.PROFILE_VISIBILITY);
+    if (CollectionUtils.isNotEmpty(visibilityDocuments)
+        && !ElasticSearchUtil.bulkInsertData(
+            ProjectUtil.EsIndex.sunbird.getIndexName(),
+            EsType.userprofilevisibility.getTypeName(),
+            visibilityDocuments)) {
+      ProjectLogger.log(
+          "UserDocumentBuilder:save: Failed to write profile visibility documents",
+          LoggerEnum.ERROR.name());
+      return false;
+    }
+    List<Map<String, Object>> userDocuments = documents.get(JsonKey.USER);
+    if (CollectionUtils.isNotEmpty(userDocuments)
+        && !ElasticSearchUtil.bulkInsertData(
+            ProjectUtil.EsIndex.sunbird.getIndexName(),
+            EsType.user.getTypeName(),
+            userDocuments)) {
+      ProjectLogger.log(
+          "UserDocumentBuilder:save: Failed to write " + userDocuments.size() + " user documents",
+          LoggerEnum.ERROR.name());
+      return false;
+    }
+    ProjectLogger.log(
+        "UserDocumentBuilder:save: Synced "
+            + (null == userDocuments ? 0 : userDocuments.size())
+            + " user documents",
+        LoggerEnum.INFO.name());
+    return true;
+  }
+}
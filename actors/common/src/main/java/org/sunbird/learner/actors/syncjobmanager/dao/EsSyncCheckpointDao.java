@@ -0,0 +1,31 @@
+package org.sunbird.learner.actors.syncjobmanager.dao;
+
+import java.util.Map;
+
+public interface EsSyncCheckpointDao {
+
+  /**
+   * Read the checkpoint of a full table sync.
+   *
+   * @param objectType Object type being synced (e.g. organisation, batch)
+   * @return Checkpoint details containing paging state and synced row count, or null if no sync
+   *     is pending for the object type
+   */
+  Map<String, Object> read(String objectType);
+
+  /**
+   * Save the checkpoint of a full table sync.
+   *
+   * @param objectType Object type being synced
+   * @param pagingState Cassandra paging state of the next page to be synced
+   * @param count Number of rows synced so far
+   */
+  void save(String objectType, String pagingState, int count);
+
+  /**
+   * Delete the checkpoint once a full table sync is completed.
+   *
+   * @param objectType Object type being synced
+   */
+  void delete(String objectType);
+}
@@ -0,0 +1,59 @@
+package org.sunbird.learner.actors.syncjobmanager.dao.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.EsSyncCheckpointDao;
+import org.sunbird.learner.util.Util;
+
+public class EsSyncCheckpointDaoImpl implements EsSyncCheckpointDao {
+
+  private static final String TABLE_NAME = "es_sync_checkpoint";
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static volatile EsSyncCheckpointDao esSyncCheckpointDao;
+
+  public static EsSyncCheckpointDao getInstance() {
+    if (esSyncCheckpointDao == null) {
+      synchronized (EsSyncCheckpointDaoImpl.class) {
+        if (esSyncCheckpointDao == null) {
+          esSyncCheckpointDao = new EsSyncCheckpointDaoImpl();
+        }
+      }
+    }
+    return esSyncCheckpointDao;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> read(String objectType) {
+    Response response =
+        cassandraOperation.getRecordById(Util.KEY_SPACE_NAME, TABLE_NAME, objectType);
+    List<Map<String, Object>> checkpoints =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isEmpty(checkpoints)) {
+      return null;
+    }
+    return checkpoints.get(0);
+  }
+
+  @Override
+  public void save(String objectType, String pagingState, int count) {
+    Map<String, Object> checkpoint = new HashMap<>();
+    checkpoint.put(JsonKey.ID, objectType);
+    checkpoint.put(JsonKey.DATA, pagingState);
+    checkpoint.put(JsonKey.COUNT, count);
+    checkpoint.put(JsonKey.UPDATED_DATE, ProjectUtil.getFormattedDate());
+    cassandraOperation.upsertRecord(Util.KEY_SPACE_NAME, TABLE_NAME, checkpoint);
+  }
+
+  @Override
+  public void delete(String objectType) {
+    cassandraOperation.deleteRecord(Util.KEY_SPACE_NAME, TABLE_NAME, objectType);
+  }
+}
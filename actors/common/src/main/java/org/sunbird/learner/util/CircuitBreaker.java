@@ -0,0 +1,70 @@
+package org.sunbird.learner.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Minimal circuit breaker for calls to a remote service. After a number of consecutive failures
+ * the circuit opens and calls are refused until the open interval has passed. Then a single trial
+ * call is let through; its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openInterval;
+  private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong openedAt = new AtomicLong();
+
+  /**
+   * @param failureThreshold Consecutive failures after which the circuit opens
+   * @param openInterval Time in milliseconds for which calls are refused once open
+   */
+  public CircuitBreaker(int failureThreshold, long openInterval) {
+    this.failureThreshold = failureThreshold;
+    this.openInterval = openInterval;
+  }
+
+  /**
+   * Check whether a call may be made now. Every permitted call must be followed by {@link
+   * #recordSuccess()} or {@link #recordFailure()}.
+   *
+   * @return true if the call is permitted
+   */
+  public boolean allowRequest() {
+    State current = state.get();
+    if (State.CLOSED == current) {
+      return true;
+    }
+    if (State.OPEN == current
+        && System.currentTimeMillis() - openedAt.get() >= openInterval
+        && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+      return true;
+    }
+    return false;
+  }
+
+  public void recordSuccess() {
+    consecutiveFailures.set(0);
+    state.set(State.CLOSED);
+  }
+
+  public void recordFailure() {
+    if (state.get() == State.HALF_OPEN
+        || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+      openedAt.set(System.currentTimeMillis());
+      state.set(State.OPEN);
+    }
+  }
+
+  public State getState() {
+    return state.get();
+  }
+}
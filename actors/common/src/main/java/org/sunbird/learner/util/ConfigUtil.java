@@ -0,0 +1,56 @@
+package org.sunbird.learner.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+
+/**
+ * Numeric configuration values. The value of a key is read from the environment or the properties
+ * file as by {@link ProjectUtil#getConfigValue(String)}, a missing or invalid value gives the
+ * default.
+ */
+public final class ConfigUtil {
+
+  private ConfigUtil() {}
+
+  /**
+   * @param key Configuration key
+   * @param defaultValue Value if the key is not set or not a number
+   * @return Configured value
+   */
+  public static int getInt(String key, int defaultValue) {
+    String value = ProjectUtil.getConfigValue(key);
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        logInvalidValue(key, value);
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * @param key Configuration key
+   * @param defaultValue Value if the key is not set or not a number
+   * @return Configured value
+   */
+  public static long getLong(String key, long defaultValue) {
+    String value = ProjectUtil.getConfigValue(key);
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        logInvalidValue(key, value);
+      }
+    }
+    return defaultValue;
+  }
+
+  private static void logInvalidValue(String key, String value) {
+    ProjectLogger.log(
+        "ConfigUtil: Invalid value " + value + " for " + key + ", using default",
+        LoggerEnum.WARN.name());
+  }
+}
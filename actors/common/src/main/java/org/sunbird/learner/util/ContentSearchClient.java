@@ -0,0 +1,280 @@
+package org.sunbird.learner.util;
+
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Futures;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+
+/**
+ * HTTP client dedicated to content search calls. It keeps its own connection pool and default
+ * headers, puts a deadline on every call, limits the number of concurrent calls (bulkhead), stops
+ * calling the service for a while after repeated failures (circuit breaker) and parses the
+ * response body with the Jackson streaming parser directly into the result map.
+ */
+public class ContentSearchClient {
+
+  private static final String MAX_CONNECTIONS = "sunbird_cs_max_connections";
+  private static final String MAX_CONCURRENT_CALLS = "sunbird_cs_max_concurrent_calls";
+  private static final String CONNECT_TIMEOUT = "sunbird_cs_connect_timeout_ms";
+  private static final String REQUEST_TIMEOUT = "sunbird_cs_request_timeout_ms";
+  private static final String FAILURE_THRESHOLD = "sunbird_cs_breaker_failure_threshold";
+  private static final String OPEN_INTERVAL = "sunbird_cs_breaker_open_interval_ms";
+  private static final String EXECUTOR_NAME = "content_search";
+  private static final String DEADLINE_EXECUTOR_NAME = "content_search_deadline";
+  private static final int DEFAULT_MAX_CONNECTIONS = 50;
+  private static final int DEFAULT_MAX_CONCURRENT_CALLS = 50;
+  private static final int DEFAULT_CONNECT_TIMEOUT = 2000;
+  private static final int DEFAULT_REQUEST_TIMEOUT = 10000;
+  private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  private static final int DEFAULT_OPEN_INTERVAL = 30000;
+  private static final TypeReference<Map<String, Object>> MAP_TYPE =
+      new TypeReference<Map<String, Object>>() {};
+
+  private static volatile ContentSearchClient instance;
+
+  private final String contentSearchURL;
+  private final Map<String, String> defaultHeaders = new HashMap<>();
+  private static final ObjectMapper mapper = new ObjectMapper();
+  private final CloseableHttpClient httpClient;
+  private final CircuitBreaker circuitBreaker;
+  private final Semaphore bulkhead;
+  private final ExecutionContext executionContext;
+  private final ScheduledExecutorService deadlineTimer;
+  private final int requestTimeout;
+
+  private ContentSearchClient() {
+    String baseUrl = System.getenv(JsonKey.SUNBIRD_API_MGR_BASE_URL);
+    String searchPath = System.getenv(JsonKey.SUNBIRD_CS_SEARCH_PATH);
+    if (StringUtils.isBlank(searchPath))
+      searchPath = PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CS_SEARCH_PATH);
+    contentSearchURL = baseUrl + searchPath;
+    defaultHeaders.put(
+        HttpHeaders.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.SUNBIRD_AUTHORIZATION));
+    defaultHeaders.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+
+    int maxConnections = ConfigUtil.getInt(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+    int maxConcurrentCalls = ConfigUtil.getInt(MAX_CONCURRENT_CALLS, DEFAULT_MAX_CONCURRENT_CALLS);
+    requestTimeout = ConfigUtil.getInt(REQUEST_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    int connectTimeout =
+        Math.min(requestTimeout, ConfigUtil.getInt(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+
+    // all calls go to a single host, so the whole pool is available to that route
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(60, TimeUnit.SECONDS);
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+    connectionManager.setValidateAfterInactivity(5000);
+    httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectTimeout(connectTimeout)
+                    .setConnectionRequestTimeout(connectTimeout)
+                    .setSocketTimeout(requestTimeout)
+                    .build())
+            .evictIdleConnections(30, TimeUnit.SECONDS)
+            .build();
+
+    circuitBreaker =
+        new CircuitBreaker(
+            ConfigUtil.getInt(FAILURE_THRESHOLD, DEFAULT_FAILURE_THRESHOLD),
+            ConfigUtil.getInt(OPEN_INTERVAL, DEFAULT_OPEN_INTERVAL));
+    bulkhead = new Semaphore(maxConcurrentCalls);
+    executionContext =
+        ExecutionContexts.fromExecutorService(
+            ExecutorManager.getExecutor(
+                EXECUTOR_NAME, maxConcurrentCalls, maxConcurrentCalls * 4, false));
+    deadlineTimer = ExecutorManager.getScheduledExecutor(DEADLINE_EXECUTOR_NAME, 1);
+  }
+
+  public static ContentSearchClient getInstance() {
+    if (instance == null) {
+      synchronized (ContentSearchClient.class) {
+        if (instance == null) {
+          instance = new ContentSearchClient();
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Search content asynchronously.
+   *
+   * @param urlQueryString Query string appended to the search URL, may be null
+   * @param queryRequestBody Search request body
+   * @param headers Additional request headers, may be null
+   * @return Future of the search result, completed with null if the search failed or was refused
+   */
+  public Future<Map<String, Object>> searchAsync(
+      String urlQueryString, String queryRequestBody, Map<String, String> headers) {
+    try {
+      return Futures.future(
+          () -> search(urlQueryString, queryRequestBody, headers), executionContext);
+    } catch (RejectedExecutionException e) {
+      ProjectLogger.log(
+          "ContentSearchClient:searchAsync: Search refused as too many searches are queued",
+          LoggerEnum.WARN.name());
+      return Futures.successful(null);
+    }
+  }
+
+  /**
+   * Search content.
+   *
+   * @param urlQueryString Query string appended to the search URL, may be null
+   * @param queryRequestBody Search request body
+   * @param headers Additional request headers, may be null
+   * @return Search result with contents under {@code JsonKey.CONTENTS}, null if the search failed
+   *     or was refused
+   */
+  public Map<String, Object> search(
+      String urlQueryString, String queryRequestBody, Map<String, String> headers) {
+    String logMsgPrefix = "ContentSearchClient:search: ";
+    if (!bulkhead.tryAcquire()) {
+      ProjectLogger.log(
+          logMsgPrefix + "Search refused as too many searches are in progress",
+          LoggerEnum.WARN.name());
+      return null;
+    }
+    if (!circuitBreaker.allowRequest()) {
+      bulkhead.release();
+      ProjectLogger.log(
+          logMsgPrefix + "Search refused as content search circuit is open",
+          LoggerEnum.WARN.name());
+      return null;
+    }
+    String urlString =
+        StringUtils.isNotBlank(urlQueryString)
+            ? contentSearchURL + urlQueryString
+            : contentSearchURL;
+    ProjectLogger.log(
+        logMsgPrefix + "Making content search call to = " + urlString, LoggerEnum.INFO);
+    HttpPost post = new HttpPost(urlString);
+    if (null != headers) {
+      headers.forEach(post::setHeader);
+    }
+    defaultHeaders.forEach(post::setHeader);
+    post.setEntity(new StringEntity(queryRequestBody, ContentType.APPLICATION_JSON));
+    ScheduledFuture<?> deadline =
+        deadlineTimer.schedule(post::abort, requestTimeout, TimeUnit.MILLISECONDS);
+    try (CloseableHttpResponse response = httpClient.execute(post)) {
+      int status = response.getStatusLine().getStatusCode();
+      HttpEntity entity = response.getEntity();
+      if (status >= 200 && status < 300 && null != entity) {
+        Map<String, Object> resultMap;
+        try (InputStream content = entity.getContent()) {
+          resultMap = parse(content);
+        }
+        circuitBreaker.recordSuccess();
+        ProjectLogger.log(
+            logMsgPrefix
+                + "requestBody = "
+                + queryRequestBody
+                + " content = "
+                + (null == resultMap ? null : resultMap.get(JsonKey.CONTENTS)),
+            LoggerEnum.DEBUG.name());
+        return resultMap;
+      }
+      if (status >= 500) {
+        circuitBreaker.recordFailure();
+      } else {
+        circuitBreaker.recordSuccess();
+      }
+      ProjectLogger.log(
+          logMsgPrefix
+              + "Search content failed. Error response = "
+              + (null == entity ? status : EntityUtils.toString(entity)),
+          LoggerEnum.ERROR.name());
+      return null;
+    } catch (Exception e) {
+      circuitBreaker.recordFailure();
+      if (post.isAborted()) {
+        ProjectLogger.log(
+            logMsgPrefix + "Search not completed within " + requestTimeout + " ms",
+            LoggerEnum.ERROR.name());
+      } else {
+        ProjectLogger.log(
+            logMsgPrefix + "Exception occurred with error message = " + e.getMessage(), e);
+      }
+      return null;
+    } finally {
+      deadline.cancel(false);
+      bulkhead.release();
+    }
+  }
+
+  /**
+   * Parse a content search response in a single streaming pass. Only {@code id}, {@code
+   * params.resmsgid} and {@code result} are read, everything else is skipped.
+   */
+  static Map<String, Object> parse(InputStream content) throws IOException {
+    Map<String, Object> resultMap = null;
+    Map<String, Object> param = new HashMap<>();
+    try (JsonParser parser = mapper.getFactory().createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if ("id".equals(field)) {
+          param.put(JsonKey.API_ID, parser.getValueAsString());
+        } else if ("params".equals(field) && token == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String paramField = parser.getCurrentName();
+            parser.nextToken();
+            if ("resmsgid".equals(paramField)) {
+              param.put(JsonKey.RES_MSG_ID, parser.getValueAsString());
+            } else {
+              parser.skipChildren();
+            }
+          }
+        } else if ("result".equals(field) && token == JsonToken.START_OBJECT) {
+          resultMap = mapper.readValue(parser, MAP_TYPE);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    if (null == resultMap) {
+      return null;
+    }
+    resultMap.put(JsonKey.CONTENTS, resultMap.remove(JsonKey.CONTENT));
+    param.putIfAbsent(JsonKey.RES_MSG_ID, null);
+    param.putIfAbsent(JsonKey.API_ID, null);
+    resultMap.put(JsonKey.PARAMS, param);
+    return resultMap;
+  }
+}
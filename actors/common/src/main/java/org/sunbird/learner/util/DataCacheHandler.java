@@ -1,6 +1,8 @@
 /** */
 package org.sunbird.learner.util;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,167 +22,298 @@ import org.sunbird.helper.ServiceFactory;
  */
 public class DataCacheHandler implements Runnable {
   /**
-   * pageMap is the map of (orgId:pageName) and page Object (i.e map of string , object) sectionMap
-   * is the map of section Id and section Object (i.e map of string , object)
+   * pageCache holds the map of (orgId:pageName) and page Object (i.e map of string , object)
+   * sectionCache holds the map of section Id and section Object (i.e map of string , object). Each
+   * cache is an immutable snapshot which is replaced as a whole on refresh.
    */
-  private static Map<String, Map<String, Object>> pageMap = new ConcurrentHashMap<>();
+  private static SnapshotCache<Map<String, Object>> pageCache = new SnapshotCache<>("page");
 
-  private static Map<String, Map<String, Object>> sectionMap = new ConcurrentHashMap<>();
-  private static Map<String, Object> roleMap = new ConcurrentHashMap<>();
-  private static Map<String, String> orgTypeMap = new ConcurrentHashMap<>();
-  private static Map<String, String> configSettings = new ConcurrentHashMap<>();
+  private static SnapshotCache<Map<String, Object>> sectionCache = new SnapshotCache<>("section");
+  private static SnapshotCache<Object> roleCache = new SnapshotCache<>("role");
+  private static SnapshotCache<String> orgTypeCache = new SnapshotCache<>("orgType");
+  private static SnapshotCache<String> configSettingsCache = new SnapshotCache<>("systemSettings");
   private static Map<String, Map<String, List<Map<String, String>>>> frameworkCategoriesMap =
       new ConcurrentHashMap<>();
   private static Map<String, List<String>> frameworkFieldsConfig = new ConcurrentHashMap<>();
   private static Map<String, List<String>> hashtagIdFrameworkIdMap = new HashMap<>();
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private static final String KEY_SPACE_NAME = "sunbird";
+  private static final int MAX_PUBLISH_ATTEMPTS = 3;
 
   @Override
   public void run() {
     ProjectLogger.log("DataCacheHandler:run: Cache refresh started.", LoggerEnum.INFO.name());
-    cache(pageMap, "page_management");
-    cache(sectionMap, "page_section");
-    roleCache(roleMap);
-    orgTypeCache(orgTypeMap);
-    cacheSystemConfig(configSettings);
-    ProjectLogger.log("DataCacheHandler:run: Cache refresh completed.", LoggerEnum.INFO.name());
+    deltaCache(pageCache, "page_management");
+    deltaCache(sectionCache, "page_section");
+    roleCache(roleCache);
+    orgTypeCache(orgTypeCache);
+    cacheSystemConfig(configSettingsCache);
+    ProjectLogger.log(
+        "DataCacheHandler:run: Cache refresh completed. metrics = " + getCacheMetrics(),
+        LoggerEnum.INFO.name());
   }
 
   @SuppressWarnings("unchecked")
-  private void cacheSystemConfig(Map<String, String> configSettings) {
-    Response response =
-        cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.SYSTEM_SETTINGS_DB);
-    List<Map<String, Object>> responseList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    if (null != responseList && !responseList.isEmpty()) {
-      for (Map<String, Object> resultMap : responseList) {
-        if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.PHONE_UNIQUE)
-            && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
-          configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
-        } else if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.EMAIL_UNIQUE)
-            && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
-          configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
-        } else {
-          configSettings.put(
-              ((String) resultMap.get(JsonKey.FIELD)), (String) resultMap.get(JsonKey.VALUE));
+  private void cacheSystemConfig(SnapshotCache<String> cache) {
+    long startTime = System.currentTimeMillis();
+    Map<String, String> configSettings = new HashMap<>();
+    try {
+      Response response =
+          cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.SYSTEM_SETTINGS_DB);
+      List<Map<String, Object>> responseList =
+          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (null != responseList && !responseList.isEmpty()) {
+        for (Map<String, Object> resultMap : responseList) {
+          if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.PHONE_UNIQUE)
+              && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
+            configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
+          } else if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.EMAIL_UNIQUE)
+              && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
+            configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
+          } else {
+            configSettings.put(
+                ((String) resultMap.get(JsonKey.FIELD)), (String) resultMap.get(JsonKey.VALUE));
+          }
         }
+      } else {
+        configSettings.put(JsonKey.PHONE_UNIQUE, String.valueOf(false));
+        configSettings.put(JsonKey.EMAIL_UNIQUE, String.valueOf(false));
       }
-    } else {
-      configSettings.put(JsonKey.PHONE_UNIQUE, String.valueOf(false));
-      configSettings.put(JsonKey.EMAIL_UNIQUE, String.valueOf(false));
+      cache.publish(configSettings);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "DataCacheHandler:cacheSystemConfig: Exception in retrieving system settings "
+              + e.getMessage(),
+          e);
     }
+    cache.recordRefresh(System.currentTimeMillis() - startTime);
   }
 
   @SuppressWarnings("unchecked")
-  private void orgTypeCache(Map<String, String> orgTypeMap) {
-    Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ORG_TYPE_DB);
-    List<Map<String, Object>> responseList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    if (null != responseList && !responseList.isEmpty()) {
-      for (Map<String, Object> resultMap : responseList) {
-        orgTypeMap.put(
-            ((String) resultMap.get(JsonKey.NAME)).toLowerCase(),
-            (String) resultMap.get(JsonKey.ID));
+  private void orgTypeCache(SnapshotCache<String> cache) {
+    long startTime = System.currentTimeMillis();
+    Map<String, String> orgTypeMap = new HashMap<>();
+    try {
+      Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ORG_TYPE_DB);
+      List<Map<String, Object>> responseList =
+          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (null != responseList && !responseList.isEmpty()) {
+        for (Map<String, Object> resultMap : responseList) {
+          orgTypeMap.put(
+              ((String) resultMap.get(JsonKey.NAME)).toLowerCase(),
+              (String) resultMap.get(JsonKey.ID));
+        }
       }
+      cache.publish(orgTypeMap);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "DataCacheHandler:orgTypeCache: Exception in retrieving org types " + e.getMessage(), e);
     }
+    cache.recordRefresh(System.currentTimeMillis() - startTime);
   }
 
   @SuppressWarnings("unchecked")
-  private void roleCache(Map<String, Object> roleMap) {
-    Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ROLE_GROUP);
-    List<Map<String, Object>> responseList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    if (null != responseList && !responseList.isEmpty()) {
-      for (Map<String, Object> resultMap : responseList) {
-        roleMap.put((String) resultMap.get(JsonKey.ID), resultMap.get(JsonKey.NAME));
+  private void roleCache(SnapshotCache<Object> cache) {
+    long startTime = System.currentTimeMillis();
+    Map<String, Object> roleMap = new HashMap<>();
+    try {
+      Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ROLE_GROUP);
+      List<Map<String, Object>> responseList =
+          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (null != responseList && !responseList.isEmpty()) {
+        for (Map<String, Object> resultMap : responseList) {
+          roleMap.put((String) resultMap.get(JsonKey.ID), resultMap.get(JsonKey.NAME));
+        }
       }
-    }
-    Response response2 = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ROLE);
-    List<Map<String, Object>> responseList2 =
-        (List<Map<String, Object>>) response2.get(JsonKey.RESPONSE);
-    if (null != responseList2 && !responseList2.isEmpty()) {
-      for (Map<String, Object> resultMap2 : responseList2) {
-        roleMap.put((String) resultMap2.get(JsonKey.ID), resultMap2.get(JsonKey.NAME));
+      Response response2 = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ROLE);
+      List<Map<String, Object>> responseList2 =
+          (List<Map<String, Object>>) response2.get(JsonKey.RESPONSE);
+      if (null != responseList2 && !responseList2.isEmpty()) {
+        for (Map<String, Object> resultMap2 : responseList2) {
+          roleMap.put((String) resultMap2.get(JsonKey.ID), resultMap2.get(JsonKey.NAME));
+        }
       }
+      cache.publish(roleMap);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "DataCacheHandler:roleCache: Exception in retrieving roles " + e.getMessage(), e);
     }
+    cache.recordRefresh(System.currentTimeMillis() - startTime);
   }
 
+  /**
+   * Refreshes page or section cache. Only id and updatedDate are scanned, rows which are new or
+   * whose updatedDate changed since the last snapshot are fetched in full, unchanged rows are carried
+   * over and rows no longer present in the table are evicted.
+   *
+   * @param cache Page or section cache
+   * @param tableName Name of the backing table
+   */
   @SuppressWarnings("unchecked")
-  private void cache(Map<String, Map<String, Object>> map, String tableName) {
+  private void deltaCache(SnapshotCache<Map<String, Object>> cache, String tableName) {
+    long startTime = System.currentTimeMillis();
     try {
-      Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, tableName);
-      List<Map<String, Object>> responseList =
-          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-      if (null != responseList && !responseList.isEmpty()) {
-        for (Map<String, Object> resultMap : responseList) {
-          if (tableName.equalsIgnoreCase(JsonKey.PAGE_SECTION)) {
-            map.put((String) resultMap.get(JsonKey.ID), resultMap);
-          } else {
-            String orgId =
-                (((String) resultMap.get(JsonKey.ORGANISATION_ID)) == null
-                    ? "NA"
-                    : (String) resultMap.get(JsonKey.ORGANISATION_ID));
-            map.put(orgId + ":" + ((String) resultMap.get(JsonKey.PAGE_NAME)), resultMap);
+      boolean published = false;
+      for (int attempt = 0; attempt < MAX_PUBLISH_ATTEMPTS && !published; attempt++) {
+        SnapshotCache.Snapshot<Map<String, Object>> base = cache.snapshot();
+        Response response =
+            cassandraOperation.getRecordsByProperties(
+                KEY_SPACE_NAME, tableName, null, Arrays.asList(JsonKey.ID, JsonKey.UPDATED_DATE));
+        List<Map<String, Object>> versionList =
+            (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+        Map<String, Map<String, Object>> entries = new HashMap<>();
+        Map<String, String> rowKeys = new HashMap<>();
+        Map<String, String> rowVersions = new HashMap<>();
+        List<Object> changedIds = new ArrayList<>();
+        if (null != versionList) {
+          for (Map<String, Object> versionMap : versionList) {
+            String id = (String) versionMap.get(JsonKey.ID);
+            String updatedDate = (String) versionMap.get(JsonKey.UPDATED_DATE);
+            rowVersions.put(id, updatedDate);
+            String key = base.getRowKeys().get(id);
+            if (null == key
+                || !StringUtils.equals(updatedDate, base.getRowVersions().get(id))
+                || !base.getRawEntries().containsKey(key)) {
+              changedIds.add(id);
+            } else {
+              entries.put(key, base.getRawEntries().get(key));
+              rowKeys.put(id, key);
+            }
           }
         }
+        if (!changedIds.isEmpty()) {
+          Response changedResponse =
+              cassandraOperation.getRecordsByProperty(
+                  KEY_SPACE_NAME, tableName, JsonKey.ID, changedIds);
+          List<Map<String, Object>> responseList =
+              (List<Map<String, Object>>) changedResponse.get(JsonKey.RESPONSE);
+          if (null != responseList) {
+            for (Map<String, Object> resultMap : responseList) {
+              String key = getCacheKey(tableName, resultMap);
+              entries.put(key, resultMap);
+              rowKeys.put((String) resultMap.get(JsonKey.ID), key);
+            }
+          }
+        }
+        published = cache.compareAndPublish(base, entries, rowKeys, rowVersions);
+        ProjectLogger.log(
+            "DataCacheHandler:deltaCache: "
+                + tableName
+                + " cache size: "
+                + entries.size()
+                + " reloaded rows: "
+                + changedIds.size()
+                + " published: "
+                + published,
+            LoggerEnum.INFO.name());
       }
-      ProjectLogger.log("pagemap keyset " + map.keySet());
-      ProjectLogger.log(tableName + " cache size: " + map.size(), LoggerEnum.INFO.name());
     } catch (Exception e) {
       ProjectLogger.log(
-          "DataCacheHandler:cache: Exception in retrieving page section " + e.getMessage(), e);
+          "DataCacheHandler:deltaCache: Exception in retrieving " + tableName + " " + e.getMessage(),
+          e);
+    }
+    cache.recordRefresh(System.currentTimeMillis() - startTime);
+  }
+
+  private static String getCacheKey(String tableName, Map<String, Object> resultMap) {
+    if (tableName.equalsIgnoreCase(JsonKey.PAGE_SECTION)) {
+      return (String) resultMap.get(JsonKey.ID);
     }
+    String orgId =
+        (((String) resultMap.get(JsonKey.ORGANISATION_ID)) == null
+            ? "NA"
+            : (String) resultMap.get(JsonKey.ORGANISATION_ID));
+    return orgId + ":" + ((String) resultMap.get(JsonKey.PAGE_NAME));
+  }
+
+  /** @return hit, miss and refresh metrics of all snapshot caches */
+  public static List<Map<String, Object>> getCacheMetrics() {
+    return Arrays.asList(
+        pageCache.getMetrics(),
+        sectionCache.getMetrics(),
+        roleCache.getMetrics(),
+        orgTypeCache.getMetrics(),
+        configSettingsCache.getMetrics());
   }
 
   /** @return the pageMap */
   public static Map<String, Map<String, Object>> getPageMap() {
-    return pageMap;
+    return pageCache.asMap();
   }
 
   /** @param pageMap the pageMap to set */
   public static void setPageMap(Map<String, Map<String, Object>> pageMap) {
-    DataCacheHandler.pageMap = pageMap;
+    pageCache.publish(pageMap);
+  }
+
+  /**
+   * Write through a created or updated page.
+   *
+   * @param key (orgId:pageName)
+   * @param page page Object
+   */
+  public static void updatePageMap(String key, Map<String, Object> page) {
+    pageCache.put(key, page);
   }
 
   /** @return the sectionMap */
   public static Map<String, Map<String, Object>> getSectionMap() {
-    return sectionMap;
+    return sectionCache.asMap();
   }
 
   /** @param sectionMap the sectionMap to set */
   public static void setSectionMap(Map<String, Map<String, Object>> sectionMap) {
-    DataCacheHandler.sectionMap = sectionMap;
+    sectionCache.publish(sectionMap);
+  }
+
+  /**
+   * Write through a created or updated page section.
+   *
+   * @param sectionId section Id
+   * @param section section Object
+   */
+  public static void updateSectionMap(String sectionId, Map<String, Object> section) {
+    sectionCache.put(sectionId, section);
   }
 
   /** @return the roleMap */
   public static Map<String, Object> getRoleMap() {
-    return roleMap;
+    return roleCache.asMap();
   }
 
   /** @param roleMap the roleMap to set */
   public static void setRoleMap(Map<String, Object> roleMap) {
-    DataCacheHandler.roleMap = roleMap;
+    roleCache.publish(roleMap);
   }
 
   /** @return the orgTypeMap */
   public static Map<String, String> getOrgTypeMap() {
-    return orgTypeMap;
+    return orgTypeCache.asMap();
   }
 
   /** @param orgTypeMap the orgTypeMap to set */
   public static void setOrgTypeMap(Map<String, String> orgTypeMap) {
-    DataCacheHandler.orgTypeMap = orgTypeMap;
+    orgTypeCache.publish(orgTypeMap);
+  }
+
+  /**
+   * Write through a created or updated org type.
+   *
+   * @param orgTypeName org type name in lower case
+   * @param orgTypeId org type Id
+   */
+  public static void updateOrgTypeMap(String orgTypeName, String orgTypeId) {
+    orgTypeCache.put(orgTypeName, orgTypeId);
   }
 
   /** @return the configSettings */
   public static Map<String, String> getConfigSettings() {
-    return configSettings;
+    return configSettingsCache.asMap();
   }
 
   /** @param configSettings the configSettings to set */
   public static void setConfigSettings(Map<String, String> configSettings) {
-    DataCacheHandler.configSettings = configSettings;
+    configSettingsCache.publish(configSettings);
   }
 
   public static Map<String, Map<String, List<Map<String, String>>>> getFrameworkCategoriesMap() {
@@ -1,33 +1,305 @@
 package org.sunbird.learner.util;
 
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.request.ExecutionContext;
+import org.sunbird.common.responsecode.ResponseCode;
 
 /**
- * This class will manage execute service thread.
+ * Registry of named thread pools, one per kind of background work. Every pool has a bounded queue
+ * and a rejection policy so that an overloaded workload pushes back on its callers instead of
+ * growing its queue without limit, and every pool reports its active threads, queue depth, task
+ * latency and rejections. Pool and queue sizes can be overridden with the configuration keys
+ * {@code sunbird_executor_<name>_pool_size} and {@code sunbird_executor_<name>_queue_size}.
  *
  * @author Manzarul.Haque
  */
 public final class ExecutorManager {
 
-  private static final int MAX_EXECUTOR_THREAD = 2;
-  /*
-   * service ScheduledExecutorService object
+  /**
+   * Pool shared by short scheduled jobs such as metrics logging. Long jobs, such as cache refresh,
+   * take their own pool from {@link #getScheduledExecutor(String, int)}.
    */
-  private static ScheduledExecutorService service = null;
+  public static final String SCHEDULER = "scheduler";
 
-  private ExecutorManager() {}
+  private static final int MAX_EXECUTOR_THREAD = 2;
+  private static final String CONFIG_PREFIX = "sunbird_executor_";
+  private static final String POOL_SIZE_SUFFIX = "_pool_size";
+  private static final String QUEUE_SIZE_SUFFIX = "_queue_size";
 
-  static {
-    service = Executors.newScheduledThreadPool(MAX_EXECUTOR_THREAD);
-  }
+  private static final Map<String, MeteredThreadPoolExecutor> executors =
+      new ConcurrentHashMap<>();
+  private static final Map<String, ScheduledThreadPoolExecutor> scheduledExecutors =
+      new ConcurrentHashMap<>();
+
+  private ExecutorManager() {}
 
   /**
-   * This method will send executor service object.
+   * This method will send executor service object used for scheduled jobs.
    *
    * @return
    */
   public static ScheduledExecutorService getExecutorService() {
-    return service;
+    return getScheduledExecutor(SCHEDULER, MAX_EXECUTOR_THREAD);
+  }
+
+  /**
+   * Get the scheduled pool registered with given name, creating it on first use. Scheduled pools
+   * only run timed jobs and timeouts, so their queue holds the pending schedule and is not bounded.
+   *
+   * @param name Pool name
+   * @param defaultPoolSize Number of threads if not configured
+   * @return Scheduled executor service
+   */
+  public static ScheduledExecutorService getScheduledExecutor(String name, int defaultPoolSize) {
+    return scheduledExecutors.computeIfAbsent(
+        name,
+        key -> {
+          ScheduledThreadPoolExecutor executor =
+              new ScheduledThreadPoolExecutor(
+                  getConfigValue(key + POOL_SIZE_SUFFIX, defaultPoolSize), threadFactory(key));
+          executor.setRemoveOnCancelPolicy(true);
+          return executor;
+        });
+  }
+
+  /**
+   * Get the pool registered with given name, creating it on first use.
+   *
+   * @param name Pool name, also used as thread name prefix
+   * @param defaultPoolSize Number of threads if not configured
+   * @param defaultQueueSize Queue capacity if not configured
+   * @param callerRuns Run a task on the submitting thread when the pool is saturated, otherwise
+   *     reject it with {@link java.util.concurrent.RejectedExecutionException}
+   * @return Executor service
+   */
+  public static ExecutorService getExecutor(
+      String name, int defaultPoolSize, int defaultQueueSize, boolean callerRuns) {
+    return executors.computeIfAbsent(
+        name,
+        key -> {
+          int poolSize = getConfigValue(key + POOL_SIZE_SUFFIX, defaultPoolSize);
+          int queueSize = getConfigValue(key + QUEUE_SIZE_SUFFIX, defaultQueueSize);
+          ProjectLogger.log(
+              "ExecutorManager:getExecutor: Creating pool "
+                  + key
+                  + " with "
+                  + poolSize
+                  + " threads and queue size "
+                  + queueSize,
+              LoggerEnum.INFO.name());
+          return new MeteredThreadPoolExecutor(
+              key,
+              poolSize,
+              queueSize,
+              callerRuns
+                  ? new ThreadPoolExecutor.CallerRunsPolicy()
+                  : new ThreadPoolExecutor.AbortPolicy());
+        });
+  }
+
+  /**
+   * Run the tasks on given pool and wait for all of them. The pool bounds the number of tasks
+   * running at once, the remaining tasks are cancelled as soon as one task fails. The tasks run
+   * with a copy of the request context of the calling thread, which telemetry reads.
+   *
+   * @param executor Pool the tasks run on
+   * @param tasks Tasks to run
+   * @return Results in the order of the tasks
+   * @throws ProjectCommonException SERVER_ERROR if a task fails with a checked exception or the
+   *     wait is interrupted, a runtime exception thrown by a task is rethrown as it is
+   */
+  public static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+    return invokeAll(executor, tasks, 0);
+  }
+
+  /**
+   * Run the tasks on given pool and wait for all of them, for at most given time in total.
+   *
+   * @param executor Pool the tasks run on
+   * @param tasks Tasks to run
+   * @param timeout Time in milliseconds to wait for all tasks, 0 to wait without limit
+   * @return Results in the order of the tasks
+   * @throws ProjectCommonException SERVER_ERROR if a task fails with a checked exception, the tasks
+   *     take longer than the timeout or the wait is interrupted, a runtime exception thrown by a
+   *     task is rethrown as it is
+   */
+  public static <T> List<T> invokeAll(
+      ExecutorService executor, List<Callable<T>> tasks, long timeout) {
+    List<Future<T>> futures = new ArrayList<>(tasks.size());
+    List<T> results = new ArrayList<>(tasks.size());
+    long deadline = System.currentTimeMillis() + timeout;
+    try {
+      for (Callable<T> task : tasks) {
+        futures.add(executor.submit(withRequestContext(task)));
+      }
+      for (Future<T> future : futures) {
+        if (timeout > 0) {
+          long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+          results.add(future.get(remaining, TimeUnit.MILLISECONDS));
+        } else {
+          results.add(future.get());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw taskFailed(e);
+    } catch (TimeoutException e) {
+      throw taskFailed(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw taskFailed(e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+    return results;
+  }
+
+  /** @return metrics of every registered pool */
+  public static List<Map<String, Object>> getMetrics() {
+    List<Map<String, Object>> metrics = new ArrayList<>();
+    for (MeteredThreadPoolExecutor executor : executors.values()) {
+      metrics.add(executor.getMetrics());
+    }
+    for (Map.Entry<String, ScheduledThreadPoolExecutor> entry : scheduledExecutors.entrySet()) {
+      ScheduledThreadPoolExecutor executor = entry.getValue();
+      Map<String, Object> map = new HashMap<>();
+      map.put("name", entry.getKey());
+      map.put("poolSize", executor.getPoolSize());
+      map.put("activeThreads", executor.getActiveCount());
+      map.put("queueDepth", executor.getQueue().size());
+      map.put("completedTasks", executor.getCompletedTaskCount());
+      metrics.add(map);
+    }
+    return metrics;
+  }
+
+  /** Log metrics of all pools. */
+  public static void logMetrics() {
+    ProjectLogger.log(
+        "ExecutorManager:logMetrics: metrics = " + getMetrics(), LoggerEnum.INFO.name());
+  }
+
+  private static ThreadFactory threadFactory(String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static <T> Callable<T> withRequestContext(Callable<T> task) {
+    Map<String, Object> requestContext = ExecutionContext.getCurrent().getRequestContext();
+    return () -> {
+      ExecutionContext context = ExecutionContext.getCurrent();
+      Map<String, Object> previousContext = context.getRequestContext();
+      context.setRequestContext(null == requestContext ? null : new HashMap<>(requestContext));
+      try {
+        return task.call();
+      } finally {
+        context.setRequestContext(previousContext);
+      }
+    };
+  }
+
+  private static ProjectCommonException taskFailed(Throwable e) {
+    ProjectLogger.log("ExecutorManager:invokeAll: Task failed", e);
+    return new ProjectCommonException(
+        ResponseCode.SERVER_ERROR.getErrorCode(),
+        ResponseCode.SERVER_ERROR.getErrorMessage(),
+        ResponseCode.SERVER_ERROR.getResponseCode());
+  }
+
+  private static int getConfigValue(String key, int defaultValue) {
+    return ConfigUtil.getInt(CONFIG_PREFIX + key, defaultValue);
+  }
+
+  /** Thread pool recording queue wait and run time of each task and the number of rejections. */
+  static final class MeteredThreadPoolExecutor extends ThreadPoolExecutor {
+    private final String name;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timedTasks = new AtomicLong();
+    private final AtomicLong totalQueueWait = new AtomicLong();
+    private final AtomicLong totalRunTime = new AtomicLong();
+    private final AtomicLong maxRunTime = new AtomicLong();
+
+    MeteredThreadPoolExecutor(
+        String name, int poolSize, int queueSize, RejectedExecutionHandler rejectionPolicy) {
+      super(
+          poolSize,
+          poolSize,
+          60,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+          threadFactory(name));
+      this.name = name;
+      allowCoreThreadTimeOut(true);
+      setRejectedExecutionHandler(
+          (runnable, executor) -> {
+            rejectedCount.incrementAndGet();
+            rejectionPolicy.rejectedExecution(runnable, executor);
+          });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      long submittedAt = System.nanoTime();
+      super.execute(
+          () -> {
+            long startedAt = System.nanoTime();
+            try {
+              command.run();
+            } finally {
+              long runTime = System.nanoTime() - startedAt;
+              timedTasks.incrementAndGet();
+              totalQueueWait.addAndGet(startedAt - submittedAt);
+              totalRunTime.addAndGet(runTime);
+              maxRunTime.accumulateAndGet(runTime, Math::max);
+            }
+          });
+    }
+
+    Map<String, Object> getMetrics() {
+      long tasks = timedTasks.get();
+      Map<String, Object> metrics = new HashMap<>();
+      metrics.put("name", name);
+      metrics.put("poolSize", getPoolSize());
+      metrics.put("activeThreads", getActiveCount());
+      metrics.put("queueDepth", getQueue().size());
+      metrics.put("queueRemainingCapacity", getQueue().remainingCapacity());
+      metrics.put("completedTasks", tasks);
+      metrics.put("rejectedTasks", rejectedCount.get());
+      metrics.put(
+          "avgQueueWaitMs",
+          tasks == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueWait.get() / tasks));
+      metrics.put(
+          "avgRunTimeMs",
+          tasks == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunTime.get() / tasks));
+      metrics.put("maxRunTimeMs", TimeUnit.NANOSECONDS.toMillis(maxRunTime.get()));
+      return metrics;
+    }
   }
 }
@@ -10,6 +10,8 @@ import org.sunbird.common.models.util.ProjectLogger;
 public class SchedulerManager {
 
   private static final int PAGE_DATA_TTL = 4;
+  private static final int EXECUTOR_METRICS_INTERVAL = 5;
+  private static final String CACHE_REFRESH_EXECUTOR = "data_cache_refresh";
 
   /*
    * service ScheduledExecutorService object
@@ -18,7 +20,24 @@ public class SchedulerManager {
 
   /** all scheduler job will be configure here. */
   public static void schedule() {
-    service.scheduleWithFixedDelay(new DataCacheHandler(), 0, PAGE_DATA_TTL, TimeUnit.HOURS);
+    schedule(false);
+  }
+
+  /**
+   * Schedule the jobs, the first cache refresh is skipped if the caches are already warm.
+   *
+   * @param cacheWarm true if {@link DataCacheHandler} has run during startup
+   */
+  public static void schedule(boolean cacheWarm) {
+    // the refresh reads whole tables, so it runs on its own pool to keep the shared one free
+    ExecutorManager.getScheduledExecutor(CACHE_REFRESH_EXECUTOR, 1)
+        .scheduleWithFixedDelay(
+            new DataCacheHandler(), cacheWarm ? PAGE_DATA_TTL : 0, PAGE_DATA_TTL, TimeUnit.HOURS);
+    service.scheduleWithFixedDelay(
+        ExecutorManager::logMetrics,
+        EXECUTOR_METRICS_INTERVAL,
+        EXECUTOR_METRICS_INTERVAL,
+        TimeUnit.MINUTES);
     ProjectLogger.log(
         "SchedulerManager:schedule: Started scheduler job for cache refresh.",
         LoggerEnum.INFO.name());
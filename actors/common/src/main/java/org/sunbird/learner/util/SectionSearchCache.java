@@ -0,0 +1,238 @@
+package org.sunbird.learner.util;
+
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Futures;
+import akka.dispatch.OnComplete;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import scala.concurrent.Future;
+
+/**
+ * Short lived cache of page section content search results. Sections of the same page requested
+ * with the same filters produce the same search query, so the result of one search is shared by
+ * all requests made within the TTL. The cached value is the search future itself, which means
+ * identical requests arriving while a search is still in flight wait on that one search instead of
+ * calling the search service again. Failed or empty searches are not kept.
+ *
+ * <p>Of the headers forwarded to the search service only the ones the search service uses to select
+ * content, the channel and the app ID, are part of the key. Per user and per request headers, such
+ * as the user token and the request ID, do not change the result and are left out.
+ */
+public class SectionSearchCache {
+
+  private static final String CACHE_TTL = "sunbird_page_section_cache_ttl_seconds";
+  private static final String CACHE_SIZE = "sunbird_page_section_cache_size";
+  private static final long DEFAULT_CACHE_TTL = 30;
+  private static final long DEFAULT_CACHE_SIZE = 1000;
+  private static final long METRICS_LOG_INTERVAL = 100;
+  private static final Set<String> KEY_HEADERS =
+      new HashSet<>(Arrays.asList("x-channel-id", "x-app-id"));
+
+  private static volatile SectionSearchCache instance;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final long ttl;
+  private final Cache<String, Future<Map<String, Object>>> cache;
+  // hash of the last result per key, kept longer than the result itself to tell whether a search
+  // done after expiry returned the same data
+  private final Cache<String, Integer> etags;
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong unchangedRefreshCount = new AtomicLong();
+  private final AtomicLong changedRefreshCount = new AtomicLong();
+  private final AtomicLong responseCount = new AtomicLong();
+  private final AtomicLong responseContentCount = new AtomicLong();
+
+  public SectionSearchCache(long ttl, long maxSize) {
+    this.ttl = ttl;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Math.max(ttl, 1), TimeUnit.SECONDS)
+            .maximumSize(maxSize)
+            .recordStats()
+            .build();
+    this.etags =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(Math.max(ttl, 1) * 10, TimeUnit.SECONDS)
+            .maximumSize(maxSize)
+            .build();
+  }
+
+  public static SectionSearchCache getInstance() {
+    if (instance == null) {
+      synchronized (SectionSearchCache.class) {
+        if (instance == null) {
+          instance =
+              new SectionSearchCache(
+                  ConfigUtil.getLong(CACHE_TTL, DEFAULT_CACHE_TTL),
+                  ConfigUtil.getLong(CACHE_SIZE, DEFAULT_CACHE_SIZE));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Get the search result for given query, searching only if no result for an equivalent query is
+   * cached or in flight.
+   *
+   * @param urlQueryString Query string of the search call
+   * @param query Search request, including the filters of the page request
+   * @param headers Headers of the search call, may be null
+   * @param search Makes the search call
+   * @return Future of the search result
+   */
+  public Future<Map<String, Object>> get(
+      String urlQueryString,
+      Map<String, Object> query,
+      Map<String, String> headers,
+      Supplier<Future<Map<String, Object>>> search) {
+    if (ttl <= 0) {
+      return search.get();
+    }
+    String key;
+    try {
+      key = getKey(urlQueryString, query, headers);
+    } catch (Exception e) {
+      ProjectLogger.log("SectionSearchCache:get: Unable to build cache key", e);
+      return search.get();
+    }
+    boolean[] loaded = new boolean[1];
+    Future<Map<String, Object>> result;
+    try {
+      result =
+          cache.get(
+              key,
+              () -> {
+                loaded[0] = true;
+                Future<Map<String, Object>> future = search.get();
+                return null == future ? Futures.<Map<String, Object>>successful(null) : future;
+              });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+    if (loaded[0]) {
+      onResult(key, result);
+    } else if (!result.isCompleted()) {
+      coalescedCount.incrementAndGet();
+    }
+    return result;
+  }
+
+  private void onResult(String key, Future<Map<String, Object>> result) {
+    result.onComplete(
+        new OnComplete<Map<String, Object>>() {
+          @Override
+          public void onComplete(Throwable failure, Map<String, Object> searchResult) {
+            if (null != failure || null == searchResult || searchResult.isEmpty()) {
+              cache.asMap().remove(key, result);
+              return;
+            }
+            if (responseCount.incrementAndGet() % METRICS_LOG_INTERVAL == 0) {
+              ProjectLogger.log(
+                  "SectionSearchCache:onResult: metrics = " + getMetrics(), LoggerEnum.INFO.name());
+            }
+            Object contents = searchResult.get(JsonKey.CONTENTS);
+            if (contents instanceof Collection) {
+              responseContentCount.addAndGet(((Collection<?>) contents).size());
+            }
+            int etag = null == contents ? 0 : contents.hashCode();
+            Integer previous = etags.getIfPresent(key);
+            if (null != previous) {
+              if (previous == etag) {
+                unchangedRefreshCount.incrementAndGet();
+              } else {
+                changedRefreshCount.incrementAndGet();
+              }
+            }
+            etags.put(key, etag);
+          }
+        },
+        ExecutionContexts.global());
+  }
+
+  /**
+   * Build the cache key from the headers selecting content and the query with map keys sorted and
+   * filter values sorted, so that queries differing only in the order of filters or filter values
+   * share one entry.
+   */
+  String getKey(String urlQueryString, Map<String, Object> query, Map<String, String> headers)
+      throws Exception {
+    Map<String, String> keyHeaders = new TreeMap<>();
+    if (null != headers) {
+      headers.forEach(
+          (name, value) -> {
+            if (null != name && KEY_HEADERS.contains(name.toLowerCase())) {
+              keyHeaders.put(name.toLowerCase(), value);
+            }
+          });
+    }
+    return StringUtils.defaultString(urlQueryString)
+        + "|"
+        + mapper.writeValueAsString(keyHeaders)
+        + "|"
+        + mapper.writeValueAsString(normalise(query, false));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object normalise(Object value, boolean inFilters) {
+    if (value instanceof Map) {
+      Map<String, Object> sorted = new TreeMap<>();
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+        sorted.put(
+            entry.getKey(),
+            normalise(entry.getValue(), inFilters || JsonKey.FILTERS.equals(entry.getKey())));
+      }
+      return sorted;
+    }
+    if (value instanceof List) {
+      List<Object> list = new ArrayList<>();
+      for (Object item : (List<Object>) value) {
+        list.add(normalise(item, inFilters));
+      }
+      if (inFilters) {
+        list.sort((a, b) -> String.valueOf(a).compareTo(String.valueOf(b)));
+      }
+      return list;
+    }
+    return value;
+  }
+
+  /** @return hit, miss, coalescing, eviction and response metrics of the cache */
+  public Map<String, Object> getMetrics() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("size", cache.size());
+    metrics.put("hits", stats.hitCount());
+    metrics.put("misses", stats.missCount());
+    metrics.put("evictions", stats.evictionCount());
+    metrics.put("coalesced", coalescedCount.get());
+    metrics.put("unchangedRefreshes", unchangedRefreshCount.get());
+    metrics.put("changedRefreshes", changedRefreshCount.get());
+    long responses = responseCount.get();
+    metrics.put(
+        "averageContentCount", responses == 0 ? 0 : responseContentCount.get() / responses);
+    return metrics;
+  }
+}
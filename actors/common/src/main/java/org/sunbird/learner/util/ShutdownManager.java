@@ -0,0 +1,47 @@
+package org.sunbird.learner.util;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+
+/**
+ * Stop tasks of the components holding writes not yet stored, such as buffered counts. The tasks
+ * run once, in the order they were registered, when the service is stopped: after it stopped
+ * taking requests and before the Cassandra connections are closed, so the tasks can still write.
+ */
+public final class ShutdownManager {
+
+  private static final List<Map.Entry<String, Runnable>> tasks = new CopyOnWriteArrayList<>();
+  private static final AtomicBoolean stopped = new AtomicBoolean();
+
+  private ShutdownManager() {}
+
+  /**
+   * Register a task to run when the service stops.
+   *
+   * @param name Name of the task, used in logs
+   * @param task Task to run
+   */
+  public static void register(String name, Runnable task) {
+    tasks.add(new AbstractMap.SimpleImmutableEntry<>(name, task));
+  }
+
+  /** Run the registered tasks, only the first call runs them. */
+  public static void stop() {
+    if (!stopped.compareAndSet(false, true)) {
+      return;
+    }
+    for (Map.Entry<String, Runnable> task : tasks) {
+      try {
+        task.getValue().run();
+        ProjectLogger.log("ShutdownManager:stop: Stopped " + task.getKey(), LoggerEnum.INFO.name());
+      } catch (Exception e) {
+        ProjectLogger.log("ShutdownManager:stop: Failed to stop " + task.getKey(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package org.sunbird.learner.util;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds an immutable, versioned snapshot of a lookup table. A refresh builds the next snapshot off
+ * to the side and publishes it with a single reference swap, so readers always see one complete
+ * version of the data.
+ *
+ * @param <V> type of the cached value
+ */
+public class SnapshotCache<V> {
+
+  private final String name;
+  private final AtomicReference<Snapshot<V>> current;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong refreshCount = new AtomicLong();
+  private volatile long lastRefreshDuration;
+  private volatile long lastRefreshTime;
+
+  public SnapshotCache(String name) {
+    this.name = name;
+    this.current =
+        new AtomicReference<>(
+            new Snapshot<V>(
+                0,
+                Collections.<String, V>emptyMap(),
+                Collections.<String, String>emptyMap(),
+                Collections.<String, String>emptyMap(),
+                this));
+  }
+
+  /** @return the snapshot currently visible to readers */
+  public Snapshot<V> snapshot() {
+    return current.get();
+  }
+
+  /** @return read only view of the current snapshot entries */
+  public Map<String, V> asMap() {
+    return current.get().getEntries();
+  }
+
+  /**
+   * Publishes a snapshot built from the given entries, replacing whatever is currently visible.
+   *
+   * @param entries cache key to value
+   */
+  public void publish(Map<String, V> entries) {
+    Snapshot<V> base;
+    do {
+      base = current.get();
+    } while (!current.compareAndSet(
+        base,
+        new Snapshot<V>(
+            base.getVersion() + 1,
+            entries,
+            Collections.<String, String>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            this)));
+  }
+
+  /**
+   * Publishes the next snapshot only if no other write happened since {@code base} was read.
+   *
+   * @param base snapshot the refresh started from
+   * @param entries cache key to value
+   * @param rowKeys row id to cache key
+   * @param rowVersions row id to last updated date
+   * @return true if the snapshot was published, false if the caller must rebuild from the latest
+   *     snapshot
+   */
+  public boolean compareAndPublish(
+      Snapshot<V> base,
+      Map<String, V> entries,
+      Map<String, String> rowKeys,
+      Map<String, String> rowVersions) {
+    return current.compareAndSet(
+        base, new Snapshot<>(base.getVersion() + 1, entries, rowKeys, rowVersions, this));
+  }
+
+  /**
+   * Write through a single entry (e.g. after a create or update API call) by publishing a copy of
+   * the current snapshot with the entry replaced.
+   *
+   * @param key cache key
+   * @param value cache value
+   */
+  public void put(String key, V value) {
+    Snapshot<V> base;
+    Map<String, V> entries;
+    do {
+      base = current.get();
+      entries = new HashMap<>(base.entries);
+      entries.put(key, value);
+    } while (!current.compareAndSet(
+        base,
+        new Snapshot<>(base.getVersion() + 1, entries, base.rowKeys, base.rowVersions, this)));
+  }
+
+  /**
+   * Records the time taken by a completed refresh cycle.
+   *
+   * @param duration refresh duration in milliseconds
+   */
+  public void recordRefresh(long duration) {
+    refreshCount.incrementAndGet();
+    lastRefreshDuration = duration;
+    lastRefreshTime = System.currentTimeMillis();
+  }
+
+  /** @return hit, miss and refresh metrics of this cache */
+  public Map<String, Object> getMetrics() {
+    Snapshot<V> snapshot = current.get();
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("name", name);
+    metrics.put("version", snapshot.getVersion());
+    metrics.put("size", snapshot.entries.size());
+    metrics.put("hits", hits.get());
+    metrics.put("misses", misses.get());
+    metrics.put("refreshCount", refreshCount.get());
+    metrics.put("lastRefreshDuration", lastRefreshDuration);
+    metrics.put("lastRefreshTime", lastRefreshTime);
+    return metrics;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Immutable state of the cache at one version.
+   *
+   * @param <V> type of the cached value
+   */
+  public static final class Snapshot<V> {
+    private final long version;
+    private final Map<String, V> entries;
+    private final Map<String, String> rowKeys;
+    private final Map<String, String> rowVersions;
+    private final Map<String, V> view;
+
+    private Snapshot(
+        long version,
+        Map<String, V> entries,
+        Map<String, String> rowKeys,
+        Map<String, String> rowVersions,
+        SnapshotCache<V> cache) {
+      this.version = version;
+      this.entries = Collections.unmodifiableMap(entries);
+      this.rowKeys = Collections.unmodifiableMap(rowKeys);
+      this.rowVersions = Collections.unmodifiableMap(rowVersions);
+      this.view = new MeteredView<>(this.entries, cache.hits, cache.misses);
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public Map<String, V> getEntries() {
+      return view;
+    }
+
+    /** @return entries without counting lookups, for carrying them over into the next snapshot */
+    public Map<String, V> getRawEntries() {
+      return entries;
+    }
+
+    public Map<String, String> getRowKeys() {
+      return rowKeys;
+    }
+
+    public Map<String, String> getRowVersions() {
+      return rowVersions;
+    }
+  }
+
+  /** Read only map that counts lookups into hit and miss counters. */
+  private static final class MeteredView<V> extends AbstractMap<String, V> {
+    private final Map<String, V> entries;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    private MeteredView(Map<String, V> entries, AtomicLong hits, AtomicLong misses) {
+      this.entries = entries;
+      this.hits = hits;
+      this.misses = misses;
+    }
+
+    @Override
+    public V get(Object key) {
+      V value = entries.get(key);
+      if (null == value) {
+        misses.incrementAndGet();
+      } else {
+        hits.incrementAndGet();
+      }
+      return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return entries.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+      return entries.entrySet();
+    }
+  }
+}
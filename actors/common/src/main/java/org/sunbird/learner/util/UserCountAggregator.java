@@ -0,0 +1,287 @@
+package org.sunbird.learner.util;
+
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Update;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+
+/**
+ * Aggregates increments of the {@code user_count} column of a table.
+ *
+ * <p>Increments are added to a striped counter per entity in memory and cost no database call.
+ * Every {@code sunbird_user_count_flush_interval_ms} the counts of all changed entities are read
+ * in one query and each entity is written once with its count plus the increments since the
+ * previous flush, instead of a read and a write per increment. The count is written only if the
+ * stored count is still the count read, otherwise it is read again and the write retried, so
+ * increments are not lost to concurrent flushes of other instances. Counts recomputed elsewhere,
+ * e.g. from Elastic Search, are written through {@link #reconcile} which replaces the count and
+ * the increments not yet flushed. A counter without increments since the previous flush is
+ * dropped, so that only entities in use are held.
+ */
+public class UserCountAggregator {
+
+  private static final String FLUSH_INTERVAL = "sunbird_user_count_flush_interval_ms";
+  private static final long DEFAULT_FLUSH_INTERVAL = 5000;
+  private static final int FLUSH_BATCH_SIZE = 100;
+  private static final int MAX_WRITE_ATTEMPTS = 3;
+  private static final String FLUSH_EXECUTOR = "user_count_flush";
+  private static final List<String> COUNT_FIELDS = Arrays.asList(JsonKey.ID, JsonKey.USER_COUNT);
+
+  private static final Map<String, UserCountAggregator> instances = new ConcurrentHashMap<>();
+
+  private final CassandraOperation cassandraOperation;
+  private final String keySpace;
+  private final String tableName;
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+
+  /**
+   * @param cassandraOperation Cassandra operation writing the counts
+   * @param keySpace Key space of the table
+   * @param tableName Table with the {@code id} and {@code user_count} columns
+   * @param flushInterval Interval in milliseconds between flushes, no timed flush if not positive
+   */
+  UserCountAggregator(
+      CassandraOperation cassandraOperation,
+      String keySpace,
+      String tableName,
+      long flushInterval) {
+    this.cassandraOperation = cassandraOperation;
+    this.keySpace = keySpace;
+    this.tableName = tableName;
+    if (flushInterval > 0) {
+      ExecutorManager.getScheduledExecutor(FLUSH_EXECUTOR, 1)
+          .scheduleWithFixedDelay(
+              this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @param dbInfo Table with the {@code id} and {@code user_count} columns
+   * @return Aggregator of the table
+   */
+  public static UserCountAggregator getInstance(Util.DbInfo dbInfo) {
+    return instances.computeIfAbsent(
+        dbInfo.getKeySpace() + "." + dbInfo.getTableName(),
+        name -> {
+          UserCountAggregator aggregator =
+              new UserCountAggregator(
+                  ServiceFactory.getInstance(),
+                  dbInfo.getKeySpace(),
+                  dbInfo.getTableName(),
+                  ConfigUtil.getLong(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL));
+          ShutdownManager.register("UserCountAggregator " + name, aggregator::flushQuietly);
+          return aggregator;
+        });
+  }
+
+  /**
+   * Add one to the count of an entity.
+   *
+   * @param id Entity ID
+   */
+  public void increment(String id) {
+    add(id, 1);
+  }
+
+  /**
+   * Add to the count of an entity.
+   *
+   * @param id Entity ID
+   * @param delta Value added to the count
+   */
+  public void add(String id, long delta) {
+    if (StringUtils.isBlank(id) || delta == 0) {
+      return;
+    }
+    // added inside the compute so that a counter is not dropped by a flush while being added to
+    counters.compute(
+        id,
+        (key, counter) -> {
+          Counter current = counter == null ? new Counter() : counter;
+          current.added.add(delta);
+          return current;
+        });
+  }
+
+  /**
+   * Replace the count of an entity with a recomputed count, the increments not yet flushed are
+   * taken to be part of it.
+   *
+   * @param id Entity ID
+   * @param count Recomputed count
+   * @param fields Other fields written with the count, may be null
+   */
+  public void reconcile(String id, int count, Map<String, Object> fields) {
+    synchronized (flushLock) {
+      Counter counter = counters.get(id);
+      if (counter != null) {
+        counter.flushed = counter.added.sum();
+      }
+      Map<String, Object> record = new HashMap<>();
+      if (fields != null) {
+        record.putAll(fields);
+      }
+      record.put(JsonKey.ID, id);
+      record.put(JsonKey.USER_COUNT, count);
+      cassandraOperation.updateRecord(keySpace, tableName, record);
+    }
+  }
+
+  /** Write the increments added since the previous flush. */
+  void flush() {
+    synchronized (flushLock) {
+      Map<String, Long> deltas = new HashMap<>();
+      for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+        Counter counter = entry.getValue();
+        // the sum only grows, increments missed here are written by the next flush
+        long delta = counter.added.sum() - counter.flushed;
+        if (delta != 0) {
+          deltas.put(entry.getKey(), delta);
+        } else {
+          counters.computeIfPresent(
+              entry.getKey(),
+              (key, current) -> current.added.sum() == current.flushed ? null : current);
+        }
+      }
+      if (deltas.isEmpty()) {
+        return;
+      }
+      List<String> ids = new ArrayList<>(deltas.keySet());
+      for (int from = 0; from < ids.size(); from += FLUSH_BATCH_SIZE) {
+        flushBatch(ids.subList(from, Math.min(from + FLUSH_BATCH_SIZE, ids.size())), deltas);
+      }
+    }
+  }
+
+  private void flushBatch(List<String> ids, Map<String, Long> deltas) {
+    Map<String, Integer> storedCounts;
+    try {
+      storedCounts = readCounts(ids);
+    } catch (Exception e) {
+      ProjectLogger.log("UserCountAggregator:flushBatch: Failed to read " + tableName, e);
+      return;
+    }
+    for (String id : ids) {
+      Counter counter = counters.get(id);
+      long delta = deltas.get(id);
+      try {
+        if (writeCount(id, delta, storedCounts)) {
+          counter.flushed += delta;
+        } else {
+          // kept for the next flush
+          ProjectLogger.log(
+              "UserCountAggregator:flushBatch: Count of " + id + " is changing concurrently",
+              LoggerEnum.WARN.name());
+        }
+      } catch (Exception e) {
+        // kept for the next flush
+        ProjectLogger.log("UserCountAggregator:flushBatch: Failed to write count of " + id, e);
+      }
+    }
+  }
+
+  /**
+   * Add to the stored count of an entity, reading the count again if it changed since it was read.
+   *
+   * @param id Entity ID
+   * @param delta Value added to the count
+   * @param storedCounts Counts read, updated with the counts read again
+   * @return false if the count changed on every attempt
+   */
+  private boolean writeCount(String id, long delta, Map<String, Integer> storedCounts) {
+    for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+      if (attempt > 0) {
+        storedCounts.putAll(readCounts(Collections.singletonList(id)));
+      }
+      if (!storedCounts.containsKey(id)) {
+        ProjectLogger.log(
+            "UserCountAggregator:writeCount: No record " + id + " in " + tableName,
+            LoggerEnum.WARN.name());
+        return true;
+      }
+      Integer storedCount = storedCounts.remove(id);
+      int count = (int) ((storedCount == null ? 0 : storedCount) + delta);
+      if (compareAndSetCount(id, count, storedCount)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param ids Entity IDs
+   * @return Stored count by entity ID, null for an entity without a count
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Integer> readCounts(List<String> ids) {
+    Response response =
+        cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            keySpace, tableName, COUNT_FIELDS, ids);
+    List<Map<String, Object>> records = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    Map<String, Integer> storedCounts = new HashMap<>();
+    if (records != null) {
+      for (Map<String, Object> record : records) {
+        storedCounts.put((String) record.get(JsonKey.ID), (Integer) record.get(JsonKey.USER_COUNT));
+      }
+    }
+    return storedCounts;
+  }
+
+  /**
+   * Write the count of an entity if the stored count is the expected count.
+   *
+   * @param id Entity ID
+   * @param count Count written
+   * @param expectedCount Stored count expected, null for no count
+   * @return true if the count was written
+   */
+  boolean compareAndSetCount(String id, int count, Integer expectedCount) {
+    // lightweight transactions are not exposed by the generic Cassandra operations
+    Update update = QueryBuilder.update(keySpace, tableName);
+    update.with(QueryBuilder.set(JsonKey.USER_COUNT, count));
+    update.where(QueryBuilder.eq(JsonKey.ID, id));
+    update.onlyIf(QueryBuilder.eq(JsonKey.USER_COUNT, expectedCount));
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(keySpace)
+        .execute(update)
+        .wasApplied();
+  }
+
+  /** @return Number of entities with a counter held */
+  int getCounterCount() {
+    return counters.size();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (Exception e) {
+      ProjectLogger.log("UserCountAggregator:flushQuietly: Flush failed for " + tableName, e);
+    }
+  }
+
+  /** Increments of an entity, of which {@code flushed} are written. */
+  private static final class Counter {
+    private final LongAdder added = new LongAdder();
+    // updated under the flush lock only
+    private long flushed;
+  }
+}
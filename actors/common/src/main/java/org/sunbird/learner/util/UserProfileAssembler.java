@@ -0,0 +1,174 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+
+/**
+ * Reads the independent parts of a user profile (address, education, job profile, organisations,
+ * badges, skills, batches, root organisation and registry details) concurrently on a bounded
+ * executor. Every source has a deadline measured from the start of the assembly; a source which
+ * fails or misses its deadline does not fail the whole profile. Its field is left out of the profile
+ * and listed under {@link #DEGRADED_FIELDS}, so that a writer of the profile keeps the stored value
+ * of the field instead of overwriting it with an empty one.
+ */
+public class UserProfileAssembler {
+
+  /** Key of the fields of an assembled profile which could not be read. */
+  public static final String DEGRADED_FIELDS = "degradedFields";
+
+  private static final String EXECUTOR_NAME = "user_profile_assembler";
+  private static final String SOURCE_TIMEOUT = "sunbird_user_profile_source_timeout_ms";
+  private static final int DEFAULT_POOL_SIZE = 16;
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+  private static final long DEFAULT_SOURCE_TIMEOUT = 5000;
+
+  private static volatile UserProfileAssembler instance;
+
+  private final ExecutorService executor;
+  private final long sourceTimeout;
+  private final AtomicLong degradedCount = new AtomicLong();
+
+  public UserProfileAssembler(ExecutorService executor, long sourceTimeout) {
+    this.executor = executor;
+    this.sourceTimeout = sourceTimeout;
+  }
+
+  public static UserProfileAssembler getInstance() {
+    if (instance == null) {
+      synchronized (UserProfileAssembler.class) {
+        if (instance == null) {
+          instance =
+              new UserProfileAssembler(
+                  ExecutorManager.getExecutor(
+                      EXECUTOR_NAME, DEFAULT_POOL_SIZE, DEFAULT_QUEUE_SIZE, true),
+                  ConfigUtil.getLong(SOURCE_TIMEOUT, DEFAULT_SOURCE_TIMEOUT));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Fetch profile details of given user and add them to the user map.
+   *
+   * @param userId User ID
+   * @param userDetails User record, updated in place with the fetched details and with the names of
+   *     the details not read under {@link #DEGRADED_FIELDS}
+   * @return Details of the user read from registry, empty if registry is not used or not read
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> assemble(String userId, Map<String, Object> userDetails) {
+    String rootOrgId = (String) userDetails.get(JsonKey.ROOT_ORG_ID);
+    String registryId = (String) userDetails.get(JsonKey.REGISTRY_ID);
+
+    Map<String, Callable<Object>> sources = new LinkedHashMap<>();
+    sources.put(JsonKey.ADDRESS, () -> Util.getAddressDetails(userId, null));
+    sources.put(JsonKey.EDUCATION, () -> Util.getUserEducationDetails(userId));
+    sources.put(JsonKey.JOB_PROFILE, () -> Util.getJobProfileDetails(userId));
+    sources.put(JsonKey.ORGANISATIONS, () -> Util.getUserOrgDetails(userId));
+    sources.put(JsonKey.BADGE_ASSERTIONS, () -> Util.getUserBadge(userId));
+    sources.put(JsonKey.SKILLS, () -> Util.getUserSkills(userId));
+    sources.put(JsonKey.BATCHES, () -> Util.getUserCourseBatch(userId));
+    sources.put(JsonKey.ROOT_ORG_NAME, () -> getRootOrgName(rootOrgId));
+    sources.put(JsonKey.REGISTRY_ID, () -> Util.readUserDetailsFromRegistry(registryId));
+
+    Set<String> degraded = new LinkedHashSet<>();
+    Map<String, Object> results = fetch(userId, sources, degraded);
+    Object registryDetails = results.remove(JsonKey.REGISTRY_ID);
+    userDetails.putAll(results);
+    if (!degraded.isEmpty()) {
+      userDetails.put(DEGRADED_FIELDS, new ArrayList<>(degraded));
+    }
+    return registryDetails instanceof Map
+        ? (Map<String, Object>) registryDetails
+        : new HashMap<>();
+  }
+
+  /**
+   * Run all sources concurrently and collect their results.
+   *
+   * @param userId User ID, used for logging
+   * @param sources Source name to the read to be done
+   * @param degraded Filled with the names of the sources which fail or time out
+   * @return Source name to its result, without the sources which fail or time out, an empty list
+   *     for a source returning null
+   */
+  public Map<String, Object> fetch(
+      String userId, Map<String, Callable<Object>> sources, Set<String> degraded) {
+    long deadline = System.currentTimeMillis() + sourceTimeout;
+    Map<String, Future<Object>> futures = new LinkedHashMap<>();
+    for (Map.Entry<String, Callable<Object>> source : sources.entrySet()) {
+      futures.put(source.getKey(), executor.submit(source.getValue()));
+    }
+
+    Map<String, Object> results = new HashMap<>();
+    for (Map.Entry<String, Future<Object>> future : futures.entrySet()) {
+      String name = future.getKey();
+      Object result;
+      try {
+        result =
+            future
+                .getValue()
+                .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        future.getValue().cancel(true);
+        degradedCount.incrementAndGet();
+        degraded.add(name);
+        ProjectLogger.log(
+            "UserProfileAssembler:fetch: "
+                + name
+                + " not read within "
+                + sourceTimeout
+                + " ms for userId "
+                + userId,
+            LoggerEnum.WARN.name());
+        continue;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.getValue().cancel(true);
+        degradedCount.incrementAndGet();
+        degraded.add(name);
+        ProjectLogger.log("UserProfileAssembler:fetch: Interrupted for userId " + userId, e);
+        continue;
+      } catch (Exception e) {
+        degradedCount.incrementAndGet();
+        degraded.add(name);
+        ProjectLogger.log(
+            "UserProfileAssembler:fetch: Failed to read " + name + " for userId " + userId, e);
+        continue;
+      }
+      results.put(name, null == result ? new ArrayList<>() : result);
+    }
+    return results;
+  }
+
+  /** @return number of sources not read since startup */
+  public long getDegradedCount() {
+    return degradedCount.get();
+  }
+
+  private Object getRootOrgName(String rootOrgId) {
+    if (StringUtils.isBlank(rootOrgId)) {
+      return "";
+    }
+    Map<String, Object> orgMap = Util.getOrgDetails(rootOrgId);
+    return MapUtils.isNotEmpty(orgMap) && null != orgMap.get(JsonKey.ORG_NAME)
+        ? orgMap.get(JsonKey.ORG_NAME)
+        : "";
+  }
+}
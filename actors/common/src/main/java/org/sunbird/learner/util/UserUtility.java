@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.PropertiesCache;
@@ -115,10 +116,23 @@ public final class UserUtility {
 
   public static Map<String, Object> decryptUserDataFrmES(Map<String, Object> userMap) {
     DecryptionService service = ServiceFactory.getDecryptionServiceInstance(null);
+    return decryptUserDataFrmES(userMap, service::decryptData);
+  }
+
+  /**
+   * Decrypt the user and address fields of a user read from Elastic Search.
+   *
+   * @param userMap User details
+   * @param decryptor Returns the plain value of an encrypted value
+   * @return User details with decrypted fields
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> decryptUserDataFrmES(
+      Map<String, Object> userMap, Function<String, String> decryptor) {
     // Decrypt user basic info
     for (String key : userKeyToDecrypt) {
       if (userMap.containsKey(key)) {
-        userMap.put(key, service.decryptData((String) userMap.get(key)));
+        userMap.put(key, decryptor.apply((String) userMap.get(key)));
       }
     }
 
@@ -129,7 +143,7 @@ public final class UserUtility {
       for (Map<String, Object> map : addressList) {
         for (String key : addressKeyToEncrypt) {
           if (map.containsKey(key)) {
-            map.put(key, service.decryptData((String) map.get(key)));
+            map.put(key, decryptor.apply((String) map.get(key)));
           }
         }
       }
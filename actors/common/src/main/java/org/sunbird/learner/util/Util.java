@@ -105,14 +105,7 @@ public final class Util {
     // EkStep HttpClient headers init
     headers.put("content-type", "application/json");
     headers.put("accept", "application/json");
-    new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                SchedulerManager.getInstance();
-              }
-            })
-        .start();
+    SchedulerManager.scheduleStart();
   }
 
   private Util() {}
@@ -1433,26 +1426,18 @@ public final class Util {
       ProjectLogger.log(
           "Util:getUserDetails: for userId " + userId + " is " + userDetails,
           LoggerEnum.INFO.name());
-      userDetails.put(JsonKey.ADDRESS, getAddressDetails(userId, null));
-      userDetails.put(JsonKey.EDUCATION, getUserEducationDetails(userId));
-      userDetails.put(JsonKey.JOB_PROFILE, getJobProfileDetails(userId));
-      userDetails.put(JsonKey.ORGANISATIONS, getUserOrgDetails(userId));
-      userDetails.put(JsonKey.BADGE_ASSERTIONS, getUserBadge(userId));
-      userDetails.put(JsonKey.SKILLS, getUserSkills(userId));
-      userDetails.put(JsonKey.BATCHES, getUserCourseBatch(userId));
-      Map<String, Object> orgMap = getOrgDetails((String) userDetails.get(JsonKey.ROOT_ORG_ID));
-      if (!MapUtils.isEmpty(orgMap)) {
-        userDetails.put(JsonKey.ROOT_ORG_NAME, orgMap.get(JsonKey.ORG_NAME));
-      } else {
-        userDetails.put(JsonKey.ROOT_ORG_NAME, "");
-      }
+      Map<String, Object> registryDetails =
+          UserProfileAssembler.getInstance().assemble(userId, userDetails);
       // save masked email and phone number
       addMaskEmailAndPhone(userDetails);
       checkProfileCompleteness(userDetails);
       checkUserProfileVisibility(userDetails, actorRef);
       userDetails.remove(JsonKey.PASSWORD);
       addEmailAndPhone(userDetails);
-      userDetails = getUserDetailsFromRegistry(userDetails);
+      if (MapUtils.isNotEmpty(registryDetails)) {
+        registryDetails.putAll(userDetails);
+        userDetails = registryDetails;
+      }
       ProjectLogger.log(
           "Util:getUserDetails: for userId " + userId + " is " + userDetails,
           LoggerEnum.INFO.name());
@@ -1480,6 +1465,14 @@ public final class Util {
     userMap.putAll(profileResponse);
   }
 
+  /**
+   * Move the private fields of a user to the profile visibility index. Fields listed under {@link
+   * UserProfileAssembler#DEGRADED_FIELDS} were not read, so their stored private value is kept.
+   *
+   * @param userMap User details, private fields are removed from it
+   * @param actorRef Actor reference used to read the user profile configuration
+   */
+  @SuppressWarnings("unchecked")
   public static void checkUserProfileVisibility(Map<String, Object> userMap, ActorRef actorRef) {
 
     ProjectLogger.log(
@@ -1501,8 +1494,13 @@ public final class Util {
             + userMap.get(JsonKey.USER_NAME),
         LoggerEnum.INFO.name());
     if (MapUtils.isNotEmpty(completeProfileVisibilityMap)) {
+      List<String> degradedFields =
+          (List<String>) userMap.get(UserProfileAssembler.DEGRADED_FIELDS);
       Map<String, Object> privateFieldsMap = new HashMap<>();
       for (String field : completeProfileVisibilityMap.keySet()) {
+        if (null != degradedFields && degradedFields.contains(field)) {
+          continue;
+        }
         if (JsonKey.PRIVATE.equalsIgnoreCase(completeProfileVisibilityMap.get(field))) {
           privateFieldsMap.put(field, userMap.remove(field));
         }
@@ -1539,6 +1537,20 @@ public final class Util {
 
   public static Map<String, String> getCompleteProfileVisibilityMap(
       Map<String, String> userProfileVisibilityMap, ActorRef actorRef) {
+    return getCompleteProfileVisibilityMap(
+        userProfileVisibilityMap, getUserProfileConfig(actorRef));
+  }
+
+  /**
+   * Get complete profile visibility using an already loaded user profile configuration. Useful when
+   * visibility of many users is computed together.
+   *
+   * @param userProfileVisibilityMap Profile visibility settings of the user
+   * @param userProfileConfig User profile configuration
+   * @return Visibility (public / private) of each user profile field
+   */
+  public static Map<String, String> getCompleteProfileVisibilityMap(
+      Map<String, String> userProfileVisibilityMap, Config userProfileConfig) {
     String defaultProfileVisibility =
         ProjectUtil.getConfigValue(JsonKey.SUNBIRD_USER_PROFILE_FIELD_DEFAULT_VISIBILITY);
     if (!(JsonKey.PUBLIC.equalsIgnoreCase(defaultProfileVisibility)
@@ -1551,7 +1563,6 @@ public final class Util {
       ProjectCommonException.throwServerErrorException(ResponseCode.invaidConfiguration, "");
     }
 
-    Config userProfileConfig = getUserProfileConfig(actorRef);
     List<String> userDataFields = userProfileConfig.getStringList(JsonKey.FIELDS);
     List<String> publicFields = userProfileConfig.getStringList(JsonKey.PUBLIC_FIELDS);
     List<String> privateFields = userProfileConfig.getStringList(JsonKey.PRIVATE_FIELDS);
@@ -1597,100 +1608,92 @@ public final class Util {
 
   public static List<Map<String, Object>> getUserBadge(String userId) {
     DbInfo badgeDbInfo = Util.dbInfoMap.get(JsonKey.USER_BADGE_ASSERTION_DB);
-    List<Map<String, Object>> badges = new ArrayList<>();
-    try {
-      Response result =
-          cassandraOperation.getRecordsByIndexedProperty(
-              badgeDbInfo.getKeySpace(), badgeDbInfo.getTableName(), JsonKey.USER_ID, userId);
-      badges = (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
-    return badges;
+    Response result =
+        cassandraOperation.getRecordsByIndexedProperty(
+            badgeDbInfo.getKeySpace(), badgeDbInfo.getTableName(), JsonKey.USER_ID, userId);
+    return (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
   }
 
   public static List<Map<String, Object>> getUserCourseBatch(String userId) {
     ProjectLogger.log("Util: getUserCourseBatch called", LoggerEnum.INFO);
     DbInfo userCourseDb = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
     List<Map<String, Object>> userCourses = new ArrayList<>();
-    try {
-      Response result =
-          cassandraOperation.getRecordsByIndexedProperty(
-              userCourseDb.getKeySpace(), userCourseDb.getTableName(), JsonKey.USER_ID, userId);
-      List<Map<String, Object>> courseBatch =
-          (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
-      if (!CollectionUtils.isEmpty(courseBatch)) {
-        for (Map<String, Object> userCourseBatch : courseBatch) {
-          ProjectLogger.log("Util: getUserCourseBatch has course", LoggerEnum.INFO);
-          Map<String, Object> tempMap = new HashMap<>();
-          tempMap.put(JsonKey.ENROLLED_ON, userCourseBatch.get(JsonKey.COURSE_ENROLL_DATE));
-          tempMap.put(JsonKey.COURSE_ID, userCourseBatch.get(JsonKey.COURSE_ID));
-          tempMap.put(JsonKey.BATCH_ID, userCourseBatch.get(JsonKey.BATCH_ID));
-          tempMap.put(JsonKey.PROGRESS, userCourseBatch.get(JsonKey.PROGRESS));
-          tempMap.put(JsonKey.LAST_ACCESSED_ON, userCourseBatch.get(JsonKey.DATE_TIME));
-          userCourses.add(tempMap);
-        }
+    Response result =
+        cassandraOperation.getRecordsByIndexedProperty(
+            userCourseDb.getKeySpace(), userCourseDb.getTableName(), JsonKey.USER_ID, userId);
+    List<Map<String, Object>> courseBatch =
+        (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
+    if (!CollectionUtils.isEmpty(courseBatch)) {
+      for (Map<String, Object> userCourseBatch : courseBatch) {
+        ProjectLogger.log("Util: getUserCourseBatch has course", LoggerEnum.INFO);
+        userCourses.add(getUserCourseBatchSummary(userCourseBatch));
       }
-
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
     }
     ProjectLogger.log("Util: getUserCourseBatch completed", LoggerEnum.INFO);
     return userCourses;
   }
 
+  /**
+   * Get the course batch fields of a user courses record that are indexed with the user.
+   *
+   * @param userCourseBatch User courses record
+   * @return Course batch details of the user
+   */
+  public static Map<String, Object> getUserCourseBatchSummary(
+      Map<String, Object> userCourseBatch) {
+    Map<String, Object> tempMap = new HashMap<>();
+    tempMap.put(JsonKey.ENROLLED_ON, userCourseBatch.get(JsonKey.COURSE_ENROLL_DATE));
+    tempMap.put(JsonKey.COURSE_ID, userCourseBatch.get(JsonKey.COURSE_ID));
+    tempMap.put(JsonKey.BATCH_ID, userCourseBatch.get(JsonKey.BATCH_ID));
+    tempMap.put(JsonKey.PROGRESS, userCourseBatch.get(JsonKey.PROGRESS));
+    tempMap.put(JsonKey.LAST_ACCESSED_ON, userCourseBatch.get(JsonKey.DATE_TIME));
+    return tempMap;
+  }
+
   public static List<Map<String, Object>> getUserOrgDetails(String userId) {
-    List<Map<String, Object>> userOrgList = null;
     List<Map<String, Object>> userOrganisations = new ArrayList<>();
-    try {
-      Map<String, Object> reqMap = new WeakHashMap<>();
-      reqMap.put(JsonKey.USER_ID, userId);
-      reqMap.put(JsonKey.IS_DELETED, false);
-      Util.DbInfo orgUsrDbInfo = Util.dbInfoMap.get(JsonKey.USER_ORG_DB);
-      Response result =
-          cassandraOperation.getRecordsByProperties(
-              orgUsrDbInfo.getKeySpace(), orgUsrDbInfo.getTableName(), reqMap);
-      userOrgList = (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
-      if (CollectionUtils.isNotEmpty(userOrgList)) {
-        List<String> organisationIds =
-            userOrgList
-                .stream()
-                .map(m -> (String) m.get(JsonKey.ORGANISATION_ID))
-                .distinct()
-                .collect(Collectors.toList());
-        List<String> fields = Arrays.asList(JsonKey.ORG_NAME, JsonKey.PARENT_ORG_ID, JsonKey.ID);
-
-        Map<String, Map<String, Object>> orgInfoMap =
-            ElasticSearchUtil.getEsResultByListOfIds(organisationIds, fields, EsType.organisation);
-
-        for (Map<String, Object> userOrg : userOrgList) {
-          Map<String, Object> esOrgMap = orgInfoMap.get(userOrg.get(JsonKey.ORGANISATION_ID));
+    Map<String, Object> reqMap = new WeakHashMap<>();
+    reqMap.put(JsonKey.USER_ID, userId);
+    reqMap.put(JsonKey.IS_DELETED, false);
+    Util.DbInfo orgUsrDbInfo = Util.dbInfoMap.get(JsonKey.USER_ORG_DB);
+    Response result =
+        cassandraOperation.getRecordsByProperties(
+            orgUsrDbInfo.getKeySpace(), orgUsrDbInfo.getTableName(), reqMap);
+    List<Map<String, Object>> userOrgList =
+        (List<Map<String, Object>>) result.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isNotEmpty(userOrgList)) {
+      List<String> organisationIds =
+          userOrgList
+              .stream()
+              .map(m -> (String) m.get(JsonKey.ORGANISATION_ID))
+              .distinct()
+              .collect(Collectors.toList());
+      List<String> fields = Arrays.asList(JsonKey.ORG_NAME, JsonKey.PARENT_ORG_ID, JsonKey.ID);
+
+      Map<String, Map<String, Object>> orgInfoMap =
+          ElasticSearchUtil.getEsResultByListOfIds(organisationIds, fields, EsType.organisation);
+
+      for (Map<String, Object> userOrg : userOrgList) {
+        Map<String, Object> esOrgMap = orgInfoMap.get(userOrg.get(JsonKey.ORGANISATION_ID));
+        if (MapUtils.isNotEmpty(esOrgMap)) {
           esOrgMap.remove(JsonKey.ID);
           userOrg.putAll(esOrgMap);
-          userOrganisations.add(userOrg);
         }
+        userOrganisations.add(userOrg);
       }
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
     }
     return userOrganisations;
   }
 
   public static List<Map<String, Object>> getJobProfileDetails(String userId) {
     Util.DbInfo jobProDbInfo = Util.dbInfoMap.get(JsonKey.JOB_PROFILE_DB);
-    List<Map<String, Object>> userJobProfileList = new ArrayList<>();
-    Response jobProfileResponse;
-    try {
-      ProjectLogger.log("collecting user jobprofile user Id : " + userId);
-      jobProfileResponse =
-          cassandraOperation.getRecordsByIndexedProperty(
-              jobProDbInfo.getKeySpace(), jobProDbInfo.getTableName(), JsonKey.USER_ID, userId);
-      userJobProfileList =
-          (List<Map<String, Object>>) jobProfileResponse.getResult().get(JsonKey.RESPONSE);
-      ProjectLogger.log("collecting user jobprofile collection completed userId : " + userId);
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
+    ProjectLogger.log("collecting user jobprofile user Id : " + userId);
+    Response jobProfileResponse =
+        cassandraOperation.getRecordsByIndexedProperty(
+            jobProDbInfo.getKeySpace(), jobProDbInfo.getTableName(), JsonKey.USER_ID, userId);
+    List<Map<String, Object>> userJobProfileList =
+        (List<Map<String, Object>>) jobProfileResponse.getResult().get(JsonKey.RESPONSE);
+    ProjectLogger.log("collecting user jobprofile collection completed userId : " + userId);
     for (Map<String, Object> jobProfile : userJobProfileList) {
       String addressId = (String) jobProfile.get(JsonKey.ADDRESS_ID);
       if (!StringUtils.isBlank(addressId)) {
@@ -1703,16 +1706,11 @@ public final class Util {
 
   public static List<Map<String, Object>> getUserEducationDetails(String userId) {
     Util.DbInfo eduDbInfo = Util.dbInfoMap.get(JsonKey.EDUCATION_DB);
-    List<Map<String, Object>> userEducationList = new ArrayList<>();
-    Response eduResponse = null;
-    try {
-      eduResponse =
-          cassandraOperation.getRecordsByIndexedProperty(
-              eduDbInfo.getKeySpace(), eduDbInfo.getTableName(), JsonKey.USER_ID, userId);
-      userEducationList = (List<Map<String, Object>>) eduResponse.getResult().get(JsonKey.RESPONSE);
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
+    Response eduResponse =
+        cassandraOperation.getRecordsByIndexedProperty(
+            eduDbInfo.getKeySpace(), eduDbInfo.getTableName(), JsonKey.USER_ID, userId);
+    List<Map<String, Object>> userEducationList =
+        (List<Map<String, Object>>) eduResponse.getResult().get(JsonKey.RESPONSE);
     for (Map<String, Object> eduMap : userEducationList) {
       String addressId = (String) eduMap.get(JsonKey.ADDRESS_ID);
       if (!StringUtils.isBlank(addressId)) {
@@ -1725,25 +1723,21 @@ public final class Util {
 
   public static List<Map<String, Object>> getAddressDetails(String userId, String addressId) {
     Util.DbInfo addrDbInfo = Util.dbInfoMap.get(JsonKey.ADDRESS_DB);
-    List<Map<String, Object>> userAddressList = new ArrayList<>();
     Response addrResponse = null;
-    try {
-      if (StringUtils.isNotBlank(userId)) {
-        ProjectLogger.log("collecting user address operation user Id : " + userId);
-        String encUserId = encryptData(userId);
-        addrResponse =
-            cassandraOperation.getRecordsByIndexedProperty(
-                addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), JsonKey.USER_ID, encUserId);
-      } else {
-        addrResponse =
-            cassandraOperation.getRecordById(
-                addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), addressId);
-      }
-      userAddressList = (List<Map<String, Object>>) addrResponse.getResult().get(JsonKey.RESPONSE);
-      ProjectLogger.log("collecting user address operation completed user Id : " + userId);
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
+    if (StringUtils.isNotBlank(userId)) {
+      ProjectLogger.log("collecting user address operation user Id : " + userId);
+      String encUserId = encryptData(userId);
+      addrResponse =
+          cassandraOperation.getRecordsByIndexedProperty(
+              addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), JsonKey.USER_ID, encUserId);
+    } else {
+      addrResponse =
+          cassandraOperation.getRecordById(
+              addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), addressId);
     }
+    List<Map<String, Object>> userAddressList =
+        (List<Map<String, Object>>) addrResponse.getResult().get(JsonKey.RESPONSE);
+    ProjectLogger.log("collecting user address operation completed user Id : " + userId);
     return userAddressList;
   }
 
@@ -1779,27 +1773,40 @@ public final class Util {
 
   public static Map<String, Object> getUserDetailsFromRegistry(Map<String, Object> userMap) {
     String registryId = (String) userMap.get(JsonKey.REGISTRY_ID);
+    Map<String, Object> reqMap;
+    try {
+      reqMap = readUserDetailsFromRegistry(registryId);
+    } catch (Exception ex) {
+      ProjectLogger.log(
+          "getUserDetailsFromRegistry: Failed to fetch registry details for registryId : "
+              + registryId,
+          ex);
+      return userMap;
+    }
+    if (MapUtils.isNotEmpty(reqMap)) {
+      reqMap.putAll(userMap);
+      return reqMap;
+    }
+    return userMap;
+  }
+
+  /**
+   * Read user details from registry when registry bridge is enabled.
+   *
+   * @param registryId Registry ID of the user
+   * @return User details from registry, empty if registry is not enabled
+   */
+  public static Map<String, Object> readUserDetailsFromRegistry(String registryId) {
+    Map<String, Object> reqMap = new HashMap<>();
     if (StringUtils.isNotBlank(registryId)
         && "true"
             .equalsIgnoreCase(
                 ProjectUtil.getConfigValue(JsonKey.SUNBIRD_OPENSABER_BRIDGE_ENABLE))) {
-      Map<String, Object> reqMap = new HashMap<>();
-      try {
-        UserExtension userExtension = new UserProviderRegistryImpl();
-        reqMap.put(JsonKey.REGISTRY_ID, registryId);
-        reqMap = userExtension.read(reqMap);
-        reqMap.putAll(userMap);
-      } catch (Exception ex) {
-        ProjectLogger.log(
-            "getUserDetailsFromRegistry: Failed to fetch registry details for registryId : "
-                + registryId,
-            ex);
-        reqMap.clear();
-      }
-      return MapUtils.isNotEmpty(reqMap) ? reqMap : userMap;
-    } else {
-      return userMap;
+      UserExtension userExtension = new UserProviderRegistryImpl();
+      reqMap.put(JsonKey.REGISTRY_ID, registryId);
+      reqMap = userExtension.read(reqMap);
     }
+    return null == reqMap ? new HashMap<>() : reqMap;
   }
 
   public static void checkPhoneUniqueness(Map<String, Object> userMap, String opType) {
@@ -10,6 +10,9 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
@@ -27,7 +30,9 @@ import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.models.util.datasecurity.DecryptionService;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.learner.util.Util;
 import org.sunbird.metrics.actors.OrganisationMetricsUtil.ContentStatus;
 
@@ -37,10 +42,13 @@ import org.sunbird.metrics.actors.OrganisationMetricsUtil.ContentStatus;
 )
 public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
 
+  private static final String SEARCH_EXECUTOR = "org_creation_report_search";
+  private static final int SEARCH_POOL_SIZE = 3;
+  private static final int SEARCH_QUEUE_SIZE = 30;
   private static ObjectMapper mapper = new ObjectMapper();
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private Util.DbInfo reportTrackingdbInfo = Util.dbInfoMap.get(JsonKey.REPORT_TRACKING_DB);
-  private static Map<String, String> conceptsList = new HashMap<>();
+  private static Map<String, String> conceptsList = new ConcurrentHashMap<>();
   private DecryptionService decryptionService =
       org.sunbird.common.models.util.datasecurity.impl.ServiceFactory.getDecryptionServiceInstance(
           null);
@@ -91,15 +99,27 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
       headers.add("contentCreationAvgTimePerSession");
       List<List<Object>> csvRecords = new ArrayList<>();
       csvRecords.add(headers);
+      // content of each operation is searched concurrently, the rows keep the operation order
+      ExecutorService executor =
+          ExecutorManager.getExecutor(SEARCH_EXECUTOR, SEARCH_POOL_SIZE, SEARCH_QUEUE_SIZE, true);
+      List<Callable<List<Map<String, Object>>>> tasks = new ArrayList<>();
       for (String operation : OrganisationMetricsUtil.operationList) {
-        String requestStr = getRequestObject(operation, requestId);
-        
-        String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
-        String ekStepResponse = makePostRequest(baseSearchUrl, JsonKey.EKSTEP_CONTENT_SEARCH_URL, requestStr);
-        List<Map<String, Object>> ekstepData = getDataFromResponse(ekStepResponse, headers, orgId);
-        List<Map<String, Object>> userData = getUserDetailsFromES(ekstepData);
-        csvRecords.addAll(generateDataList(userData, headers));
+        tasks.add(
+            () -> {
+              String requestStr = getRequestObject(operation, requestData);
+              String baseSearchUrl =
+                  ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
+              String ekStepResponse =
+                  makePostRequest(baseSearchUrl, JsonKey.EKSTEP_CONTENT_SEARCH_URL, requestStr);
+              return getDataFromResponse(ekStepResponse, headers, orgId);
+            });
       }
+      List<Map<String, Object>> ekstepData = new ArrayList<>();
+      for (List<Map<String, Object>> data : ExecutorManager.invokeAll(executor, tasks)) {
+        ekstepData.addAll(data);
+      }
+      ReportUserLookup userLookup = ReportUserLookup.create(this::getUserDetailsFromES);
+      csvRecords.addAll(generateDataList(userLookup.enrich(ekstepData), headers));
       String period = (String) requestData.get(JsonKey.PERIOD);
       String fileName =
           "CreationReport"
@@ -215,55 +235,39 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
   }
 
   @SuppressWarnings("unchecked")
-  private List<Map<String, Object>> getUserDetailsFromES(List<Map<String, Object>> ekstepData) {
+  private List<Map<String, Object>> getUserDetailsFromES(List<String> userIds) {
     List<String> coursefields = new ArrayList<>();
-    List<Map<String, Object>> userResult = new ArrayList<>();
     coursefields.add(JsonKey.USER_ID);
     coursefields.add(JsonKey.USERNAME);
     coursefields.add(JsonKey.CREATED_DATE);
-    String userId = "";
-    for (Map<String, Object> userData : ekstepData) {
-      Map<String, Object> data = new HashMap<>();
-      if (userData.containsKey("userId")) {
-        userId = (String) userData.get("userId");
-      } else {
-        data.putAll(userData);
-        userResult.add(data);
-        continue;
-      }
-      Map<String, Object> filter = new HashMap<>();
-      filter.put(JsonKey.IDENTIFIER, userId);
-      try {
-        Map<String, Object> result =
-            ElasticSearchUtil.complexSearch(
-                createESRequest(filter, null, coursefields),
-                ProjectUtil.EsIndex.sunbird.getIndexName(),
-                EsType.user.getTypeName());
-        if (null != result && !result.isEmpty()) {
-          List<Map<String, Object>> resultList =
-              (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
-          if (null != resultList && !resultList.isEmpty()) {
-            for (Map<String, Object> dataObject : resultList) {
-              data.putAll(dataObject);
-            }
-          }
-          data.putAll(userData);
-          userResult.add(data);
+    Map<String, Object> filter = new HashMap<>();
+    filter.put(JsonKey.IDENTIFIER, userIds);
+    SearchDTO searchDTO = createESRequest(filter, null, coursefields);
+    searchDTO.setLimit(userIds.size());
+    List<Map<String, Object>> userResult = new ArrayList<>();
+    try {
+      Map<String, Object> result =
+          ElasticSearchUtil.complexSearch(
+              searchDTO, ProjectUtil.EsIndex.sunbird.getIndexName(), EsType.user.getTypeName());
+      if (null != result && !result.isEmpty()) {
+        List<Map<String, Object>> resultList =
+            (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
+        if (null != resultList) {
+          userResult.addAll(resultList);
         }
-      } catch (Exception e) {
-        throw new ProjectCommonException(
-            ResponseCode.esError.getErrorCode(),
-            ResponseCode.esError.getErrorMessage(),
-            ResponseCode.SERVER_ERROR.getResponseCode());
       }
+    } catch (Exception e) {
+      throw new ProjectCommonException(
+          ResponseCode.esError.getErrorCode(),
+          ResponseCode.esError.getErrorMessage(),
+          ResponseCode.SERVER_ERROR.getResponseCode());
     }
     // decrypt the userdata and return
     return decryptionService.decryptData(userResult);
   }
 
-  private String getRequestObject(String operation, String requestId) {
+  private String getRequestObject(String operation, Map<String, Object> requestedData) {
     Request request = new Request();
-    Map<String, Object> requestedData = getData(requestId);
     String orgId = (String) requestedData.get(JsonKey.RESOURCE_ID);
     String periodStr = (String) requestedData.get(JsonKey.PERIOD);
     Map<String, Object> dateMap = getStartAndEndDate(periodStr);
@@ -394,14 +398,17 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
   }
 
   private static String getConcept(String data) {
-    if (null == conceptsList || conceptsList.isEmpty()) {
+    if (conceptsList.isEmpty()) {
       conceptList();
     }
     return conceptsList.get(data);
   }
 
   @SuppressWarnings("unchecked")
-  private static Map<String, String> conceptList() {
+  private static synchronized Map<String, String> conceptList() {
+    if (!conceptsList.isEmpty()) {
+      return conceptsList;
+    }
     List<String> domains = getDomains();
     for (String domain : domains) {
       String url = PropertiesCache.getInstance().getProperty((JsonKey.EKSTEP_CONCEPT_URL));
@@ -0,0 +1,114 @@
+package org.sunbird.metrics.actors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.util.ConfigUtil;
+
+/**
+ * Adds the details of the user referred to by {@code userId} to the rows of a report.
+ *
+ * <p>The distinct user IDs of the rows are searched in chunks of {@code
+ * sunbird_report_user_lookup_chunk_size} instead of one search per row, and joined back to the
+ * rows by ID. One instance is used per report job, users found are kept for the life of the job
+ * so that a user referred to by several parts of the report is searched once.
+ */
+class ReportUserLookup {
+
+  private static final String CHUNK_SIZE = "sunbird_report_user_lookup_chunk_size";
+  private static final int DEFAULT_CHUNK_SIZE = 500;
+
+  private final Function<List<String>, List<Map<String, Object>>> search;
+  private final int chunkSize;
+  private final Map<String, Map<String, Object>> users = new HashMap<>();
+  private int searchCount;
+
+  /**
+   * @param search Returns the users with given IDs, decrypted
+   * @param chunkSize Maximum number of user IDs per search
+   */
+  ReportUserLookup(Function<List<String>, List<Map<String, Object>>> search, int chunkSize) {
+    this.search = search;
+    this.chunkSize = Math.max(chunkSize, 1);
+  }
+
+  /**
+   * @param search Returns the users with given IDs, decrypted
+   * @return Lookup with the configured chunk size
+   */
+  static ReportUserLookup create(Function<List<String>, List<Map<String, Object>>> search) {
+    return new ReportUserLookup(search, ConfigUtil.getInt(CHUNK_SIZE, DEFAULT_CHUNK_SIZE));
+  }
+
+  /**
+   * Join the rows with their users. Rows without user ID are returned as they are, the values of a
+   * row take precedence over the values of its user.
+   *
+   * @param rows Report rows
+   * @return Joined rows, in the order of the rows
+   */
+  List<Map<String, Object>> enrich(List<Map<String, Object>> rows) {
+    Set<String> missingIds = new LinkedHashSet<>();
+    for (Map<String, Object> row : rows) {
+      String userId = (String) row.get(JsonKey.USER_ID);
+      if (StringUtils.isNotBlank(userId) && !users.containsKey(userId)) {
+        missingIds.add(userId);
+      }
+    }
+    load(new ArrayList<>(missingIds));
+
+    List<Map<String, Object>> result = new ArrayList<>(rows.size());
+    for (Map<String, Object> row : rows) {
+      Map<String, Object> data = new HashMap<>();
+      String userId = (String) row.get(JsonKey.USER_ID);
+      if (StringUtils.isNotBlank(userId)) {
+        data.putAll(users.get(userId));
+      }
+      data.putAll(row);
+      result.add(data);
+    }
+    return result;
+  }
+
+  /** @return Number of searches run so far */
+  int getSearchCount() {
+    return searchCount;
+  }
+
+  private void load(List<String> userIds) {
+    for (int from = 0; from < userIds.size(); from += chunkSize) {
+      List<String> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+      searchCount++;
+      for (Map<String, Object> user : search.apply(chunk)) {
+        String userId = (String) user.get(JsonKey.USER_ID);
+        if (StringUtils.isNotBlank(userId)) {
+          users.put(userId, user);
+        }
+      }
+      // users not found are not searched again
+      for (String userId : chunk) {
+        users.putIfAbsent(userId, Collections.emptyMap());
+      }
+    }
+    if (!userIds.isEmpty()) {
+      ProjectLogger.log(
+          "ReportUserLookup:load: Searched "
+              + userIds.size()
+              + " users, "
+              + users.size()
+              + " users cached after "
+              + searchCount
+              + " searches",
+          LoggerEnum.INFO.name());
+    }
+  }
+}
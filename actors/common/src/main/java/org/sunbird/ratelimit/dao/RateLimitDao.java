@@ -20,4 +20,13 @@ public interface RateLimitDao {
    * @return List of rate limits for given key
    */
   List<Map<String, Object>> getRateLimits(String key);
+
+  /**
+   * Sets the count of a rate limit only if its stored count has not changed since it was read
+   *
+   * @param rateLimit Rate limit with the new count
+   * @param expectedCount Stored count read before, null if no rate limit was stored
+   * @return true if the count was set, false if the stored count has changed
+   */
+  boolean compareAndSetRateLimit(RateLimit rateLimit, Integer expectedCount);
 }
@@ -1,5 +1,8 @@
 package org.sunbird.ratelimit.dao;
 
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Update;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -9,6 +12,8 @@ import org.apache.commons.collections.CollectionUtils;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.util.Util;
 import org.sunbird.ratelimit.limiter.RateLimit;
@@ -60,4 +65,35 @@ public class RateLimitDaoImpl implements RateLimitDao {
 
     return (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
   }
+
+  @Override
+  public boolean compareAndSetRateLimit(RateLimit rateLimit, Integer expectedCount) {
+    // lightweight transactions are not exposed by the generic Cassandra operations
+    Map<String, Object> record = rateLimit.getRecord();
+    Statement statement;
+    if (expectedCount == null) {
+      statement =
+          QueryBuilder.insertInto(Util.KEY_SPACE_NAME, TABLE_NAME)
+              .values(
+                  record.keySet().toArray(new String[0]), record.values().toArray(new Object[0]))
+              .ifNotExists()
+              .using(QueryBuilder.ttl(rateLimit.getTTL()));
+    } else {
+      Update update = QueryBuilder.update(Util.KEY_SPACE_NAME, TABLE_NAME);
+      update
+          .with(QueryBuilder.set(JsonKey.COUNT, rateLimit.getCount()))
+          .and(QueryBuilder.set(JsonKey.RATE, rateLimit.getLimit()));
+      update
+          .where(QueryBuilder.eq(JsonKey.KEY, rateLimit.getKey()))
+          .and(QueryBuilder.eq(JsonKey.RATE_LIMIT_UNIT, rateLimit.getUnit()));
+      update.onlyIf(QueryBuilder.eq(JsonKey.COUNT, expectedCount));
+      update.using(QueryBuilder.ttl(rateLimit.getTTL()));
+      statement = update;
+    }
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(Util.KEY_SPACE_NAME)
+        .execute(statement)
+        .wasApplied();
+  }
 }
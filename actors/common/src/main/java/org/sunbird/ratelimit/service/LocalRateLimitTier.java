@@ -0,0 +1,363 @@
+package org.sunbird.ratelimit.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.ShutdownManager;
+import org.sunbird.ratelimit.dao.RateLimitDao;
+import org.sunbird.ratelimit.dao.RateLimitDaoImpl;
+import org.sunbird.ratelimit.limiter.RateLimit;
+import org.sunbird.ratelimit.limiter.RateLimiter;
+
+/**
+ * In-process tier of the rate limiter, enabled with {@code sunbird_rate_limit_local_tier_enabled}.
+ *
+ * <p>Each key has one window per rate limit unit holding the count of the window. A request takes
+ * a token from every window of its key with a compare and set on the count, so allowed requests
+ * neither lock nor wait on Cassandra. The windows of a key are read from Cassandra when the key is
+ * first seen, after that the counts taken locally are added to the stored counts every {@code
+ * sunbird_rate_limit_sync_interval_ms} with a compare and set on the stored count, so that counts
+ * written concurrently by other instances are not overwritten, and the windows are refreshed with
+ * the stored counts, which include the requests of the other instances. Each instance can
+ * therefore go over a limit by at most the requests it allows in one sync interval, which is the
+ * tolerance of the cluster wide limit. Keys without requests for {@code
+ * sunbird_rate_limit_local_idle_ms} are dropped and read again when next seen. Limits are cached
+ * and refreshed on each sync.
+ */
+public class LocalRateLimitTier {
+
+  private static final String LOCAL_TIER_ENABLED = "sunbird_rate_limit_local_tier_enabled";
+  private static final String SYNC_INTERVAL = "sunbird_rate_limit_sync_interval_ms";
+  private static final String IDLE_TIME = "sunbird_rate_limit_local_idle_ms";
+  private static final long DEFAULT_SYNC_INTERVAL = 1000;
+  private static final long DEFAULT_IDLE_TIME = 60000;
+  private static final int MAX_SYNC_ATTEMPTS = 3;
+  private static final String SYNC_EXECUTOR = "rate_limit_sync";
+
+  private static final boolean ENABLED =
+      Boolean.parseBoolean(ProjectUtil.getConfigValue(LOCAL_TIER_ENABLED));
+
+  private static volatile LocalRateLimitTier instance;
+
+  private final RateLimitDao rateLimitDao;
+  private final long idleTime;
+  private final Map<String, KeyWindows> windowsByKey = new ConcurrentHashMap<>();
+  private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+  private final Map<String, Integer> limits = new ConcurrentHashMap<>();
+  private final Object syncLock = new Object();
+
+  /**
+   * @param rateLimitDao DAO of the stored counts
+   * @param syncInterval Interval in milliseconds between syncs, no timed sync if not positive
+   * @param idleTime Time in milliseconds after which a key without requests is dropped
+   */
+  LocalRateLimitTier(RateLimitDao rateLimitDao, long syncInterval, long idleTime) {
+    this.rateLimitDao = rateLimitDao;
+    this.idleTime = idleTime;
+    if (syncInterval > 0) {
+      ExecutorManager.getScheduledExecutor(SYNC_EXECUTOR, 1)
+          .scheduleWithFixedDelay(
+              this::syncQuietly, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** @return true if requests are to be throttled by the local tier, read once */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static LocalRateLimitTier getInstance() {
+    if (instance == null) {
+      synchronized (LocalRateLimitTier.class) {
+        if (instance == null) {
+          LocalRateLimitTier tier =
+              new LocalRateLimitTier(
+                  RateLimitDaoImpl.getInstance(),
+                  ConfigUtil.getLong(SYNC_INTERVAL, DEFAULT_SYNC_INTERVAL),
+                  ConfigUtil.getLong(IDLE_TIME, DEFAULT_IDLE_TIME));
+          ShutdownManager.register("LocalRateLimitTier", tier::syncQuietly);
+          instance = tier;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Take a token from every window of a key.
+   *
+   * @param key Key to throttle
+   * @param limiters Rate limiters applying to the key
+   * @throws ProjectCommonException if a window of the key has no token left
+   */
+  public void throttleByKey(String key, RateLimiter[] limiters) {
+    KeyWindows keyWindows = getKeyWindows(key);
+    keyWindows.lastAccessTime = System.currentTimeMillis();
+    for (RateLimiter limiter : limiters) {
+      int limit = getLimit(limiter);
+      if (limit > 0) {
+        keyWindows.ensureWindow(limiter.name(), limit, limiter.getTTL());
+      }
+    }
+
+    List<Window> acquired = new ArrayList<>();
+    for (Map.Entry<String, Window> entry : keyWindows.windows.entrySet()) {
+      Window window = entry.getValue();
+      if (window.isExpired()) {
+        continue;
+      }
+      if (!window.tryAcquire()) {
+        acquired.forEach(Window::release);
+        ProjectLogger.log(
+            "LocalRateLimitTier:throttleByKey: Rate limit threshold crossed for key = " + key,
+            LoggerEnum.ERROR);
+        throw new ProjectCommonException(
+            ResponseCode.errorRateLimitExceeded.getErrorCode(),
+            ResponseCode.errorRateLimitExceeded.getErrorMessage(),
+            ResponseCode.TOO_MANY_REQUESTS.getResponseCode(),
+            entry.getKey().toLowerCase());
+      }
+      acquired.add(window);
+    }
+  }
+
+  /**
+   * Add the counts taken locally to the stored counts and refresh the windows with the stored
+   * counts. Also refreshes the cached limits and drops idle keys.
+   */
+  void sync() {
+    synchronized (syncLock) {
+      refreshLimits();
+      long now = System.currentTimeMillis();
+      List<String> dirtyKeys = new ArrayList<>();
+      for (Map.Entry<String, KeyWindows> entry : windowsByKey.entrySet()) {
+        KeyWindows keyWindows = entry.getValue();
+        if (keyWindows.hasPending()) {
+          dirtyKeys.add(entry.getKey());
+        } else if (now - keyWindows.lastAccessTime > idleTime) {
+          windowsByKey.remove(entry.getKey(), keyWindows);
+        }
+      }
+      dirtyKeys.forEach(this::syncKey);
+    }
+  }
+
+  private void syncKey(String key) {
+    KeyWindows keyWindows = windowsByKey.get(key);
+    for (Map.Entry<String, Window> entry : keyWindows.windows.entrySet()) {
+      Window window = entry.getValue();
+      int delta = window.pending.getAndSet(0);
+      if (delta <= 0 || window.isExpired()) {
+        // a token released after the previous sync is kept for the next one
+        window.pending.addAndGet(Math.min(delta, 0));
+        continue;
+      }
+      try {
+        if (syncWindow(key, entry.getKey(), window, delta)) {
+          continue;
+        }
+        ProjectLogger.log(
+            "LocalRateLimitTier:syncKey: Stored count changing concurrently for key = " + key,
+            LoggerEnum.WARN.name());
+      } catch (Exception e) {
+        ProjectLogger.log("LocalRateLimitTier:syncKey: Failed to sync key = " + key, e);
+      }
+      window.pending.addAndGet(delta);
+    }
+  }
+
+  /**
+   * Add the count taken locally to the stored count with a compare and set, the stored count is
+   * read again when another instance has written it since it was read.
+   *
+   * @return true if the count was added, false if all attempts lost to concurrent writes
+   */
+  private boolean syncWindow(String key, String unit, Window window, int delta) {
+    for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
+      Map<String, Object> storedRate = getStoredRates(key).get(unit);
+      Integer storedCount = storedRate == null ? null : (Integer) storedRate.get(JsonKey.COUNT);
+      int ttl =
+          storedRate == null
+              ? window.getRemainingTTL()
+              : Math.max((int) storedRate.get(JsonKey.TTL), 1);
+      int newCount = (storedCount == null ? 0 : storedCount) + delta;
+      Map<String, Object> rate = new HashMap<>();
+      rate.put(JsonKey.RATE_LIMIT_UNIT, unit);
+      rate.put(JsonKey.RATE, window.limit);
+      rate.put(JsonKey.COUNT, newCount);
+      rate.put(JsonKey.TTL, ttl);
+      if (rateLimitDao.compareAndSetRateLimit(new RateLimit(key, rate), storedCount)) {
+        window.rebase(newCount, delta);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void syncQuietly() {
+    try {
+      sync();
+    } catch (Exception e) {
+      ProjectLogger.log("LocalRateLimitTier:syncQuietly: Sync failed", e);
+    }
+  }
+
+  private KeyWindows getKeyWindows(String key) {
+    KeyWindows keyWindows = windowsByKey.get(key);
+    if (keyWindows != null) {
+      return keyWindows;
+    }
+    // read outside of the map so that loading a key does not block other keys
+    KeyWindows loaded = new KeyWindows();
+    for (Map<String, Object> storedRate : getStoredRates(key).values()) {
+      RateLimit rateLimit = new RateLimit(key, storedRate);
+      loaded.windows.put(
+          rateLimit.getUnit(),
+          new Window(rateLimit.getLimit(), rateLimit.getCount(), rateLimit.getTTL()));
+    }
+    keyWindows = windowsByKey.putIfAbsent(key, loaded);
+    return keyWindows == null ? loaded : keyWindows;
+  }
+
+  private Map<String, Map<String, Object>> getStoredRates(String key) {
+    Map<String, Map<String, Object>> storedRates = new HashMap<>();
+    List<Map<String, Object>> rates = rateLimitDao.getRateLimits(key);
+    if (CollectionUtils.isNotEmpty(rates)) {
+      for (Map<String, Object> rate : rates) {
+        if (MapUtils.isNotEmpty(rate)) {
+          storedRates.put((String) rate.get(JsonKey.RATE_LIMIT_UNIT), rate);
+        }
+      }
+    }
+    return storedRates;
+  }
+
+  private int getLimit(RateLimiter limiter) {
+    Integer limit = limits.get(limiter.name());
+    if (limit == null) {
+      rateLimiters.putIfAbsent(limiter.name(), limiter);
+      limit = readLimit(limiter);
+      limits.put(limiter.name(), limit);
+    }
+    return limit;
+  }
+
+  private void refreshLimits() {
+    for (RateLimiter limiter : rateLimiters.values()) {
+      int limit = readLimit(limiter);
+      Integer previousLimit = limits.put(limiter.name(), limit);
+      if (previousLimit != null && previousLimit != limit) {
+        ProjectLogger.log(
+            "LocalRateLimitTier:refreshLimits: Limit of "
+                + limiter.name()
+                + " changed from "
+                + previousLimit
+                + " to "
+                + limit,
+            LoggerEnum.INFO.name());
+        for (KeyWindows keyWindows : windowsByKey.values()) {
+          Window window = keyWindows.windows.get(limiter.name());
+          if (window != null) {
+            window.limit = limit;
+          }
+        }
+      }
+    }
+  }
+
+  private static int readLimit(RateLimiter limiter) {
+    Integer limit = limiter.getRateLimit();
+    return limit == null ? 0 : limit;
+  }
+
+  /** Windows of a key by rate limit unit. */
+  private static final class KeyWindows {
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    private void ensureWindow(String unit, int limit, int ttl) {
+      Window window = windows.get(unit);
+      if (window == null) {
+        windows.putIfAbsent(unit, new Window(limit, 0, ttl));
+      } else if (window.isExpired()) {
+        windows.replace(unit, window, new Window(limit, 0, ttl));
+      } else {
+        window.limit = limit;
+      }
+    }
+
+    private boolean hasPending() {
+      return windows.values().stream().anyMatch(window -> window.pending.get() > 0);
+    }
+  }
+
+  /**
+   * Count of a window, the tokens left are the limit minus the count. The count is the last stored
+   * count plus the pending count taken locally since.
+   */
+  private static final class Window {
+    private final AtomicInteger count;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long expiryTime;
+    private volatile int limit;
+    // written by the sync only
+    private volatile int storedCount;
+
+    private Window(int limit, int storedCount, int ttl) {
+      this.limit = limit;
+      this.storedCount = storedCount;
+      this.count = new AtomicInteger(storedCount);
+      this.expiryTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+    }
+
+    private boolean tryAcquire() {
+      while (true) {
+        int current = count.get();
+        if (current >= limit) {
+          return false;
+        }
+        if (count.compareAndSet(current, current + 1)) {
+          pending.incrementAndGet();
+          return true;
+        }
+      }
+    }
+
+    private void release() {
+      count.decrementAndGet();
+      pending.decrementAndGet();
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() >= expiryTime;
+    }
+
+    private int getRemainingTTL() {
+      long remaining = expiryTime - System.currentTimeMillis();
+      return (int) Math.max(TimeUnit.MILLISECONDS.toSeconds(remaining), 1);
+    }
+
+    /**
+     * Take the new stored count, which includes the synced count and other instances' counts. The
+     * count stays the stored count plus the tokens taken locally since the synced count was taken.
+     */
+    private void rebase(int newStoredCount, int synced) {
+      count.addAndGet(newStoredCount - storedCount - synced);
+      storedCount = newStoredCount;
+    }
+  }
+}
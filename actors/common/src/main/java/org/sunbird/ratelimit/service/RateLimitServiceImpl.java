@@ -35,6 +35,10 @@ public class RateLimitServiceImpl implements RateLimitService {
           "RateLimitServiceImpl:throttleByKey: Rate limiter is disabled", LoggerEnum.INFO);
       return;
     }
+    if (LocalRateLimitTier.isEnabled()) {
+      LocalRateLimitTier.getInstance().throttleByKey(key, rateLimiters);
+      return;
+    }
     Map<String, RateLimit> entryByRate = new HashMap<>();
 
     List<Map<String, Object>> ratesByKey = getRatesByKey(key);
@@ -0,0 +1,138 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.ActorOperations;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.request.Request;
+import org.sunbird.telemetry.util.TelemetryUtil;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ElasticSearchUtil.class, TelemetryUtil.class})
+@PowerMockIgnore({"javax.management.*"})
+public class BulkBatchEnrollmentTest {
+
+  private static final String ORG_ID = "org1";
+
+  private final List<Request> backgroundRequests = new ArrayList<>();
+  private final List<String> events = new ArrayList<>();
+  private final List<Map<String, Object>> passedUserList = new ArrayList<>();
+  private final List<Map<String, Object>> failedUserList = new ArrayList<>();
+  private BulkBatchEnrollment enrollment;
+
+  @Before
+  public void setUp() {
+    mockStatic(ElasticSearchUtil.class);
+    mockStatic(TelemetryUtil.class);
+    when(ElasticSearchUtil.bulkInsertData(anyString(), anyString(), Matchers.anyList()))
+        .thenReturn(true);
+    CassandraOperation cassandraOperation = mock(CassandraOperation.class);
+    when(cassandraOperation.getRecordsByProperty(
+            anyString(), anyString(), eq(JsonKey.USER_ID), Matchers.any()))
+        .thenAnswer(invocation -> getUserOrgs((String) invocation.getArguments()[3]));
+    enrollment = new BulkBatchEnrollment(cassandraOperation, backgroundRequests::add, 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testUsersAreEnrolledInChunks() {
+    Map<String, Object> courseBatch = getCourseBatch();
+    enroll(courseBatch, Arrays.asList("user1", "user2", "user3", "other1", "user4"));
+
+    assertEquals(Arrays.asList("before", "after", "before", "after", "before", "after"), events);
+    assertEquals(4, passedUserList.size());
+    assertEquals(1, failedUserList.size());
+    assertTrue(failedUserList.get(0).containsKey("other1"));
+    Map<String, Boolean> participants = (Map<String, Boolean>) courseBatch.get(JsonKey.PARTICIPANT);
+    assertEquals(4, participants.size());
+    assertTrue(participants.get("user4"));
+    verifyStatic(times(3));
+    ElasticSearchUtil.bulkInsertData(anyString(), anyString(), Matchers.anyList());
+    assertEquals(Collections.emptyList(), backgroundRequests);
+  }
+
+  @Test
+  public void testParticipantsAreNotEnrolledAgain() {
+    Map<String, Object> courseBatch = getCourseBatch();
+    Map<String, Boolean> participants = new HashMap<>();
+    participants.put("user1", true);
+    participants.put("user2", true);
+    courseBatch.put(JsonKey.PARTICIPANT, participants);
+    enroll(courseBatch, Arrays.asList("user1", "user2", "user3"));
+
+    assertEquals(3, passedUserList.size());
+    verifyStatic(times(1));
+    ElasticSearchUtil.bulkInsertData(anyString(), anyString(), Matchers.anyList());
+  }
+
+  @Test
+  public void testFailedBulkIndexIsRetriedOneByOne() {
+    when(ElasticSearchUtil.bulkInsertData(anyString(), anyString(), Matchers.anyList()))
+        .thenReturn(false);
+    enroll(getCourseBatch(), Arrays.asList("user1", "user2"));
+
+    assertEquals(2, passedUserList.size());
+    assertEquals(2, backgroundRequests.size());
+    for (Request request : backgroundRequests) {
+      assertEquals(
+          ActorOperations.INSERT_USR_COURSES_INFO_ELASTIC.getValue(), request.getOperation());
+    }
+  }
+
+  private void enroll(Map<String, Object> courseBatch, List<String> userIds) {
+    enrollment.enroll(
+        courseBatch,
+        "batch1",
+        true,
+        userIds,
+        failedUserList,
+        passedUserList,
+        () -> events.add("before"),
+        () -> events.add("after"));
+  }
+
+  private Map<String, Object> getCourseBatch() {
+    Map<String, Object> courseBatch = new HashMap<>();
+    courseBatch.put(JsonKey.COURSE_ID, "course1");
+    courseBatch.put(JsonKey.COURSE_CREATED_FOR, Arrays.asList(ORG_ID));
+    courseBatch.put(JsonKey.COURSE_ADDITIONAL_INFO, new HashMap<String, String>());
+    return courseBatch;
+  }
+
+  private Response getUserOrgs(String userId) {
+    List<Map<String, Object>> userOrgs = new ArrayList<>();
+    if (userId.startsWith("user")) {
+      Map<String, Object> userOrg = new HashMap<>();
+      userOrg.put(JsonKey.USER_ID, userId);
+      userOrg.put(JsonKey.ORGANISATION_ID, ORG_ID);
+      userOrgs.add(userOrg);
+    }
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, userOrgs);
+    return response;
+  }
+}
@@ -0,0 +1,80 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.learner.actors.bulkupload.dao.BulkUploadLeaseDao;
+
+public class BulkUploadJobClaimsTest {
+
+  private static final String OWNER = "node1";
+
+  private BulkUploadLeaseDao leaseDao;
+  private BulkUploadJobClaims claims;
+
+  @Before
+  public void setUp() {
+    leaseDao = mock(BulkUploadLeaseDao.class);
+    when(leaseDao.acquire(anyString(), eq(OWNER), anyInt())).thenReturn(true);
+    when(leaseDao.renew(anyString(), eq(OWNER), anyInt())).thenReturn(true);
+    claims = new BulkUploadJobClaims(leaseDao, OWNER, 300, 2, false);
+  }
+
+  @Test
+  public void testClaimQueuedAtNodeLimit() {
+    List<String> retried = new ArrayList<>();
+    assertTrue(claims.claim("p1", () -> retried.add("p1")));
+    assertTrue(claims.claim("p2", () -> retried.add("p2")));
+    assertFalse(claims.claim("p3", () -> retried.add("p3")));
+
+    claims.release("p1");
+    verify(leaseDao).release("p1", OWNER);
+    assertEquals(Arrays.asList("p3"), retried);
+    assertTrue(claims.claim("p3", () -> retried.add("p3")));
+  }
+
+  @Test
+  public void testClaimRefusedWhenLeasedByAnotherNode() {
+    when(leaseDao.acquire(eq("p1"), eq(OWNER), anyInt())).thenReturn(false);
+
+    assertFalse(claims.claim("p1", () -> fail("Process run by another node is not retried")));
+    claims.release("p2");
+    assertFalse(claims.isClaimed("p1"));
+  }
+
+  @Test
+  public void testHeartbeatDropsLostLease() {
+    claims.claim("p1", () -> {});
+    claims.claim("p2", () -> {});
+    when(leaseDao.renew(eq("p1"), eq(OWNER), anyInt())).thenReturn(false);
+
+    claims.heartbeat();
+
+    assertFalse(claims.isClaimed("p1"));
+    assertTrue(claims.isClaimed("p2"));
+    claims.checkClaimed("p2");
+  }
+
+  @Test(expected = ProjectCommonException.class)
+  public void testCheckClaimedFailsAfterLostLease() {
+    claims.claim("p1", () -> {});
+    when(leaseDao.renew(eq("p1"), eq(OWNER), anyInt())).thenReturn(false);
+
+    claims.heartbeat();
+    claims.checkClaimed("p1");
+  }
+}
@@ -0,0 +1,74 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sunbird.common.models.util.JsonKey;
+
+public class BulkUploadReportWriterTest {
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testFailureRowsWrittenAfterSuccessRows() throws Exception {
+    File reportFile;
+    try (BulkUploadReportWriter writer = getWriter()) {
+      writer.addSuccess(getRow("user1", null));
+      writer.addFailure(getRow("user2", "error"));
+      writer.addSuccess(getRow("user3", null));
+      reportFile = writer.finish();
+
+      List<String> lines = Files.readAllLines(reportFile.toPath(), Charset.defaultCharset());
+      assertEquals(4, lines.size());
+      assertTrue(lines.get(0).contains("User Name"));
+      assertTrue(lines.get(1).contains("user1"));
+      assertTrue(lines.get(2).contains("user3"));
+      assertTrue(lines.get(3).contains("user2"));
+      assertEquals(2L, writer.getMetrics().get("successRows"));
+      assertEquals(1L, writer.getMetrics().get("failureRows"));
+    }
+    assertFalse(reportFile.exists());
+  }
+
+  @Test
+  public void testResultsWrittenAsJsonArrays() throws Exception {
+    try (BulkUploadReportWriter writer = getWriter()) {
+      writer.addSuccess(getRow("user1", null));
+      writer.addSuccess(getRow("user2", null));
+      writer.finish();
+
+      List<Map<String, Object>> successResult =
+          mapper.readValue(writer.getSuccessResult(), List.class);
+      List<Map<String, Object>> failureResult =
+          mapper.readValue(writer.getFailureResult(), List.class);
+      assertEquals(2, successResult.size());
+      assertEquals("user2", successResult.get(1).get(JsonKey.USERNAME));
+      assertEquals(0, failureResult.size());
+    }
+  }
+
+  private BulkUploadReportWriter getWriter() throws Exception {
+    Map<String, String> outputColumnsMap = new HashMap<>();
+    outputColumnsMap.put(JsonKey.USERNAME, "User Name");
+    return new BulkUploadReportWriter(
+        "user", outputColumnsMap, new String[] {JsonKey.USERNAME}, row -> {}, mapper);
+  }
+
+  private Map<String, Object> getRow(String userName, String errorMessage) {
+    Map<String, Object> row = new HashMap<>();
+    row.put(JsonKey.USERNAME, userName);
+    if (errorMessage != null) {
+      row.put(JsonKey.ERROR_MSG, errorMessage);
+    }
+    return row;
+  }
+}
@@ -0,0 +1,59 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcessTask;
+
+public class BulkUploadTaskExecutorTest {
+
+  @Test
+  public void testExecuteProcessesEveryTaskInOrder() {
+    BulkUploadTaskExecutor executor = new BulkUploadTaskExecutor("test", 4);
+    List<BulkUploadProcessTask> tasks = new ArrayList<>();
+    for (int i = 1; i <= 100; i++) {
+      BulkUploadProcessTask task = new BulkUploadProcessTask();
+      task.setSequenceId(i);
+      tasks.add(task);
+    }
+    List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+    executor.execute(
+        tasks,
+        (chunk) -> {
+          for (BulkUploadProcessTask task : (List<BulkUploadProcessTask>) chunk) {
+            task.setStatus(task.getSequenceId());
+            processed.add(task.getSequenceId());
+          }
+          return null;
+        });
+
+    assertEquals(100, processed.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      assertEquals(Integer.valueOf(i + 1), tasks.get(i).getStatus());
+    }
+  }
+
+  @Test
+  public void testExecuteIsSequentialByDefault() {
+    BulkUploadTaskExecutor executor = new BulkUploadTaskExecutor("test");
+
+    assertEquals(1, executor.getParallelism());
+  }
+
+  @Test
+  public void testParallelismReducedWhenTasksSlowDown() {
+    BulkUploadTaskExecutor executor = new BulkUploadTaskExecutor("test", 4);
+    executor.adjustParallelism(10);
+    executor.adjustParallelism(100);
+
+    assertEquals(2, executor.getParallelism());
+
+    executor.adjustParallelism(10);
+
+    assertEquals(3, executor.getParallelism());
+  }
+}
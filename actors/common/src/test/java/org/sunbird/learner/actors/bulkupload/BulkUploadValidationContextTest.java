@@ -0,0 +1,84 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.util.JsonKey;
+
+public class BulkUploadValidationContextTest {
+
+  private final Map<String, Map<String, Object>> users = new HashMap<>();
+  private final List<String> reads = Collections.synchronizedList(new ArrayList<>());
+
+  private final BulkUploadValidationContext context =
+      new BulkUploadValidationContext(
+          mock(CassandraOperation.class),
+          userMap -> {
+            String externalId = (String) userMap.get(JsonKey.EXTERNAL_ID);
+            reads.add(externalId);
+            return users.get(externalId);
+          });
+
+  @Test
+  public void testUserNotFoundIsNotReadAgain() {
+    assertNull(context.getUserByExternalId(getRow("ext1")));
+    assertNull(context.getUserByExternalId(getRow("ext1")));
+
+    assertEquals(Arrays.asList("ext1"), reads);
+  }
+
+  @Test
+  public void testAddedUserIsFoundWithoutRead() {
+    assertNull(context.getUserByExternalId(getRow("ext1")));
+    Map<String, Object> user = getUser("user1");
+    context.addUser("EXT1", "Provider", "Type", user);
+
+    assertSame(user, context.getUserByExternalId(getRow("ext1")));
+    assertEquals(Arrays.asList("ext1"), reads);
+  }
+
+  @Test
+  public void testPreloadedUsersAreNotReadAgain() {
+    Map<String, Object> user = getUser("user1");
+    users.put("ext1", user);
+    context.preloadUsers(Arrays.asList(getRow("ext1"), getRow("ext2")));
+
+    assertSame(user, context.getUserByExternalId(getRow("ext1")));
+    assertNull(context.getUserByExternalId(getRow("ext2")));
+    assertEquals(2, reads.size());
+  }
+
+  @Test
+  public void testRowWithUserNameIsAlwaysRead() {
+    Map<String, Object> row = getRow("ext1");
+    row.put(JsonKey.USERNAME, "name1");
+    context.getUserByExternalId(row);
+    context.getUserByExternalId(row);
+
+    assertEquals(Arrays.asList("ext1", "ext1"), reads);
+  }
+
+  private Map<String, Object> getRow(String externalId) {
+    Map<String, Object> row = new HashMap<>();
+    row.put(JsonKey.EXTERNAL_ID, externalId);
+    row.put(JsonKey.EXTERNAL_ID_PROVIDER, "provider");
+    row.put(JsonKey.EXTERNAL_ID_TYPE, "type");
+    return row;
+  }
+
+  private Map<String, Object> getUser(String id) {
+    Map<String, Object> user = new HashMap<>();
+    user.put(JsonKey.ID, id);
+    return user;
+  }
+}
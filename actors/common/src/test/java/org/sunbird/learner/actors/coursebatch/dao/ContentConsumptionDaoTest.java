@@ -0,0 +1,81 @@
+package org.sunbird.learner.actors.coursebatch.dao;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.coursebatch.dao.impl.ContentConsumptionDaoImpl;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ServiceFactory.class})
+@PowerMockIgnore("javax.management.*")
+public class ContentConsumptionDaoTest {
+  private CassandraOperation cassandraOperation;
+  private ContentConsumptionDao contentConsumptionDao;
+
+  @Before
+  public void beforeEachTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    cassandraOperation = mock(CassandraOperationImpl.class);
+    when(ServiceFactory.getInstance()).thenReturn(cassandraOperation);
+    contentConsumptionDao = new ContentConsumptionDaoImpl();
+  }
+
+  @Test
+  public void readByIdsSuccess() {
+    Response readResponse = new Response();
+    readResponse.put(JsonKey.RESPONSE, Arrays.asList(getContent("id1"), getContent("id2")));
+    when(cassandraOperation.getRecordsByProperty(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyList()))
+        .thenReturn(readResponse);
+    Map<String, Map<String, Object>> contents =
+        contentConsumptionDao.readByIds(Arrays.asList("id1", "id2", "id3"));
+    Assert.assertEquals(2, contents.size());
+    Assert.assertEquals("id2", contents.get("id2").get(JsonKey.ID));
+  }
+
+  @Test
+  public void readByIdsWithoutIds() {
+    List<String> ids = Collections.emptyList();
+    Map<String, Map<String, Object>> contents = contentConsumptionDao.readByIds(ids);
+    Assert.assertTrue(contents.isEmpty());
+    Mockito.verifyZeroInteractions(cassandraOperation);
+  }
+
+  @Test
+  public void readByUserIdSuccess() {
+    Response readResponse = new Response();
+    readResponse.put(JsonKey.RESPONSE, Arrays.asList(getContent("id1")));
+    when(cassandraOperation.getRecordsByProperties(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(readResponse);
+    List<Map<String, Object>> contents =
+        contentConsumptionDao.readByUserId(
+            "user1", JsonKey.COURSE_ID, Arrays.asList("course1", "course2", "course1"));
+    Assert.assertEquals(2, contents.size());
+  }
+
+  private Map<String, Object> getContent(String id) {
+    Map<String, Object> content = new HashMap<>();
+    content.put(JsonKey.ID, id);
+    return content;
+  }
+}
@@ -0,0 +1,123 @@
+package org.sunbird.learner.actors.coursebatch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectUtil;
+
+public class ContentProgressBufferTest {
+
+  private final List<List<Map<String, Object>>> writes = new ArrayList<>();
+  private final Set<String> failedIds = new HashSet<>();
+  private final Set<String> invalidIds = new HashSet<>();
+
+  private final ContentProgressBuffer buffer =
+      new ContentProgressBuffer(
+          0,
+          100,
+          2,
+          contents -> {
+            for (Map<String, Object> content : contents) {
+              if (invalidIds.contains(content.get(JsonKey.ID))) {
+                throw new IllegalStateException("Invalid content");
+              }
+            }
+            writes.add(contents);
+            Set<String> failed = new HashSet<>(failedIds);
+            failedIds.clear();
+            return failed;
+          });
+
+  @Test
+  public void testUpdatesOfSameContentAreMerged() throws Exception {
+    String earlier = ProjectUtil.getDateFormatter().format(new Date(1000000));
+    String later = ProjectUtil.getDateFormatter().format(new Date());
+    buffer.add(getContent("id1", 1, 50, later));
+    buffer.add(getContent("id1", 2, 20, earlier));
+    buffer.add(getContent("id2", 1, 10, later));
+    buffer.flush();
+
+    assertEquals(1, writes.size());
+    assertEquals(2, writes.get(0).size());
+    Map<String, Object> content = getWritten("id1");
+    assertEquals(new BigInteger("2"), content.get(JsonKey.STATUS));
+    assertEquals(new BigInteger("50"), content.get(JsonKey.CONTENT_PROGRESS));
+    assertEquals(later, content.get(JsonKey.LAST_ACCESS_TIME));
+    assertEquals(1L, buffer.getMetrics().get("coalesced"));
+  }
+
+  @Test
+  public void testFailedContentIsWrittenInNextFlush() throws Exception {
+    buffer.add(getContent("id1", 1, 50, ProjectUtil.getFormattedDate()));
+    failedIds.add("id1");
+    buffer.flush();
+
+    assertEquals(1, buffer.getMetrics().get("pending"));
+    buffer.flush();
+    assertEquals(2, writes.size());
+    assertEquals(0, buffer.getMetrics().get("pending"));
+    assertEquals(1L, buffer.getMetrics().get("flushedContents"));
+  }
+
+  @Test
+  public void testFailingContentDoesNotBlockOthersAndIsDropped() throws Exception {
+    buffer.add(getContent("id1", 1, 50, ProjectUtil.getFormattedDate()));
+    buffer.add(getContent("id2", 1, 50, ProjectUtil.getFormattedDate()));
+    invalidIds.add("id1");
+    buffer.flush();
+
+    assertEquals(1, writes.size());
+    assertEquals("id2", writes.get(0).get(0).get(JsonKey.ID));
+    assertEquals(1, buffer.getMetrics().get("pending"));
+    buffer.flush();
+    assertEquals(0, buffer.getMetrics().get("pending"));
+    assertEquals(1L, buffer.getMetrics().get("droppedContents"));
+  }
+
+  @Test
+  public void testContentAddedAfterShutdownIsRefused() throws Exception {
+    buffer.add(getContent("id1", 1, 50, ProjectUtil.getFormattedDate()));
+    buffer.shutdown();
+
+    assertFalse(buffer.add(getContent("id2", 1, 50, ProjectUtil.getFormattedDate())));
+    assertEquals(1, writes.size());
+    assertEquals(0, buffer.getMetrics().get("pending"));
+  }
+
+  @Test
+  public void testFlushWithoutPendingContentDoesNotWrite() {
+    buffer.flush();
+
+    assertEquals(Collections.emptyList(), writes);
+  }
+
+  private Map<String, Object> getWritten(String id) {
+    for (Map<String, Object> content : writes.get(writes.size() - 1)) {
+      if (id.equals(content.get(JsonKey.ID))) {
+        return content;
+      }
+    }
+    return null;
+  }
+
+  private Map<String, Object> getContent(String id, int status, int progress, String accessTime) {
+    Map<String, Object> content = new HashMap<>();
+    content.put(JsonKey.ID, id);
+    content.put(JsonKey.USER_ID, "user1");
+    content.put(JsonKey.STATUS, BigInteger.valueOf(status));
+    content.put(JsonKey.CONTENT_PROGRESS, BigInteger.valueOf(progress));
+    content.put(JsonKey.LAST_ACCESS_TIME, accessTime);
+    return content;
+  }
+}
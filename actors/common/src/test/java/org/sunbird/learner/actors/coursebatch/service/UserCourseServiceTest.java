@@ -3,7 +3,9 @@ package org.sunbird.learner.actors.coursebatch.service;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,6 +18,7 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 import org.sunbird.cassandraimpl.CassandraOperationImpl;
 import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
@@ -144,4 +147,20 @@ public class UserCourseServiceTest {
         .thenReturn(null);
     Assert.assertEquals(null, userCoursesService.getActiveUserCourses(JsonKey.USER_ID));
   }
+
+  @Test
+  public void getEnrolledUsersFromBatchesTest() {
+    Whitebox.setInternalState(userCoursesService, "userCourseDao", userCoursesDao);
+    when(ProjectUtil.getConfigValue("sunbird_batch_participants_limit")).thenReturn("1");
+    when(userCoursesDao.getAllActiveUserOfBatch("batch1"))
+        .thenReturn(Arrays.asList("user1", "user2"));
+    when(userCoursesDao.getAllActiveUserOfBatch("batch2")).thenReturn(null);
+    Map<String, List<String>> participants = new HashMap<>();
+    userCoursesService.getEnrolledUsersFromBatches(
+        Arrays.asList("batch1", "batch2", "batch1"), participants::put);
+    Assert.assertEquals(2, participants.size());
+    Assert.assertEquals(Arrays.asList("user1"), participants.get("batch1"));
+    Assert.assertNull(participants.get("batch2"));
+    Mockito.verify(userCoursesDao, Mockito.times(1)).getAllActiveUserOfBatch("batch1");
+  }
 }
@@ -0,0 +1,66 @@
+package org.sunbird.learner.actors.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.actorutil.org.OrganisationClient;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.datasecurity.DecryptionService;
+import org.sunbird.models.organisation.Organisation;
+
+public class UserSearchResultProcessorTest {
+
+  private ExecutorService executor;
+  private OrganisationClient orgClient;
+  private UserSearchResultProcessor processor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    orgClient = mock(OrganisationClient.class);
+    processor =
+        new UserSearchResultProcessor(
+            executor, 2, mock(DecryptionService.class), orgClient, 300, 100);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGetOrgsSearchesOnlyOrgsNotCached() {
+    when(orgClient.esSearchOrgByIds(anyList(), anyList()))
+        .thenReturn(Collections.singletonList(getOrg("org1")))
+        .thenReturn(Collections.singletonList(getOrg("org2")));
+
+    processor.getOrgs(Collections.singletonList("org1"));
+    Map<String, Organisation> orgs = processor.getOrgs(Arrays.asList("org1", "org2"));
+
+    assertEquals(2, orgs.size());
+    assertTrue(orgs.containsKey("org1"));
+    verify(orgClient, times(1))
+        .esSearchOrgByIds(
+            Collections.singletonList("org2"), Arrays.asList(JsonKey.ID, JsonKey.ORG_NAME));
+  }
+
+  private Organisation getOrg(String id) {
+    Organisation org = new Organisation();
+    org.setId(id);
+    org.setOrgName("name of " + id);
+    return org;
+  }
+}
@@ -0,0 +1,125 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import com.datastax.driver.core.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.CassandraConnectionManager;
+import org.sunbird.learner.actors.syncjobmanager.dao.EsSyncCheckpointDao;
+import org.sunbird.learner.util.Util;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ElasticSearchUtil.class})
+@PowerMockIgnore({"javax.management.*"})
+public class EsStreamingSyncTest {
+
+  private static final String OBJECT_TYPE = "organisation";
+  private static final String ES_TYPE = "org";
+
+  private EsSyncCheckpointDao checkpointDao;
+  private List<String> readPagingStates;
+  private LinkedList<EsStreamingSync.Page> pages;
+  private EsStreamingSync streamingSync;
+
+  @Before
+  public void setUp() {
+    mockStatic(ElasticSearchUtil.class);
+    when(ElasticSearchUtil.bulkInsertData(anyString(), eq(ES_TYPE), Matchers.anyList()))
+        .thenReturn(true);
+    checkpointDao = mock(EsSyncCheckpointDao.class);
+    CassandraConnectionManager connectionManager = mock(CassandraConnectionManager.class);
+    readPagingStates = new ArrayList<>();
+    pages = new LinkedList<>();
+    streamingSync =
+        new EsStreamingSync(checkpointDao, connectionManager) {
+          @Override
+          Page readPage(Session session, Util.DbInfo dbInfo, String pagingState, int pageSize) {
+            readPagingStates.add(pagingState);
+            return pages.poll();
+          }
+        };
+  }
+
+  @Test
+  public void testSyncWritesEachPageAndDeletesCheckpointWhenDone() {
+    pages.add(page(2, "page2"));
+    pages.add(page(1, null));
+
+    assertEquals(3, sync());
+
+    assertEquals(Arrays.asList(null, "page2"), readPagingStates);
+    verify(checkpointDao).save(OBJECT_TYPE, "page2", 2);
+    verify(checkpointDao).delete(OBJECT_TYPE);
+  }
+
+  @Test
+  public void testSyncResumesFromCheckpoint() {
+    Map<String, Object> checkpoint = new HashMap<>();
+    checkpoint.put(JsonKey.DATA, "page2");
+    checkpoint.put(JsonKey.COUNT, 2);
+    when(checkpointDao.read(OBJECT_TYPE)).thenReturn(checkpoint);
+    pages.add(page(1, null));
+
+    assertEquals(1, sync());
+
+    assertEquals(Collections.singletonList("page2"), readPagingStates);
+    verify(checkpointDao).delete(OBJECT_TYPE);
+  }
+
+  @Test
+  public void testSyncKeepsCheckpointOfLastWrittenPageWhenBulkInsertFails() {
+    pages.add(page(2, "page2"));
+    pages.add(page(1, null));
+    when(ElasticSearchUtil.bulkInsertData(anyString(), eq(ES_TYPE), Matchers.anyList()))
+        .thenReturn(true)
+        .thenReturn(false);
+
+    try {
+      sync();
+      fail("Sync must fail when a bulk insert is not done");
+    } catch (ProjectCommonException e) {
+      verify(checkpointDao).save(OBJECT_TYPE, "page2", 2);
+      verify(checkpointDao, never()).save(eq(OBJECT_TYPE), eq((String) null), anyInt());
+      verify(checkpointDao, never()).delete(OBJECT_TYPE);
+    }
+  }
+
+  private int sync() {
+    return streamingSync.sync(OBJECT_TYPE, mock(Util.DbInfo.class), ES_TYPE, row -> row);
+  }
+
+  private static EsStreamingSync.Page page(int size, String nextPagingState) {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Map<String, Object> row = new HashMap<>();
+      row.put(JsonKey.ID, "id" + i);
+      rows.add(row);
+    }
+    return new EsStreamingSync.Page(rows, nextPagingState);
+  }
+}
@@ -0,0 +1,58 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+  @Test
+  public void testCircuitOpensAfterConsecutiveFailures() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(3, 60000);
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordFailure();
+    assertTrue(circuitBreaker.allowRequest());
+    circuitBreaker.recordFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  public void testSuccessResetsFailureCount() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(2, 60000);
+    circuitBreaker.recordFailure();
+    circuitBreaker.recordSuccess();
+    circuitBreaker.recordFailure();
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenAllowsSingleTrialCall() throws InterruptedException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+    circuitBreaker.recordFailure();
+    Thread.sleep(100);
+
+    assertTrue(circuitBreaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.allowRequest());
+
+    circuitBreaker.recordSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void testFailedTrialCallReopensCircuit() throws InterruptedException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+    circuitBreaker.recordFailure();
+    Thread.sleep(100);
+    assertTrue(circuitBreaker.allowRequest());
+    circuitBreaker.recordFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.allowRequest());
+  }
+}
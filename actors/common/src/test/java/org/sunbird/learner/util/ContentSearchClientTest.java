@@ -0,0 +1,73 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sunbird.common.models.util.JsonKey;
+
+public class ContentSearchClientTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testParseReadsResultAndParams() throws IOException {
+    Map<String, Object> result =
+        parse(
+            "{\"id\":\"api.content.search\",\"ver\":\"1.0\",\"params\":{\"resmsgid\":\"msg1\","
+                + "\"status\":\"successful\"},\"responseCode\":\"OK\",\"result\":{\"count\":1,"
+                + "\"content\":[{\"identifier\":\"do_1\"}]}}");
+
+    assertEquals(1, result.get("count"));
+    assertFalse(result.containsKey(JsonKey.CONTENT));
+    List<Map<String, Object>> contents = (List<Map<String, Object>>) result.get(JsonKey.CONTENTS);
+    assertEquals(Arrays.asList(Collections.singletonMap("identifier", "do_1")), contents);
+    Map<String, Object> params = (Map<String, Object>) result.get(JsonKey.PARAMS);
+    assertEquals("api.content.search", params.get(JsonKey.API_ID));
+    assertEquals("msg1", params.get(JsonKey.RES_MSG_ID));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testParseWithoutContentAndCount() throws IOException {
+    Map<String, Object> result = parse("{\"params\":{},\"result\":{}}");
+
+    assertTrue(result.containsKey(JsonKey.CONTENTS));
+    assertNull(result.get(JsonKey.CONTENTS));
+    assertFalse(result.containsKey("count"));
+    Map<String, Object> params = (Map<String, Object>) result.get(JsonKey.PARAMS);
+    assertNull(params.get(JsonKey.API_ID));
+    assertNull(params.get(JsonKey.RES_MSG_ID));
+  }
+
+  @Test
+  public void testParseWithoutResult() throws IOException {
+    assertNull(parse("{\"id\":\"api.content.search\",\"result\":null}"));
+    assertNull(parse("{\"id\":\"api.content.search\"}"));
+  }
+
+  @Test
+  public void testParseEmptyOrNonObjectBody() throws IOException {
+    assertNull(parse(""));
+    assertNull(parse("[]"));
+  }
+
+  @Test(expected = JsonProcessingException.class)
+  public void testParseMalformedBody() throws IOException {
+    parse("{\"id\":\"api.content.search\",\"result\":{\"count\":");
+  }
+
+  private static Map<String, Object> parse(String body) throws IOException {
+    return ContentSearchClient.parse(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,141 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.request.ExecutionContext;
+import org.sunbird.common.responsecode.ResponseCode;
+
+public class ExecutorManagerTest {
+
+  @Test
+  public void testSamePoolReturnedForName() {
+    ExecutorService first = ExecutorManager.getExecutor("test_same_pool", 1, 1, false);
+    ExecutorService second = ExecutorManager.getExecutor("test_same_pool", 4, 4, false);
+
+    assertSame(first, second);
+  }
+
+  @Test
+  public void testSaturatedPoolRejectsTask() throws Exception {
+    ExecutorService executor = ExecutorManager.getExecutor("test_reject_pool", 1, 1, false);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          started.countDown();
+          await(release);
+        });
+    started.await(5, TimeUnit.SECONDS);
+    executor.execute(() -> {});
+    boolean rejected = false;
+    try {
+      executor.execute(() -> {});
+    } catch (RejectedExecutionException e) {
+      rejected = true;
+    }
+    release.countDown();
+
+    assertTrue(rejected);
+    Map<String, Object> metrics = getMetrics("test_reject_pool");
+    assertEquals(1L, metrics.get("rejectedTasks"));
+  }
+
+  @Test
+  public void testSaturatedPoolRunsTaskOnCaller() throws Exception {
+    ExecutorService executor = ExecutorManager.getExecutor("test_caller_runs_pool", 1, 1, true);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          started.countDown();
+          await(release);
+        });
+    started.await(5, TimeUnit.SECONDS);
+    executor.execute(() -> {});
+    Thread[] runner = new Thread[1];
+    executor.execute(() -> runner[0] = Thread.currentThread());
+    release.countDown();
+
+    assertSame(Thread.currentThread(), runner[0]);
+    assertEquals(1L, getMetrics("test_caller_runs_pool").get("rejectedTasks"));
+  }
+
+  @Test
+  public void testInvokeAllReturnsResultsInTaskOrder() {
+    ExecutorService executor = ExecutorManager.getExecutor("test_invoke_all_pool", 2, 4, true);
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      int value = i;
+      tasks.add(() -> value);
+    }
+
+    assertEquals(Arrays.asList(0, 1, 2, 3), ExecutorManager.invokeAll(executor, tasks));
+  }
+
+  @Test
+  public void testInvokeAllCopiesRequestContext() {
+    ExecutorService executor = ExecutorManager.getExecutor("test_invoke_all_pool", 2, 4, true);
+    Map<String, Object> requestContext = new HashMap<>();
+    requestContext.put(JsonKey.REQUEST_ID, "request1");
+    ExecutionContext.getCurrent().setRequestContext(requestContext);
+    List<Callable<Object>> tasks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      tasks.add(() -> ExecutionContext.getCurrent().getRequestContext().get(JsonKey.REQUEST_ID));
+    }
+
+    assertEquals(
+        Arrays.asList("request1", "request1", "request1", "request1"),
+        ExecutorManager.invokeAll(executor, tasks));
+  }
+
+  @Test
+  public void testInvokeAllWrapsCheckedFailure() {
+    ExecutorService executor = ExecutorManager.getExecutor("test_invoke_all_pool", 2, 4, true);
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    tasks.add(() -> 1);
+    tasks.add(
+        () -> {
+          throw new IOException("failed");
+        });
+    try {
+      ExecutorManager.invokeAll(executor, tasks);
+      fail();
+    } catch (ProjectCommonException e) {
+      assertEquals(ResponseCode.SERVER_ERROR.getResponseCode(), e.getResponseCode());
+    }
+  }
+
+  private Map<String, Object> getMetrics(String name) {
+    for (Map<String, Object> metrics : ExecutorManager.getMetrics()) {
+      if (name.equals(metrics.get("name"))) {
+        return metrics;
+      }
+    }
+    return null;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import akka.dispatch.Futures;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sunbird.common.models.util.JsonKey;
+import scala.concurrent.Future;
+import scala.concurrent.Promise;
+
+public class SectionSearchCacheTest {
+
+  @Test
+  public void testKeyIgnoresOrderOfFilterValues() throws Exception {
+    SectionSearchCache cache = new SectionSearchCache(30, 10);
+    String key1 = cache.getKey(null, getQuery("Course", "Resource"), null);
+    String key2 = cache.getKey(null, getQuery("Resource", "Course"), null);
+    String key3 = cache.getKey(null, getQuery("Course", "Collection"), null);
+
+    assertEquals(key1, key2);
+    assertNotEquals(key1, key3);
+  }
+
+  @Test
+  public void testKeyDependsOnChannelHeaderOnly() throws Exception {
+    SectionSearchCache cache = new SectionSearchCache(30, 10);
+    String key1 =
+        cache.getKey(null, getQuery("Course"), getHeaders("channel1", "request1", "token1"));
+    String key2 =
+        cache.getKey(null, getQuery("Course"), getHeaders("channel1", "request2", "token2"));
+    String key3 =
+        cache.getKey(null, getQuery("Course"), getHeaders("channel2", "request1", "token1"));
+
+    assertEquals(key1, key2);
+    assertNotEquals(key1, key3);
+  }
+
+  @Test
+  public void testIdenticalSearchesInFlightAreCoalesced() {
+    SectionSearchCache cache = new SectionSearchCache(30, 10);
+    AtomicInteger searchCount = new AtomicInteger();
+    Promise<Map<String, Object>> promise = Futures.promise();
+
+    Future<Map<String, Object>> first =
+        cache.get(
+            null,
+            getQuery("Course"),
+            null,
+            () -> {
+              searchCount.incrementAndGet();
+              return promise.future();
+            });
+    Future<Map<String, Object>> second =
+        cache.get(
+            null,
+            getQuery("Course"),
+            null,
+            () -> {
+              searchCount.incrementAndGet();
+              return promise.future();
+            });
+
+    assertSame(first, second);
+    assertEquals(1, searchCount.get());
+    assertEquals(1L, cache.getMetrics().get("coalesced"));
+  }
+
+  private Map<String, String> getHeaders(String channel, String requestId, String userToken) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("X-Channel-Id", channel);
+    headers.put("X-Request-ID", requestId);
+    headers.put("x-authenticated-user-token", userToken);
+    return headers;
+  }
+
+  private Map<String, Object> getQuery(String... contentTypes) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put("contentType", Arrays.asList(contentTypes));
+    Map<String, Object> request = new HashMap<>();
+    request.put(JsonKey.FILTERS, filters);
+    request.put(JsonKey.LIMIT, 10);
+    Map<String, Object> query = new HashMap<>();
+    query.put(JsonKey.REQUEST, request);
+    return query;
+  }
+}
@@ -0,0 +1,75 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class SnapshotCacheTest {
+
+  @Test
+  public void testPublishReplacesEntriesAndEvictsRemovedKeys() {
+    SnapshotCache<String> cache = new SnapshotCache<>("test");
+    Map<String, String> first = new HashMap<>();
+    first.put("a", "1");
+    first.put("b", "2");
+    cache.publish(first);
+    Map<String, String> old = cache.asMap();
+    Map<String, String> second = new HashMap<>();
+    second.put("a", "3");
+    cache.publish(second);
+    assertEquals("3", cache.asMap().get("a"));
+    assertNull(cache.asMap().get("b"));
+    assertEquals("2", old.get("b"));
+    assertEquals(2, cache.snapshot().getVersion());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSnapshotIsReadOnly() {
+    SnapshotCache<String> cache = new SnapshotCache<>("test");
+    cache.asMap().put("a", "1");
+  }
+
+  @Test
+  public void testCompareAndPublishFailsAfterConcurrentWrite() {
+    SnapshotCache<String> cache = new SnapshotCache<>("test");
+    SnapshotCache.Snapshot<String> base = cache.snapshot();
+    cache.put("a", "1");
+    assertFalse(
+        cache.compareAndPublish(base, new HashMap<>(), new HashMap<>(), new HashMap<>()));
+    assertEquals("1", cache.asMap().get("a"));
+    assertTrue(
+        cache.compareAndPublish(
+            cache.snapshot(), new HashMap<>(), new HashMap<>(), new HashMap<>()));
+    assertNull(cache.asMap().get("a"));
+  }
+
+  @Test
+  public void testHitAndMissMetrics() {
+    SnapshotCache<String> cache = new SnapshotCache<>("test");
+    cache.put("a", "1");
+    cache.asMap().get("a");
+    cache.asMap().get("b");
+    cache.recordRefresh(5);
+    Map<String, Object> metrics = cache.getMetrics();
+    assertEquals(1L, metrics.get("hits"));
+    assertEquals(1L, metrics.get("misses"));
+    assertEquals(1L, metrics.get("refreshCount"));
+    assertEquals(5L, metrics.get("lastRefreshDuration"));
+  }
+
+  @Test
+  public void testRawEntriesDoNotCountLookups() {
+    SnapshotCache<String> cache = new SnapshotCache<>("test");
+    cache.put("a", "1");
+    assertEquals("1", cache.snapshot().getRawEntries().get("a"));
+    assertNull(cache.snapshot().getRawEntries().get("b"));
+    Map<String, Object> metrics = cache.getMetrics();
+    assertEquals(0L, metrics.get("hits"));
+    assertEquals(0L, metrics.get("misses"));
+  }
+}
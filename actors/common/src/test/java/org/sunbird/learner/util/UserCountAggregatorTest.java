@@ -0,0 +1,127 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+
+public class UserCountAggregatorTest {
+
+  private static final String KEY_SPACE = "sunbird";
+  private static final String TABLE = "course_management";
+  private static final String ID = "courseId";
+
+  private final List<String> writes = new ArrayList<>();
+  private final Deque<Boolean> applied = new ArrayDeque<>();
+  private CassandraOperation cassandraOperation;
+  private UserCountAggregator aggregator;
+
+  @Before
+  public void setUp() {
+    cassandraOperation = mock(CassandraOperation.class);
+    when(cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            anyString(), anyString(), anyList(), anyList()))
+        .thenReturn(getCountResponse(5));
+    aggregator =
+        new UserCountAggregator(cassandraOperation, KEY_SPACE, TABLE, 0) {
+          @Override
+          boolean compareAndSetCount(String id, int count, Integer expectedCount) {
+            writes.add(expectedCount + "->" + count);
+            return applied.isEmpty() || applied.poll();
+          }
+        };
+  }
+
+  @Test
+  public void testFlushWritesIncrementsOnce() {
+    for (int i = 0; i < 3; i++) {
+      aggregator.increment(ID);
+    }
+    aggregator.flush();
+    aggregator.flush();
+
+    assertEquals(Arrays.asList("5->8"), writes);
+    verify(cassandraOperation, never()).updateRecord(anyString(), anyString(), anyMap());
+  }
+
+  @Test
+  public void testFlushRereadsCountChangedConcurrently() {
+    when(cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            anyString(), anyString(), anyList(), anyList()))
+        .thenReturn(getCountResponse(5), getCountResponse(7));
+    applied.add(false);
+    aggregator.add(ID, 2);
+    aggregator.flush();
+    aggregator.flush();
+
+    assertEquals(Arrays.asList("5->7", "7->9"), writes);
+  }
+
+  @Test
+  public void testFlushKeepsIncrementsOfCountChangingOnEveryAttempt() {
+    for (int i = 0; i < 3; i++) {
+      applied.add(false);
+    }
+    aggregator.increment(ID);
+    aggregator.flush();
+    assertEquals(3, writes.size());
+
+    aggregator.flush();
+    assertEquals(4, writes.size());
+    assertEquals("5->6", writes.get(3));
+  }
+
+  @Test
+  public void testReconcileReplacesPendingIncrements() {
+    aggregator.increment(ID);
+    aggregator.reconcile(ID, 10, null);
+    aggregator.flush();
+
+    verify(cassandraOperation, times(1)).updateRecord(anyString(), anyString(), anyMap());
+    verify(cassandraOperation, never())
+        .getRecordsByIdsWithSpecifiedColumns(anyString(), anyString(), anyList(), anyList());
+  }
+
+  @Test
+  public void testFlushDropsCountersWritten() {
+    aggregator.increment(ID);
+    aggregator.flush();
+    assertEquals(1, aggregator.getCounterCount());
+
+    aggregator.flush();
+    assertEquals(0, aggregator.getCounterCount());
+
+    aggregator.increment(ID);
+    aggregator.flush();
+    assertEquals(2, writes.size());
+  }
+
+  private static Response getCountResponse(int count) {
+    Map<String, Object> record = new HashMap<>();
+    record.put(JsonKey.ID, ID);
+    record.put(JsonKey.USER_COUNT, count);
+    List<Map<String, Object>> records = new ArrayList<>();
+    records.add(record);
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, records);
+    return response;
+  }
+}
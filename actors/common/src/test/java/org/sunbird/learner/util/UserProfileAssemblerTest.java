@@ -0,0 +1,100 @@
+package org.sunbird.learner.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UserProfileAssemblerTest {
+
+  private ExecutorService executor;
+  private CountDownLatch neverReleased;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    neverReleased = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testFetchRunsSourcesConcurrently() {
+    UserProfileAssembler assembler = new UserProfileAssembler(executor, 10000);
+    // each source completes only once all sources are running
+    CountDownLatch started = new CountDownLatch(4);
+    Map<String, Callable<Object>> sources = new LinkedHashMap<>();
+    for (int i = 0; i < 4; i++) {
+      String name = "source" + i;
+      sources.put(
+          name,
+          () -> {
+            started.countDown();
+            started.await();
+            return Arrays.asList(name);
+          });
+    }
+    Set<String> degraded = new HashSet<>();
+    Map<String, Object> results = assembler.fetch("userId", sources, degraded);
+
+    assertEquals(4, results.size());
+    assertEquals(Arrays.asList("source2"), results.get("source2"));
+    assertTrue(degraded.isEmpty());
+    assertEquals(0, assembler.getDegradedCount());
+  }
+
+  @Test
+  public void testFetchLeavesOutSlowSource() {
+    UserProfileAssembler assembler = new UserProfileAssembler(executor, 100);
+    Map<String, Callable<Object>> sources = new LinkedHashMap<>();
+    sources.put("fast", () -> Arrays.asList("fast"));
+    sources.put(
+        "slow",
+        () -> {
+          neverReleased.await();
+          return Arrays.asList("slow");
+        });
+    Set<String> degraded = new HashSet<>();
+    Map<String, Object> results = assembler.fetch("userId", sources, degraded);
+
+    assertEquals(Arrays.asList("fast"), results.get("fast"));
+    assertFalse(results.containsKey("slow"));
+    assertEquals(Collections.singleton("slow"), degraded);
+    assertEquals(1, assembler.getDegradedCount());
+  }
+
+  @Test
+  public void testFetchLeavesOutFailedSource() {
+    UserProfileAssembler assembler = new UserProfileAssembler(executor, 10000);
+    Map<String, Callable<Object>> sources = new LinkedHashMap<>();
+    sources.put(
+        "name",
+        () -> {
+          throw new IllegalStateException("read failed");
+        });
+    sources.put("empty", () -> null);
+    Set<String> degraded = new HashSet<>();
+    Map<String, Object> results = assembler.fetch("userId", sources, degraded);
+
+    assertFalse(results.containsKey("name"));
+    assertEquals(Collections.emptyList(), results.get("empty"));
+    assertEquals(Collections.singleton("name"), degraded);
+    assertEquals(1, assembler.getDegradedCount());
+  }
+}
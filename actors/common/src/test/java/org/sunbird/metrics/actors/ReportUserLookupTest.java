@@ -0,0 +1,79 @@
+package org.sunbird.metrics.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.common.models.util.JsonKey;
+
+public class ReportUserLookupTest {
+
+  private List<List<String>> searches;
+  private ReportUserLookup lookup;
+
+  @Before
+  public void setUp() {
+    searches = new ArrayList<>();
+    lookup =
+        new ReportUserLookup(
+            userIds -> {
+              searches.add(new ArrayList<>(userIds));
+              List<Map<String, Object>> users = new ArrayList<>();
+              for (String userId : userIds) {
+                if (!"unknown".equals(userId)) {
+                  Map<String, Object> user = new HashMap<>();
+                  user.put(JsonKey.USER_ID, userId);
+                  user.put(JsonKey.USERNAME, "name-" + userId);
+                  users.add(user);
+                }
+              }
+              return users;
+            },
+            2);
+  }
+
+  @Test
+  public void testEnrichSearchesDistinctUsersInChunks() {
+    List<Map<String, Object>> result =
+        lookup.enrich(Arrays.asList(row("u1"), row("u2"), row("u1"), row("u3")));
+
+    assertEquals(Arrays.asList(Arrays.asList("u1", "u2"), Arrays.asList("u3")), searches);
+    assertEquals(4, result.size());
+    assertEquals("name-u1", result.get(2).get(JsonKey.USERNAME));
+    assertEquals("content", result.get(3).get("contentName"));
+  }
+
+  @Test
+  public void testEnrichKeepsUsersForTheJob() {
+    lookup.enrich(Arrays.asList(row("u1"), row("unknown")));
+    List<Map<String, Object>> result = lookup.enrich(Arrays.asList(row("u1"), row("unknown")));
+
+    assertEquals(1, lookup.getSearchCount());
+    assertEquals("name-u1", result.get(0).get(JsonKey.USERNAME));
+    assertNull(result.get(1).get(JsonKey.USERNAME));
+  }
+
+  @Test
+  public void testEnrichKeepsRowsWithoutUser() {
+    Map<String, Object> row = new HashMap<>();
+    row.put("contentName", "content");
+
+    List<Map<String, Object>> result = lookup.enrich(Arrays.asList(row));
+
+    assertEquals(0, lookup.getSearchCount());
+    assertEquals(row, result.get(0));
+  }
+
+  private Map<String, Object> row(String userId) {
+    Map<String, Object> row = new HashMap<>();
+    row.put(JsonKey.USER_ID, userId);
+    row.put("contentName", "content");
+    return row;
+  }
+}
@@ -0,0 +1,165 @@
+package org.sunbird.ratelimit.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.ratelimit.dao.RateLimitDao;
+import org.sunbird.ratelimit.limiter.RateLimit;
+import org.sunbird.ratelimit.limiter.RateLimiter;
+
+public class LocalRateLimitTierTest {
+
+  private static final String KEY = "9999888898";
+  private static final String UNIT = "HOUR";
+  private static final int LIMIT = 3;
+
+  private RateLimitDao rateLimitDao;
+  private LocalRateLimitTier tier;
+  private final List<RateLimit> insertedRateLimits = new ArrayList<>();
+  private final RateLimiter[] limiters = {new TestRateLimiter()};
+
+  @Before
+  public void setUp() {
+    rateLimitDao = mock(RateLimitDao.class);
+    when(rateLimitDao.compareAndSetRateLimit(any(RateLimit.class), any()))
+        .thenAnswer(
+            invocation -> {
+              insertedRateLimits.add((RateLimit) invocation.getArguments()[0]);
+              return true;
+            });
+    tier = new LocalRateLimitTier(rateLimitDao, 0, 60000);
+  }
+
+  @Test
+  public void testThrottleByKeyReadsStoredCountOnce() {
+    when(rateLimitDao.getRateLimits(anyString())).thenReturn(getStoredRates(1));
+
+    tier.throttleByKey(KEY, limiters);
+    tier.throttleByKey(KEY, limiters);
+    try {
+      tier.throttleByKey(KEY, limiters);
+      fail();
+    } catch (ProjectCommonException e) {
+      assertEquals(ResponseCode.TOO_MANY_REQUESTS.getResponseCode(), e.getResponseCode());
+    }
+    verify(rateLimitDao, times(1)).getRateLimits(KEY);
+    verify(rateLimitDao, never()).compareAndSetRateLimit(any(RateLimit.class), any());
+  }
+
+  @Test
+  public void testSyncAddsLocalCountToStoredCount() {
+    when(rateLimitDao.getRateLimits(anyString())).thenReturn(Collections.emptyList());
+    tier.throttleByKey(KEY, limiters);
+    tier.throttleByKey(KEY, limiters);
+
+    // another instance took a token meanwhile
+    when(rateLimitDao.getRateLimits(anyString())).thenReturn(getStoredRates(1));
+    tier.sync();
+
+    assertEquals(1, insertedRateLimits.size());
+    assertEquals(3, (int) insertedRateLimits.get(0).getCount());
+    verify(rateLimitDao).compareAndSetRateLimit(any(RateLimit.class), eq(1));
+    try {
+      tier.throttleByKey(KEY, limiters);
+      fail();
+    } catch (ProjectCommonException e) {
+      assertEquals(ResponseCode.TOO_MANY_REQUESTS.getResponseCode(), e.getResponseCode());
+    }
+  }
+
+  @Test
+  public void testSyncReadsAgainWhenStoredCountChangedConcurrently() {
+    when(rateLimitDao.getRateLimits(anyString())).thenReturn(Collections.emptyList());
+    tier.throttleByKey(KEY, limiters);
+
+    // another instance writes the first count between the read and the write of this instance
+    when(rateLimitDao.compareAndSetRateLimit(any(RateLimit.class), (Integer) isNull()))
+        .thenAnswer(
+            invocation -> {
+              when(rateLimitDao.getRateLimits(anyString())).thenReturn(getStoredRates(1));
+              return false;
+            });
+    tier.sync();
+
+    assertEquals(1, insertedRateLimits.size());
+    assertEquals(2, (int) insertedRateLimits.get(0).getCount());
+    verify(rateLimitDao).compareAndSetRateLimit(any(RateLimit.class), eq(1));
+
+    // the count of this instance is kept after the sync
+    tier.throttleByKey(KEY, limiters);
+    try {
+      tier.throttleByKey(KEY, limiters);
+      fail();
+    } catch (ProjectCommonException e) {
+      assertEquals(ResponseCode.TOO_MANY_REQUESTS.getResponseCode(), e.getResponseCode());
+    }
+  }
+
+  @Test
+  public void testSyncKeepsLocalCountWhenWriteFails() {
+    when(rateLimitDao.getRateLimits(anyString())).thenReturn(Collections.emptyList());
+    when(rateLimitDao.compareAndSetRateLimit(any(RateLimit.class), any())).thenReturn(false);
+    tier.throttleByKey(KEY, limiters);
+    tier.sync();
+
+    verify(rateLimitDao, times(3))
+        .compareAndSetRateLimit(any(RateLimit.class), (Integer) isNull());
+    when(rateLimitDao.compareAndSetRateLimit(any(RateLimit.class), any()))
+        .thenAnswer(
+            invocation -> {
+              insertedRateLimits.add((RateLimit) invocation.getArguments()[0]);
+              return true;
+            });
+    tier.sync();
+
+    assertEquals(1, insertedRateLimits.size());
+    assertEquals(1, (int) insertedRateLimits.get(0).getCount());
+  }
+
+  private List<Map<String, Object>> getStoredRates(int count) {
+    Map<String, Object> rate = new HashMap<>();
+    rate.put(JsonKey.KEY, KEY);
+    rate.put(JsonKey.RATE_LIMIT_UNIT, UNIT);
+    rate.put(JsonKey.RATE, LIMIT);
+    rate.put(JsonKey.COUNT, count);
+    rate.put(JsonKey.TTL, 3500);
+    return Collections.singletonList(rate);
+  }
+
+  private static class TestRateLimiter implements RateLimiter {
+
+    @Override
+    public Integer getRateLimit() {
+      return LIMIT;
+    }
+
+    @Override
+    public int getTTL() {
+      return 3600;
+    }
+
+    @Override
+    public String name() {
+      return UNIT;
+    }
+  }
+}
@@ -17,6 +17,7 @@ import org.sunbird.learner.util.Util;
 import org.sunbird.location.dao.LocationDao;
 import org.sunbird.location.dao.impl.LocationDaoFactory;
 import org.sunbird.location.util.LocationRequestValidator;
+import org.sunbird.location.util.LocationTree;
 import org.sunbird.models.location.Location;
 import org.sunbird.models.location.apirequest.UpsertLocationRequest;
 
@@ -39,6 +40,7 @@ public class LocationActor extends BaseLocationActor {
   private Map<String, Integer> orderMap;
   private ObjectMapper mapper = new ObjectMapper();
   private LocationDao locationDao = LocationDaoFactory.getInstance();
+  private LocationTree locationTree = LocationTree.getInstance();
 
   @Override
   public void onReceive(Request request) throws Throwable {
@@ -103,6 +105,7 @@ public class LocationActor extends BaseLocationActor {
       locationRequest.setId(id);
       Location location = mapper.convertValue(locationRequest, Location.class);
       Response response = locationDao.create(location);
+      locationTree.put(location);
       sender().tell(response, self());
       ProjectLogger.log("Insert location data to ES");
       saveDataToES(mapper.convertValue(location, Map.class), JsonKey.INSERT);
@@ -118,6 +121,7 @@ public class LocationActor extends BaseLocationActor {
       validateUpsertLocnReq(locationRequest, JsonKey.UPDATE);
       Location location = mapper.convertValue(locationRequest, Location.class);
       Response response = locationDao.update(location);
+      locationTree.put(location);
       sender().tell(response, self());
       ProjectLogger.log("Update location data to ES");
       saveDataToES(mapper.convertValue(location, Map.class), JsonKey.UPDATE);
@@ -151,6 +155,7 @@ public class LocationActor extends BaseLocationActor {
       String locationId = (String) request.getRequest().get(JsonKey.LOCATION_ID);
       LocationRequestValidator.isLocationHasChild(locationId);
       Response response = locationDao.delete(locationId);
+      locationTree.remove(locationId);
       sender().tell(response, self());
       ProjectLogger.log("Delete location data from ES");
       deleteDataFromES(locationId);
@@ -194,7 +199,7 @@ public class LocationActor extends BaseLocationActor {
   public List<String> getValidatedRelatedLocationIds(List<String> codeList) {
     Set<String> locationIds = null;
     List<String> codes = new ArrayList<>(codeList);
-    List<Location> locationList = getSearchResult(JsonKey.CODE, codeList);
+    List<Location> locationList = getLocationsByCode(codeList);
     List<String> locationIdList = new ArrayList<>();
     if (CollectionUtils.isNotEmpty(locationList)) {
       if (locationList.size() != codes.size()) {
@@ -213,29 +218,8 @@ public class LocationActor extends BaseLocationActor {
     return locationIdList;
   }
 
-  private List<Location> getSearchResult(String param, Object value) {
-    Map<String, Object> filters = new HashMap<>();
-    Map<String, Object> searchRequestMap = new HashMap<>();
-    filters.put(param, value);
-    searchRequestMap.put(JsonKey.FILTERS, filters);
-    Response response = searchLocation(searchRequestMap);
-    if (response != null) {
-      List<Map<String, Object>> responseList =
-          (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
-      return responseList
-          .stream()
-          .map(s -> mapper.convertValue(s, Location.class))
-          .collect(Collectors.toList());
-    } else {
-      return new ArrayList<>();
-    }
-  }
-
-  private Location getLocation(String locationId) {
-    List<Location> locations = getSearchResult(JsonKey.ID, locationId);
-    if (locations.isEmpty()) return null;
-
-    return locations.get(0);
+  private List<Location> getLocationsByCode(List<String> codeList) {
+    return new ArrayList<>(locationTree.getByCodes(codeList).values());
   }
 
   private void throwInvalidParameterValueException(List<String> codeList) {
@@ -286,9 +270,9 @@ public class LocationActor extends BaseLocationActor {
     while (count > 0) {
       Location parent = null;
       if (getOrder(location.getType()) == 0 && StringUtils.isNotEmpty(location.getId())) {
-        parent = getLocation(location.getId());
+        parent = locationTree.getById(location.getId());
       } else if (StringUtils.isNotEmpty(location.getParentId())) {
-        parent = getLocation(location.getParentId());
+        parent = locationTree.getById(location.getParentId());
       }
       if (null != parent) {
         locationSet.add(parent);
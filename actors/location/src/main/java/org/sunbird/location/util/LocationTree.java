@@ -0,0 +1,290 @@
+package org.sunbird.location.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.location.dao.LocationDao;
+import org.sunbird.location.dao.impl.LocationDaoFactory;
+import org.sunbird.models.location.Location;
+
+/**
+ * In-memory copy of the location hierarchy, indexed by ID and by code. Parent lookups walk the
+ * parent IDs of the indexed locations instead of searching Elastic Search once per level.
+ *
+ * <p>The tree is loaded from the location table in the background and reloaded every {@code
+ * sunbird_location_tree_refresh_interval_minutes}. Locations created, updated or deleted through
+ * this instance are applied at once, also when made during a reload; changes made on other
+ * instances are seen after the next reload. A lookup missing the tree searches Elastic Search and
+ * adds the locations found.
+ */
+public class LocationTree {
+
+  private static final String REFRESH_INTERVAL = "sunbird_location_tree_refresh_interval_minutes";
+  private static final long DEFAULT_REFRESH_INTERVAL = 30;
+  private static final String RELOAD_EXECUTOR = "location_tree_reload";
+  private static final String KEYSPACE_NAME = "sunbird";
+  private static final String LOCATION_TABLE_NAME = "location";
+
+  private static volatile LocationTree instance;
+
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  private final CassandraOperation cassandraOperation;
+  private final LocationDao locationDao;
+  private final AtomicBoolean loading = new AtomicBoolean();
+  private final Object writeLock = new Object();
+  private volatile Index index = new Index();
+  private volatile boolean loaded;
+  // changes made while a reload reads the table, replayed over the reloaded index
+  private List<Consumer<Index>> reloadChanges;
+
+  /**
+   * @param cassandraOperation Cassandra operation reading the location table
+   * @param locationDao DAO searching the locations missing the tree
+   */
+  LocationTree(CassandraOperation cassandraOperation, LocationDao locationDao) {
+    this.cassandraOperation = cassandraOperation;
+    this.locationDao = locationDao;
+  }
+
+  public static LocationTree getInstance() {
+    if (instance == null) {
+      synchronized (LocationTree.class) {
+        if (instance == null) {
+          LocationTree tree =
+              new LocationTree(ServiceFactory.getInstance(), LocationDaoFactory.getInstance());
+          long interval = ConfigUtil.getLong(REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL);
+          ExecutorManager.getScheduledExecutor(RELOAD_EXECUTOR, 1)
+              .scheduleWithFixedDelay(tree::reload, 0, Math.max(interval, 1), TimeUnit.MINUTES);
+          instance = tree;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /** @return true once the location table has been loaded */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Get location with given ID, searched in Elastic Search if it is not indexed.
+   *
+   * @param id Location ID
+   * @return Location, null if it is not found
+   */
+  public Location getById(String id) {
+    if (null == id) {
+      return null;
+    }
+    Location location = index.byId.get(id);
+    if (null == location) {
+      List<Location> locations = search(JsonKey.ID, id);
+      putAll(locations);
+      location = locations.isEmpty() ? null : locations.get(0);
+    }
+    return location;
+  }
+
+  /**
+   * Get location with given code, searched in Elastic Search if it is not indexed.
+   *
+   * @param code Location code
+   * @return Location, null if it is not found
+   */
+  public Location getByCode(String code) {
+    return null == code ? null : getByCodes(Collections.singletonList(code)).get(code);
+  }
+
+  /**
+   * Get locations with given codes, the codes not indexed are searched in Elastic Search at once.
+   *
+   * @param codes Location codes
+   * @return Locations by code in the order of the codes, codes not found are left out
+   */
+  public Map<String, Location> getByCodes(Collection<String> codes) {
+    Map<String, Location> locations = new LinkedHashMap<>();
+    List<String> missingCodes = new ArrayList<>();
+    for (String code : codes) {
+      String id = index.idByCode.get(code);
+      Location location = null == id ? null : index.byId.get(id);
+      if (null != location) {
+        locations.put(code, location);
+      } else if (!missingCodes.contains(code)) {
+        missingCodes.add(code);
+        // keeps the order of the codes
+        locations.put(code, null);
+      }
+    }
+    if (!missingCodes.isEmpty()) {
+      List<Location> found = search(JsonKey.CODE, missingCodes);
+      putAll(found);
+      found.forEach(location -> locations.put(location.getCode(), location));
+      locations.values().removeIf(location -> null == location);
+    }
+    return locations;
+  }
+
+  /**
+   * Add or replace a location.
+   *
+   * @param location Location details, applied over the indexed location with the same ID
+   */
+  public void put(Location location) {
+    if (null == location || StringUtils.isBlank(location.getId())) {
+      return;
+    }
+    apply(target -> target.put(merge(target.byId.get(location.getId()), location)));
+  }
+
+  /**
+   * Add or replace locations.
+   *
+   * @param locations Locations found outside the tree
+   */
+  public void putAll(Collection<Location> locations) {
+    if (CollectionUtils.isNotEmpty(locations)) {
+      locations.forEach(this::put);
+    }
+  }
+
+  /**
+   * Remove a location.
+   *
+   * @param id Location ID
+   */
+  public void remove(String id) {
+    if (null != id) {
+      apply(target -> target.remove(id));
+    }
+  }
+
+  /** Rebuild the tree from the location table. */
+  @SuppressWarnings("unchecked")
+  public void reload() {
+    if (!loading.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (writeLock) {
+      reloadChanges = new ArrayList<>();
+    }
+    try {
+      long startTime = System.currentTimeMillis();
+      Response response = cassandraOperation.getAllRecords(KEYSPACE_NAME, LOCATION_TABLE_NAME);
+      List<Map<String, Object>> locations =
+          null == response ? null : (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (null == locations) {
+        ProjectLogger.log("LocationTree:reload: No locations read", LoggerEnum.WARN.name());
+        return;
+      }
+      Index newIndex = new Index();
+      for (Map<String, Object> location : locations) {
+        newIndex.put(mapper.convertValue(location, Location.class));
+      }
+      synchronized (writeLock) {
+        reloadChanges.forEach(change -> change.accept(newIndex));
+        index = newIndex;
+        loaded = true;
+      }
+      ProjectLogger.log(
+          "LocationTree:reload: Loaded "
+              + newIndex.byId.size()
+              + " locations in "
+              + (System.currentTimeMillis() - startTime)
+              + " ms",
+          LoggerEnum.INFO.name());
+    } catch (Exception e) {
+      ProjectLogger.log("LocationTree:reload: Failed to load locations", e);
+    } finally {
+      synchronized (writeLock) {
+        reloadChanges = null;
+      }
+      loading.set(false);
+    }
+  }
+
+  private void apply(Consumer<Index> change) {
+    synchronized (writeLock) {
+      change.accept(index);
+      if (null != reloadChanges) {
+        reloadChanges.add(change);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Location> search(String field, Object value) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(field, value);
+    Map<String, Object> searchRequest = new HashMap<>();
+    searchRequest.put(JsonKey.FILTERS, filters);
+    List<Location> locations = new ArrayList<>();
+    Response response = locationDao.search(searchRequest);
+    if (null != response && null != response.getResult().get(JsonKey.RESPONSE)) {
+      for (Map<String, Object> location :
+          (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE)) {
+        locations.add(mapper.convertValue(location, Location.class));
+      }
+    }
+    return locations;
+  }
+
+  private Location merge(Location current, Location location) {
+    if (null == current) {
+      return location;
+    }
+    Map<String, Object> merged = mapper.convertValue(current, Map.class);
+    Map<String, Object> update = mapper.convertValue(location, Map.class);
+    update.forEach(
+        (key, value) -> {
+          if (null != value) {
+            merged.put(key, value);
+          }
+        });
+    return mapper.convertValue(merged, Location.class);
+  }
+
+  /** Locations by ID and location IDs by code. */
+  private static class Index {
+    private final Map<String, Location> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> idByCode = new ConcurrentHashMap<>();
+
+    private synchronized void put(Location location) {
+      Location previous = byId.put(location.getId(), location);
+      if (null != previous && null != previous.getCode()) {
+        idByCode.remove(previous.getCode(), previous.getId());
+      }
+      if (null != location.getCode()) {
+        idByCode.put(location.getCode(), location.getId());
+      }
+    }
+
+    private synchronized void remove(String id) {
+      Location previous = byId.remove(id);
+      if (null != previous && null != previous.getCode()) {
+        idByCode.remove(previous.getCode(), id);
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package org.sunbird.location.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.location.dao.LocationDao;
+import org.sunbird.models.location.Location;
+
+public class LocationTreeTest {
+
+  private ObjectMapper mapper = new ObjectMapper();
+  private CassandraOperation cassandraOperation;
+  private LocationDao locationDao;
+  private LocationTree tree;
+
+  @Before
+  public void setUp() {
+    cassandraOperation = mock(CassandraOperation.class);
+    locationDao = mock(LocationDao.class);
+    when(locationDao.search(anyMap())).thenReturn(getResponse());
+    tree = new LocationTree(cassandraOperation, locationDao);
+  }
+
+  @Test
+  public void testPutReplacesCodeOfUpdatedLocation() {
+    tree.put(getLocation("id1", "code1", null));
+    tree.put(getLocation("id1", "code2", null));
+
+    assertNull(tree.getByCode("code1"));
+    assertEquals("id1", tree.getByCode("code2").getId());
+  }
+
+  @Test
+  public void testPutKeepsFieldsMissingInUpdate() {
+    tree.put(getLocation("id1", "code1", "parentId1"));
+    tree.put(getLocation("id1", null, null));
+
+    assertEquals("code1", tree.getById("id1").getCode());
+    assertEquals("parentId1", tree.getById("id1").getParentId());
+  }
+
+  @Test
+  public void testRemoveDropsCode() {
+    tree.put(getLocation("id1", "code1", null));
+    tree.remove("id1");
+
+    assertNull(tree.getById("id1"));
+    assertNull(tree.getByCode("code1"));
+  }
+
+  @Test
+  public void testGetByIdSearchesLocationNotIndexed() {
+    when(locationDao.search(anyMap()))
+        .thenReturn(getResponse(getLocationMap("id1", "code1", null)));
+
+    assertEquals("code1", tree.getById("id1").getCode());
+    assertEquals("code1", tree.getById("id1").getCode());
+    verify(locationDao, times(1)).search(anyMap());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGetByCodesSearchesOnlyCodesNotIndexed() {
+    tree.put(getLocation("id1", "code1", null));
+    when(locationDao.search(anyMap()))
+        .thenReturn(getResponse(getLocationMap("id2", "code2", null)));
+
+    Map<String, Location> locations = tree.getByCodes(Arrays.asList("code2", "code1", "code3"));
+
+    assertEquals(Arrays.asList("code2", "code1"), new ArrayList<>(locations.keySet()));
+    ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+    verify(locationDao).search(captor.capture());
+    Map<String, Object> filters = (Map<String, Object>) captor.getValue().get(JsonKey.FILTERS);
+    assertEquals(Arrays.asList("code2", "code3"), filters.get(JsonKey.CODE));
+    assertEquals("id2", tree.getByCode("code2").getId());
+  }
+
+  @Test
+  public void testGetByIdReturnsNullIfNotFound() {
+    assertNull(tree.getById("id1"));
+    assertNull(tree.getByCode("code1"));
+  }
+
+  @Test
+  public void testReloadReplacesIndex() {
+    tree.put(getLocation("id1", "code1", null));
+    when(cassandraOperation.getAllRecords(anyString(), anyString()))
+        .thenReturn(getResponse(getLocationMap("id2", "code2", null)));
+
+    tree.reload();
+
+    assertEquals("id2", tree.getByCode("code2").getId());
+    assertNull(tree.getById("id1"));
+  }
+
+  @Test
+  public void testReloadKeepsChangesMadeDuringReload() {
+    tree.put(getLocation("id2", "code2", null));
+    when(cassandraOperation.getAllRecords(anyString(), anyString()))
+        .thenAnswer(
+            invocation -> {
+              // the table was read before these changes
+              tree.put(getLocation("id1", "code1", null));
+              tree.remove("id2");
+              return getResponse(getLocationMap("id2", "code2", null));
+            });
+
+    tree.reload();
+
+    assertEquals("id1", tree.getByCode("code1").getId());
+    assertNull(tree.getById("id2"));
+  }
+
+  @SafeVarargs
+  private static Response getResponse(Map<String, Object>... locations) {
+    List<Map<String, Object>> list = new ArrayList<>(Arrays.asList(locations));
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, list);
+    return response;
+  }
+
+  private Location getLocation(String id, String code, String parentId) {
+    return mapper.convertValue(getLocationMap(id, code, parentId), Location.class);
+  }
+
+  private Map<String, Object> getLocationMap(String id, String code, String parentId) {
+    Map<String, Object> location = new HashMap<>();
+    location.put(JsonKey.ID, id);
+    location.put(JsonKey.CODE, code);
+    location.put(JsonKey.PARENT_ID, parentId);
+    return location;
+  }
+}
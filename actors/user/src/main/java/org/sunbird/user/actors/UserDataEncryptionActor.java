@@ -9,6 +9,7 @@ import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
+import org.sunbird.user.util.UserConstants;
 
 @ActorConfig(
   tasks = {"encryptUserData", "decryptUserData"},
@@ -46,6 +47,13 @@ public class UserDataEncryptionActor extends BaseActor {
     resp.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
     sender().tell(resp, self());
 
+    if (Boolean.TRUE.equals(actorMessage.getRequest().get(UserConstants.ALL_USERS))) {
+      Request backgroundRequest = new Request();
+      backgroundRequest.setOperation(backgroundOperation);
+      backgroundRequest.getRequest().put(UserConstants.ALL_USERS, true);
+      tellToAnother(backgroundRequest);
+      return;
+    }
     List<String> userIds = (List<String>) actorMessage.getRequest().get(JsonKey.USER_IDs);
     int size = userIds.size();
     int startIndex = 0;
@@ -0,0 +1,37 @@
+package org.sunbird.user.dao;
+
+import java.util.List;
+import java.util.Map;
+
+public interface UserEncryptionCheckpointDao {
+
+  /** Key of the IDs of the users that failed in the checkpoint details. */
+  String FAILED_IDS = "failed_ids";
+
+  /**
+   * Read the checkpoint of a full table encryption or decryption.
+   *
+   * @param operation Background operation being run (e.g. backgroundEncryption)
+   * @return Checkpoint details containing paging state, processed user count and IDs of the users
+   *     that failed, or null if no run is pending for the operation
+   */
+  Map<String, Object> read(String operation);
+
+  /**
+   * Save the checkpoint of a full table encryption or decryption.
+   *
+   * @param operation Background operation being run
+   * @param pagingState Cassandra paging state of the next page of user IDs, null once all pages
+   *     are processed
+   * @param count Number of users processed so far
+   * @param failedIds IDs of the users that failed so far
+   */
+  void save(String operation, String pagingState, int count, List<String> failedIds);
+
+  /**
+   * Delete the checkpoint once all users are processed without failure.
+   *
+   * @param operation Background operation being run
+   */
+  void delete(String operation);
+}
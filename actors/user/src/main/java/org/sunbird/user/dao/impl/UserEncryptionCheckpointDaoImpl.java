@@ -0,0 +1,60 @@
+package org.sunbird.user.dao.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.Util;
+import org.sunbird.user.dao.UserEncryptionCheckpointDao;
+
+public class UserEncryptionCheckpointDaoImpl implements UserEncryptionCheckpointDao {
+
+  private static final String TABLE_NAME = "user_encryption_checkpoint";
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static volatile UserEncryptionCheckpointDao userEncryptionCheckpointDao;
+
+  public static UserEncryptionCheckpointDao getInstance() {
+    if (userEncryptionCheckpointDao == null) {
+      synchronized (UserEncryptionCheckpointDaoImpl.class) {
+        if (userEncryptionCheckpointDao == null) {
+          userEncryptionCheckpointDao = new UserEncryptionCheckpointDaoImpl();
+        }
+      }
+    }
+    return userEncryptionCheckpointDao;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> read(String operation) {
+    Response response =
+        cassandraOperation.getRecordById(Util.KEY_SPACE_NAME, TABLE_NAME, operation);
+    List<Map<String, Object>> checkpoints =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isEmpty(checkpoints)) {
+      return null;
+    }
+    return checkpoints.get(0);
+  }
+
+  @Override
+  public void save(String operation, String pagingState, int count, List<String> failedIds) {
+    Map<String, Object> checkpoint = new HashMap<>();
+    checkpoint.put(JsonKey.ID, operation);
+    checkpoint.put(JsonKey.DATA, pagingState);
+    checkpoint.put(JsonKey.COUNT, count);
+    checkpoint.put(FAILED_IDS, failedIds);
+    checkpoint.put(JsonKey.UPDATED_DATE, ProjectUtil.getFormattedDate());
+    cassandraOperation.upsertRecord(Util.KEY_SPACE_NAME, TABLE_NAME, checkpoint);
+  }
+
+  @Override
+  public void delete(String operation) {
+    cassandraOperation.deleteRecord(Util.KEY_SPACE_NAME, TABLE_NAME, operation);
+  }
+}
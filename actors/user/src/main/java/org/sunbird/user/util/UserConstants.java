@@ -4,6 +4,7 @@ public final class UserConstants {
 
   public static final String SIGNUP_TYPE = "signupType";
   public static final String USER_TYPE = "userType";
+  public static final String ALL_USERS = "allUsers";
 
   private UserConstants() {}
 }
@@ -0,0 +1,451 @@
+package org.sunbird.user.util;
+
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.UserUtility;
+import org.sunbird.learner.util.Util;
+import org.sunbird.user.dao.UserEncryptionCheckpointDao;
+import org.sunbird.user.dao.impl.UserEncryptionCheckpointDaoImpl;
+import org.sunbird.user.service.UserEncryptionService;
+import org.sunbird.user.service.impl.UserEncryptionServiceImpl;
+
+/**
+ * Encrypts or decrypts the sensitive data of users page by page.
+ *
+ * <p>The users of a page are read in one query. For each user the fields to change are found and
+ * converted on a CPU bound pool, while the addresses are read and all rows written on an IO pool,
+ * so that conversions of some users overlap the reads and writes of others. Only the changed user
+ * and address columns are written, the addresses before the user, and writes are throttled to
+ * {@code sunbird_user_encryption_max_writes_per_second}. A run over the whole user table streams
+ * the user IDs with the driver paging state and saves the paging state of the next page once a page
+ * is converted and synced, so a stopped run resumes from the last completed page when started
+ * again. The IDs of the users that failed are saved with the checkpoint, which is kept after a run
+ * with failures so that the next run converts them again. Users already converted are skipped, so
+ * pages redone after a stop are not converted twice.
+ */
+public class UserDataEncryptionPipeline {
+
+  private static final String PAGE_SIZE = "sunbird_user_encryption_page_size";
+  private static final String MAX_WRITE_RATE = "sunbird_user_encryption_max_writes_per_second";
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int DEFAULT_MAX_WRITE_RATE = 200;
+  private static final String CPU_EXECUTOR = "user_encryption_cpu";
+  private static final String IO_EXECUTOR = "user_encryption_io";
+  private static final int IO_POOL_SIZE = 8;
+  private static final int QUEUE_SIZE = 1000;
+
+  private static volatile UserDataEncryptionPipeline instance;
+
+  private final CassandraOperation cassandraOperation;
+  private final UserEncryptionService userEncryptionService;
+  private final UserEncryptionCheckpointDao checkpointDao;
+  private final Util.DbInfo usrDbInfo;
+  private final Util.DbInfo addrDbInfo;
+  private final ExecutorService cpuExecutor;
+  private final ExecutorService ioExecutor;
+  private final int pageSize;
+  private final RateLimiter writeLimiter;
+  private final AtomicLong pageCount = new AtomicLong();
+  private final AtomicLong userCount = new AtomicLong();
+  private final AtomicLong skipCount = new AtomicLong();
+  private final AtomicLong addressCount = new AtomicLong();
+  private final AtomicLong writeCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong busyNanos = new AtomicLong();
+
+  /**
+   * @param cassandraOperation Cassandra operation reading and writing the rows
+   * @param userEncryptionService Service finding the fields to convert
+   * @param checkpointDao DAO of the checkpoints of full table runs
+   * @param usrDbInfo User table
+   * @param addrDbInfo Address table
+   * @param cpuExecutor Pool converting the fields
+   * @param ioExecutor Pool reading addresses and writing rows
+   * @param pageSize Number of users read at a time
+   * @param maxWriteRate Maximum number of rows written per second
+   */
+  UserDataEncryptionPipeline(
+      CassandraOperation cassandraOperation,
+      UserEncryptionService userEncryptionService,
+      UserEncryptionCheckpointDao checkpointDao,
+      Util.DbInfo usrDbInfo,
+      Util.DbInfo addrDbInfo,
+      ExecutorService cpuExecutor,
+      ExecutorService ioExecutor,
+      int pageSize,
+      double maxWriteRate) {
+    this.cassandraOperation = cassandraOperation;
+    this.userEncryptionService = userEncryptionService;
+    this.checkpointDao = checkpointDao;
+    this.usrDbInfo = usrDbInfo;
+    this.addrDbInfo = addrDbInfo;
+    this.cpuExecutor = cpuExecutor;
+    this.ioExecutor = ioExecutor;
+    this.pageSize = Math.max(pageSize, 1);
+    this.writeLimiter = RateLimiter.create(maxWriteRate > 0 ? maxWriteRate : Double.MAX_VALUE);
+  }
+
+  public static UserDataEncryptionPipeline getInstance() {
+    if (instance == null) {
+      synchronized (UserDataEncryptionPipeline.class) {
+        if (instance == null) {
+          instance =
+              new UserDataEncryptionPipeline(
+                  ServiceFactory.getInstance(),
+                  UserEncryptionServiceImpl.getInstance(),
+                  UserEncryptionCheckpointDaoImpl.getInstance(),
+                  Util.dbInfoMap.get(JsonKey.USER_DB),
+                  Util.dbInfoMap.get(JsonKey.ADDRESS_DB),
+                  ExecutorManager.getExecutor(
+                      CPU_EXECUTOR,
+                      Runtime.getRuntime().availableProcessors(),
+                      QUEUE_SIZE,
+                      true),
+                  ExecutorManager.getExecutor(IO_EXECUTOR, IO_POOL_SIZE, QUEUE_SIZE, true),
+                  ConfigUtil.getInt(PAGE_SIZE, DEFAULT_PAGE_SIZE),
+                  ConfigUtil.getInt(MAX_WRITE_RATE, DEFAULT_MAX_WRITE_RATE));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Convert the data of given users.
+   *
+   * @param userIds User IDs
+   * @param encrypt true to encrypt, false to decrypt
+   * @param onPage Called with the IDs of the users converted in each page
+   */
+  public void process(List<String> userIds, boolean encrypt, Consumer<List<String>> onPage) {
+    process(userIds, encrypt, onPage, new LinkedHashSet<>());
+  }
+
+  /**
+   * Convert the data of all users, resuming from the checkpoint of a previous run of the same
+   * operation. The users that failed in the previous run are converted again first; if the
+   * previous run had read all pages, only they are converted.
+   *
+   * @param operation Background operation, used as checkpoint key
+   * @param encrypt true to encrypt, false to decrypt
+   * @param onPage Called with the IDs of the users converted in each page
+   */
+  @SuppressWarnings("unchecked")
+  public void processAll(String operation, boolean encrypt, Consumer<List<String>> onPage) {
+    String pagingState = null;
+    int count = 0;
+    Set<String> failedIds = new LinkedHashSet<>();
+    Map<String, Object> checkpoint = checkpointDao.read(operation);
+    if (null != checkpoint) {
+      pagingState = (String) checkpoint.get(JsonKey.DATA);
+      count = null == checkpoint.get(JsonKey.COUNT) ? 0 : (int) checkpoint.get(JsonKey.COUNT);
+      List<String> previousFailedIds =
+          (List<String>) checkpoint.get(UserEncryptionCheckpointDao.FAILED_IDS);
+      ProjectLogger.log(
+          "UserDataEncryptionPipeline:processAll: Resuming "
+              + operation
+              + " after "
+              + count
+              + ", retrying "
+              + (null == previousFailedIds ? 0 : previousFailedIds.size())
+              + " failed users",
+          LoggerEnum.INFO.name());
+      if (CollectionUtils.isNotEmpty(previousFailedIds)) {
+        process(previousFailedIds, encrypt, onPage, failedIds);
+      }
+    }
+    if (null == checkpoint || StringUtils.isNotBlank(pagingState)) {
+      count = processPages(operation, encrypt, onPage, pagingState, count, failedIds);
+    }
+    if (failedIds.isEmpty()) {
+      checkpointDao.delete(operation);
+    } else {
+      // kept so that the next run converts the failed users again
+      checkpointDao.save(operation, null, count, new ArrayList<>(failedIds));
+      ProjectLogger.log(
+          "UserDataEncryptionPipeline:processAll: Failed to convert "
+              + failedIds.size()
+              + " users of "
+              + operation
+              + ", run it again to retry them",
+          LoggerEnum.WARN.name());
+    }
+    ProjectLogger.log(
+        "UserDataEncryptionPipeline:processAll: Completed "
+            + operation
+            + " total users = "
+            + count
+            + ", metrics = "
+            + getMetrics(),
+        LoggerEnum.INFO.name());
+  }
+
+  /** @return Page, user, address, write and failure counts and the throughput */
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    long users = userCount.get();
+    long nanos = busyNanos.get();
+    metrics.put("pages", pageCount.get());
+    metrics.put("users", users);
+    metrics.put("skipped", skipCount.get());
+    metrics.put("addresses", addressCount.get());
+    metrics.put("writes", writeCount.get());
+    metrics.put("failures", failureCount.get());
+    metrics.put("usersPerSecond", nanos == 0 ? 0 : users * 1000000000L / nanos);
+    return metrics;
+  }
+
+  private void process(
+      List<String> userIds,
+      boolean encrypt,
+      Consumer<List<String>> onPage,
+      Collection<String> failedIds) {
+    for (int from = 0; from < userIds.size(); from += pageSize) {
+      List<String> converted =
+          processPage(
+              userIds.subList(from, Math.min(from + pageSize, userIds.size())), encrypt, failedIds);
+      if (!converted.isEmpty()) {
+        onPage.accept(converted);
+      }
+    }
+  }
+
+  /** @return Number of users processed, including the users processed before the paging state */
+  private int processPages(
+      String operation,
+      boolean encrypt,
+      Consumer<List<String>> onPage,
+      String pagingState,
+      int count,
+      Collection<String> failedIds) {
+    Session session =
+        CassandraConnectionMngrFactory.getObject(
+                PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+            .getSession(usrDbInfo.getKeySpace());
+    do {
+      Statement statement =
+          QueryBuilder.select(JsonKey.ID).from(usrDbInfo.getKeySpace(), usrDbInfo.getTableName());
+      statement.setFetchSize(pageSize);
+      if (null != pagingState) {
+        statement.setPagingState(PagingState.fromString(pagingState));
+      }
+      ResultSet resultSet = session.execute(statement);
+      int available = resultSet.getAvailableWithoutFetching();
+      List<String> userIds = new ArrayList<>(available);
+      for (int i = 0; i < available; i++) {
+        userIds.add(resultSet.one().getString(JsonKey.ID));
+      }
+      PagingState nextPagingState = resultSet.getExecutionInfo().getPagingState();
+      pagingState = null == nextPagingState ? null : nextPagingState.toString();
+
+      if (!userIds.isEmpty()) {
+        List<String> converted = processPage(userIds, encrypt, failedIds);
+        count += userIds.size();
+        // synced before the checkpoint moves past the page
+        if (!converted.isEmpty()) {
+          onPage.accept(converted);
+        }
+        if (null != pagingState) {
+          checkpointDao.save(operation, pagingState, count, new ArrayList<>(failedIds));
+        }
+      }
+    } while (null != pagingState);
+    return count;
+  }
+
+  /**
+   * @param failedIds IDs of the users that failed are added to it
+   * @return IDs of the users converted
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> processPage(
+      List<String> userIds, boolean encrypt, Collection<String> failedIds) {
+    long startTime = System.nanoTime();
+    Response response =
+        cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), null, userIds);
+    List<Map<String, Object>> users = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isEmpty(users)) {
+      ProjectLogger.log(
+          "UserDataEncryptionPipeline:processPage: No user found among " + userIds.size(),
+          LoggerEnum.INFO.name());
+      return Collections.emptyList();
+    }
+
+    List<CompletableFuture<String>> futures = new ArrayList<>(users.size());
+    for (Map<String, Object> user : users) {
+      futures.add(
+          CompletableFuture.supplyAsync(() -> convertUser(user, encrypt), cpuExecutor)
+              .thenApplyAsync(this::readAddresses, ioExecutor)
+              .thenApplyAsync(change -> convertAddresses(change, encrypt), cpuExecutor)
+              .thenApplyAsync(this::write, ioExecutor));
+    }
+    List<String> converted = new ArrayList<>(users.size());
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        String userId = futures.get(i).join();
+        if (null != userId) {
+          converted.add(userId);
+        }
+      } catch (CompletionException e) {
+        failureCount.incrementAndGet();
+        failedIds.add((String) users.get(i).get(JsonKey.ID));
+        ProjectLogger.log(
+            "UserDataEncryptionPipeline:processPage: Failed to convert data of userId = "
+                + users.get(i).get(JsonKey.ID),
+            e.getCause());
+      }
+    }
+    pageCount.incrementAndGet();
+    userCount.addAndGet(converted.size());
+    busyNanos.addAndGet(System.nanoTime() - startTime);
+    ProjectLogger.log(
+        "UserDataEncryptionPipeline:processPage: Converted "
+            + converted.size()
+            + " of "
+            + userIds.size()
+            + " users, metrics = "
+            + getMetrics(),
+        LoggerEnum.INFO.name());
+    return converted;
+  }
+
+  private UserChange convertUser(Map<String, Object> user, boolean encrypt) {
+    List<String> fields =
+        encrypt
+            ? userEncryptionService.getDecryptedFields(user)
+            : userEncryptionService.getEncryptedFields(user);
+    if (CollectionUtils.isEmpty(fields)) {
+      skipCount.incrementAndGet();
+      return null;
+    }
+    Map<String, Object> record = new HashMap<>();
+    for (String field : fields) {
+      record.put(field, user.get(field));
+    }
+    try {
+      if (encrypt) {
+        UserUtility.encryptSpecificUserData(record, fields);
+      } else {
+        UserUtility.decryptSpecificUserData(record, fields);
+      }
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+    record.put(JsonKey.ID, user.get(JsonKey.ID));
+    return new UserChange(record);
+  }
+
+  @SuppressWarnings("unchecked")
+  private UserChange readAddresses(UserChange change) {
+    if (null != change) {
+      Response response =
+          cassandraOperation.getRecordsByProperty(
+              addrDbInfo.getKeySpace(),
+              addrDbInfo.getTableName(),
+              JsonKey.USER_ID,
+              change.user.get(JsonKey.ID));
+      List<Map<String, Object>> addresses =
+          (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+      if (null != addresses) {
+        change.addresses = addresses;
+      }
+    }
+    return change;
+  }
+
+  /**
+   * Convert the address columns not converted yet, an address may already be converted by a
+   * previous run that failed before writing the user.
+   */
+  private UserChange convertAddresses(UserChange change, boolean encrypt) {
+    if (null != change && !change.addresses.isEmpty()) {
+      List<Map<String, Object>> records = new ArrayList<>(change.addresses.size());
+      for (Map<String, Object> address : change.addresses) {
+        List<String> fields =
+            encrypt
+                ? userEncryptionService.getDecryptedAddressFields(address)
+                : userEncryptionService.getEncryptedAddressFields(address);
+        if (CollectionUtils.isEmpty(fields)) {
+          continue;
+        }
+        Map<String, Object> record = new HashMap<>();
+        for (String field : fields) {
+          record.put(field, address.get(field));
+        }
+        record.put(JsonKey.ID, address.get(JsonKey.ID));
+        records.add(record);
+      }
+      try {
+        if (encrypt) {
+          UserUtility.encryptUserAddressData(records);
+        } else {
+          UserUtility.decryptUserAddressData(records);
+        }
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+      change.addresses = records;
+    }
+    return change;
+  }
+
+  /**
+   * Write the addresses before the user, so that a user found converted by a later run has its
+   * addresses converted as well.
+   */
+  private String write(UserChange change) {
+    if (null == change) {
+      return null;
+    }
+    writeLimiter.acquire(1 + change.addresses.size());
+    for (Map<String, Object> address : change.addresses) {
+      cassandraOperation.updateRecord(
+          addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), address);
+    }
+    cassandraOperation.updateRecord(
+        usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), change.user);
+    writeCount.addAndGet(1 + change.addresses.size());
+    addressCount.addAndGet(change.addresses.size());
+    return (String) change.user.get(JsonKey.ID);
+  }
+
+  /** Changed columns of a user and the addresses of the user. */
+  private static final class UserChange {
+    private final Map<String, Object> user;
+    private List<Map<String, Object>> addresses = Collections.emptyList();
+
+    private UserChange(Map<String, Object> user) {
+      this.user = user;
+    }
+  }
+}
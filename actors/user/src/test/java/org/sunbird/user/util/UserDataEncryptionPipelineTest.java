@@ -0,0 +1,228 @@
+package org.sunbird.user.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.datasecurity.EncryptionService;
+import org.sunbird.learner.util.Util;
+import org.sunbird.user.dao.UserEncryptionCheckpointDao;
+import org.sunbird.user.service.UserEncryptionService;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({org.sunbird.common.models.util.datasecurity.impl.ServiceFactory.class})
+@PowerMockIgnore({"javax.management.*"})
+public class UserDataEncryptionPipelineTest {
+
+  private static final String OPERATION = "backgroundEncryption";
+  private static final String ADDRESS_LINE = "addressLine1";
+
+  private CassandraOperation cassandraOperation;
+  private UserEncryptionService userEncryptionService;
+  private UserEncryptionCheckpointDao checkpointDao;
+  private ExecutorService executor;
+  private UserDataEncryptionPipeline pipeline;
+
+  @Before
+  public void setUp() throws Exception {
+    PowerMockito.mockStatic(org.sunbird.common.models.util.datasecurity.impl.ServiceFactory.class);
+    EncryptionService encryptionService = mock(EncryptionService.class);
+    when(org.sunbird.common.models.util.datasecurity.impl.ServiceFactory
+            .getEncryptionServiceInstance(null))
+        .thenReturn(encryptionService);
+    when(encryptionService.encryptData(anyString())).thenReturn("encrypted");
+
+    cassandraOperation = mock(CassandraOperation.class);
+    userEncryptionService = mock(UserEncryptionService.class);
+    checkpointDao = mock(UserEncryptionCheckpointDao.class);
+    Util.DbInfo usrDbInfo = mock(Util.DbInfo.class);
+    when(usrDbInfo.getKeySpace()).thenReturn(JsonKey.SUNBIRD);
+    when(usrDbInfo.getTableName()).thenReturn(JsonKey.USER);
+    Util.DbInfo addrDbInfo = mock(Util.DbInfo.class);
+    when(addrDbInfo.getKeySpace()).thenReturn(JsonKey.SUNBIRD);
+    when(addrDbInfo.getTableName()).thenReturn(JsonKey.ADDRESS);
+    executor = Executors.newFixedThreadPool(2);
+    pipeline =
+        new UserDataEncryptionPipeline(
+            cassandraOperation,
+            userEncryptionService,
+            checkpointDao,
+            usrDbInfo,
+            addrDbInfo,
+            executor,
+            executor,
+            2,
+            0);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testProcessConvertsUsersPageByPage() {
+    mockUsers();
+    when(userEncryptionService.getDecryptedFields(Mockito.anyMap()))
+        .thenReturn(Arrays.asList(JsonKey.EMAIL));
+    List<List<String>> pages = new ArrayList<>();
+
+    pipeline.process(Arrays.asList("user1", "user2", "user3"), true, pages::add);
+
+    assertEquals(Arrays.asList(Arrays.asList("user1", "user2"), Arrays.asList("user3")), pages);
+    verify(cassandraOperation, times(2))
+        .getRecordsByIdsWithSpecifiedColumns(anyString(), eq(JsonKey.USER), any(), anyList());
+    verify(cassandraOperation, times(3))
+        .updateRecord(anyString(), eq(JsonKey.USER), Mockito.anyMap());
+    assertEquals(3L, pipeline.getMetrics().get("users"));
+  }
+
+  @Test
+  public void testProcessSkipsConvertedUsers() {
+    mockUsers();
+    when(userEncryptionService.getDecryptedFields(Mockito.anyMap()))
+        .thenReturn(Collections.emptyList());
+    List<List<String>> pages = new ArrayList<>();
+
+    pipeline.process(Arrays.asList("user1"), true, pages::add);
+
+    assertEquals(0, pages.size());
+    verify(cassandraOperation, never()).updateRecord(anyString(), anyString(), Mockito.anyMap());
+    assertEquals(1L, pipeline.getMetrics().get("skipped"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testProcessWritesAddressesNotConvertedBeforeUser() {
+    mockUsers();
+    when(userEncryptionService.getDecryptedFields(Mockito.anyMap()))
+        .thenReturn(Arrays.asList(JsonKey.EMAIL));
+    Response addresses = new Response();
+    addresses.put(JsonKey.RESPONSE, Arrays.asList(getAddress("addr1"), getAddress("addr2")));
+    when(cassandraOperation.getRecordsByProperty(
+            anyString(), eq(JsonKey.ADDRESS), eq(JsonKey.USER_ID), any()))
+        .thenReturn(addresses);
+    when(userEncryptionService.getDecryptedAddressFields(Mockito.anyMap()))
+        .thenAnswer(
+            invocation ->
+                "addr1".equals(((Map<String, Object>) invocation.getArguments()[0]).get(JsonKey.ID))
+                    ? Arrays.asList(ADDRESS_LINE)
+                    : Collections.emptyList());
+
+    pipeline.process(Arrays.asList("user1"), true, userIds -> {});
+
+    ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+    InOrder inOrder = Mockito.inOrder(cassandraOperation);
+    inOrder
+        .verify(cassandraOperation)
+        .updateRecord(anyString(), eq(JsonKey.ADDRESS), captor.capture());
+    inOrder
+        .verify(cassandraOperation)
+        .updateRecord(anyString(), eq(JsonKey.USER), Mockito.anyMap());
+    assertEquals("addr1", captor.getValue().get(JsonKey.ID));
+    assertEquals(
+        new HashSet<>(Arrays.asList(JsonKey.ID, ADDRESS_LINE)), captor.getValue().keySet());
+    assertEquals(1L, pipeline.getMetrics().get("addresses"));
+  }
+
+  @Test
+  public void testProcessAllRetriesOnlyFailedUsersOfCompletedRun() {
+    mockUsers();
+    when(userEncryptionService.getDecryptedFields(Mockito.anyMap()))
+        .thenReturn(Arrays.asList(JsonKey.EMAIL));
+    when(checkpointDao.read(OPERATION)).thenReturn(getCheckpoint("user1", "user2"));
+    List<List<String>> pages = new ArrayList<>();
+
+    pipeline.processAll(OPERATION, true, pages::add);
+
+    assertEquals(Arrays.asList(Arrays.asList("user1", "user2")), pages);
+    verify(checkpointDao).delete(OPERATION);
+    verify(checkpointDao, never()).save(anyString(), any(), Mockito.anyInt(), anyList());
+  }
+
+  @Test
+  public void testProcessAllKeepsCheckpointWithUsersFailedAgain() {
+    mockUsers();
+    when(userEncryptionService.getDecryptedFields(Mockito.anyMap()))
+        .thenReturn(Arrays.asList(JsonKey.EMAIL));
+    when(cassandraOperation.updateRecord(anyString(), eq(JsonKey.USER), Mockito.anyMap()))
+        .thenThrow(new IllegalStateException("write failed"));
+    when(checkpointDao.read(OPERATION)).thenReturn(getCheckpoint("user1"));
+    List<List<String>> pages = new ArrayList<>();
+
+    pipeline.processAll(OPERATION, true, pages::add);
+
+    assertEquals(0, pages.size());
+    verify(checkpointDao).save(OPERATION, null, 5, Arrays.asList("user1"));
+    verify(checkpointDao, never()).delete(anyString());
+  }
+
+  private Map<String, Object> getAddress(String id) {
+    Map<String, Object> address = new HashMap<>();
+    address.put(JsonKey.ID, id);
+    address.put(ADDRESS_LINE, "line of " + id);
+    return address;
+  }
+
+  private Map<String, Object> getCheckpoint(String... failedIds) {
+    Map<String, Object> checkpoint = new HashMap<>();
+    checkpoint.put(JsonKey.ID, OPERATION);
+    checkpoint.put(JsonKey.COUNT, 5);
+    checkpoint.put(UserEncryptionCheckpointDao.FAILED_IDS, Arrays.asList(failedIds));
+    return checkpoint;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockUsers() {
+    when(cassandraOperation.getRecordsByIdsWithSpecifiedColumns(
+            anyString(), eq(JsonKey.USER), any(), anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Map<String, Object>> users = new ArrayList<>();
+              for (String userId : (List<String>) invocation.getArguments()[3]) {
+                Map<String, Object> user = new HashMap<>();
+                user.put(JsonKey.ID, userId);
+                user.put(JsonKey.EMAIL, userId + "@domain.com");
+                users.add(user);
+              }
+              Response response = new Response();
+              response.put(JsonKey.RESPONSE, users);
+              return response;
+            });
+    Response addresses = new Response();
+    addresses.put(JsonKey.RESPONSE, new ArrayList<>());
+    when(cassandraOperation.getRecordsByProperty(
+            anyString(), eq(JsonKey.ADDRESS), eq(JsonKey.USER_ID), any()))
+        .thenReturn(addresses);
+  }
+}
@@ -0,0 +1,303 @@
+package org.sunbird.middleware;
+
+import akka.actor.ActorSystem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.sunbird.actor.service.SunbirdMWService;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionManager;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.SchedulerManager;
+import org.sunbird.learner.util.ShutdownManager;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Starts the middleware service in phases.
+ *
+ * <ul>
+ *   <li>connectivity: Cassandra connections of the sunbird and sunbird_plugin key spaces, checked
+ *       concurrently
+ *   <li>cacheWarmUp: one run of {@link DataCacheHandler}, concurrently with systemInit
+ *   <li>systemInit: connection of the Elastic Search client, which serves no request
+ *   <li>actorReadiness: start of the actor system and its routers, after the caches are warm so
+ *       that the first requests are served from them
+ *   <li>schedulers: Quartz jobs and periodic cache refresh
+ * </ul>
+ *
+ * Actor readiness waits for the warm-up for at most {@code
+ * sunbird_startup_cache_warmup_timeout_ms} from its start, after which the actors start with the
+ * caches still loading. The Quartz jobs send messages to the background router, so the schedulers
+ * start only once the actor system is started. The duration of each phase is logged and available
+ * through {@link #getPhaseTimings()}.
+ *
+ * <p>The service is stopped by one shutdown hook, see {@link #stop()}.
+ */
+public final class StartupOrchestrator {
+
+  public static final String CONNECTIVITY = "connectivity";
+  public static final String CACHE_WARM_UP = "cacheWarmUp";
+  public static final String SYSTEM_INIT = "systemInit";
+  public static final String ACTOR_READINESS = "actorReadiness";
+  public static final String SCHEDULERS = "schedulers";
+  public static final String STOP_INTAKE = "stopIntake";
+  public static final String STOP = "stop";
+  public static final String CLOSE_CONNECTIONS = "closeConnections";
+
+  private static final String WARM_UP_TIMEOUT = "sunbird_startup_cache_warmup_timeout_ms";
+  private static final long DEFAULT_WARM_UP_TIMEOUT = 120000;
+  private static final String STOP_INTAKE_TIMEOUT = "sunbird_stop_intake_timeout_ms";
+  private static final long DEFAULT_STOP_INTAKE_TIMEOUT = 10000;
+  private static final String STARTUP_EXECUTOR = "startup";
+  private static final List<String> KEY_SPACES =
+      Arrays.asList(JsonKey.SUNBIRD, JsonKey.SUNBIRD_PLUGIN);
+
+  private static volatile StartupOrchestrator instance;
+
+  private final List<Runnable> connectivityChecks;
+  private final Runnable cacheWarmUp;
+  private final Runnable systemInit;
+  private final Runnable actorInit;
+  private final Consumer<Boolean> schedulers;
+  private final Runnable stopIntake;
+  private final Runnable stopTasks;
+  private final Runnable closeConnections;
+  private final long warmUpTimeout;
+  private final Map<String, Long> phaseTimings =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+  private final AtomicBoolean stopped = new AtomicBoolean();
+
+  /**
+   * @param connectivityChecks Checks run concurrently in the connectivity phase
+   * @param cacheWarmUp Cache warm-up
+   * @param systemInit Initialisation serving no request, run during the cache warm-up
+   * @param actorInit Start of the actor system and its routers
+   * @param schedulers Start of the schedulers, given true if the caches are warm
+   * @param stopIntake Stop of the actor system, so that no request is taken any more
+   * @param stopTasks Stop tasks of the components holding writes not yet stored
+   * @param closeConnections Close of the Cassandra connections
+   * @param warmUpTimeout Time in milliseconds actor readiness waits for the cache warm-up
+   */
+  StartupOrchestrator(
+      List<Runnable> connectivityChecks,
+      Runnable cacheWarmUp,
+      Runnable systemInit,
+      Runnable actorInit,
+      Consumer<Boolean> schedulers,
+      Runnable stopIntake,
+      Runnable stopTasks,
+      Runnable closeConnections,
+      long warmUpTimeout) {
+    this.connectivityChecks = connectivityChecks;
+    this.cacheWarmUp = cacheWarmUp;
+    this.systemInit = systemInit;
+    this.actorInit = actorInit;
+    this.schedulers = schedulers;
+    this.stopIntake = stopIntake;
+    this.stopTasks = stopTasks;
+    this.closeConnections = closeConnections;
+    this.warmUpTimeout = warmUpTimeout;
+  }
+
+  /** @return Orchestrator of the middleware service, stopped by a shutdown hook */
+  public static StartupOrchestrator getInstance() {
+    if (instance == null) {
+      synchronized (StartupOrchestrator.class) {
+        if (instance == null) {
+          StartupOrchestrator orchestrator =
+              new StartupOrchestrator(
+                  KEY_SPACES
+                      .stream()
+                      .map(keySpace -> (Runnable) () -> Util.checkCassandraDbConnections(keySpace))
+                      .collect(Collectors.toList()),
+                  () -> new DataCacheHandler().run(),
+                  StartupOrchestrator::connectSearch,
+                  SunbirdMWService::init,
+                  StartupOrchestrator::startSchedulers,
+                  StartupOrchestrator::terminateActorSystem,
+                  ShutdownManager::stop,
+                  StartupOrchestrator::closeCassandra,
+                  ConfigUtil.getLong(WARM_UP_TIMEOUT, DEFAULT_WARM_UP_TIMEOUT));
+          Runtime.getRuntime().addShutdownHook(new Thread(orchestrator::stop));
+          instance = orchestrator;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /** Run all phases, returns once the actor system and the schedulers are started. */
+  public void start() {
+    long startTime = System.currentTimeMillis();
+    ExecutorService executor = ExecutorManager.getExecutor(STARTUP_EXECUTOR, 2, 2, true);
+
+    runPhase(CONNECTIVITY, () -> connect(executor));
+
+    long warmUpDeadline = System.currentTimeMillis() + warmUpTimeout;
+    CompletableFuture<Void> warmUp =
+        CompletableFuture.runAsync(() -> runPhase(CACHE_WARM_UP, cacheWarmUp), executor);
+    runPhase(SYSTEM_INIT, systemInit);
+    boolean cacheWarm = awaitWarmUp(warmUp, warmUpDeadline);
+
+    runPhase(ACTOR_READINESS, actorInit);
+    runPhase(SCHEDULERS, () -> schedulers.accept(cacheWarm));
+
+    ProjectLogger.log(
+        "StartupOrchestrator:start: Startup completed in "
+            + (System.currentTimeMillis() - startTime)
+            + " ms, phases = "
+            + getPhaseTimings(),
+        LoggerEnum.INFO.name());
+  }
+
+  /**
+   * Stop the service, only the first call stops it. The actor system is stopped first so that no
+   * request is taken any more, then the stop tasks registered with {@link ShutdownManager} write
+   * the buffered updates and the Cassandra connections are closed last. A failed step does not
+   * keep the next steps from running.
+   */
+  public void stop() {
+    if (!stopped.compareAndSet(false, true)) {
+      return;
+    }
+    runStopPhase(STOP_INTAKE, stopIntake);
+    runStopPhase(STOP, stopTasks);
+    runStopPhase(CLOSE_CONNECTIONS, closeConnections);
+  }
+
+  /** @return Duration in milliseconds of each completed phase */
+  public Map<String, Long> getPhaseTimings() {
+    synchronized (phaseTimings) {
+      return new LinkedHashMap<>(phaseTimings);
+    }
+  }
+
+  private void connect(ExecutorService executor) {
+    List<Callable<Object>> checks = new ArrayList<>();
+    for (Runnable check : connectivityChecks) {
+      checks.add(Executors.callable(check));
+    }
+    ExecutorManager.invokeAll(executor, checks);
+  }
+
+  private boolean awaitWarmUp(CompletableFuture<Void> warmUp, long deadline) {
+    try {
+      warmUp.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      ProjectLogger.log(
+          "StartupOrchestrator:awaitWarmUp: Cache warm-up not done in "
+              + warmUpTimeout
+              + " ms, starting actors with caches loading",
+          LoggerEnum.WARN.name());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      ProjectLogger.log("StartupOrchestrator:awaitWarmUp: Cache warm-up failed", e);
+    }
+    return false;
+  }
+
+  private void runStopPhase(String phase, Runnable task) {
+    try {
+      runPhase(phase, task);
+    } catch (Exception e) {
+      ProjectLogger.log("StartupOrchestrator:runStopPhase: Phase " + phase + " failed", e);
+    }
+  }
+
+  private void runPhase(String phase, Runnable task) {
+    long startTime = System.currentTimeMillis();
+    ProjectLogger.log(
+        "StartupOrchestrator:runPhase: Phase " + phase + " started", LoggerEnum.INFO.name());
+    try {
+      task.run();
+    } finally {
+      long duration = System.currentTimeMillis() - startTime;
+      phaseTimings.put(phase, duration);
+      ProjectLogger.log(
+          "StartupOrchestrator:runPhase: Phase " + phase + " took " + duration + " ms",
+          LoggerEnum.INFO.name());
+    }
+  }
+
+  private static void connectSearch() {
+    try {
+      if (!ElasticSearchUtil.healthCheck()) {
+        ProjectLogger.log(
+            "StartupOrchestrator:connectSearch: Elastic Search is not healthy",
+            LoggerEnum.WARN.name());
+      }
+    } catch (Exception e) {
+      ProjectLogger.log("StartupOrchestrator:connectSearch: Elastic Search is not reachable", e);
+    }
+  }
+
+  private static void startSchedulers(boolean cacheWarm) {
+    org.sunbird.common.quartz.scheduler.SchedulerManager.getInstance();
+    SchedulerManager.schedule(cacheWarm);
+  }
+
+  private static void terminateActorSystem() {
+    ActorSystem system = MWService.getSystem();
+    if (system == null) {
+      return;
+    }
+    long timeout = ConfigUtil.getLong(STOP_INTAKE_TIMEOUT, DEFAULT_STOP_INTAKE_TIMEOUT);
+    // terminate runs the coordinated shutdown of the actor system
+    system.terminate();
+    try {
+      system.getWhenTerminated().toCompletableFuture().get(timeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "StartupOrchestrator:terminateActorSystem: Actor system not terminated in "
+              + timeout
+              + " ms",
+          LoggerEnum.WARN.name());
+    }
+  }
+
+  private static void closeCassandra() {
+    CassandraConnectionManager connectionManager =
+        CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE));
+    for (String keySpace : KEY_SPACES) {
+      try {
+        // closing a closed cluster does nothing, key spaces may share one
+        connectionManager.getSession(keySpace).getCluster().close();
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "StartupOrchestrator:closeCassandra: Failed to close connection of " + keySpace, e);
+      }
+    }
+  }
+
+  /** Access to the actor system started by {@link SunbirdMWService#init()}. */
+  private static final class MWService extends SunbirdMWService {
+
+    private static ActorSystem getSystem() {
+      return system;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.sunbird.middleware;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class StartupOrchestratorTest {
+
+  private static final long WAIT = 5000;
+
+  private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch checksStarted = new CountDownLatch(2);
+  private final CountDownLatch systemInitStarted = new CountDownLatch(1);
+  private final CountDownLatch warmUpReleased = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    warmUpReleased.countDown();
+  }
+
+  @Test
+  public void testPhasesRunInOrderAndOverlap() {
+    warmUpReleased.countDown();
+    StartupOrchestrator orchestrator = getOrchestrator(WAIT);
+    orchestrator.start();
+
+    assertEquals(Arrays.asList("check", "check"), new ArrayList<>(events.subList(0, 2)));
+    assertTrue(events.containsAll(Arrays.asList("warmUp", "systemInit")));
+    assertEquals(
+        Arrays.asList("actorInit", "schedulers true"),
+        new ArrayList<>(events.subList(4, events.size())));
+    Map<String, Long> timings = orchestrator.getPhaseTimings();
+    assertTrue(
+        timings
+            .keySet()
+            .containsAll(
+                Arrays.asList(
+                    StartupOrchestrator.CONNECTIVITY,
+                    StartupOrchestrator.CACHE_WARM_UP,
+                    StartupOrchestrator.SYSTEM_INIT,
+                    StartupOrchestrator.ACTOR_READINESS,
+                    StartupOrchestrator.SCHEDULERS)));
+    assertTrue(timings.get(StartupOrchestrator.ACTOR_READINESS) >= 50);
+  }
+
+  @Test
+  public void testActorsStartWithoutWarmCachesAfterWarmUpTimeout() {
+    StartupOrchestrator orchestrator = getOrchestrator(100);
+    orchestrator.start();
+
+    assertEquals(
+        Arrays.asList("check", "check", "systemInit", "actorInit", "schedulers false"), events);
+    assertTrue(orchestrator.getPhaseTimings().containsKey(StartupOrchestrator.ACTOR_READINESS));
+  }
+
+  @Test
+  public void testStopRunsStepsInOrderOnce() {
+    StartupOrchestrator orchestrator = getOrchestrator(WAIT);
+    orchestrator.stop();
+    orchestrator.stop();
+
+    assertEquals(Arrays.asList("stopIntake", "stopTasks", "closeConnections"), events);
+    assertTrue(orchestrator.getPhaseTimings().containsKey(StartupOrchestrator.CLOSE_CONNECTIONS));
+  }
+
+  private StartupOrchestrator getOrchestrator(long warmUpTimeout) {
+    Runnable check =
+        () -> {
+          checksStarted.countDown();
+          // both checks are waited for only if they run concurrently
+          await(checksStarted);
+          events.add("check");
+        };
+    return new StartupOrchestrator(
+        Arrays.asList(check, check),
+        () -> {
+          // the warm-up runs during the system init
+          await(systemInitStarted);
+          await(warmUpReleased);
+          events.add("warmUp");
+        },
+        () -> {
+          systemInitStarted.countDown();
+          events.add("systemInit");
+        },
+        () -> {
+          sleep(50);
+          events.add("actorInit");
+        },
+        cacheWarm -> events.add("schedulers " + cacheWarm),
+        () -> {
+          events.add("stopIntake");
+          throw new IllegalStateException("actor system already terminated");
+        },
+        () -> events.add("stopTasks"),
+        () -> events.add("closeConnections"),
+        warmUpTimeout);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      if (!latch.await(WAIT, TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException("Not released in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}